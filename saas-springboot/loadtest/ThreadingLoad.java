@@ -0,0 +1,155 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The threading.js scenario for machines without k6: authenticated reads of /api/v1/users/me and
+ * /api/v1/users/me/sessions at a constant arrival rate, at most VUS in flight (further arrivals are
+ * counted as dropped, like k6's dropped_iterations). Same environment variables as threading.js,
+ * plus WARMUP: load sent at the same rate before the measured run, to get the JIT going.
+ * Needs Java 21; run with {@code java loadtest/ThreadingLoad.java <summary.json>}.
+ */
+public class ThreadingLoad {
+
+    private static final String BASE_URL = env("BASE_URL", "http://localhost:9090");
+    private static final int RATE = Integer.parseInt(env("RATE", "2000"));
+    private static final Duration DURATION = parseDuration(env("DURATION", "2m"));
+    private static final int VUS = Integer.parseInt(env("VUS", "1000"));
+    private static final Duration WARMUP = parseDuration(env("WARMUP", "0s"));
+    private static final Pattern TOKEN = Pattern.compile("\"jwtToken\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String token = login(client);
+
+        if (!WARMUP.isZero()) {
+            drive(client, token, WARMUP);
+        }
+        String summary = drive(client, token, DURATION);
+        System.out.print(summary);
+        if (args.length > 0) {
+            Files.writeString(Path.of(args[0]), summary);
+        }
+    }
+
+    /**
+     * @return a JSON summary of the run
+     */
+    private static String drive(HttpClient client, String token, Duration duration) {
+        long total = RATE * duration.toSeconds();
+        long[] latencies = new long[(int) total];
+        AtomicInteger completed = new AtomicInteger();
+        AtomicLong failed = new AtomicLong();
+        long dropped = 0;
+        Semaphore vus = new Semaphore(VUS);
+
+        long start = System.nanoTime();
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long due = start + i * 1_000_000_000L / RATE;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                if (!vus.tryAcquire()) {
+                    dropped++;
+                    continue;
+                }
+                requests.execute(() -> {
+                    try {
+                        long sent = System.nanoTime();
+                        boolean ok = get(client, token);
+                        latencies[completed.getAndIncrement()] = System.nanoTime() - sent;
+                        if (!ok) {
+                            failed.incrementAndGet();
+                        }
+                    } finally {
+                        vus.release();
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int n = completed.get();
+        long[] sorted = Arrays.copyOf(latencies, n);
+        Arrays.sort(sorted);
+        return String.format(Locale.ROOT,
+                "{\"rate\": %d, \"duration_s\": %.1f, \"vus\": %d, \"requests\": %d, \"dropped\": %d, " +
+                        "\"failed_rate\": %.5f, \"throughput_rps\": %.1f, \"latency_ms\": {\"avg\": %.2f, " +
+                        "\"p50\": %.2f, \"p90\": %.2f, \"p95\": %.2f, \"p99\": %.2f, \"max\": %.2f}}%n",
+                RATE, seconds, VUS, n, dropped, n == 0 ? 0 : (double) failed.get() / n, n / seconds,
+                n == 0 ? 0 : Arrays.stream(sorted).average().orElse(0) / 1e6,
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 95), percentile(sorted, 99),
+                n == 0 ? 0 : sorted[n - 1] / 1e6);
+    }
+
+    private static String login(HttpClient client) throws Exception {
+        String body = String.format("{\"email\": \"%s\", \"password\": \"%s\"}",
+                System.getenv("LOADTEST_EMAIL"), System.getenv("LOADTEST_PASSWORD"));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + "/api/v1/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher token = TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !token.find()) {
+            throw new IllegalStateException("Login failed with " + response.statusCode() + ": " + response.body());
+        }
+        return token.group(1);
+    }
+
+    private static boolean get(HttpClient client, String token) {
+        String path = ThreadLocalRandom.current().nextBoolean() ? "/api/v1/users/me" : "/api/v1/users/me/sessions";
+        try {
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + path))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(60))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 200;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    /** k6 style: "90s", "2m", "1h". */
+    private static Duration parseDuration(String value) {
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration " + value);
+        };
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+}
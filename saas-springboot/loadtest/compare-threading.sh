@@ -0,0 +1,83 @@
+#!/usr/bin/env bash
+# Runs the same load against the application in platform-thread and virtual-thread mode,
+# with the same Hikari pool size, and keeps a summary per mode under target/loadtest/.
+#
+# The load comes from k6 (loadtest/threading.js) when it is installed, otherwise from
+# loadtest/ThreadingLoad.java, which runs the same scenario with nothing but the JDK.
+#
+# Needs a Java 21 runtime (JAVA, default: java on the PATH) and either
+# - the usual database/Redis environment, the packaged jar, and an existing verified account in
+#   LOADTEST_EMAIL / LOADTEST_PASSWORD. Raise the admin setting rateLimit.general.requests
+#   (50000 per hour by default) first, or the run measures the rate limiter instead; or
+# - STANDALONE=true: the compiled classes (mvn compile) on an in-memory H2 database with in-memory
+#   caches, see loadtest/standalone.properties. The script registers the account and raises the
+#   rate limit itself. No request waits on a network round trip to MySQL or Redis, so this
+#   compares CPU-bound request handling only.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAVA=${JAVA:-java}
+JAR=${JAR:-target/saas-starter-0.0.1-SNAPSHOT.jar}
+POOL=${HIKARI_MAX_POOL_SIZE:-20}
+BASE_URL=${BASE_URL:-http://localhost:9090}
+STANDALONE=${STANDALONE:-false}
+export BASE_URL
+mkdir -p target/loadtest
+
+if [ "$STANDALONE" = true ]; then
+  export LOADTEST_EMAIL=${LOADTEST_EMAIL:-loadtest@example.com}
+  export LOADTEST_PASSWORD=${LOADTEST_PASSWORD:-Loadtest#2026}
+  mvn -q dependency:build-classpath -Dmdep.includeScope=test \
+    -Dmdep.excludeArtifactIds=spring-boot-devtools -Dmdep.outputFile=target/loadtest/classpath.txt
+fi
+
+# exec, so $app below is the JVM itself and kill stops it
+start_app() {
+  if [ "$STANDALONE" = true ]; then
+    SPRING_PROFILES_ACTIVE=loadtest exec "$JAVA" -cp "target/classes:$(cat target/loadtest/classpath.txt)" \
+      com.siyamuddin.blog.blogappapis.BlogAppApisApplication \
+      --spring.config.additional-location=file:loadtest/standalone.properties
+  else
+    exec "$JAVA" -jar "$JAR"
+  fi
+}
+
+login() {
+  curl -sf -X POST "$BASE_URL/api/v1/auth/login" -H 'Content-Type: application/json' \
+    -d "{\"email\": \"$LOADTEST_EMAIL\", \"password\": \"$LOADTEST_PASSWORD\"}" \
+    | sed 's/.*"jwtToken":"\([^"]*\)".*/\1/'
+}
+
+# Fresh in-memory database: create the account and lift the general rate limit
+prepare_standalone() {
+  curl -sf -X POST "$BASE_URL/api/v1/auth/register" -H 'Content-Type: application/json' \
+    -d "{\"name\": \"Load Test\", \"email\": \"$LOADTEST_EMAIL\", \"password\": \"$LOADTEST_PASSWORD\"}" > /dev/null
+  curl -sf -X PUT "$BASE_URL/api/v1/admin/settings/rate-limits" -H "Authorization: Bearer $(login)" \
+    -H 'Content-Type: application/json' \
+    -d '{"loginRequests": 10, "loginDuration": 1, "registrationRequests": 10, "registrationDuration": 1,
+         "passwordChangeRequests": 5, "passwordChangeDuration": 1, "generalRequests": 100000, "generalDuration": 1}' > /dev/null
+}
+
+for mode in platform virtual; do
+  enabled=false
+  [ "$mode" = virtual ] && enabled=true
+  echo "== $mode threads, Hikari pool $POOL"
+  APP_VIRTUAL_THREADS=$enabled HIKARI_MAX_POOL_SIZE=$POOL start_app > "target/loadtest/$mode.log" 2>&1 &
+  app=$!
+  trap 'kill $app 2>/dev/null || true' EXIT
+  until curl -sf "$BASE_URL/actuator/health" > /dev/null; do sleep 1; done
+  [ "$STANDALONE" = true ] && prepare_standalone
+
+  if command -v k6 > /dev/null; then
+    k6 run --summary-export "target/loadtest/$mode.json" loadtest/threading.js
+  else
+    "$JAVA" loadtest/ThreadingLoad.java "target/loadtest/$mode.json"
+  fi
+  curl -s "$BASE_URL/actuator/metrics/hikaricp.connections.pending" -H "Authorization: Bearer $(login)" \
+    > "target/loadtest/$mode-hikari-pending.json"
+
+  kill $app
+  wait $app 2>/dev/null || true
+done
+
+echo "Summaries written to target/loadtest/{platform,virtual}.json"
@@ -0,0 +1,35 @@
+// k6 scenario for comparing platform and virtual threads (see compare-threading.sh).
+// Authenticated reads that touch the JWT filter, rate limiter, Redis cache and MySQL.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:9090';
+
+export const options = {
+  scenarios: {
+    reads: {
+      executor: 'constant-arrival-rate',
+      rate: Number(__ENV.RATE || 2000),
+      timeUnit: '1s',
+      duration: __ENV.DURATION || '2m',
+      preAllocatedVUs: Number(__ENV.VUS || 1000),
+    },
+  },
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+export function setup() {
+  const res = http.post(`${BASE_URL}/api/v1/auth/login`,
+    JSON.stringify({ email: __ENV.LOADTEST_EMAIL, password: __ENV.LOADTEST_PASSWORD }),
+    { headers: { 'Content-Type': 'application/json' } });
+  check(res, { 'logged in': (r) => r.status === 200 });
+  return { token: res.json('jwtToken') };
+}
+
+export default function (data) {
+  const params = { headers: { Authorization: `Bearer ${data.token}` } };
+  const path = Math.random() < 0.5 ? '/api/v1/users/me' : '/api/v1/users/me/sessions';
+  check(http.get(`${BASE_URL}${path}`, params), { 'status 200': (r) => r.status === 200 });
+}
@@ -1,5 +1,8 @@
 package com.siyamuddin.blog.blogappapis;
 
+import com.siyamuddin.blog.blogappapis.Entity.User;
+import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.UserDto;
+import com.siyamuddin.blog.blogappapis.Services.Image.ProfilePhotoVariants;
 import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -14,6 +17,16 @@ public class BlogAppApisApplication {
 
 	@Bean
 	public ModelMapper modelMapper() {
-		return new ModelMapper();
+		ModelMapper modelMapper = new ModelMapper();
+		// Variant URLs are derived from the photo URL and the stored spec, not copied from a field
+		modelMapper.createTypeMap(User.class, UserDto.class)
+				.addMappings(mapping -> mapping.skip(UserDto::setProfileImageVariants))
+				.setPostConverter(context -> {
+					User user = context.getSource();
+					context.getDestination().setProfileImageVariants(
+							ProfilePhotoVariants.urls(user.getProfileImageUrl(), user.getProfileImageVariantSpec()));
+					return context.getDestination();
+				});
+		return modelMapper;
 	}
 }
@@ -1,39 +1,61 @@
 package com.siyamuddin.blog.blogappapis.Config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siyamuddin.blog.blogappapis.Security.Password.BoundedPasswordEncoder;
+import com.siyamuddin.blog.blogappapis.Security.Password.PasswordEncoderFactory;
+import com.siyamuddin.blog.blogappapis.Security.Password.PasswordHashCalibrator;
+import com.siyamuddin.blog.blogappapis.Security.Password.PasswordHashingExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
+@Slf4j
 @Configuration
 @EnableJpaAuditing
 @EnableAsync
 @EnableScheduling
-public class AppConfig {
+public class AppConfig implements AsyncConfigurer {
+    /**
+     * Delegating BCrypt encoder at the configured (or calibrated) cost. Hashing runs on the bounded
+     * {@link PasswordHashingExecutor} pool, so login/registration/password-change bursts cannot pin
+     * every request thread.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder()
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor,
+                                           PasswordHashCalibrator passwordHashCalibrator)
     {
-        return new BCryptPasswordEncoder();
+        int strength = passwordHashCalibrator.resolveBcryptStrength();
+        return new BoundedPasswordEncoder(PasswordEncoderFactory.delegating(strength), passwordHashingExecutor);
     }
     
-    @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(10);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("async-");
-        executor.initialize();
-        return executor;
+    /**
+     * There is deliberately no shared default pool: every {@code @Async} method names one of the
+     * executors in {@link AsyncExecutorConfig}. An unqualified one fails loudly instead of falling
+     * back to an unbounded thread-per-task executor.
+     */
+    @Override
+    public Executor getAsyncExecutor() {
+        return task -> {
+            throw new RejectedExecutionException("@Async methods must name an executor, e.g. @Async(\"" +
+                    AsyncExecutorConfig.EMAIL + "\")");
+        };
     }
-    
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> log.error("Async task {}.{} failed",
+                method.getDeclaringClass().getSimpleName(), method.getName(), ex);
+    }
+
     @Bean
     public ObjectMapper objectMapper() {
         return new ObjectMapper();
@@ -0,0 +1,118 @@
+package com.siyamuddin.blog.blogappapis.Config;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.AsyncProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * One bounded executor per kind of background work, selected with {@code @Async("<name>")}.
+ * Pools are sized independently (see {@link AsyncProperties}) so a degraded dependency only
+ * backs up the work that uses it. Each pool is published as Micrometer {@code executor.*} metrics
+ * tagged {@code name=<bean name>}, plus {@code app.async.rejected} for tasks turned away.
+ * With {@code spring.threads.virtual.enabled} the pools run their tasks on virtual threads; the
+ * pool sizes then only cap concurrency towards the dependency, not platform thread usage.
+ */
+@Slf4j
+@Configuration
+public class AsyncExecutorConfig {
+
+    public static final String AUDIT = "auditExecutor";
+    public static final String EMAIL = "emailExecutor";
+    public static final String STORAGE_CLEANUP = "storageCleanupExecutor";
+    public static final String METRICS = "metricsExecutor";
+    public static final String IMAGE = "imageExecutor";
+    public static final String OAUTH = "oauthExecutor";
+    public static final String UPLOAD = "uploadExecutor";
+
+    private final AsyncProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final boolean virtualThreads;
+
+    public AsyncExecutorConfig(AsyncProperties properties, MeterRegistry meterRegistry, Environment environment) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
+    @Bean(name = AUDIT)
+    public ThreadPoolTaskExecutor auditExecutor() {
+        return build(AUDIT, "async-audit-", properties.getAudit());
+    }
+
+    @Bean(name = EMAIL)
+    public ThreadPoolTaskExecutor emailExecutor() {
+        return build(EMAIL, "async-email-", properties.getEmail());
+    }
+
+    @Bean(name = STORAGE_CLEANUP)
+    public ThreadPoolTaskExecutor storageCleanupExecutor() {
+        return build(STORAGE_CLEANUP, "async-storage-", properties.getStorageCleanup());
+    }
+
+    @Bean(name = METRICS)
+    public ThreadPoolTaskExecutor metricsExecutor() {
+        return build(METRICS, "async-metrics-", properties.getMetrics());
+    }
+
+    @Bean(name = IMAGE)
+    public ThreadPoolTaskExecutor imageExecutor() {
+        return build(IMAGE, "async-image-", properties.getImage());
+    }
+
+    @Bean(name = OAUTH)
+    public ThreadPoolTaskExecutor oauthExecutor() {
+        return build(OAUTH, "async-oauth-", properties.getOauth());
+    }
+
+    @Bean(name = UPLOAD)
+    public ThreadPoolTaskExecutor uploadExecutor() {
+        return build(UPLOAD, "async-upload-", properties.getUpload());
+    }
+
+    ThreadPoolTaskExecutor build(String name, String threadNamePrefix, AsyncProperties.Pool pool) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pool.getCorePoolSize());
+        executor.setMaxPoolSize(pool.getMaxPoolSize());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setKeepAliveSeconds(pool.getKeepAliveSeconds());
+        executor.setThreadNamePrefix(threadNamePrefix);
+        if (virtualThreads) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory());
+        }
+        executor.setRejectedExecutionHandler(rejectionHandler(name, pool.getRejectionPolicy()));
+        // Let queued work finish on shutdown, but don't hold the JVM hostage to a hung dependency
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), name, Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+
+    private RejectedExecutionHandler rejectionHandler(String name, AsyncProperties.RejectionPolicy policy) {
+        Counter rejected = Counter.builder("app.async.rejected")
+                .description("Tasks rejected because the executor's threads and queue were full")
+                .tag("name", name)
+                .register(meterRegistry);
+        RejectedExecutionHandler delegate = switch (policy) {
+            case DISCARD -> (task, pool) -> log.debug("Executor {} is saturated, dropping task", name);
+            case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+            case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+        };
+        return (task, pool) -> {
+            rejected.increment();
+            delegate.rejectedExecution(task, pool);
+        };
+    }
+}
@@ -2,19 +2,21 @@ package com.siyamuddin.blog.blogappapis.Config;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.context.event.EventListener;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
+import com.siyamuddin.blog.blogappapis.Entity.AppSetting;
 import com.siyamuddin.blog.blogappapis.Services.AppSettingsService;
+import com.siyamuddin.blog.blogappapis.Services.Config.SettingsChangedEvent;
 
 import java.util.Properties;
 
 /**
  * Dynamic email configuration that refreshes when admin updates email settings.
- * Uses @RefreshScope to reload JavaMailSender bean when settings change.
+ * The JavaMailSender bean is a {@link ReloadableJavaMailSender}; when EMAIL settings change
+ * (on this node or elsewhere in the cluster) a new SMTP sender is built and swapped in.
  */
 @Slf4j
 @Configuration
@@ -25,8 +27,18 @@ public class DynamicEmailConfig {
     
     @Bean
     @Primary
-    @RefreshScope
-    public JavaMailSender javaMailSender() {
+    public ReloadableJavaMailSender javaMailSender() {
+        return new ReloadableJavaMailSender(buildMailSender());
+    }
+    
+    @EventListener
+    public void onSettingsChanged(SettingsChangedEvent event) {
+        if (event.affects(AppSetting.SettingCategory.EMAIL)) {
+            javaMailSender().reload(buildMailSender());
+        }
+    }
+    
+    private JavaMailSenderImpl buildMailSender() {
         JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
         
         if (appSettingsService != null) {
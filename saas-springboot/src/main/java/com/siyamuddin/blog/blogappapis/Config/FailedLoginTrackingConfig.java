@@ -0,0 +1,27 @@
+package com.siyamuddin.blog.blogappapis.Config;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.SecurityProperties;
+import com.siyamuddin.blog.blogappapis.Services.Security.FailedLoginTracker;
+import com.siyamuddin.blog.blogappapis.Services.Security.InMemoryFailedLoginTracker;
+import com.siyamuddin.blog.blogappapis.Services.Security.RedisFailedLoginTracker;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class FailedLoginTrackingConfig {
+
+    @Bean
+    public FailedLoginTracker failedLoginTracker(SecurityProperties securityProperties,
+                                                 ObjectProvider<StringRedisTemplate> redisTemplate) {
+        SecurityProperties.FailedLogin config = securityProperties.getFailedLogin();
+        Duration window = Duration.ofMinutes(config.getWindowMinutes());
+        return switch (config.getStore()) {
+            case REDIS -> new RedisFailedLoginTracker(redisTemplate.getObject(), window);
+            case MEMORY -> new InMemoryFailedLoginTracker(window);
+        };
+    }
+}
@@ -11,9 +11,16 @@ import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
 
 @Configuration
 public class FileStorageConfig {
@@ -21,7 +28,8 @@ public class FileStorageConfig {
     @Bean
     public FileStorageService fileStorageService(FileStorageProperties properties) {
         return switch (properties.getMode()) {
-            case S3 -> new S3FileStorageService(buildS3Client(properties), properties);
+            case S3 -> new S3FileStorageService(buildS3Client(properties), buildS3AsyncClient(properties),
+                    buildS3Presigner(properties), properties);
             case LOCAL -> new LocalFileStorageService(properties);
         };
     }
@@ -29,7 +37,11 @@ public class FileStorageConfig {
     private S3Client buildS3Client(FileStorageProperties properties) {
         FileStorageProperties.S3 s3 = properties.getS3();
         S3ClientBuilder builder = S3Client.builder()
-                .region(Region.of(s3.getRegion()));
+                .region(Region.of(s3.getRegion()))
+                .forcePathStyle(s3.isPathStyleAccess());
+        if (StringUtils.hasText(s3.getEndpoint())) {
+            builder.endpointOverride(URI.create(s3.getEndpoint()));
+        }
 
         AwsCredentialsProvider credentialsProvider = resolveCredentialsProvider(s3);
         builder.credentialsProvider(credentialsProvider);
@@ -37,6 +49,37 @@ public class FileStorageConfig {
         return builder.build();
     }
 
+    private S3AsyncClient buildS3AsyncClient(FileStorageProperties properties) {
+        FileStorageProperties.S3 s3 = properties.getS3();
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                .region(Region.of(s3.getRegion()))
+                .forcePathStyle(s3.isPathStyleAccess())
+                .credentialsProvider(resolveCredentialsProvider(s3))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(s3.getMultipart().getMaxConcurrency()));
+        if (StringUtils.hasText(s3.getEndpoint())) {
+            builder.endpointOverride(URI.create(s3.getEndpoint()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Signs direct-upload URLs locally; no request is made to S3 until the client uses the URL.
+     */
+    private S3Presigner buildS3Presigner(FileStorageProperties properties) {
+        FileStorageProperties.S3 s3 = properties.getS3();
+        S3Presigner.Builder builder = S3Presigner.builder()
+                .region(Region.of(s3.getRegion()))
+                .credentialsProvider(resolveCredentialsProvider(s3))
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(s3.isPathStyleAccess())
+                        .build());
+        if (StringUtils.hasText(s3.getEndpoint())) {
+            builder.endpointOverride(URI.create(s3.getEndpoint()));
+        }
+        return builder.build();
+    }
+
     private AwsCredentialsProvider resolveCredentialsProvider(FileStorageProperties.S3 s3) {
         if (StringUtils.hasText(s3.getAccessKey()) && StringUtils.hasText(s3.getSecretKey())) {
             return StaticCredentialsProvider.create(AwsBasicCredentials.create(s3.getAccessKey(), s3.getSecretKey()));
@@ -44,4 +87,3 @@ public class FileStorageConfig {
         return DefaultCredentialsProvider.create();
     }
 }
-
@@ -1,15 +1,53 @@
 package com.siyamuddin.blog.blogappapis.Config;
 
+import com.siyamuddin.blog.blogappapis.Config.Properties.OAuthProperties;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * HTTP client for OAuth provider calls: pooled keep-alive connections, and a timeout on every
+ * phase (pool wait, connect, response) so a hung provider fails the login instead of parking the
+ * request thread.
+ */
 @Configuration
 public class OAuthConfig {
-    
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient oauthHttpClient(OAuthProperties properties) {
+        OAuthProperties.Http http = properties.getHttp();
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                .setSocketTimeout(Timeout.of(http.getResponseTimeout()))
+                .build();
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(http.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.of(http.getResponseTimeout()))
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(http.getMaxConnections())
+                        .setMaxConnPerRoute(http.getMaxConnectionsPerRoute())
+                        .setDefaultConnectionConfig(connectionConfig)
+                        .build())
+                .setDefaultRequestConfig(requestConfig)
+                .evictIdleConnections(TimeValue.of(http.getIdleTimeout()))
+                .evictExpiredConnections()
+                // A retried token exchange would only fail on the already-used code
+                .disableAutomaticRetries()
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate oauthRestTemplate(CloseableHttpClient oauthHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(oauthHttpClient));
     }
 }
-
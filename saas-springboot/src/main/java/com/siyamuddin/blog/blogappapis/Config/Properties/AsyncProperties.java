@@ -0,0 +1,122 @@
+package com.siyamuddin.blog.blogappapis.Config.Properties;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sizing of the executors behind {@code @Async}.
+ * Each workload gets its own pool, so a slow SMTP server or storage backend can only exhaust
+ * the pool of the work that depends on it.
+ */
+@Slf4j
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.async")
+public class AsyncProperties {
+
+    /**
+     * Audit maintenance (startup retention pass).
+     */
+    private final Pool audit = new Pool(1, 1, 4, RejectionPolicy.DISCARD);
+    /**
+     * Email outbox dispatch. Every run drains everything due, so one running and one queued
+     * run is enough and further triggers are dropped.
+     */
+    private final Pool email = new Pool(1, 1, 1, RejectionPolicy.DISCARD);
+    /**
+     * Storage garbage collection runs and reconciliation scans. Each collector run drains every
+     * due tombstone, so further triggers while one is queued are dropped.
+     */
+    private final Pool storageCleanup = new Pool(2, 2, 2, RejectionPolicy.DISCARD);
+    /**
+     * Refresh of gauges that need a database query.
+     */
+    private final Pool metrics = new Pool(1, 1, 1, RejectionPolicy.DISCARD);
+    /**
+     * Resizing of uploaded images. CPU- and memory-heavy, so few threads; a dropped task only
+     * means clients keep using the original image.
+     */
+    private final Pool image = new Pool(1, 2, 100, RejectionPolicy.DISCARD);
+    /**
+     * Background refresh of OAuth provider signing keys. A refresh replaces the whole key set,
+     * so one running and one queued is plenty.
+     */
+    private final Pool oauth = new Pool(1, 1, 1, RejectionPolicy.DISCARD);
+    /**
+     * The end of a profile photo upload once the storage backend has acknowledged the file: the
+     * content-addressing claim and the photo replacement, both short database transactions. A
+     * rejected task fails the upload with 503.
+     */
+    private final Pool upload = new Pool(4, 16, 100, RejectionPolicy.ABORT);
+
+    @Getter
+    @Setter
+    public static class Pool {
+        private Integer corePoolSize;
+        private Integer maxPoolSize;
+        /**
+         * Tasks waiting for a thread; threads above the core size are only started once this is full.
+         */
+        private Integer queueCapacity;
+        private Integer keepAliveSeconds = 60;
+        /**
+         * What happens to a task submitted while every thread is busy and the queue is full.
+         */
+        private RejectionPolicy rejectionPolicy;
+
+        public Pool() {
+        }
+
+        Pool(int corePoolSize, int maxPoolSize, int queueCapacity, RejectionPolicy rejectionPolicy) {
+            this.corePoolSize = corePoolSize;
+            this.maxPoolSize = maxPoolSize;
+            this.queueCapacity = queueCapacity;
+            this.rejectionPolicy = rejectionPolicy;
+        }
+    }
+
+    public enum RejectionPolicy {
+        /** Drop the task and count it; for work a later run or reconciliation picks up. */
+        DISCARD,
+        /** Throw {@link java.util.concurrent.RejectedExecutionException} to the caller. */
+        ABORT,
+        /** Run the task on the submitting thread, slowing the producer down. */
+        CALLER_RUNS
+    }
+
+    @PostConstruct
+    public void validate() {
+        validate("audit", audit);
+        validate("email", email);
+        validate("storage-cleanup", storageCleanup);
+        validate("metrics", metrics);
+        validate("image", image);
+        validate("oauth", oauth);
+        validate("upload", upload);
+        log.info("Async executor properties validated successfully");
+    }
+
+    private static void validate(String name, Pool pool) {
+        String prefix = "app.async." + name;
+        if (pool.getCorePoolSize() == null || pool.getCorePoolSize() < 1) {
+            throw new IllegalStateException(prefix + ".core-pool-size must be at least 1");
+        }
+        if (pool.getMaxPoolSize() == null || pool.getMaxPoolSize() < pool.getCorePoolSize()) {
+            throw new IllegalStateException(prefix + ".max-pool-size must be at least core-pool-size");
+        }
+        if (pool.getQueueCapacity() == null || pool.getQueueCapacity() < 0) {
+            throw new IllegalStateException(prefix + ".queue-capacity must be non-negative");
+        }
+        if (pool.getKeepAliveSeconds() == null || pool.getKeepAliveSeconds() < 0) {
+            throw new IllegalStateException(prefix + ".keep-alive-seconds must be non-negative");
+        }
+        if (pool.getRejectionPolicy() == null) {
+            throw new IllegalStateException(prefix + ".rejection-policy must be set");
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.siyamuddin.blog.blogappapis.Config.Properties;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Audit pipeline configuration.
+ * Events are published into a bounded ring buffer and written to {@code audit_log}
+ * in multi-row batches by a single writer thread.
+ */
+@Slf4j
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.audit")
+public class AuditProperties {
+    /**
+     * Ring buffer capacity. Rounded up to the next power of two.
+     */
+    private Integer bufferSize = 8192;
+    /**
+     * Maximum rows per INSERT statement.
+     */
+    private Integer batchSize = 500;
+    /**
+     * Maximum time an event waits in the buffer before a partial batch is flushed.
+     */
+    private Long flushIntervalMillis = 200L;
+    /**
+     * What publishers do when the buffer is full.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.SPILL;
+    /**
+     * With BLOCK, how long a publisher waits for space before the event is dropped.
+     */
+    private Long blockTimeoutMillis = 100L;
+    private final Spool spool = new Spool();
+    private final Retention retention = new Retention();
+    private final Rollup rollup = new Rollup();
+
+    public enum OverflowPolicy {
+        /** Wait up to block-timeout-millis for space, then drop. */
+        BLOCK,
+        /** Drop the event and count it. */
+        DROP,
+        /** Append the event to the local spool; it is replayed into the database later. */
+        SPILL
+    }
+
+    @Getter
+    @Setter
+    public static class Spool {
+        /**
+         * Directory holding spool segment files. Must be on local, persistent disk.
+         */
+        private String directory = "./data/audit-spool";
+        /**
+         * Size at which the active segment is sealed and a new one started.
+         */
+        private Long segmentBytes = 16L * 1024 * 1024;
+        /**
+         * How often the replayer drains sealed segments or probes the database while it is unhealthy.
+         */
+        private Long replayIntervalMillis = 5000L;
+    }
+
+    @Getter
+    @Setter
+    public static class Retention {
+        /**
+         * Enable the nightly retention job.
+         */
+        private Boolean enabled = true;
+        /**
+         * Raw audit rows older than this are removed. On a partitioned table whole monthly
+         * partitions are dropped once every row in them is past retention.
+         */
+        private Integer days = 365;
+        /**
+         * Monthly partitions kept created ahead of the current month.
+         */
+        private Integer partitionsAhead = 3;
+        /**
+         * Rows per DELETE when the table is not partitioned.
+         */
+        private Integer deleteChunkSize = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Rollup {
+        /**
+         * Enable the incremental per-hour/per-day rollup job.
+         */
+        private Boolean enabled = true;
+        /**
+         * Delay between rollup runs. Rows are rolled up one run after they are first seen,
+         * giving in-flight inserts this long to commit.
+         */
+        private Long intervalMillis = 60000L;
+        /**
+         * Upper bound on audit ids folded in by one run.
+         */
+        private Integer maxRowsPerRun = 100000;
+        private Integer hourlyRetentionDays = 90;
+        private Integer dailyRetentionDays = 730;
+    }
+
+    @PostConstruct
+    public void validate() {
+        if (bufferSize == null || bufferSize < 2) {
+            throw new IllegalStateException("app.audit.buffer-size must be at least 2");
+        }
+        if (batchSize == null || batchSize <= 0) {
+            throw new IllegalStateException("app.audit.batch-size must be greater than 0");
+        }
+        if (flushIntervalMillis == null || flushIntervalMillis <= 0) {
+            throw new IllegalStateException("app.audit.flush-interval-millis must be greater than 0");
+        }
+        if (blockTimeoutMillis == null || blockTimeoutMillis < 0) {
+            throw new IllegalStateException("app.audit.block-timeout-millis must be non-negative");
+        }
+        if (spool.getDirectory() == null || spool.getDirectory().isBlank()) {
+            throw new IllegalStateException("app.audit.spool.directory must be set");
+        }
+        if (spool.getSegmentBytes() == null || spool.getSegmentBytes() < 4096) {
+            throw new IllegalStateException("app.audit.spool.segment-bytes must be at least 4096");
+        }
+        if (spool.getReplayIntervalMillis() == null || spool.getReplayIntervalMillis() <= 0) {
+            throw new IllegalStateException("app.audit.spool.replay-interval-millis must be greater than 0");
+        }
+        if (retention.getDays() == null || retention.getDays() <= 0) {
+            throw new IllegalStateException("app.audit.retention.days must be greater than 0");
+        }
+        if (retention.getPartitionsAhead() == null || retention.getPartitionsAhead() < 1) {
+            throw new IllegalStateException("app.audit.retention.partitions-ahead must be at least 1");
+        }
+        if (retention.getDeleteChunkSize() == null || retention.getDeleteChunkSize() <= 0) {
+            throw new IllegalStateException("app.audit.retention.delete-chunk-size must be greater than 0");
+        }
+        if (rollup.getIntervalMillis() == null || rollup.getIntervalMillis() <= 0) {
+            throw new IllegalStateException("app.audit.rollup.interval-millis must be greater than 0");
+        }
+        if (rollup.getMaxRowsPerRun() == null || rollup.getMaxRowsPerRun() <= 0) {
+            throw new IllegalStateException("app.audit.rollup.max-rows-per-run must be greater than 0");
+        }
+        if (rollup.getHourlyRetentionDays() == null || rollup.getHourlyRetentionDays() <= 0
+                || rollup.getDailyRetentionDays() == null || rollup.getDailyRetentionDays() <= 0) {
+            throw new IllegalStateException("app.audit.rollup retention days must be greater than 0");
+        }
+        log.info("Audit pipeline configured: buffer {}, batch {}, flush {} ms, overflow {}",
+                bufferSize, batchSize, flushIntervalMillis, overflowPolicy);
+    }
+}
@@ -1,5 +1,6 @@
 package com.siyamuddin.blog.blogappapis.Config.Properties;
 
+import jakarta.annotation.PostConstruct;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -15,5 +16,62 @@ public class EmailProperties {
     private String verificationBaseUrl = "http://localhost:9090/api/v1/auth/verify-email";
     private String passwordResetBaseUrl = "http://localhost:9090/api/v1/auth/reset-password";
     private Boolean enabled = true;
+    private final Outbox outbox = new Outbox();
+
+    /**
+     * Delivery of queued emails from the {@code email_outbox} table.
+     */
+    @Getter
+    @Setter
+    public static class Outbox {
+        /**
+         * Delay between dispatcher runs; each run drains everything that is due.
+         */
+        private Long pollIntervalMillis = 1000L;
+        /**
+         * Messages claimed and sent over one SMTP connection.
+         */
+        private Integer batchSize = 50;
+        /**
+         * Attempts before a message is marked FAILED.
+         */
+        private Integer maxAttempts = 8;
+        /**
+         * Delay before the first retry; doubles per attempt up to max-backoff-millis.
+         */
+        private Long initialBackoffMillis = 10_000L;
+        private Long maxBackoffMillis = 3_600_000L;
+        /**
+         * Claimed messages not finished within this time (node crashed mid-batch) are released.
+         */
+        private Long claimTimeoutMillis = 300_000L;
+        /**
+         * Sent messages are kept this long, then purged.
+         */
+        private Integer sentRetentionDays = 7;
+    }
+
+    @PostConstruct
+    public void validate() {
+        if (outbox.getPollIntervalMillis() == null || outbox.getPollIntervalMillis() <= 0) {
+            throw new IllegalStateException("app.email.outbox.poll-interval-millis must be greater than 0");
+        }
+        if (outbox.getBatchSize() == null || outbox.getBatchSize() <= 0) {
+            throw new IllegalStateException("app.email.outbox.batch-size must be greater than 0");
+        }
+        if (outbox.getMaxAttempts() == null || outbox.getMaxAttempts() <= 0) {
+            throw new IllegalStateException("app.email.outbox.max-attempts must be greater than 0");
+        }
+        if (outbox.getInitialBackoffMillis() == null || outbox.getInitialBackoffMillis() <= 0
+                || outbox.getMaxBackoffMillis() == null || outbox.getMaxBackoffMillis() < outbox.getInitialBackoffMillis()) {
+            throw new IllegalStateException("app.email.outbox backoff must be positive with max-backoff-millis >= initial-backoff-millis");
+        }
+        if (outbox.getClaimTimeoutMillis() == null || outbox.getClaimTimeoutMillis() <= 0) {
+            throw new IllegalStateException("app.email.outbox.claim-timeout-millis must be greater than 0");
+        }
+        if (outbox.getSentRetentionDays() == null || outbox.getSentRetentionDays() < 0) {
+            throw new IllegalStateException("app.email.outbox.sent-retention-days must be non-negative");
+        }
+    }
 }
 
@@ -6,8 +6,12 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.util.List;
+
 /**
  * Configuration holder for file storage.
  * Supports switching between local disk and S3 via {@code filestorage.mode}.
@@ -19,10 +23,15 @@ import org.springframework.util.StringUtils;
 @ConfigurationProperties(prefix = "filestorage")
 public class FileStorageProperties {
 
+    private static final DataSize MIN_PART_SIZE = DataSize.ofMegabytes(5);
+    private static final int MAX_DELETE_BATCH = 1000;
+
     private StorageMode mode = StorageMode.LOCAL;
     private final Local local = new Local();
     private final S3 s3 = new S3();
     private final Cleanup cleanup = new Cleanup();
+    private final Upload upload = new Upload();
+    private final ContentAddressing contentAddressing = new ContentAddressing();
 
     @Getter
     @Setter
@@ -33,9 +42,33 @@ public class FileStorageProperties {
         private String basePath = "uploads";
 
         /**
-         * Public URI prefix exposed through {@link org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry}.
+         * Public URI prefix the stored files are served under (see {@code LocalFileRequestHandler}).
          */
         private String publicUriPrefix = "/uploads";
+        private final Serving serving = new Serving();
+    }
+
+    /**
+     * How files under the public URI prefix are served in local mode.
+     */
+    @Getter
+    @Setter
+    public static class Serving {
+        /**
+         * Cache lifetime of files whose name carries a UUID or content digest. Such a name is never
+         * reused for other content, so clients and CDNs may keep them without revalidating.
+         * Other files are served with {@code no-cache} and revalidated through their ETag.
+         */
+        private Duration immutableMaxAge = Duration.ofDays(365);
+        /**
+         * Responses of at least this size are handed to the servlet container's sendfile support
+         * (kernel zero-copy) when it has one; smaller ones are cheaper to write directly.
+         */
+        private DataSize sendfileThreshold = DataSize.ofKilobytes(48);
+        /**
+         * Content digests (ETags) remembered in memory, so a file is hashed once rather than per request.
+         */
+        private Integer etagCacheSize = 10_000;
     }
 
     @Getter
@@ -53,15 +86,123 @@ public class FileStorageProperties {
          * Folder inside the bucket under which files will be stored. Helps namespacing per environment.
          */
         private String rootFolder = "uploads";
+        /**
+         * Optional endpoint override for S3-compatible stores (MinIO, LocalStack). Empty means AWS.
+         */
+        private String endpoint;
+        /**
+         * Address buckets as {@code endpoint/bucket/key} instead of {@code bucket.endpoint/key}.
+         * Most S3-compatible stores need this.
+         */
+        private boolean pathStyleAccess = false;
+        /**
+         * How long a presigned direct-upload URL stays valid.
+         */
+        private Integer presignExpirySeconds = 300;
+        private final Multipart multipart = new Multipart();
+    }
+
+    /**
+     * Uploads go through the async S3 client; objects above the threshold are sent as a multipart
+     * upload with parts in flight in parallel.
+     */
+    @Getter
+    @Setter
+    public static class Multipart {
+        /**
+         * Objects of known size up to this are sent with a single PUT.
+         */
+        private DataSize threshold = DataSize.ofMegabytes(16);
+        /**
+         * Size of each part; S3 requires at least 5MB for all but the last part.
+         */
+        private DataSize partSize = DataSize.ofMegabytes(8);
+        /**
+         * Upload bytes buffered or on the wire at once, across all uploads. Readers block once it is used up.
+         */
+        private DataSize maxInFlight = DataSize.ofMegabytes(64);
+        /**
+         * Connections the async HTTP client opens to S3.
+         */
+        private Integer maxConcurrency = 32;
     }
 
+    /**
+     * Files no longer referenced are recorded as tombstones in {@code storage_tombstone} and
+     * deleted in batches by {@code StorageGarbageCollector}.
+     */
     @Getter
     @Setter
     public static class Cleanup {
         /**
-         * Whether old files should be deleted (applies when replacing profile photos).
+         * Whether old files should be deleted (applies when replacing profile photos and deleting users).
+         */
+        private boolean enabled = true;
+        /**
+         * Delay between collector runs; each run drains everything that is due.
+         */
+        private Long pollIntervalMillis = 30_000L;
+        /**
+         * Tombstones claimed and deleted together; S3 takes at most 1000 keys per DeleteObjects call.
+         */
+        private Integer batchSize = MAX_DELETE_BATCH;
+        /**
+         * Attempts before a tombstone is marked FAILED.
+         */
+        private Integer maxAttempts = 10;
+        /**
+         * Delay before the first retry; doubles per attempt up to max-backoff-millis.
+         */
+        private Long initialBackoffMillis = 30_000L;
+        private Long maxBackoffMillis = 21_600_000L;
+        /**
+         * Claimed tombstones not finished within this time (node crashed mid-batch) are released.
+         */
+        private Long claimTimeoutMillis = 600_000L;
+        private final Reconcile reconcile = new Reconcile();
+    }
+
+    /**
+     * Periodic scan of storage for files no user refers to, which are then tombstoned.
+     */
+    @Getter
+    @Setter
+    public static class Reconcile {
+        private boolean enabled = true;
+        private Long intervalMillis = 86_400_000L;
+        /**
+         * Files younger than this are left alone: uploads in flight and presigned uploads not yet confirmed.
+         */
+        private Duration gracePeriod = Duration.ofHours(24);
+        /**
+         * Directories scanned, in addition to the content-addressing directory.
+         */
+        private List<String> directories = List.of("public/profiles");
+    }
+
+    @Getter
+    @Setter
+    public static class Upload {
+        /**
+         * Largest file accepted by the streaming upload endpoints, checked against Content-Length
+         * and again while the body is read.
          */
+        private DataSize maxFileSize = DataSize.ofMegabytes(10);
+    }
+
+    /**
+     * Uploads stored through {@code ContentAddressedStorage} are named by the SHA-256 of their
+     * content, so identical files are kept once and reference-counted in {@code stored_object}.
+     */
+    @Getter
+    @Setter
+    public static class ContentAddressing {
         private boolean enabled = true;
+        /**
+         * Directory the objects are stored under, fanned out by the first two digest characters.
+         * Everything in it is served publicly in local mode when it starts with {@code public/}.
+         */
+        private String directory = "public/objects";
     }
 
     public enum StorageMode {
@@ -78,6 +219,28 @@ public class FileStorageProperties {
             throw new IllegalStateException("filestorage.local.public-uri-prefix must not be empty");
         }
 
+        Serving serving = local.getServing();
+        if (serving.getImmutableMaxAge() == null || serving.getImmutableMaxAge().isNegative()) {
+            throw new IllegalStateException("filestorage.local.serving.immutable-max-age must not be negative");
+        }
+        if (serving.getSendfileThreshold() == null || serving.getSendfileThreshold().toBytes() < 0) {
+            throw new IllegalStateException("filestorage.local.serving.sendfile-threshold must not be negative");
+        }
+        if (serving.getEtagCacheSize() == null || serving.getEtagCacheSize() < 0) {
+            throw new IllegalStateException("filestorage.local.serving.etag-cache-size must not be negative");
+        }
+
+        if (contentAddressing.isEnabled() && (!StringUtils.hasText(contentAddressing.getDirectory())
+                || contentAddressing.getDirectory().contains(".."))) {
+            throw new IllegalStateException("filestorage.content-addressing.directory must be a relative directory");
+        }
+
+        validateCleanup(cleanup);
+
+        if (upload.getMaxFileSize() == null || upload.getMaxFileSize().toBytes() <= 0) {
+            throw new IllegalStateException("filestorage.upload.max-file-size must be greater than 0");
+        }
+
         if (mode == StorageMode.S3) {
             if (!StringUtils.hasText(s3.getBucketName())) {
                 throw new IllegalStateException("filestorage.s3.bucket-name is required when mode=S3");
@@ -85,11 +248,64 @@ public class FileStorageProperties {
             if (!StringUtils.hasText(s3.getRegion())) {
                 throw new IllegalStateException("filestorage.s3.region is required when mode=S3");
             }
+            if (s3.getPresignExpirySeconds() == null || s3.getPresignExpirySeconds() <= 0
+                    || s3.getPresignExpirySeconds() > 604800) {
+                throw new IllegalStateException("filestorage.s3.presign-expiry-seconds must be between 1 and 604800");
+            }
+            validateMultipart(s3.getMultipart());
             if (!StringUtils.hasText(s3.getAccessKey()) || !StringUtils.hasText(s3.getSecretKey())) {
                 log.warn("S3 access/secret keys are missing. Default AWS credential chain will be used.");
             }
         }
         log.info("File storage configured to use mode {}", mode);
     }
+
+    private static void validateCleanup(Cleanup cleanup) {
+        if (cleanup.getPollIntervalMillis() == null || cleanup.getPollIntervalMillis() <= 0) {
+            throw new IllegalStateException("filestorage.cleanup.poll-interval-millis must be greater than 0");
+        }
+        if (cleanup.getBatchSize() == null || cleanup.getBatchSize() <= 0 || cleanup.getBatchSize() > MAX_DELETE_BATCH) {
+            throw new IllegalStateException("filestorage.cleanup.batch-size must be between 1 and " + MAX_DELETE_BATCH);
+        }
+        if (cleanup.getMaxAttempts() == null || cleanup.getMaxAttempts() <= 0) {
+            throw new IllegalStateException("filestorage.cleanup.max-attempts must be greater than 0");
+        }
+        if (cleanup.getInitialBackoffMillis() == null || cleanup.getInitialBackoffMillis() <= 0
+                || cleanup.getMaxBackoffMillis() == null || cleanup.getMaxBackoffMillis() < cleanup.getInitialBackoffMillis()) {
+            throw new IllegalStateException("filestorage.cleanup backoff must be positive with max-backoff-millis >= initial-backoff-millis");
+        }
+        if (cleanup.getClaimTimeoutMillis() == null || cleanup.getClaimTimeoutMillis() <= 0) {
+            throw new IllegalStateException("filestorage.cleanup.claim-timeout-millis must be greater than 0");
+        }
+        Reconcile reconcile = cleanup.getReconcile();
+        if (reconcile.getIntervalMillis() == null || reconcile.getIntervalMillis() <= 0) {
+            throw new IllegalStateException("filestorage.cleanup.reconcile.interval-millis must be greater than 0");
+        }
+        if (reconcile.getGracePeriod() == null || reconcile.getGracePeriod().isNegative()) {
+            throw new IllegalStateException("filestorage.cleanup.reconcile.grace-period must not be negative");
+        }
+        if (reconcile.getDirectories() == null
+                || reconcile.getDirectories().stream().anyMatch(directory -> !StringUtils.hasText(directory) || directory.contains(".."))) {
+            throw new IllegalStateException("filestorage.cleanup.reconcile.directories must be relative directories");
+        }
+    }
+
+    private static void validateMultipart(Multipart multipart) {
+        if (multipart.getPartSize() == null || multipart.getPartSize().toBytes() < MIN_PART_SIZE.toBytes()) {
+            throw new IllegalStateException("filestorage.s3.multipart.part-size must be at least " + MIN_PART_SIZE);
+        }
+        if (multipart.getThreshold() == null || multipart.getThreshold().toBytes() <= 0) {
+            throw new IllegalStateException("filestorage.s3.multipart.threshold must be greater than 0");
+        }
+        long largest = Math.max(multipart.getPartSize().toBytes(), multipart.getThreshold().toBytes());
+        if (multipart.getMaxInFlight() == null || multipart.getMaxInFlight().toBytes() < largest
+                || multipart.getMaxInFlight().toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalStateException("filestorage.s3.multipart.max-in-flight must be at least part-size "
+                    + "and threshold, and below 2GB");
+        }
+        if (multipart.getMaxConcurrency() == null || multipart.getMaxConcurrency() < 1) {
+            throw new IllegalStateException("filestorage.s3.multipart.max-concurrency must be at least 1");
+        }
+    }
 }
 
@@ -0,0 +1,51 @@
+package com.siyamuddin.blog.blogappapis.Config.Properties;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resized copies of profile photos generated in the background after each upload, so clients
+ * can fetch an image the size they render instead of the original.
+ */
+@Slf4j
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.image-variants")
+public class ImageVariantProperties {
+
+    private boolean enabled = true;
+    /**
+     * Edge lengths in pixels of the square variants. Images are never scaled up.
+     */
+    private List<Integer> sizes = new ArrayList<>(List.of(64, 256, 1024));
+    /**
+     * JPEG quality (0-1) for variants of opaque images; images with transparency are stored as PNG.
+     */
+    private Float jpegQuality = 0.82f;
+    /**
+     * Images whose declared dimensions exceed this many pixels are not decoded (decompression bombs).
+     */
+    private Long maxSourcePixels = 100_000_000L;
+
+    @PostConstruct
+    public void validate() {
+        if (sizes == null || sizes.isEmpty() || sizes.stream().anyMatch(size -> size == null || size < 16 || size > 4096)) {
+            throw new IllegalStateException("app.image-variants.sizes must list sizes between 16 and 4096");
+        }
+        if (jpegQuality == null || jpegQuality <= 0 || jpegQuality > 1) {
+            throw new IllegalStateException("app.image-variants.jpeg-quality must be in (0, 1]");
+        }
+        if (maxSourcePixels == null || maxSourcePixels <= 0) {
+            throw new IllegalStateException("app.image-variants.max-source-pixels must be greater than 0");
+        }
+        log.info("Image variant properties validated successfully (sizes={})", sizes);
+    }
+}
@@ -0,0 +1,172 @@
+package com.siyamuddin.blog.blogappapis.Config.Properties;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How the application talks to OAuth providers. Client id, secret and redirect URI are runtime
+ * settings ({@code oauth.google.*}); these are the endpoints and the limits on every call, so a
+ * slow or failing provider can't hold request threads.
+ */
+@Slf4j
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.oauth")
+public class OAuthProperties {
+
+    private final Http http = new Http();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private final Google google = new Google();
+    private final Keys keys = new Keys();
+    private final State state = new State();
+
+    @Getter
+    @Setter
+    public static class Http {
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        /**
+         * Longest wait for response data; also bounds the gap between reads of a slow body.
+         */
+        private Duration responseTimeout = Duration.ofSeconds(5);
+        /**
+         * Longest wait for a pooled connection when all are busy.
+         */
+        private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+        private Integer maxConnections = 50;
+        private Integer maxConnectionsPerRoute = 20;
+        /**
+         * Kept-alive connections idle this long are closed, before the provider closes them first.
+         */
+        private Duration idleTimeout = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Calls to a provider are refused without touching the network once it has failed
+     * failure-threshold times in a row (timeouts, connection errors, 5xx), for open-duration;
+     * then one trial call decides whether it closes again.
+     */
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        private Integer failureThreshold = 5;
+        private Duration openDuration = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Google {
+        private String authorizationUri = "https://accounts.google.com/o/oauth2/v2/auth";
+        private String tokenUri = "https://oauth2.googleapis.com/token";
+        /**
+         * OpenID Connect discovery document; its {@code jwks_uri} lists the keys id_tokens are signed with.
+         */
+        private String discoveryUri = "https://accounts.google.com/.well-known/openid-configuration";
+        private List<String> issuers = new ArrayList<>(List.of("https://accounts.google.com", "accounts.google.com"));
+        /**
+         * Tolerated difference between our clock and Google's when checking exp, iat and nbf.
+         */
+        private Duration clockSkew = Duration.ofSeconds(60);
+    }
+
+    /**
+     * Caching of provider signing keys. Keys are kept as long as the provider's Cache-Control
+     * (or Expires) header allows, within min-cache-time and max-cache-time.
+     */
+    @Getter
+    @Setter
+    public static class Keys {
+        /**
+         * Cache lifetime when the response has no usable cache headers.
+         */
+        private Duration defaultCacheTime = Duration.ofHours(1);
+        private Duration minCacheTime = Duration.ofMinutes(5);
+        private Duration maxCacheTime = Duration.ofHours(24);
+        /**
+         * Keys are refreshed in the background this long before they expire, so logins don't wait.
+         */
+        private Duration refreshAhead = Duration.ofMinutes(10);
+        /**
+         * A token signed with a key we don't know triggers a refresh at most this often.
+         */
+        private Duration unknownKeyRefreshInterval = Duration.ofSeconds(30);
+        /**
+         * How often the background job checks whether keys are due for a refresh.
+         */
+        private Long refreshCheckMillis = 60_000L;
+    }
+
+    /**
+     * The state parameter that ties a callback to the authorize request it came from. Tokens are
+     * HMAC-signed and carry their own expiry, so they are checked without a store; the store only
+     * remembers consumed tokens so each is accepted once.
+     */
+    @Getter
+    @Setter
+    public static class State {
+        private Duration ttl = Duration.ofMinutes(5);
+        /**
+         * HMAC key for state tokens. Empty derives one from app.jwt.secret, so replicas agree
+         * without extra configuration.
+         */
+        private String secret = "";
+        /**
+         * Where consumed tokens are remembered. MEMORY needs no Redis but only stops replays on the
+         * same instance; REDIS records each token at authorize and consumes it with one GETDEL.
+         */
+        private StateStore store = StateStore.MEMORY;
+        /**
+         * Consumed tokens remembered in memory; beyond this, callbacks are refused until older
+         * tokens expire.
+         */
+        private Integer maxTrackedStates = 100_000;
+    }
+
+    public enum StateStore {
+        MEMORY,
+        REDIS
+    }
+
+    @PostConstruct
+    public void validate() {
+        if (isNotPositive(http.getConnectTimeout()) || isNotPositive(http.getResponseTimeout())
+                || isNotPositive(http.getConnectionRequestTimeout())) {
+            throw new IllegalStateException("app.oauth.http timeouts must be greater than 0");
+        }
+        if (http.getMaxConnections() == null || http.getMaxConnections() < 1
+                || http.getMaxConnectionsPerRoute() == null || http.getMaxConnectionsPerRoute() < 1) {
+            throw new IllegalStateException("app.oauth.http.max-connections and max-connections-per-route must be at least 1");
+        }
+        if (circuitBreaker.getFailureThreshold() == null || circuitBreaker.getFailureThreshold() < 1
+                || isNotPositive(circuitBreaker.getOpenDuration())) {
+            throw new IllegalStateException("app.oauth.circuit-breaker.failure-threshold and open-duration must be greater than 0");
+        }
+        if (isNotPositive(keys.getMinCacheTime()) || isNotPositive(keys.getDefaultCacheTime())
+                || isNotPositive(keys.getMaxCacheTime()) || keys.getMaxCacheTime().compareTo(keys.getMinCacheTime()) < 0) {
+            throw new IllegalStateException("app.oauth.keys cache times must be greater than 0, with max-cache-time >= min-cache-time");
+        }
+        if (google.getIssuers() == null || google.getIssuers().isEmpty()) {
+            throw new IllegalStateException("app.oauth.google.issuers must not be empty");
+        }
+        if (isNotPositive(state.getTtl()) || state.getMaxTrackedStates() == null || state.getMaxTrackedStates() < 1) {
+            throw new IllegalStateException("app.oauth.state.ttl and max-tracked-states must be greater than 0");
+        }
+        if (state.getSecret() != null && !state.getSecret().isEmpty() && state.getSecret().length() < 32) {
+            throw new IllegalStateException("app.oauth.state.secret must be at least 32 characters long");
+        }
+        log.info("OAuth client properties validated successfully (connectTimeout={}, responseTimeout={})",
+                http.getConnectTimeout(), http.getResponseTimeout());
+    }
+
+    private static boolean isNotPositive(Duration duration) {
+        return duration == null || duration.isNegative() || duration.isZero();
+    }
+}
@@ -35,6 +35,102 @@ public class SecurityProperties {
     // Email verification requirement for login
     private Boolean requireEmailVerificationForLogin = true;
     
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+    private final FailedLogin failedLogin = new FailedLogin();
+    private final EventLog eventLog = new EventLog();
+    
+    /**
+     * Sizing for the dedicated password hashing pool.
+     * Keeps BCrypt work off the request threads so a login burst cannot starve cheap requests.
+     */
+    @Getter
+    @Setter
+    public static class PasswordHashing {
+        /**
+         * Worker threads. Zero or less means one per available core.
+         */
+        private Integer threads = 0;
+        /**
+         * Hash operations allowed to wait for a worker before callers are rejected with 503.
+         */
+        private Integer queueCapacity = 64;
+        /**
+         * Maximum time a caller waits for its hash to finish, including queue time.
+         */
+        private Long timeoutMillis = 5000L;
+        /**
+         * Retry-After hint returned to clients when the pool is saturated.
+         */
+        private Integer retryAfterSeconds = 1;
+        /**
+         * Target BCrypt cost. When calibration is on this is the floor the calibrator never goes below.
+         */
+        private Integer bcryptStrength = 10;
+        /**
+         * Measure BCrypt on this hardware at startup and pick the strongest cost within the latency budget.
+         */
+        private Boolean calibrate = false;
+        /**
+         * Latency budget for a single hash when calibrating.
+         */
+        private Long calibrationBudgetMillis = 250L;
+        /**
+         * Upper bound for a calibrated BCrypt cost.
+         */
+        private Integer maxBcryptStrength = 14;
+        
+        public int resolveThreads() {
+            return threads == null || threads <= 0 ? Runtime.getRuntime().availableProcessors() : threads;
+        }
+    }
+    
+    /**
+     * Failed-login counting. Failures are tracked in a sliding window outside the database;
+     * only an actual lock is written to the user row.
+     */
+    @Getter
+    @Setter
+    public static class FailedLogin {
+        /**
+         * Where failure windows live. REDIS shares counts across replicas; MEMORY is per instance.
+         */
+        private TrackerStore store = TrackerStore.MEMORY;
+        /**
+         * Length of the sliding window failures are counted in.
+         */
+        private Integer windowMinutes = 15;
+        /**
+         * Failures from one IP (across all accounts) within the window before that IP is refused.
+         */
+        private Integer maxFailuresPerIp = 50;
+    }
+    
+    /**
+     * Structured security event log ({@code SECURITY_EVENTS} logger).
+     */
+    @Getter
+    @Setter
+    public static class EventLog {
+        /**
+         * Failed logins from one IP logged individually per window; the rest are folded into
+         * one summary record at the end of the window.
+         */
+        private Integer failedLoginSampleSize = 5;
+        /**
+         * Length of the failed-login aggregation window.
+         */
+        private Integer aggregationWindowSeconds = 60;
+        /**
+         * Distinct IPs aggregated at once; beyond this failures are summarised under a shared key.
+         */
+        private Integer maxTrackedIps = 10000;
+    }
+    
+    public enum TrackerStore {
+        MEMORY,
+        REDIS
+    }
+    
     @PostConstruct
     public void validate() {
         if (maxFailedLoginAttempts == null || maxFailedLoginAttempts <= 0) {
@@ -72,6 +168,53 @@ public class SecurityProperties {
                 "app.security.password-reset-token-expiry-hours must be greater than 0"
             );
         }
+        if (passwordHashing.getQueueCapacity() == null || passwordHashing.getQueueCapacity() <= 0) {
+            throw new IllegalStateException(
+                "app.security.password-hashing.queue-capacity must be greater than 0"
+            );
+        }
+        if (passwordHashing.getTimeoutMillis() == null || passwordHashing.getTimeoutMillis() <= 0) {
+            throw new IllegalStateException(
+                "app.security.password-hashing.timeout-millis must be greater than 0"
+            );
+        }
+        Integer strength = passwordHashing.getBcryptStrength();
+        if (strength == null || strength < 4 || strength > 31) {
+            throw new IllegalStateException(
+                "app.security.password-hashing.bcrypt-strength must be between 4 and 31"
+            );
+        }
+        Integer maxStrength = passwordHashing.getMaxBcryptStrength();
+        if (maxStrength == null || maxStrength < strength || maxStrength > 31) {
+            throw new IllegalStateException(
+                "app.security.password-hashing.max-bcrypt-strength must be between bcrypt-strength and 31"
+            );
+        }
+        if (failedLogin.getWindowMinutes() == null || failedLogin.getWindowMinutes() <= 0) {
+            throw new IllegalStateException(
+                "app.security.failed-login.window-minutes must be greater than 0"
+            );
+        }
+        if (failedLogin.getMaxFailuresPerIp() == null || failedLogin.getMaxFailuresPerIp() <= 0) {
+            throw new IllegalStateException(
+                "app.security.failed-login.max-failures-per-ip must be greater than 0"
+            );
+        }
+        if (eventLog.getFailedLoginSampleSize() == null || eventLog.getFailedLoginSampleSize() < 0) {
+            throw new IllegalStateException(
+                "app.security.event-log.failed-login-sample-size must be non-negative"
+            );
+        }
+        if (eventLog.getAggregationWindowSeconds() == null || eventLog.getAggregationWindowSeconds() <= 0) {
+            throw new IllegalStateException(
+                "app.security.event-log.aggregation-window-seconds must be greater than 0"
+            );
+        }
+        if (eventLog.getMaxTrackedIps() == null || eventLog.getMaxTrackedIps() <= 0) {
+            throw new IllegalStateException(
+                "app.security.event-log.max-tracked-ips must be greater than 0"
+            );
+        }
         log.info("Security properties validated successfully");
     }
 }
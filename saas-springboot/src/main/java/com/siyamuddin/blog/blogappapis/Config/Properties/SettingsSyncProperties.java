@@ -0,0 +1,54 @@
+package com.siyamuddin.blog.blogappapis.Config.Properties;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Propagation of admin settings changes between application nodes.
+ * The node that saves a change announces it on a Redis channel; every node also polls the
+ * settings version so a missed notification is picked up within one poll interval.
+ */
+@Slf4j
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.settings.sync")
+public class SettingsSyncProperties {
+    /**
+     * How changes are announced to other nodes.
+     */
+    private Notifier notifier = Notifier.REDIS;
+    /**
+     * Redis pub/sub channel carrying change notifications.
+     */
+    private String channel = "app:settings:changed";
+    /**
+     * How often each node compares its applied settings version with the database.
+     */
+    private Long pollIntervalMillis = 1000L;
+
+    public enum Notifier {
+        /** Publish on a Redis channel; version polling remains as a fallback. */
+        REDIS,
+        /** Rely on version polling alone (single node, or no Redis). */
+        NONE
+    }
+
+    @PostConstruct
+    public void validate() {
+        if (notifier == null) {
+            throw new IllegalStateException("app.settings.sync.notifier must be set");
+        }
+        if (channel == null || channel.isBlank()) {
+            throw new IllegalStateException("app.settings.sync.channel must be set");
+        }
+        if (pollIntervalMillis == null || pollIntervalMillis <= 0) {
+            throw new IllegalStateException("app.settings.sync.poll-interval-millis must be greater than 0");
+        }
+        log.info("Settings sync properties validated successfully (notifier={})", notifier);
+    }
+}
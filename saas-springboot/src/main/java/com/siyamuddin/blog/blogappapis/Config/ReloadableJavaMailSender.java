@@ -0,0 +1,72 @@
+package com.siyamuddin.blog.blogappapis.Config;
+
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessagePreparator;
+
+import java.io.InputStream;
+
+/**
+ * {@link JavaMailSender} whose SMTP configuration can be replaced at runtime.
+ * Each call goes to the sender current at the time of the call; a send already in progress
+ * finishes on the sender it started with.
+ */
+public class ReloadableJavaMailSender implements JavaMailSender {
+
+    private volatile JavaMailSenderImpl delegate;
+
+    public ReloadableJavaMailSender(JavaMailSenderImpl delegate) {
+        this.delegate = delegate;
+    }
+
+    public void reload(JavaMailSenderImpl replacement) {
+        this.delegate = replacement;
+    }
+
+    public JavaMailSenderImpl getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public MimeMessage createMimeMessage() {
+        return delegate.createMimeMessage();
+    }
+
+    @Override
+    public MimeMessage createMimeMessage(InputStream contentStream) throws MailException {
+        return delegate.createMimeMessage(contentStream);
+    }
+
+    @Override
+    public void send(MimeMessage mimeMessage) throws MailException {
+        delegate.send(mimeMessage);
+    }
+
+    @Override
+    public void send(MimeMessage... mimeMessages) throws MailException {
+        delegate.send(mimeMessages);
+    }
+
+    @Override
+    public void send(MimeMessagePreparator mimeMessagePreparator) throws MailException {
+        delegate.send(mimeMessagePreparator);
+    }
+
+    @Override
+    public void send(MimeMessagePreparator... mimeMessagePreparators) throws MailException {
+        delegate.send(mimeMessagePreparators);
+    }
+
+    @Override
+    public void send(SimpleMailMessage simpleMessage) throws MailException {
+        delegate.send(simpleMessage);
+    }
+
+    @Override
+    public void send(SimpleMailMessage... simpleMessages) throws MailException {
+        delegate.send(simpleMessages);
+    }
+}
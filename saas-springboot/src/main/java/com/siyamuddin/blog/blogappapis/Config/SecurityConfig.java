@@ -3,6 +3,7 @@ package com.siyamuddin.blog.blogappapis.Config;
 import com.siyamuddin.blog.blogappapis.Config.Properties.CorsProperties;
 import com.siyamuddin.blog.blogappapis.Security.JwtAuthenticationEntryPoint;
 import com.siyamuddin.blog.blogappapis.Security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -108,6 +109,9 @@ public class SecurityConfig {
         http.csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
+                        // Only writes the result of a request authorized on its first dispatch;
+                        // the JWT is not re-read for it, so it would otherwise be anonymous
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(publicUrls).permitAll()
                         .anyRequest().authenticated()
                 )
@@ -0,0 +1,33 @@
+package com.siyamuddin.blog.blogappapis.Config;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.SettingsSyncProperties;
+import com.siyamuddin.blog.blogappapis.Services.Config.SettingsChangeCoordinator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+public class SettingsSyncConfig {
+
+    /**
+     * Subscribes to settings change notifications. The container re-subscribes on its own after
+     * a Redis outage; until then the version poll keeps nodes in sync.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.settings.sync", name = "notifier", havingValue = "redis", matchIfMissing = true)
+    public RedisMessageListenerContainer settingsChangeListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                         SettingsChangeCoordinator coordinator,
+                                                                         SettingsSyncProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> coordinator.onNotification(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(properties.getChannel()));
+        return container;
+    }
+}
@@ -0,0 +1,42 @@
+package com.siyamuddin.blog.blogappapis.Config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Opt-in virtual-thread mode, switched with Spring Boot's {@code spring.threads.virtual.enabled}.
+ * When on, Boot runs Tomcat requests and {@code @Scheduled} jobs on virtual threads and
+ * {@link AsyncExecutorConfig} does the same for the {@code @Async} pools. Password hashing stays
+ * on its platform-thread pool since it is CPU-bound.
+ * <p>
+ * Boot silently ignores the property on a JVM older than 21, so it is checked here instead of
+ * letting the application come up in platform mode while configured for virtual threads.
+ */
+@Slf4j
+@Configuration
+public class VirtualThreadsConfig {
+
+    static final String PROPERTY = "spring.threads.virtual.enabled";
+    static final int MINIMUM_JAVA_VERSION = 21;
+
+    private final Environment environment;
+
+    public VirtualThreadsConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    @PostConstruct
+    public void validate() {
+        if (!environment.getProperty(PROPERTY, Boolean.class, false)) {
+            return;
+        }
+        int runtimeVersion = Runtime.version().feature();
+        if (runtimeVersion < MINIMUM_JAVA_VERSION) {
+            throw new IllegalStateException(PROPERTY + "=true requires Java " + MINIMUM_JAVA_VERSION +
+                    " or newer, but the application is running on Java " + runtimeVersion);
+        }
+        log.info("Virtual threads enabled for request handling, scheduled jobs and async executors");
+    }
+}
@@ -2,12 +2,16 @@ package com.siyamuddin.blog.blogappapis.Config;
 
 import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
 import com.siyamuddin.blog.blogappapis.Security.RateLimitInterceptor;
+import com.siyamuddin.blog.blogappapis.Services.Storage.LocalFileRequestHandler;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
 
-import java.nio.file.Path;
+import java.util.Map;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
@@ -28,20 +32,21 @@ public class WebConfig implements WebMvcConfigurer {
                 .excludePathPatterns("/swagger-ui/**", "/v3/api-docs/**", "/swagger-resources/**", "/webjars/**");
     }
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+    /**
+     * Serves locally stored files with cache headers, ETags, ranges and sendfile (see
+     * {@link LocalFileRequestHandler}) instead of a plain resource handler. Ordered where resource
+     * handlers would be, after all controllers; maps nothing in S3 mode.
+     */
+    @Bean
+    public HandlerMapping localFileHandlerMapping() {
+        SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping();
+        mapping.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        mapping.setInterceptors(rateLimitInterceptor);
         if (fileStorageProperties.getMode() == FileStorageProperties.StorageMode.LOCAL) {
             String handlerPattern = ensureTrailingSlash(fileStorageProperties.getLocal().getPublicUriPrefix()) + "**";
-            String location = pathToLocation(fileStorageProperties.getLocal().getBasePath());
-            registry.addResourceHandler(handlerPattern)
-                    .addResourceLocations(location);
+            mapping.setUrlMap(Map.of(handlerPattern, new LocalFileRequestHandler(fileStorageProperties)));
         }
-    }
-
-    private String pathToLocation(String basePath) {
-        Path path = Path.of(basePath).toAbsolutePath();
-        String uri = path.toUri().toString();
-        return uri.endsWith("/") ? uri : uri + "/";
+        return mapping;
     }
 
     private String ensureTrailingSlash(String prefix) {
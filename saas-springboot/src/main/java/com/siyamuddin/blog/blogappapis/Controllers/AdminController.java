@@ -2,10 +2,14 @@ package com.siyamuddin.blog.blogappapis.Controllers;
 
 import com.siyamuddin.blog.blogappapis.Config.AppConstants;
 import com.siyamuddin.blog.blogappapis.Entity.AppSetting;
+import com.siyamuddin.blog.blogappapis.Entity.AuditLogRollup;
 import com.siyamuddin.blog.blogappapis.Entity.User;
 import com.siyamuddin.blog.blogappapis.Payloads.ApiResponse;
 import com.siyamuddin.blog.blogappapis.Payloads.PagedResponse;
 import com.siyamuddin.blog.blogappapis.Payloads.Settings.*;
+import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.ProfilePhotoUploadConfirmation;
+import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.ProfilePhotoUploadRequest;
+import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.ProfilePhotoUploadTicket;
 import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.UserDto;
 import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.ValidationGroups;
 import com.siyamuddin.blog.blogappapis.Services.AppSettingsService;
@@ -20,6 +24,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -28,7 +33,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/admin")
@@ -213,13 +220,51 @@ public class AdminController {
         value = "/{userId}/profile-photo",
         consumes = MediaType.MULTIPART_FORM_DATA_VALUE
     )
-    public ResponseEntity<UserDto> uploadProfilePhoto(
+    public CompletableFuture<ResponseEntity<UserDto>> uploadProfilePhoto(
             @Parameter(description = "User ID", required = true)
             @PathVariable Integer userId,
             @Parameter(description = "Profile photo file (jpg, png, webp, gif, avif, pdf)", required = true)
             @RequestPart("file") MultipartFile file) {
 
-        UserDto updated = userProfilePhotoService.uploadProfilePhoto(userId, file);
+        return userProfilePhotoService.uploadProfilePhoto(userId, file)
+                .thenApply(updated -> {
+                    try {
+                        User user = userService.getUserEntityById(userId);
+                        auditService.logUserAction(user, "PROFILE_PHOTO_UPDATED", "USER", userId);
+                    } catch (Exception e) {
+                        // Best-effort auditing
+                    }
+                    return ResponseEntity.ok(updated);
+                });
+    }
+
+    @Operation(
+        summary = "Start a direct profile photo upload for a user",
+        description = "Returns a presigned URL to upload the photo straight to storage (S3 mode only). " +
+                "Requires admin role or ownership of the user account."
+    )
+    @PreAuthorize("@authz.canModifyUser(authentication,#userId)")
+    @PostMapping("/{userId}/profile-photo/uploads")
+    public ResponseEntity<ProfilePhotoUploadTicket> createProfilePhotoUpload(
+            @Parameter(description = "User ID", required = true)
+            @PathVariable Integer userId,
+            @Valid @RequestBody ProfilePhotoUploadRequest uploadRequest) {
+        return ResponseEntity.ok(userProfilePhotoService.createDirectUpload(
+                userId, uploadRequest.getContentType(), uploadRequest.getContentLength()));
+    }
+
+    @Operation(
+        summary = "Confirm a direct profile photo upload for a user",
+        description = "Verifies the uploaded object and makes it the user's profile photo. " +
+                "Requires admin role or ownership of the user account."
+    )
+    @PreAuthorize("@authz.canModifyUser(authentication,#userId)")
+    @PostMapping("/{userId}/profile-photo/uploads/confirm")
+    public ResponseEntity<UserDto> confirmProfilePhotoUpload(
+            @Parameter(description = "User ID", required = true)
+            @PathVariable Integer userId,
+            @Valid @RequestBody ProfilePhotoUploadConfirmation confirmation) {
+        UserDto updated = userProfilePhotoService.confirmDirectUpload(userId, confirmation.getStorageKey());
         try {
             User user = userService.getUserEntityById(userId);
             auditService.logUserAction(user, "PROFILE_PHOTO_UPDATED", "USER", userId);
@@ -229,6 +274,26 @@ public class AdminController {
         return ResponseEntity.ok(updated);
     }
 
+    @Operation(
+        summary = "Get audit activity counts",
+        description = "Pre-aggregated audit event counts per hour or day, by action and outcome. Admin only."
+    )
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/audit/stats")
+    public ResponseEntity<List<AuditLogRollup>> getAuditStats(
+            @Parameter(description = "Bucket size (HOUR or DAY)", example = "HOUR")
+            @RequestParam(value = "granularity", defaultValue = "HOUR", required = false) AuditLogRollup.Granularity granularity,
+            @Parameter(description = "Start of range (inclusive, ISO date-time)")
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of range (inclusive, ISO date-time)")
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to)
+    {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from
+                : (granularity == AuditLogRollup.Granularity.DAY ? end.minusDays(30) : end.minusHours(24));
+        return ResponseEntity.ok(auditService.getActionCounts(granularity, start, end));
+    }
+
     // ==================== Application Settings Endpoints ====================
 
     @Operation(
@@ -1,9 +1,12 @@
 package com.siyamuddin.blog.blogappapis.Controllers;
 
+import com.siyamuddin.blog.blogappapis.Config.Properties.SecurityProperties;
 import com.siyamuddin.blog.blogappapis.Entity.JwtRequest;
 import com.siyamuddin.blog.blogappapis.Entity.JwtResponse;
 import com.siyamuddin.blog.blogappapis.Entity.RefreshToken;
 import com.siyamuddin.blog.blogappapis.Entity.User;
+import com.siyamuddin.blog.blogappapis.Exceptions.RateLimitExceededException;
+import com.siyamuddin.blog.blogappapis.Exceptions.ServiceOverloadedException;
 import com.siyamuddin.blog.blogappapis.Payloads.ApiResponse;
 import com.siyamuddin.blog.blogappapis.Payloads.SecurityEventLogger;
 import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.UserDto;
@@ -62,6 +65,7 @@ public class AuthController {
     private final com.siyamuddin.blog.blogappapis.Config.MetricsConfig.BusinessMetrics businessMetrics;
     private final DynamicConfigService dynamicConfig;
     private final CookieUtils cookieUtils;
+    private final SecurityProperties securityProperties;
 
     public AuthController(
             UserDetailsService userDetailsService,
@@ -78,7 +82,8 @@ public class AuthController {
             AccountSecurityService accountSecurityService,
             com.siyamuddin.blog.blogappapis.Config.MetricsConfig.BusinessMetrics businessMetrics,
             DynamicConfigService dynamicConfig,
-            CookieUtils cookieUtils) {
+            CookieUtils cookieUtils,
+            SecurityProperties securityProperties) {
         this.userDetailsService = userDetailsService;
         this.manager = manager;
         this.userService = userService;
@@ -94,6 +99,7 @@ public class AuthController {
         this.businessMetrics = businessMetrics;
         this.dynamicConfig = dynamicConfig;
         this.cookieUtils = cookieUtils;
+        this.securityProperties = securityProperties;
     }
 
     @Operation(
@@ -120,6 +126,14 @@ public class AuthController {
                                               HttpServletRequest httpRequest,
                                               HttpServletResponse httpResponse) {
         businessMetrics.incrementLoginAttempts();
+        String clientIp = getClientIP(httpRequest);
+        // Refuse before doing any hashing work when this IP is already stuffing credentials
+        if (accountSecurityService.isLoginBlockedForIp(clientIp)) {
+            businessMetrics.incrementLoginFailure();
+            securityEventLogger.logLoginAttempt(request.getEmail(), clientIp, false);
+            throw new RateLimitExceededException("Too many failed logins from this address",
+                    securityProperties.getFailedLogin().getWindowMinutes() * 60L);
+        }
         io.micrometer.core.instrument.Timer.Sample sample = businessMetrics.startLoginTimer();
         try {
             this.doAuthenticate(request.getEmail(), request.getPassword());
@@ -153,14 +167,23 @@ public class AuthController {
             // Store refresh token in HTTP-only cookie for security
             cookieUtils.addRefreshTokenCookie(httpResponse, refreshTokenString);
 
+            // Transparently move outdated hashes (legacy format or lower cost) to current parameters
+            try {
+                userService.upgradePasswordHashIfNeeded(user, request.getPassword());
+            } catch (Exception e) {
+                // Not worth failing a valid login over; the upgrade is retried on the next login
+                log.warn("Password hash upgrade skipped for user {}: {}", user.getId(), e.getMessage());
+            }
+
             // Create session
             sessionService.createSession(user, httpRequest);
 
             // Update last login
             userService.updateUserLastLogin(user);
+            accountSecurityService.resetFailedLoginAttempts(request.getEmail());
 
             // Log successful login
-            securityEventLogger.logLoginAttempt(request.getEmail(), getClientIP(httpRequest), true);
+            securityEventLogger.logLoginAttempt(request.getEmail(), clientIp, true);
             auditService.logSecurityEvent(user, "LOGIN_SUCCESS", true);
             
             // Metrics
@@ -181,7 +204,7 @@ public class AuthController {
             businessMetrics.incrementLoginFailure();
             businessMetrics.recordLoginDuration(sample);
             try {
-                accountSecurityService.incrementFailedLoginAttempts(request.getEmail());
+                accountSecurityService.incrementFailedLoginAttempts(request.getEmail(), clientIp);
                 
                 try {
                     User user = userService.getUserEntityByEmail(request.getEmail());
@@ -194,7 +217,7 @@ public class AuthController {
                 log.error("Error handling failed login", ex);
             }
             
-            securityEventLogger.logLoginAttempt(request.getEmail(), getClientIP(httpRequest), false);
+            securityEventLogger.logLoginAttempt(request.getEmail(), clientIp, false);
             throw e;
         }
     }
@@ -213,6 +236,9 @@ public class AuthController {
         } catch (BadCredentialsException e) {
             log.warn("Authentication failed for email: {} - {}", email, e.getMessage());
             throw new BadCredentialsException(" Invalid Username or Password  !!");
+        } catch (ServiceOverloadedException e) {
+            // Hashing pool saturated: surface as 503, not as a failed login attempt
+            throw e;
         } catch (Exception e) {
             log.error("Unexpected error during authentication for email: {}", email, e);
             throw new BadCredentialsException(" Invalid Username or Password  !!");
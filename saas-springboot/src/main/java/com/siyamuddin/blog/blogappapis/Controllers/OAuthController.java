@@ -3,6 +3,7 @@ package com.siyamuddin.blog.blogappapis.Controllers;
 import com.siyamuddin.blog.blogappapis.Entity.JwtResponse;
 import com.siyamuddin.blog.blogappapis.Entity.RefreshToken;
 import com.siyamuddin.blog.blogappapis.Entity.User;
+import com.siyamuddin.blog.blogappapis.Exceptions.OAuthProviderUnavailableException;
 import com.siyamuddin.blog.blogappapis.Payloads.ApiResponse;
 import com.siyamuddin.blog.blogappapis.Repository.RefreshTokenRepo;
 import com.siyamuddin.blog.blogappapis.Security.JwtHelper;
@@ -129,6 +130,14 @@ public class OAuthController {
             log.info("OAuth login successful for user: {} - JWT tokens generated", user.getEmail());
             return ResponseEntity.ok(response);
             
+        } catch (OAuthProviderUnavailableException e) {
+            log.warn("OAuth callback failed, provider unavailable: {}", e.getMessage());
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("message", "Google sign-in is temporarily unavailable. Please try again shortly.");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                    .body(error);
         } catch (IllegalStateException e) {
             log.warn("OAuth not enabled: {}", e.getMessage());
             Map<String, Object> error = new HashMap<>();
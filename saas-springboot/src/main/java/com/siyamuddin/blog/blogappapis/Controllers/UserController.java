@@ -3,6 +3,9 @@ package com.siyamuddin.blog.blogappapis.Controllers;
 import com.siyamuddin.blog.blogappapis.Entity.User;
 import com.siyamuddin.blog.blogappapis.Entity.UserSession;
 import com.siyamuddin.blog.blogappapis.Payloads.ApiResponse;
+import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.ProfilePhotoUploadConfirmation;
+import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.ProfilePhotoUploadRequest;
+import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.ProfilePhotoUploadTicket;
 import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.UserDto;
 import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.ValidationGroups;
 import com.siyamuddin.blog.blogappapis.Services.AuditService;
@@ -17,6 +20,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -26,7 +30,9 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/users")
@@ -221,12 +227,72 @@ public class UserController {
         value = "/me/profile-photo",
         consumes = MediaType.MULTIPART_FORM_DATA_VALUE
     )
-    public ResponseEntity<UserDto> uploadMyProfilePhoto(
+    public CompletableFuture<ResponseEntity<UserDto>> uploadMyProfilePhoto(
             @Parameter(description = "Profile photo file (jpg, png, webp, gif, avif, pdf)", required = true)
             @RequestPart("file") MultipartFile file) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = userService.getUserEntityByEmail(email);
-        UserDto updated = userProfilePhotoService.uploadProfilePhoto(user.getId(), file);
+        return userProfilePhotoService.uploadProfilePhoto(user.getId(), file)
+                .thenApply(updated -> {
+                    auditService.logUserAction(user, "PROFILE_PHOTO_UPDATED", "USER", user.getId());
+                    return ResponseEntity.ok(updated);
+                });
+    }
+
+    @Operation(
+        summary = "Stream current user's profile photo",
+        description = "Upload or replace the authenticated user's profile photo, sent as the raw request body " +
+                "instead of multipart form data. The file type is detected from its content."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Profile photo updated",
+            content = @Content(schema = @Schema(implementation = UserDto.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Empty or unsupported file"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "413", description = "File too large")
+    })
+    @PutMapping("/me/profile-photo")
+    public CompletableFuture<ResponseEntity<UserDto>> streamMyProfilePhoto(
+            @Parameter(description = "Original file name, for reference only")
+            @RequestHeader(value = "X-File-Name", required = false) String fileName,
+            HttpServletRequest request) throws IOException {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userService.getUserEntityByEmail(email);
+        return userProfilePhotoService.uploadProfilePhoto(
+                        user.getId(), request.getInputStream(), fileName, request.getContentLengthLong())
+                .thenApply(updated -> {
+                    auditService.logUserAction(user, "PROFILE_PHOTO_UPDATED", "USER", user.getId());
+                    return ResponseEntity.ok(updated);
+                });
+    }
+
+    @Operation(
+        summary = "Start a direct profile photo upload",
+        description = "Returns a presigned URL to upload the photo straight to storage (S3 mode only). " +
+                "Upload with the returned method and headers, then confirm with the storage key."
+    )
+    @PostMapping("/me/profile-photo/uploads")
+    public ResponseEntity<ProfilePhotoUploadTicket> createMyProfilePhotoUpload(
+            @Valid @RequestBody ProfilePhotoUploadRequest uploadRequest) {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userService.getUserEntityByEmail(email);
+        ProfilePhotoUploadTicket ticket = userProfilePhotoService.createDirectUpload(
+                user.getId(), uploadRequest.getContentType(), uploadRequest.getContentLength());
+        return ResponseEntity.ok(ticket);
+    }
+
+    @Operation(
+        summary = "Confirm a direct profile photo upload",
+        description = "Verifies the uploaded object and makes it the authenticated user's profile photo."
+    )
+    @PostMapping("/me/profile-photo/uploads/confirm")
+    public ResponseEntity<UserDto> confirmMyProfilePhotoUpload(
+            @Valid @RequestBody ProfilePhotoUploadConfirmation confirmation) {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userService.getUserEntityByEmail(email);
+        UserDto updated = userProfilePhotoService.confirmDirectUpload(user.getId(), confirmation.getStorageKey());
         auditService.logUserAction(user, "PROFILE_PHOTO_UPDATED", "USER", user.getId());
         return ResponseEntity.ok(updated);
     }
@@ -11,7 +11,9 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "app_settings")
+@Table(name = "app_settings", indexes = {
+        @Index(name = "idx_app_settings_version", columnList = "version")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -54,6 +56,13 @@ public class AppSetting {
     @Column(name = "updated_by")
     private Integer updatedBy;
 
+    /**
+     * Monotonically increasing change stamp, shared across all rows; nodes compare the maximum to
+     * detect changes made elsewhere in the cluster.
+     */
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
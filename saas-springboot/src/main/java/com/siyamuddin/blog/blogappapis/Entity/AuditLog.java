@@ -8,7 +8,12 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "audit_log")
+@Table(name = "audit_log", indexes = {
+    @Index(name = "idx_audit_log_user_time", columnList = "user_id, timestamp"),
+    @Index(name = "idx_audit_log_action_time", columnList = "action, timestamp"),
+    @Index(name = "idx_audit_log_time", columnList = "timestamp"),
+    @Index(name = "idx_audit_log_event_id", columnList = "event_id")
+})
 @NoArgsConstructor
 @Getter
 @Setter
@@ -17,6 +22,9 @@ public class AuditLog {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @Column(name = "event_id", length = 36)
+    private String eventId;
+    
     @Column(name = "user_id")
     private Integer userId;
     
@@ -35,6 +43,9 @@ public class AuditLog {
     @Column(name = "user_agent", length = 500)
     private String userAgent;
     
+    @Column(name = "request_id", length = 64)
+    private String requestId;
+    
     @Column(name = "timestamp", nullable = false)
     private LocalDateTime timestamp = LocalDateTime.now();
     
@@ -0,0 +1,48 @@
+package com.siyamuddin.blog.blogappapis.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated audit counts per time bucket, action and outcome.
+ * Maintained incrementally by the audit rollup job; dashboards read these instead of {@code audit_log}.
+ */
+@Entity
+@Table(name = "audit_log_rollup", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"granularity", "bucket_start", "action", "success"})
+}, indexes = {
+    @Index(name = "idx_audit_rollup_bucket", columnList = "granularity, bucket_start")
+})
+@NoArgsConstructor
+@Getter
+@Setter
+public class AuditLogRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false, length = 10)
+    private Granularity granularity;
+    
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+    
+    @Column(name = "action", nullable = false, length = 100)
+    private String action;
+    
+    @Column(name = "success", nullable = false)
+    private Boolean success;
+    
+    @Column(name = "event_count", nullable = false)
+    private Long eventCount;
+    
+    public enum Granularity {
+        HOUR,
+        DAY
+    }
+}
@@ -0,0 +1,29 @@
+package com.siyamuddin.blog.blogappapis.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Highest {@code audit_log.id} already folded into {@link AuditLogRollup}.
+ * Advanced with a compare-and-set so only one instance rolls up a given id range.
+ */
+@Entity
+@Table(name = "audit_rollup_watermark")
+@NoArgsConstructor
+@Getter
+@Setter
+public class AuditRollupWatermark {
+    @Id
+    @Column(name = "name", length = 50)
+    private String name;
+    
+    @Column(name = "last_id", nullable = false)
+    private Long lastId = 0L;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,80 @@
+package com.siyamuddin.blog.blogappapis.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * An email waiting to be sent. Rows are inserted in the same transaction as the change that
+ * triggers the email and delivered by EmailOutboxDispatcher.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status_next", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_email_outbox_claim", columnList = "claim_token")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class EmailOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "recipient", nullable = false, length = 255)
+    private String recipient;
+
+    @Column(name = "subject", nullable = false, length = 255)
+    private String subject;
+
+    @Lob
+    @Column(name = "body")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public static EmailOutboxMessage pending(String recipient, String subject, String body) {
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setRecipient(recipient);
+        message.setSubject(subject);
+        message.setBody(body);
+        LocalDateTime now = LocalDateTime.now();
+        message.setCreatedAt(now);
+        message.setNextAttemptAt(now);
+        return message;
+    }
+
+    public enum Status {
+        PENDING,
+        SENDING,
+        SENT,
+        FAILED
+    }
+}
@@ -0,0 +1,67 @@
+package com.siyamuddin.blog.blogappapis.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored file waiting to be deleted. Rows are inserted in the same transaction as the change
+ * that stops referring to the file and processed by StorageGarbageCollector; a row is removed
+ * once its file is gone.
+ */
+@Entity
+@Table(name = "storage_tombstone", indexes = {
+        @Index(name = "idx_storage_tombstone_status_next", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_storage_tombstone_claim", columnList = "claim_token"),
+        @Index(name = "idx_storage_tombstone_key", columnList = "storage_key")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class StorageTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "storage_key", nullable = false, length = 512)
+    private String storageKey;
+
+    /**
+     * The content-addressed file this one was released with (itself, or the original of a
+     * variant). The delete is skipped if the owner has been referenced again in the meantime.
+     */
+    @Column(name = "owner_key", length = 512)
+    private String ownerKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public enum Status {
+        PENDING,
+        DELETING,
+        FAILED
+    }
+}
@@ -0,0 +1,53 @@
+package com.siyamuddin.blog.blogappapis.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A content-addressed object and the number of records referring to it. The object is deleted
+ * from storage with its last reference. Read and written by ContentAddressedStorage.
+ */
+@Entity
+@Table(name = "stored_object", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stored_object_storage_key", columnNames = "storage_key")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class StoredObject {
+
+    /**
+     * SHA-256 of the content (hex) followed by the file extension.
+     */
+    @Id
+    @Column(name = "object_id", length = 80)
+    private String objectId;
+
+    /**
+     * Null until the first upload of this content has been moved into place.
+     */
+    @Column(name = "storage_key", length = 512)
+    private String storageKey;
+
+    @Column(name = "public_url", length = 1024)
+    private String publicUrl;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes = 0L;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount = 0;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
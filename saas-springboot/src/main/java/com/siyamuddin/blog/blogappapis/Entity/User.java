@@ -65,6 +65,13 @@ public class User implements UserDetails {
 
     @Column(name = "profile_image_storage_key")
     private String profileImageStorageKey;
+
+    /**
+     * Sizes and formats of the rendered variants of the current photo, e.g. {@code 64:jpg,256:jpg};
+     * null until they have been generated. See {@code ProfilePhotoVariants}.
+     */
+    @Column(name = "profile_image_variant_spec", length = 100)
+    private String profileImageVariantSpec;
     
     @Column(name = "phone_number")
     private String phoneNumber;
@@ -45,7 +45,8 @@ public enum ErrorCode {
     RESOURCE_NOT_FOUND("GEN_9002", "Resource not found"),
     BAD_REQUEST("GEN_9003", "Bad request"),
     UNAUTHORIZED("GEN_9004", "Unauthorized"),
-    FORBIDDEN("GEN_9005", "Forbidden");
+    FORBIDDEN("GEN_9005", "Forbidden"),
+    SERVICE_OVERLOADED("GEN_9006", "Service temporarily overloaded");
     
     private final String code;
     private final String message;
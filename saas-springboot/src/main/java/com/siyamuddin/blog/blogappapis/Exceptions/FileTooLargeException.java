@@ -0,0 +1,18 @@
+package com.siyamuddin.blog.blogappapis.Exceptions;
+
+/**
+ * Thrown when an upload is larger than the configured limit, detected from the declared
+ * Content-Length or while the body is being streamed.
+ */
+public class FileTooLargeException extends InvalidFileException {
+    private final long maxBytes;
+
+    public FileTooLargeException(long maxBytes) {
+        super("File exceeds the maximum size of " + maxBytes + " bytes");
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -187,6 +187,15 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(apiResponse, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(FileTooLargeException.class)
+    public ResponseEntity<ApiResponse> handleFileTooLargeException(FileTooLargeException ex, WebRequest request) {
+        log.warn("Rejected oversized upload: {} - Request: {}",
+                ex.getMessage(),
+                request.getDescription(false));
+        ApiResponse apiResponse = new ApiResponse(ex.getMessage(), false, ErrorCode.VALIDATION_FAILED);
+        return new ResponseEntity<>(apiResponse, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
     @ExceptionHandler(InvalidFileException.class)
     public ResponseEntity<ApiResponse> handleInvalidFileException(InvalidFileException ex, WebRequest request) {
         log.warn("Invalid file upload: {} - Request: {}",
@@ -224,6 +233,23 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(apiResponse, HttpStatus.TOO_MANY_REQUESTS);
     }
 
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ApiResponse> handleServiceOverloadedException(ServiceOverloadedException ex, WebRequest request) {
+        log.warn("Service overloaded for request: {} - {} - Retry after: {} seconds",
+                request.getDescription(false),
+                ex.getMessage(),
+                ex.getRetryAfterSeconds());
+
+        ApiResponse apiResponse = new ApiResponse(
+                "Service is busy. Please try again shortly.",
+                false,
+                ErrorCode.SERVICE_OVERLOADED
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", String.valueOf(ex.getRetryAfterSeconds()))
+                .body(apiResponse);
+    }
+
     // ========== GENERAL EXCEPTIONS ==========
 
     @ExceptionHandler(Exception.class)
@@ -0,0 +1,24 @@
+package com.siyamuddin.blog.blogappapis.Exceptions;
+
+/**
+ * Thrown when an OAuth provider timed out, failed with a 5xx, or is being skipped by its circuit
+ * breaker. The user did nothing wrong, so this is a 503 with a Retry-After rather than a 401.
+ */
+public class OAuthProviderUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public OAuthProviderUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public OAuthProviderUnavailableException(String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package com.siyamuddin.blog.blogappapis.Exceptions;
+
+/**
+ * Thrown when a bounded internal resource (e.g. the password hashing pool) cannot accept more work.
+ * Mapped to 503 so clients back off instead of piling onto an already saturated node.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,67 +1,185 @@
 // src/main/java/com/siyamuddin/blog/blogappapis/Security/SecurityEventLogger.java
 package com.siyamuddin.blog.blogappapis.Payloads;
 
+import com.siyamuddin.blog.blogappapis.Config.Properties.SecurityProperties;
+import com.siyamuddin.blog.blogappapis.Security.RequestIdFilter;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Security events as one JSON object per line on the {@code SECURITY_EVENTS} logger, with a fixed
+ * schema: {@code ts, type, outcome, user, ip, requestId, detail, count}.
+ * Nothing is formatted unless the level is enabled, and lines are built in a reused per-thread buffer.
+ * Failed logins are sampled per IP: the first few in each window are logged individually and the
+ * rest are reported as one {@code LOGIN_FAILURE_SUMMARY} record when the window closes.
+ * Windows are drained one at a time: each is removed from the map and then closed, and a failure
+ * that lands on a window closed under it is counted again in a new one, so none is lost.
+ */
 @Component
 public class SecurityEventLogger {
 
     private static final Logger securityLogger = LoggerFactory.getLogger("SECURITY_EVENTS");
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String SUCCESS = "success";
+    private static final String FAILURE = "failure";
+    private static final String OVERFLOW_KEY = "*";
+    // Far enough below zero that increments racing the close can never make it positive
+    private static final int CLOSED = Integer.MIN_VALUE / 2;
+    private static final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final int sampleSize;
+    private final int maxTrackedIps;
+    private final int windowSeconds;
+    private final Map<String, FailureWindow> failureWindows = new ConcurrentHashMap<>();
+
+    public SecurityEventLogger(SecurityProperties securityProperties) {
+        SecurityProperties.EventLog config = securityProperties.getEventLog();
+        this.sampleSize = config.getFailedLoginSampleSize();
+        this.maxTrackedIps = config.getMaxTrackedIps();
+        this.windowSeconds = config.getAggregationWindowSeconds();
+    }
 
     public void logLoginAttempt(String username, String ipAddress, boolean success) {
-        String event = String.format("[LOGIN_ATTEMPT] %s | User: %s | IP: %s | Success: %s",
-                LocalDateTime.now().format(formatter),
-                username,
-                ipAddress,
-                success);
         if (success) {
-            securityLogger.info(event);
-        } else {
-            securityLogger.warn(event);
+            if (securityLogger.isInfoEnabled()) {
+                securityLogger.info(format("LOGIN_ATTEMPT", SUCCESS, username, ipAddress, null, 1));
+            }
+            return;
+        }
+        if (!securityLogger.isWarnEnabled()) {
+            return;
+        }
+        int count;
+        do {
+            FailureWindow window = failureWindow(ipAddress);
+            window.lastUser = username;
+            count = window.count.incrementAndGet();
+        } while (count <= 0); // closed by a concurrent flush after we found it
+        if (count <= sampleSize) {
+            securityLogger.warn(format("LOGIN_ATTEMPT", FAILURE, username, ipAddress, null, 1));
         }
     }
 
     public void logResourceAccess(String username, String resource, String action, boolean authorized) {
-        String event = String.format("[RESOURCE_ACCESS] %s | User: %s | Resource: %s | Action: %s | Authorized: %s",
-                LocalDateTime.now().format(formatter),
-                username,
-                resource,
-                action,
-                authorized);
-        if (authorized) {
-            securityLogger.info(event);
-        } else {
-            securityLogger.warn(event);
+        if (authorized ? securityLogger.isInfoEnabled() : securityLogger.isWarnEnabled()) {
+            String event = format("RESOURCE_ACCESS", authorized ? SUCCESS : FAILURE, username, null, action + " " + resource, 1);
+            if (authorized) {
+                securityLogger.info(event);
+            } else {
+                securityLogger.warn(event);
+            }
         }
     }
 
     public void logSecurityViolation(String username, String ipAddress, String violation, String details) {
-        String event = String.format("[SECURITY_VIOLATION] %s | User: %s | IP: %s | Violation: %s | Details: %s",
-                LocalDateTime.now().format(formatter),
-                username,
-                ipAddress,
-                violation,
-                details);
-        securityLogger.error(event);
+        if (securityLogger.isErrorEnabled()) {
+            securityLogger.error(format("SECURITY_VIOLATION", FAILURE, username, ipAddress, violation + ": " + details, 1));
+        }
     }
 
     public void logTokenValidation(String username, String tokenType, boolean valid, String reason) {
-        String event = String.format("[TOKEN_VALIDATION] %s | User: %s | Token: %s | Valid: %s | Reason: %s",
-                LocalDateTime.now().format(formatter),
-                username,
-                tokenType,
-                valid,
-                reason);
-        if (valid) {
-            securityLogger.info(event);
-        } else {
-            securityLogger.warn(event);
+        if (valid ? securityLogger.isInfoEnabled() : securityLogger.isWarnEnabled()) {
+            String detail = reason == null ? tokenType : tokenType + ": " + reason;
+            String event = format("TOKEN_VALIDATION", valid ? SUCCESS : FAILURE, username, null, detail, 1);
+            if (valid) {
+                securityLogger.info(event);
+            } else {
+                securityLogger.warn(event);
+            }
+        }
+    }
+
+    /**
+     * Close the current failed-login window and emit one summary per IP whose failures were suppressed.
+     */
+    @Scheduled(fixedDelayString = "${app.security.event-log.aggregation-window-seconds:60}", timeUnit = TimeUnit.SECONDS)
+    @PreDestroy
+    public void flushFailedLoginSummaries() {
+        for (String ip : failureWindows.keySet()) {
+            FailureWindow window = failureWindows.remove(ip);
+            if (window == null) {
+                continue;
+            }
+            // Removed first, so a failure that sees it closed finds a fresh window in the map
+            int suppressed = window.count.getAndSet(CLOSED) - sampleSize;
+            if (suppressed > 0 && securityLogger.isWarnEnabled()) {
+                securityLogger.warn(format("LOGIN_FAILURE_SUMMARY", FAILURE, window.lastUser, ip,
+                        "failed logins suppressed in the last " + windowSeconds + "s", suppressed));
+            }
+        }
+    }
+
+    private FailureWindow failureWindow(String ipAddress) {
+        String key = ipAddress == null ? "unknown" : ipAddress;
+        FailureWindow window = failureWindows.get(key);
+        if (window != null) {
+            return window;
+        }
+        if (failureWindows.size() >= maxTrackedIps) {
+            key = OVERFLOW_KEY;
+        }
+        return failureWindows.computeIfAbsent(key, k -> new FailureWindow());
+    }
+
+    private static String format(String type, String outcome, String user, String ip, String detail, int count) {
+        StringBuilder json = buffers.get();
+        if (json.capacity() > 4096) {
+            // Don't pin a buffer grown by one oversized event
+            json = new StringBuilder(256);
+            buffers.set(json);
         }
+        json.setLength(0);
+        json.append("{\"ts\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.now(), json);
+        json.append("\",\"type\":\"").append(type)
+                .append("\",\"outcome\":\"").append(outcome).append('"');
+        appendField(json, "user", user);
+        appendField(json, "ip", ip);
+        appendField(json, "requestId", MDC.get(RequestIdFilter.REQUEST_ID_MDC_KEY));
+        appendField(json, "detail", detail);
+        json.append(",\"count\":").append(count).append('}');
+        return json.toString();
+    }
+
+    private static void appendField(StringBuilder json, String name, String value) {
+        json.append(",\"").append(name).append("\":");
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    private static final class FailureWindow {
+        private final AtomicInteger count = new AtomicInteger();
+        private volatile String lastUser;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package com.siyamuddin.blog.blogappapis.Payloads.UserPayload;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Confirms a direct upload made with a {@link ProfilePhotoUploadTicket}.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class ProfilePhotoUploadConfirmation {
+    @NotBlank(message = "Storage key is required")
+    private String storageKey;
+}
@@ -0,0 +1,23 @@
+package com.siyamuddin.blog.blogappapis.Payloads.UserPayload;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Asks for a presigned URL to upload a profile photo straight to storage.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class ProfilePhotoUploadRequest {
+    @NotBlank(message = "Content type is required")
+    private String contentType;
+
+    @NotNull(message = "Content length is required")
+    @Positive(message = "Content length must be greater than 0")
+    private Long contentLength;
+}
@@ -0,0 +1,28 @@
+package com.siyamuddin.blog.blogappapis.Payloads.UserPayload;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Where and how to upload a profile photo directly to storage. After the upload succeeds the
+ * client confirms it with {@link #storageKey}.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ProfilePhotoUploadTicket {
+    private String uploadUrl;
+    private String method;
+    /**
+     * Headers to send with the upload exactly as given.
+     */
+    private Map<String, String> headers;
+    private String storageKey;
+    private Instant expiresAt;
+}
@@ -7,6 +7,8 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 @NoArgsConstructor
@@ -45,4 +47,10 @@ public class UserDto {
     private Set<Role> roles = new HashSet<>();
 
     private String profileImageUrl;
+
+    /**
+     * Square variants of the profile photo by edge length in pixels; empty until they have been
+     * generated, in which case clients should fall back to {@code profileImageUrl}.
+     */
+    private Map<Integer, String> profileImageVariants = new LinkedHashMap<>();
 }
@@ -1,7 +1,10 @@
 package com.siyamuddin.blog.blogappapis.Repository;
 
 import com.siyamuddin.blog.blogappapis.Entity.AppSetting;
+import com.siyamuddin.blog.blogappapis.Services.Config.SettingsVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,5 +20,15 @@ public interface AppSettingRepo extends JpaRepository<AppSetting, Long> {
     List<AppSetting> findAllByOrderBySettingCategory();
     
     boolean existsBySettingKey(String settingKey);
+
+    @Query("SELECT COALESCE(MAX(s.version), 0) FROM AppSetting s")
+    long findMaxVersion();
+
+    @Query("SELECT new com.siyamuddin.blog.blogappapis.Services.Config.SettingsVersion(" +
+            "COALESCE(MAX(s.version), 0), COUNT(s), COALESCE(SUM(s.version), 0)) FROM AppSetting s")
+    SettingsVersion findSettingsVersion();
+
+    @Query("SELECT DISTINCT s.settingCategory FROM AppSetting s WHERE s.version >= :version")
+    List<AppSetting.SettingCategory> findCategoriesWithVersionAtLeast(@Param("version") long version);
 }
 
@@ -0,0 +1,14 @@
+package com.siyamuddin.blog.blogappapis.Repository;
+
+import com.siyamuddin.blog.blogappapis.Entity.AuditLogRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AuditLogRollupRepo extends JpaRepository<AuditLogRollup, Long> {
+    List<AuditLogRollup> findByGranularityAndBucketStartBetweenOrderByBucketStartAsc(
+            AuditLogRollup.Granularity granularity, LocalDateTime from, LocalDateTime to);
+}
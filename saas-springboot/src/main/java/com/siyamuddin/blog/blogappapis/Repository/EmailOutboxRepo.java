@@ -0,0 +1,9 @@
+package com.siyamuddin.blog.blogappapis.Repository;
+
+import com.siyamuddin.blog.blogappapis.Entity.EmailOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EmailOutboxRepo extends JpaRepository<EmailOutboxMessage, Long> {
+}
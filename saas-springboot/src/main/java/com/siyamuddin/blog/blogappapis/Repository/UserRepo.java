@@ -1,11 +1,15 @@
 package com.siyamuddin.blog.blogappapis.Repository;
 
 import com.siyamuddin.blog.blogappapis.Entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,4 +27,56 @@ public interface UserRepo extends JpaRepository<User,Integer> {
     
     Optional<User> findByEmailVerificationToken(String token);
     Optional<User> findByPasswordResetToken(String token);
+    long countByAccountLockedUntilAfter(Date now);
+    
+    /**
+     * Lock the account in a single conditional UPDATE.
+     * Only matches when the account is not already locked, so concurrent lock attempts
+     * during an attack affect the row (and trigger notifications) exactly once.
+     *
+     * @return 1 if this call locked the account, 0 if it was already locked or does not exist
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.accountLockedUntil = :lockedUntil, u.failedLoginAttempts = :attempts " +
+           "WHERE u.email = :email AND (u.accountLockedUntil IS NULL OR u.accountLockedUntil < :now)")
+    int lockIfNotLocked(@Param("email") String email,
+                        @Param("attempts") int attempts,
+                        @Param("lockedUntil") Date lockedUntil,
+                        @Param("now") Date now);
+
+    /**
+     * Replace a password hash, unless the password was changed since {@code currentHash} was read.
+     *
+     * @return 1 if replaced, 0 if the stored hash is no longer {@code currentHash}
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :userId AND u.password = :currentHash")
+    int replacePasswordHash(@Param("userId") Integer userId,
+                            @Param("currentHash") String currentHash,
+                            @Param("newHash") String newHash);
+
+    /**
+     * Record the rendered variants of a profile photo, unless the photo was replaced while they
+     * were being rendered.
+     *
+     * @return 1 if recorded, 0 if the user's photo is no longer {@code storageKey}
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.profileImageVariantSpec = :spec " +
+           "WHERE u.id = :userId AND u.profileImageStorageKey = :storageKey")
+    int updateProfileImageVariantSpec(@Param("userId") Integer userId,
+                                      @Param("storageKey") String storageKey,
+                                      @Param("spec") String spec);
+
+    /**
+     * Id, profile photo storage key and variant spec of users with a photo and an id above
+     * {@code afterId}, in id order, for the storage reconciliation scan. Paging by id rather than
+     * offset means a user deleted mid-scan can't make the scan skip another.
+     */
+    @Query("SELECT u.id, u.profileImageStorageKey, u.profileImageVariantSpec FROM User u " +
+           "WHERE u.profileImageStorageKey IS NOT NULL AND u.id > :afterId ORDER BY u.id")
+    List<Object[]> findProfileImageKeysAfter(@Param("afterId") Integer afterId, Pageable pageable);
 }
@@ -16,5 +16,6 @@ public interface UserSessionRepo extends JpaRepository<UserSession, Long> {
     List<UserSession> findByUser(User user);
     void deleteByExpiresAtBefore(LocalDateTime now);
     void deleteByUser(User user);
+    long countByIsActiveTrueAndExpiresAtAfter(LocalDateTime now);
 }
 
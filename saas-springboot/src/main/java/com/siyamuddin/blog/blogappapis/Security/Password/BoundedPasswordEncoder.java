@@ -0,0 +1,34 @@
+package com.siyamuddin.blog.blogappapis.Security.Password;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link PasswordEncoder} that runs the expensive encode/matches calls of its delegate on the
+ * {@link PasswordHashingExecutor} instead of the calling request thread.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor hashingExecutor;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor hashingExecutor) {
+        this.delegate = delegate;
+        this.hashingExecutor = hashingExecutor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hashingExecutor.encode(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hashingExecutor.matches(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Only inspects the stored hash prefix; cheap enough to stay on the caller thread
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,32 @@
+package com.siyamuddin.blog.blogappapis.Security.Password;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the {@link DelegatingPasswordEncoder} used for stored passwords.
+ * New hashes are written as {@code {bcrypt}$2a$<cost>$...}; hashes stored before the id prefix
+ * existed are plain BCrypt and still verify, but report {@code upgradeEncoding == true} so they
+ * are rewritten on the next successful login.
+ */
+public final class PasswordEncoderFactory {
+
+    public static final String BCRYPT_ID = "bcrypt";
+
+    private PasswordEncoderFactory() {
+    }
+
+    public static PasswordEncoder delegating(int bcryptStrength) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT_ID, new BCryptPasswordEncoder(bcryptStrength));
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(BCRYPT_ID, encoders);
+        // Legacy rows: unprefixed BCrypt of any cost
+        delegating.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return delegating;
+    }
+}
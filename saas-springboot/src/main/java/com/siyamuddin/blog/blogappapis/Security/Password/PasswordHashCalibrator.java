@@ -0,0 +1,74 @@
+package com.siyamuddin.blog.blogappapis.Security.Password;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.SecurityProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Picks the BCrypt cost for this node.
+ * With calibration off the configured cost is used as-is. With calibration on, BCrypt is timed
+ * on the current hardware and the cost is raised one step at a time (each step doubles the work)
+ * while a single hash still fits the latency budget, never dropping below the configured cost.
+ */
+@Slf4j
+@Component
+public class PasswordHashCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "calibration-Sample-Passw0rd!";
+    private static final int SAMPLES = 3;
+
+    private final SecurityProperties.PasswordHashing config;
+
+    public PasswordHashCalibrator(SecurityProperties securityProperties) {
+        this.config = securityProperties.getPasswordHashing();
+    }
+
+    public int resolveBcryptStrength() {
+        int floor = config.getBcryptStrength();
+        if (!Boolean.TRUE.equals(config.getCalibrate())) {
+            log.info("Using configured BCrypt cost {}", floor);
+            return floor;
+        }
+
+        long budgetMillis = config.getCalibrationBudgetMillis();
+        int ceiling = config.getMaxBcryptStrength();
+
+        // Warm up the JIT so the first measurement is not inflated
+        for (int i = 0; i < SAMPLES; i++) {
+            BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(4));
+        }
+
+        int strength = floor;
+        long millis = measureMillis(strength);
+        while (strength < ceiling && millis * 2 <= budgetMillis) {
+            long next = measureMillis(strength + 1);
+            if (next > budgetMillis) {
+                break;
+            }
+            strength++;
+            millis = next;
+        }
+
+        if (millis > budgetMillis) {
+            log.warn("BCrypt cost {} takes {} ms, above the {} ms budget; keeping the configured floor",
+                    strength, millis, budgetMillis);
+        } else {
+            log.info("Calibrated BCrypt cost {} ({} ms per hash, budget {} ms)", strength, millis, budgetMillis);
+        }
+        return strength;
+    }
+
+    private long measureMillis(int strength) {
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(strength));
+            samples[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
@@ -0,0 +1,142 @@
+package com.siyamuddin.blog.blogappapis.Security.Password;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.SecurityProperties;
+import com.siyamuddin.blog.blogappapis.Exceptions.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated, bounded CPU pool for password hashing and verification.
+ * Sized to the core count so a login storm saturates at most these workers, leaving the
+ * request threads free to serve cheap calls. When the queue is full callers fail fast with
+ * {@link ServiceOverloadedException} (503) instead of queueing behind the storm.
+ */
+@Slf4j
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final long retryAfterSeconds;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingExecutor(SecurityProperties securityProperties, MeterRegistry meterRegistry) {
+        SecurityProperties.PasswordHashing config = securityProperties.getPasswordHashing();
+        int threads = config.resolveThreads();
+        this.timeoutMillis = config.getTimeoutMillis();
+        this.retryAfterSeconds = config.getRetryAfterSeconds() == null ? 1 : config.getRetryAfterSeconds();
+
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.prestartAllCoreThreads();
+
+        this.encodeTimer = Timer.builder("app.auth.password.hash.duration")
+                .description("Time spent hashing passwords on the hashing pool")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("app.auth.password.hash.duration")
+                .description("Time spent verifying passwords on the hashing pool")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("app.auth.password.hash.queue.wait")
+                .description("Time hash operations wait for a free worker")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("app.auth.password.hash.rejected")
+                .description("Hash operations rejected because the pool was saturated")
+                .register(meterRegistry);
+        Gauge.builder("app.auth.password.hash.queue.depth", executor, e -> e.getQueue().size())
+                .description("Hash operations waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("app.auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hash workers currently busy")
+                .register(meterRegistry);
+
+        log.info("Password hashing pool started with {} threads and queue capacity {}",
+                threads, config.getQueueCapacity());
+    }
+
+    public String encode(Supplier<String> task) {
+        return submit(task, encodeTimer);
+    }
+
+    public boolean matches(Supplier<Boolean> task) {
+        return submit(task, matchesTimer);
+    }
+
+    private <T> T submit(Supplier<T> task, Timer timer) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return timer.record(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ServiceOverloadedException("Password hashing pool is saturated", retryAfterSeconds);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new ServiceOverloadedException("Password hashing timed out", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Interrupted while waiting for password hashing", retryAfterSeconds);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
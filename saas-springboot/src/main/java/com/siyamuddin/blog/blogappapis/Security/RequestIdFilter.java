@@ -23,7 +23,7 @@ import java.util.UUID;
 public class RequestIdFilter extends OncePerRequestFilter {
     
     private static final String REQUEST_ID_HEADER = "X-Request-ID";
-    private static final String REQUEST_ID_MDC_KEY = "requestId";
+    public static final String REQUEST_ID_MDC_KEY = "requestId";
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
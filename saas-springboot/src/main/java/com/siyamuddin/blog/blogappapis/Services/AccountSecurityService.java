@@ -5,8 +5,9 @@ import com.siyamuddin.blog.blogappapis.Entity.User;
 public interface AccountSecurityService {
     void lockAccount(String email, int durationMinutes);
     void unlockAccount(String email);
-    void incrementFailedLoginAttempts(String email);
+    void incrementFailedLoginAttempts(String email, String ipAddress);
     void resetFailedLoginAttempts(String email);
+    boolean isLoginBlockedForIp(String ipAddress);
     boolean isAccountLocked(User user);
 }
 
@@ -5,6 +5,7 @@ import com.siyamuddin.blog.blogappapis.Payloads.Settings.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public interface AppSettingsService {
     
@@ -34,6 +35,9 @@ public interface AppSettingsService {
     // Refresh configuration
     void refreshConfiguration();
     
+    // Reload from committed data after settings in these categories changed, on this node or another
+    void applyCommittedChange(Set<AppSetting.SettingCategory> categories);
+    
     // Get grouped settings as map
     Map<String, String> getSettingsAsMap(AppSetting.SettingCategory category);
 }
@@ -0,0 +1,42 @@
+package com.siyamuddin.blog.blogappapis.Services.Audit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Whether audit writes should go to the database or straight to the spool.
+ * The writer trips it on a failed batch; only the spool replayer closes it again, after a
+ * successful probe, so a struggling database is not hit by every flush.
+ */
+@Slf4j
+@Component
+public class AuditDatabaseHealth {
+
+    private volatile boolean healthy = true;
+
+    public AuditDatabaseHealth(MeterRegistry meterRegistry) {
+        Gauge.builder("app.audit.database.healthy", this, h -> h.healthy ? 1 : 0)
+                .description("1 while audit events are written to the database, 0 while they are spooled")
+                .register(meterRegistry);
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public void markUnhealthy(Exception cause) {
+        if (healthy) {
+            healthy = false;
+            log.warn("Audit database marked unhealthy, spooling events locally: {}", cause.getMessage());
+        }
+    }
+
+    public void markHealthy() {
+        if (!healthy) {
+            healthy = true;
+            log.info("Audit database healthy again, resuming direct writes");
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.siyamuddin.blog.blogappapis.Services.Audit;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable audit event as queued for the batch writer; one row of {@code audit_log}.
+ * Built on the request thread by {@link AuditEventFactory} with everything already resolved,
+ * so the writer never needs servlet state. {@code eventId} is unique per event and lets spooled
+ * events be replayed without duplicating rows that did reach the database.
+ */
+public record AuditEvent(
+        String eventId,
+        Integer userId,
+        String action,
+        String resourceType,
+        String resourceId,
+        String ipAddress,
+        String userAgent,
+        String requestId,
+        boolean success,
+        String errorMessage,
+        LocalDateTime timestamp) {
+}
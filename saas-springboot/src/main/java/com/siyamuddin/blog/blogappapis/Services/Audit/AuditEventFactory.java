@@ -0,0 +1,77 @@
+package com.siyamuddin.blog.blogappapis.Services.Audit;
+
+import com.siyamuddin.blog.blogappapis.Security.RequestIdFilter;
+import com.siyamuddin.blog.blogappapis.Utils.HttpUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Builds {@link AuditEvent}s on the calling (request) thread.
+ * Client IP, user agent, request id and timestamp are resolved here, while the request is still
+ * bound to the thread, and clipped to the {@code audit_log} column lengths.
+ */
+@Component
+public class AuditEventFactory {
+
+    private static final String UNKNOWN = "unknown";
+    private static final int ACTION_MAX_LENGTH = 100;
+    private static final int RESOURCE_TYPE_MAX_LENGTH = 100;
+    private static final int RESOURCE_ID_MAX_LENGTH = 255;
+    private static final int IP_MAX_LENGTH = 45;
+    private static final int USER_AGENT_MAX_LENGTH = 500;
+    private static final int REQUEST_ID_MAX_LENGTH = 64;
+    private static final int ERROR_MESSAGE_MAX_LENGTH = 1000;
+
+    /**
+     * Capture an event using the current request for IP and user agent.
+     */
+    public AuditEvent capture(Integer userId, String action, String resourceType, Object resourceId,
+                              boolean success, String errorMessage) {
+        HttpServletRequest request = currentRequest();
+        String ipAddress = request != null ? HttpUtils.getClientIP(request) : UNKNOWN;
+        String userAgent = request != null ? request.getHeader("User-Agent") : UNKNOWN;
+        return capture(ipAddress, userAgent, userId, action, resourceType, resourceId, success, errorMessage);
+    }
+
+    /**
+     * Capture an event with caller-supplied IP and user agent.
+     */
+    public AuditEvent capture(String ipAddress, String userAgent, Integer userId, String action,
+                              String resourceType, Object resourceId, boolean success, String errorMessage) {
+        return new AuditEvent(
+                UUID.randomUUID().toString(),
+                userId,
+                truncate(action, ACTION_MAX_LENGTH),
+                truncate(resourceType, RESOURCE_TYPE_MAX_LENGTH),
+                resourceId != null ? truncate(resourceId.toString(), RESOURCE_ID_MAX_LENGTH) : null,
+                truncate(ipAddress, IP_MAX_LENGTH),
+                truncate(userAgent, USER_AGENT_MAX_LENGTH),
+                truncate(MDC.get(RequestIdFilter.REQUEST_ID_MDC_KEY), REQUEST_ID_MAX_LENGTH),
+                success,
+                truncate(errorMessage, ERROR_MESSAGE_MAX_LENGTH),
+                LocalDateTime.now());
+    }
+
+    private HttpServletRequest currentRequest() {
+        // getRequestAttributes() returns null off a request thread instead of throwing
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return servletAttributes.getRequest();
+        }
+        return null;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null || value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,91 @@
+package com.siyamuddin.blog.blogappapis.Services.Audit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes audit events to {@code audit_log} as multi-row INSERT statements.
+ * Bypasses JPA on purpose: with IDENTITY ids Hibernate cannot batch inserts, so every event
+ * would otherwise cost its own round trip.
+ */
+@Component
+public class AuditLogBatchInserter {
+
+    private static final String INSERT_PREFIX = "INSERT INTO audit_log " +
+            "(event_id, user_id, action, resource_type, resource_id, ip_address, user_agent, request_id, timestamp, success, error_message) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 11;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AuditLogBatchInserter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert all events in one statement. Callers keep batches within the configured batch size.
+     */
+    public void insert(List<AuditEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + events.size() * (ROW_PLACEHOLDERS.length() + 1));
+        sql.append(INSERT_PREFIX);
+        Object[] args = new Object[events.size() * COLUMNS];
+        int i = 0;
+        for (AuditEvent event : events) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(ROW_PLACEHOLDERS);
+            args[i++] = event.eventId();
+            args[i++] = event.userId();
+            args[i++] = event.action();
+            args[i++] = event.resourceType();
+            args[i++] = event.resourceId();
+            args[i++] = event.ipAddress();
+            args[i++] = event.userAgent();
+            args[i++] = event.requestId();
+            args[i++] = Timestamp.valueOf(event.timestamp());
+            args[i++] = event.success();
+            args[i++] = event.errorMessage();
+        }
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    /**
+     * Insert only events whose id is not already in {@code audit_log}. Used when replaying the spool,
+     * where a batch may have been committed before its write was reported as failed.
+     *
+     * @return number of rows inserted
+     */
+    public int insertNew(List<AuditEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder("SELECT event_id FROM audit_log WHERE event_id IN (");
+        Object[] ids = new Object[events.size()];
+        for (int i = 0; i < ids.length; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            ids[i] = events.get(i).eventId();
+        }
+        sql.append(')');
+        Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(sql.toString(), String.class, ids));
+        List<AuditEvent> fresh = existing.isEmpty() ? events : new ArrayList<>(events.size());
+        if (!existing.isEmpty()) {
+            for (AuditEvent event : events) {
+                if (!existing.contains(event.eventId())) {
+                    fresh.add(event);
+                }
+            }
+        }
+        insert(fresh);
+        return fresh.size();
+    }
+}
@@ -0,0 +1,192 @@
+package com.siyamuddin.blog.blogappapis.Services.Audit;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.AuditProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-writer audit pipeline.
+ * Publishers drop events into a lock-free ring buffer and return immediately; one dedicated
+ * thread drains the buffer and writes multi-row INSERTs when a batch fills up or the flush
+ * interval elapses. A full buffer is handled by the configured {@link AuditProperties.OverflowPolicy}.
+ * When a batch fails the database is marked unhealthy and batches go to the local {@link AuditSpool}
+ * until {@link AuditSpoolReplayer} sees it recover, so a slow or down database never backs up publishers.
+ */
+@Slf4j
+@Component
+public class AuditLogWriter {
+
+    private final AuditProperties properties;
+    private final AuditLogBatchInserter batchInserter;
+    private final AuditSpool spool;
+    private final AuditDatabaseHealth databaseHealth;
+    private final AuditRingBuffer buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+
+    private final Counter publishedCounter;
+    private final Counter droppedCounter;
+    private final Counter spilledCounter;
+    private final Counter failedCounter;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private volatile Thread writerThread;
+
+    public AuditLogWriter(AuditProperties properties,
+                          AuditLogBatchInserter batchInserter,
+                          AuditSpool spool,
+                          AuditDatabaseHealth databaseHealth,
+                          MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.batchInserter = batchInserter;
+        this.spool = spool;
+        this.databaseHealth = databaseHealth;
+        this.buffer = new AuditRingBuffer(properties.getBufferSize());
+        this.batchSize = properties.getBatchSize();
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMillis());
+
+        this.publishedCounter = Counter.builder("app.audit.events")
+                .description("Audit events accepted into the buffer")
+                .tag("outcome", "published")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("app.audit.events")
+                .description("Audit events dropped because the buffer was full")
+                .tag("outcome", "dropped")
+                .register(meterRegistry);
+        this.spilledCounter = Counter.builder("app.audit.events")
+                .description("Audit events written to the local spool instead of the database")
+                .tag("outcome", "spilled")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("app.audit.events")
+                .description("Audit events whose batch insert failed")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("app.audit.batch.size")
+                .description("Rows per audit batch insert")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("app.audit.flush.duration")
+                .description("Time taken to write one audit batch")
+                .register(meterRegistry);
+        Gauge.builder("app.audit.buffer.depth", buffer, AuditRingBuffer::size)
+                .description("Audit events waiting in the buffer")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::runLoop, "audit-writer");
+        thread.setDaemon(true);
+        writerThread = thread;
+        thread.start();
+        log.info("Audit writer started with buffer capacity {}", buffer.capacity());
+    }
+
+    /**
+     * Queue an event for writing. Never touches the database on the caller thread.
+     */
+    public void publish(AuditEvent event) {
+        if (buffer.offer(event)) {
+            publishedCounter.increment();
+            if (buffer.size() >= batchSize) {
+                LockSupport.unpark(writerThread);
+            }
+            return;
+        }
+        handleOverflow(event);
+    }
+
+    private void handleOverflow(AuditEvent event) {
+        switch (properties.getOverflowPolicy()) {
+            case BLOCK -> {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getBlockTimeoutMillis());
+                LockSupport.unpark(writerThread);
+                while (System.nanoTime() < deadline) {
+                    if (buffer.offer(event)) {
+                        publishedCounter.increment();
+                        return;
+                    }
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                }
+                droppedCounter.increment();
+            }
+            case DROP -> droppedCounter.increment();
+            case SPILL -> {
+                spool.append(event);
+                spilledCounter.increment();
+            }
+        }
+    }
+
+    private void runLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        long batchStartedAt = 0;
+        while (running || buffer.size() > 0) {
+            if (batch.isEmpty()) {
+                batchStartedAt = System.nanoTime();
+            }
+            buffer.drainTo(batch, batchSize - batch.size());
+
+            long waited = System.nanoTime() - batchStartedAt;
+            if (batch.size() >= batchSize || (!batch.isEmpty() && (waited >= flushIntervalNanos || !running))) {
+                flush(batch);
+                batch.clear();
+            } else {
+                LockSupport.parkNanos(batch.isEmpty() ? flushIntervalNanos : flushIntervalNanos - waited);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<AuditEvent> batch) {
+        if (!databaseHealth.isHealthy()) {
+            spool.appendAll(batch);
+            spilledCounter.increment(batch.size());
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            batchInserter.insert(batch);
+            batchSizeSummary.record(batch.size());
+        } catch (Exception e) {
+            failedCounter.increment(batch.size());
+            log.error("Failed to write audit batch of {} events, spooling", batch.size(), e);
+            databaseHealth.markUnhealthy(e);
+            spool.appendAll(batch);
+            spilledCounter.increment(batch.size());
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread thread = writerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("Audit writer stopped");
+    }
+}
@@ -0,0 +1,159 @@
+package com.siyamuddin.blog.blogappapis.Services.Audit;
+
+import com.siyamuddin.blog.blogappapis.Config.AsyncExecutorConfig;
+import com.siyamuddin.blog.blogappapis.Config.Properties.AuditProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Keeps {@code audit_log} bounded.
+ * On MySQL with the table range-partitioned by month (see {@code db/mysql/audit_log_partitioning.sql})
+ * it keeps future partitions created ahead of time and drops whole partitions once they fall past
+ * retention, which is a metadata operation instead of a multi-million-row DELETE. Unpartitioned
+ * tables (H2, or before the migration) fall back to chunked deletes.
+ */
+@Slf4j
+@Component
+public class AuditRetentionJob {
+
+    private static final String MAX_PARTITION = "pmax";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    /** MySQL TO_DAYS('1970-01-01'). */
+    private static final long TO_DAYS_EPOCH_OFFSET = 719528L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditProperties properties;
+    private final AuditRollupJob rollupJob;
+
+    public AuditRetentionJob(JdbcTemplate jdbcTemplate, AuditProperties properties, AuditRollupJob rollupJob) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.rollupJob = rollupJob;
+    }
+
+    /**
+     * Catch up after downtime without holding up startup; a large backlog of chunked deletes
+     * can take minutes.
+     */
+    @Async(AsyncExecutorConfig.AUDIT)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        run();
+    }
+
+    @Scheduled(cron = "${app.audit.retention.cron:0 15 3 * * *}")
+    public void run() {
+        if (!Boolean.TRUE.equals(properties.getRetention().getEnabled())) {
+            return;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(properties.getRetention().getDays());
+            List<Partition> partitions = loadPartitions();
+            if (partitions.isEmpty()) {
+                deleteInChunks(cutoff);
+            } else {
+                createPartitionsAhead(partitions);
+                dropExpiredPartitions(partitions, cutoff.toLocalDate());
+            }
+            rollupJob.purgeExpiredRollups();
+        } catch (DataAccessException e) {
+            log.error("Audit retention run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private List<Partition> loadPartitions() {
+        try {
+            return jdbcTemplate.query(
+                    "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'audit_log' AND PARTITION_NAME IS NOT NULL " +
+                    "ORDER BY PARTITION_ORDINAL_POSITION",
+                    (rs, rowNum) -> new Partition(rs.getString(1), parseBound(rs.getString(2))));
+        } catch (DataAccessException e) {
+            // Not MySQL, or no access to information_schema
+            return List.of();
+        }
+    }
+
+    private void createPartitionsAhead(List<Partition> partitions) {
+        if (partitions.stream().noneMatch(p -> MAX_PARTITION.equals(p.name()))) {
+            log.warn("audit_log is partitioned without a '{}' partition; not creating partitions ahead", MAX_PARTITION);
+            return;
+        }
+        long highestBound = partitions.stream()
+                .filter(p -> p.upperBound() != null)
+                .mapToLong(Partition::upperBound)
+                .max()
+                .orElse(0);
+        LocalDate monthStart = LocalDate.now().withDayOfMonth(1);
+        LocalDate target = monthStart.plusMonths(properties.getRetention().getPartitionsAhead() + 1L);
+        LocalDate next = highestBound > 0
+                ? LocalDate.ofEpochDay(highestBound - TO_DAYS_EPOCH_OFFSET)
+                : monthStart;
+        while (!next.isAfter(target.minusMonths(1))) {
+            LocalDate bound = next.withDayOfMonth(1).plusMonths(1);
+            String name = PARTITION_NAME.format(next);
+            jdbcTemplate.execute("ALTER TABLE audit_log REORGANIZE PARTITION " + MAX_PARTITION + " INTO (" +
+                    "PARTITION " + name + " VALUES LESS THAN (" + toDays(bound) + "), " +
+                    "PARTITION " + MAX_PARTITION + " VALUES LESS THAN MAXVALUE)");
+            log.info("Created audit_log partition {}", name);
+            next = bound;
+        }
+    }
+
+    private void dropExpiredPartitions(List<Partition> partitions, LocalDate cutoff) {
+        long cutoffDays = toDays(cutoff);
+        for (Partition partition : partitions) {
+            // A partition is expired only when its exclusive upper bound is at or before the cutoff
+            if (partition.upperBound() != null && partition.upperBound() <= cutoffDays) {
+                jdbcTemplate.execute("ALTER TABLE audit_log DROP PARTITION " + partition.name());
+                log.info("Dropped audit_log partition {} past retention", partition.name());
+            }
+        }
+    }
+
+    private void deleteInChunks(LocalDateTime cutoff) {
+        Timestamp cutoffTimestamp = Timestamp.valueOf(cutoff);
+        Long maxExpiredId = jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM audit_log WHERE timestamp < ?", Long.class, cutoffTimestamp);
+        if (maxExpiredId == null) {
+            return;
+        }
+        Long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM audit_log", Long.class);
+        long chunk = properties.getRetention().getDeleteChunkSize();
+        long deleted = 0;
+        for (long from = minId == null ? 0 : minId; from <= maxExpiredId; from += chunk) {
+            deleted += jdbcTemplate.update(
+                    "DELETE FROM audit_log WHERE id >= ? AND id < ? AND timestamp < ?",
+                    from, Math.min(from + chunk, maxExpiredId + 1), cutoffTimestamp);
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} audit_log rows older than {}", deleted, cutoff);
+        }
+    }
+
+    static long toDays(LocalDate date) {
+        return date.toEpochDay() + TO_DAYS_EPOCH_OFFSET;
+    }
+
+    private static Long parseBound(String description) {
+        if (description == null || "MAXVALUE".equalsIgnoreCase(description)) {
+            return null;
+        }
+        return Long.parseLong(description.trim());
+    }
+
+    private record Partition(String name, Long upperBound) {
+    }
+}
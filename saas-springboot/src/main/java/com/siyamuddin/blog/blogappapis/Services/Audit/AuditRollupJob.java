@@ -0,0 +1,156 @@
+package com.siyamuddin.blog.blogappapis.Services.Audit;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.AuditProperties;
+import com.siyamuddin.blog.blogappapis.Entity.AuditLogRollup.Granularity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Incrementally folds new {@code audit_log} rows into per-hour and per-day counts by action and outcome.
+ * Progress is an id watermark advanced with a compare-and-set in the same transaction as the
+ * counter updates, so concurrent instances never count a range twice and a failed run rolls back
+ * cleanly. Rows are grouped by their own timestamp, so late (replayed) events land in the right bucket.
+ */
+@Slf4j
+@Component
+public class AuditRollupJob {
+
+    static final String WATERMARK_NAME = "audit_log";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditProperties properties;
+
+    /**
+     * Highest id seen by the previous run. Only ids up to this are rolled up, which gives
+     * concurrently inserted rows with lower ids one full interval to commit.
+     */
+    private volatile long settledMaxId = -1;
+
+    public AuditRollupJob(JdbcTemplate jdbcTemplate, AuditProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${app.audit.rollup.interval-millis:60000}",
+            initialDelayString = "${app.audit.rollup.interval-millis:60000}")
+    @Transactional
+    public void rollup() {
+        if (!Boolean.TRUE.equals(properties.getRollup().getEnabled())) {
+            return;
+        }
+        long upperBound = settledMaxId;
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM audit_log", Long.class);
+        settledMaxId = maxId == null ? 0 : maxId;
+        if (upperBound <= 0) {
+            return;
+        }
+        rollupUpTo(upperBound);
+    }
+
+    /**
+     * Fold rows with {@code lastId < id <= upperBound} (capped at max-rows-per-run) into the rollup table.
+     *
+     * @return number of audit rows folded in
+     */
+    int rollupUpTo(long upperBound) {
+        long lastId = currentWatermark();
+        long target = Math.min(upperBound, lastId + properties.getRollup().getMaxRowsPerRun());
+        if (target <= lastId) {
+            return 0;
+        }
+        int claimed = jdbcTemplate.update(
+                "UPDATE audit_rollup_watermark SET last_id = ?, updated_at = ? WHERE name = ? AND last_id = ?",
+                target, Timestamp.valueOf(LocalDateTime.now()), WATERMARK_NAME, lastId);
+        if (claimed == 0) {
+            // Another instance advanced the watermark first
+            return 0;
+        }
+
+        Map<BucketKey, long[]> counts = new HashMap<>();
+        int[] rows = {0};
+        jdbcTemplate.query(
+                "SELECT action, success, timestamp FROM audit_log WHERE id > ? AND id <= ?",
+                rs -> {
+                    LocalDateTime timestamp = rs.getTimestamp(3).toLocalDateTime();
+                    String action = rs.getString(1);
+                    boolean success = rs.getBoolean(2);
+                    increment(counts, new BucketKey(Granularity.HOUR, timestamp.truncatedTo(ChronoUnit.HOURS), action, success));
+                    increment(counts, new BucketKey(Granularity.DAY, timestamp.truncatedTo(ChronoUnit.DAYS), action, success));
+                    rows[0]++;
+                },
+                lastId, target);
+
+        counts.forEach(this::addCount);
+        if (rows[0] > 0) {
+            log.debug("Rolled up {} audit rows into {} buckets (ids {}..{})", rows[0], counts.size(), lastId + 1, target);
+        }
+        return rows[0];
+    }
+
+    private long currentWatermark() {
+        Long lastId = jdbcTemplate.query(
+                "SELECT last_id FROM audit_rollup_watermark WHERE name = ?",
+                rs -> rs.next() ? rs.getLong(1) : null,
+                WATERMARK_NAME);
+        if (lastId != null) {
+            return lastId;
+        }
+        try {
+            jdbcTemplate.update(
+                    "INSERT INTO audit_rollup_watermark (name, last_id, updated_at) VALUES (?, 0, ?)",
+                    WATERMARK_NAME, Timestamp.valueOf(LocalDateTime.now()));
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently by another instance; the CAS below sorts out who proceeds
+        }
+        return 0;
+    }
+
+    private void addCount(BucketKey key, long[] count) {
+        Timestamp bucketStart = Timestamp.valueOf(key.bucketStart());
+        int updated = jdbcTemplate.update(
+                "UPDATE audit_log_rollup SET event_count = event_count + ? " +
+                "WHERE granularity = ? AND bucket_start = ? AND action = ? AND success = ?",
+                count[0], key.granularity().name(), bucketStart, key.action(), key.success());
+        if (updated == 0) {
+            jdbcTemplate.update(
+                    "INSERT INTO audit_log_rollup (granularity, bucket_start, action, success, event_count) VALUES (?, ?, ?, ?, ?)",
+                    key.granularity().name(), bucketStart, key.action(), key.success(), count[0]);
+        }
+    }
+
+    /**
+     * Trim rollup rows past their retention. Called from the nightly retention job.
+     */
+    @Transactional
+    public void purgeExpiredRollups() {
+        LocalDateTime now = LocalDateTime.now();
+        int hourly = jdbcTemplate.update(
+                "DELETE FROM audit_log_rollup WHERE granularity = ? AND bucket_start < ?",
+                Granularity.HOUR.name(),
+                Timestamp.valueOf(now.minusDays(properties.getRollup().getHourlyRetentionDays())));
+        int daily = jdbcTemplate.update(
+                "DELETE FROM audit_log_rollup WHERE granularity = ? AND bucket_start < ?",
+                Granularity.DAY.name(),
+                Timestamp.valueOf(now.minusDays(properties.getRollup().getDailyRetentionDays())));
+        if (hourly + daily > 0) {
+            log.info("Purged {} hourly and {} daily audit rollup rows", hourly, daily);
+        }
+    }
+
+    private static void increment(Map<BucketKey, long[]> counts, BucketKey key) {
+        counts.computeIfAbsent(key, k -> new long[1])[0]++;
+    }
+
+    private record BucketKey(Granularity granularity, LocalDateTime bucketStart, String action, boolean success) {
+    }
+}
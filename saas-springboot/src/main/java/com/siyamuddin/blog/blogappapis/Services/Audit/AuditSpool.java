@@ -0,0 +1,294 @@
+package com.siyamuddin.blog.blogappapis.Services.Audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.siyamuddin.blog.blogappapis.Config.Properties.AuditProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, segmented local spool for audit events the database cannot take right now.
+ * Each record is {@code [length][crc32][json]} appended through a {@link FileChannel}; the active
+ * segment is sealed once it reaches the configured size and sealed segments are handed to
+ * {@link AuditSpoolReplayer}, which deletes them once replayed. A torn record at the tail of a
+ * segment (crash mid-write) fails its checksum and ends the read of that segment.
+ * If the disk itself fails, events are logged as JSON on the {@code AUDIT_SPILL} logger as a last resort.
+ */
+@Slf4j
+@Component
+public class AuditSpool {
+
+    private static final Logger spillLogger = LoggerFactory.getLogger("AUDIT_SPILL");
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final CRC32 crc = new CRC32();
+
+    private long nextSequence;
+    private FileChannel activeChannel;
+    private Path activePath;
+    private long activeSize;
+    private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    public AuditSpool(AuditProperties properties, MeterRegistry meterRegistry) throws IOException {
+        this.directory = Paths.get(properties.getSpool().getDirectory()).toAbsolutePath();
+        this.segmentBytes = properties.getSpool().getSegmentBytes();
+        Files.createDirectories(directory);
+
+        long highest = 0;
+        for (Path segment : listSegments()) {
+            highest = Math.max(highest, sequenceOf(segment));
+            pendingBytes.addAndGet(Files.size(segment));
+        }
+        this.nextSequence = highest + 1;
+        if (pendingBytes.get() > 0) {
+            log.warn("Audit spool at {} holds {} bytes from a previous run; they will be replayed", directory, pendingBytes.get());
+        }
+
+        Gauge.builder("app.audit.spool.bytes", pendingBytes, AtomicLong::get)
+                .description("Bytes of audit events waiting in the local spool")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public void append(AuditEvent event) {
+        appendAll(List.of(event));
+    }
+
+    /**
+     * Append events and push them to the OS. Durable against process crashes; the channel is
+     * forced to disk when a segment is sealed.
+     */
+    public void appendAll(List<AuditEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            ensureActiveSegment();
+            for (AuditEvent event : events) {
+                writeRecord(objectMapper.writeValueAsBytes(event));
+            }
+            flushBuffer();
+            if (activeSize >= segmentBytes) {
+                sealActive();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Audit spool write failed, logging {} events instead", events.size(), e);
+            events.forEach(this::logFallback);
+            closeActiveQuietly();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Seal the active segment (if it has data) so everything appended so far becomes replayable,
+     * and return all sealed segments oldest first.
+     */
+    public List<Path> sealedSegments() throws IOException {
+        lock.lock();
+        try {
+            if (activeChannel != null && activeSize > 0) {
+                sealActive();
+            }
+            List<Path> segments = listSegments();
+            if (activePath != null) {
+                segments.remove(activePath);
+            }
+            return segments;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return pendingBytes.get() == 0;
+    }
+
+    /**
+     * Stream the intact records of a sealed segment to {@code consumer}, oldest first.
+     *
+     * @return number of records read
+     */
+    public int read(Path segment, Consumer<AuditEvent> consumer) throws IOException {
+        int records = 0;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            CRC32 checksum = new CRC32();
+            while (true) {
+                header.clear();
+                if (readFully(channel, header) < HEADER_BYTES) {
+                    break;
+                }
+                header.flip();
+                int length = header.getInt();
+                int expectedCrc = header.getInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    log.warn("Corrupt record header in audit spool segment {}; skipping the rest", segment.getFileName());
+                    break;
+                }
+                ByteBuffer body = ByteBuffer.allocate(length);
+                if (readFully(channel, body) < length) {
+                    log.warn("Truncated record in audit spool segment {}; skipping the rest", segment.getFileName());
+                    break;
+                }
+                checksum.reset();
+                checksum.update(body.array(), 0, length);
+                if ((int) checksum.getValue() != expectedCrc) {
+                    log.warn("Checksum mismatch in audit spool segment {}; skipping the rest", segment.getFileName());
+                    break;
+                }
+                consumer.accept(objectMapper.readValue(body.array(), AuditEvent.class));
+                records++;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Remove a fully replayed segment.
+     */
+    public void delete(Path segment) throws IOException {
+        long size = Files.size(segment);
+        Files.deleteIfExists(segment);
+        pendingBytes.addAndGet(-size);
+    }
+
+    private void writeRecord(byte[] json) throws IOException {
+        if (json.length > MAX_RECORD_BYTES) {
+            throw new IOException("Audit event of " + json.length + " bytes exceeds the spool record limit");
+        }
+        int recordBytes = HEADER_BYTES + json.length;
+        if (writeBuffer.remaining() < recordBytes) {
+            flushBuffer();
+            if (writeBuffer.capacity() < recordBytes) {
+                writeBuffer = ByteBuffer.allocateDirect(recordBytes);
+            }
+        }
+        crc.reset();
+        crc.update(json);
+        writeBuffer.putInt(json.length);
+        writeBuffer.putInt((int) crc.getValue());
+        writeBuffer.put(json);
+    }
+
+    private void flushBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            int written = activeChannel.write(writeBuffer);
+            activeSize += written;
+            pendingBytes.addAndGet(written);
+        }
+        writeBuffer.clear();
+    }
+
+    private void ensureActiveSegment() throws IOException {
+        if (activeChannel != null) {
+            return;
+        }
+        activePath = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+        activeChannel = FileChannel.open(activePath,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeSize = 0;
+    }
+
+    private void sealActive() throws IOException {
+        try {
+            activeChannel.force(false);
+        } finally {
+            activeChannel.close();
+            activeChannel = null;
+            activePath = null;
+            activeSize = 0;
+        }
+    }
+
+    private void closeActiveQuietly() {
+        writeBuffer.clear();
+        if (activeChannel != null) {
+            try {
+                sealActive();
+            } catch (IOException e) {
+                log.warn("Failed to close audit spool segment: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void logFallback(AuditEvent event) {
+        try {
+            spillLogger.warn(objectMapper.writeValueAsString(event));
+        } catch (IOException e) {
+            log.error("Failed to spill audit event {}", event.action(), e);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        // Zero-padded sequence numbers sort lexically in write order
+        segments.sort(null);
+        return segments;
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            closeActiveQuietly();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
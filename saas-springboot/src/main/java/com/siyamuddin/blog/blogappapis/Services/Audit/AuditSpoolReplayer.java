@@ -0,0 +1,160 @@
+package com.siyamuddin.blog.blogappapis.Services.Audit;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.AuditProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.dao.UncategorizedDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains sealed spool segments back into {@code audit_log} once the database is reachable.
+ * Replays in batches of the configured batch size with id-based de-duplication, deleting a
+ * segment only after all of its records are stored; a failure leaves the segment for the next run.
+ * A record is discarded only when the database rejects it for good (a constraint or grammar
+ * error); lock timeouts, deadlocks and lost connections keep the segment for the next pass.
+ */
+@Slf4j
+@Component
+public class AuditSpoolReplayer {
+
+    private final AuditSpool spool;
+    private final AuditLogBatchInserter batchInserter;
+    private final AuditDatabaseHealth databaseHealth;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final long intervalMillis;
+
+    private final Counter replayedCounter;
+    private final Counter duplicateCounter;
+    private final Counter rejectedCounter;
+
+    private ScheduledExecutorService scheduler;
+
+    public AuditSpoolReplayer(AuditSpool spool,
+                              AuditLogBatchInserter batchInserter,
+                              AuditDatabaseHealth databaseHealth,
+                              JdbcTemplate jdbcTemplate,
+                              AuditProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.spool = spool;
+        this.batchInserter = batchInserter;
+        this.databaseHealth = databaseHealth;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = properties.getBatchSize();
+        this.intervalMillis = properties.getSpool().getReplayIntervalMillis();
+        this.replayedCounter = Counter.builder("app.audit.spool.replayed")
+                .description("Spooled audit events written back to the database")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("app.audit.spool.duplicates")
+                .description("Spooled audit events skipped because they were already stored")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("app.audit.spool.rejected")
+                .description("Spooled audit events the database refused and that were discarded")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "audit-spool-replayer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::replay, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * One replay pass: probe the database if it is marked unhealthy, then drain every sealed segment.
+     */
+    void replay() {
+        try {
+            if (!databaseHealth.isHealthy()) {
+                jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+                databaseHealth.markHealthy();
+            }
+            if (spool.isEmpty()) {
+                return;
+            }
+            for (Path segment : spool.sealedSegments()) {
+                replaySegment(segment);
+                spool.delete(segment);
+            }
+        } catch (Exception e) {
+            databaseHealth.markUnhealthy(e);
+        }
+    }
+
+    private void replaySegment(Path segment) throws Exception {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        int records = spool.read(segment, event -> {
+            batch.add(event);
+            if (batch.size() >= batchSize) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        });
+        writeBatch(batch);
+        log.info("Replayed audit spool segment {} ({} events)", segment.getFileName(), records);
+    }
+
+    private void writeBatch(List<AuditEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            record(batch.size(), batchInserter.insertNew(batch));
+        } catch (DataAccessException e) {
+            // Database is up but rejects the batch: isolate the bad rows so one event cannot wedge the spool
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            for (AuditEvent event : batch) {
+                try {
+                    record(1, batchInserter.insertNew(List.of(event)));
+                } catch (DataAccessException rowError) {
+                    if (!isPermanent(rowError)) {
+                        // Possibly fine on the next pass; replay() marks the database unhealthy
+                        throw rowError;
+                    }
+                    rejectedCounter.increment();
+                    log.error("Discarding spooled audit event {} ({}) rejected by the database: {}",
+                            event.eventId(), event.action(), rowError.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * True when retrying the same row can never succeed. Resource failures and errors the
+     * translator could not classify are treated as transient, so events are never lost to them.
+     */
+    private static boolean isPermanent(DataAccessException e) {
+        return e instanceof NonTransientDataAccessException
+                && !(e instanceof NonTransientDataAccessResourceException)
+                && !(e instanceof UncategorizedDataAccessException);
+    }
+
+    private void record(int attempted, int inserted) {
+        replayedCounter.increment(inserted);
+        duplicateCounter.increment(attempted - inserted);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
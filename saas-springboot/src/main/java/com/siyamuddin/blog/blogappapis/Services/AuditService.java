@@ -1,10 +1,12 @@
 package com.siyamuddin.blog.blogappapis.Services;
 
 import com.siyamuddin.blog.blogappapis.Entity.AuditLog;
+import com.siyamuddin.blog.blogappapis.Entity.AuditLogRollup;
 import com.siyamuddin.blog.blogappapis.Entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface AuditService {
@@ -15,5 +17,6 @@ public interface AuditService {
     Page<AuditLog> getUserAuditLogs(Integer userId, Pageable pageable);
     Page<AuditLog> getAuditLogsByAction(String action, Pageable pageable);
     List<AuditLog> getUserActionsSince(Integer userId, int hours);
+    List<AuditLogRollup> getActionCounts(AuditLogRollup.Granularity granularity, LocalDateTime from, LocalDateTime to);
 }
 
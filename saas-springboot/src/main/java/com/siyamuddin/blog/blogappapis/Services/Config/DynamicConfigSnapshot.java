@@ -0,0 +1,144 @@
+package com.siyamuddin.blog.blogappapis.Services.Config;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.EmailProperties;
+import com.siyamuddin.blog.blogappapis.Config.Properties.RateLimitProperties;
+import com.siyamuddin.blog.blogappapis.Config.Properties.SecurityProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.Function;
+
+/**
+ * Immutable, fully parsed view of the admin-configurable settings.
+ * Built once per settings change from the database values with the properties files as defaults;
+ * a value that does not parse or fails validation is replaced by its default at build time, so
+ * readers never see a half-parsed or invalid configuration.
+ */
+public record DynamicConfigSnapshot(
+        Integer maxFailedLoginAttempts,
+        Integer accountLockoutDurationMinutes,
+        Integer passwordMinLength,
+        Integer passwordMaxLength,
+        Boolean passwordRequireUppercase,
+        Boolean passwordRequireLowercase,
+        Boolean passwordRequireDigit,
+        Boolean passwordRequireSpecialChar,
+        Integer passwordHistoryCount,
+        Integer sessionTimeoutMinutes,
+        Integer emailVerificationTokenExpiryHours,
+        Integer passwordResetTokenExpiryHours,
+        Boolean requireEmailVerificationForLogin,
+        Integer loginRateLimitRequests,
+        Integer loginRateLimitDuration,
+        Integer registrationRateLimitRequests,
+        Integer registrationRateLimitDuration,
+        Integer passwordChangeRateLimitRequests,
+        Integer passwordChangeRateLimitDuration,
+        Integer generalRateLimitRequests,
+        Integer generalRateLimitDuration,
+        String emailFrom,
+        String emailFromName,
+        String emailVerificationBaseUrl,
+        String emailPasswordResetBaseUrl,
+        Boolean emailEnabled) {
+
+    /**
+     * Compile a snapshot from raw setting values.
+     *
+     * @param settings database setting lookup by key, returning null when unset
+     */
+    public static DynamicConfigSnapshot compile(Function<String, String> settings,
+                                                SecurityProperties security,
+                                                RateLimitProperties rateLimit,
+                                                EmailProperties email) {
+        Parser p = new Parser(settings);
+        int passwordMinLength = p.positiveInt("security.passwordMinLength", security.getPasswordMinLength());
+        int passwordMaxLength = p.positiveInt("security.passwordMaxLength", security.getPasswordMaxLength());
+        if (passwordMinLength < 4 || passwordMaxLength < passwordMinLength) {
+            Parser.log.warn("Invalid password length settings {}..{}, using {}..{} from properties",
+                    passwordMinLength, passwordMaxLength, security.getPasswordMinLength(), security.getPasswordMaxLength());
+            passwordMinLength = security.getPasswordMinLength();
+            passwordMaxLength = security.getPasswordMaxLength();
+        }
+        Boolean requireVerification = security.getRequireEmailVerificationForLogin();
+
+        return new DynamicConfigSnapshot(
+                p.positiveInt("security.maxFailedLoginAttempts", security.getMaxFailedLoginAttempts()),
+                p.positiveInt("security.lockoutDurationMinutes", security.getAccountLockoutDurationMinutes()),
+                passwordMinLength,
+                passwordMaxLength,
+                p.bool("security.passwordRequireUppercase", security.getPasswordRequireUppercase()),
+                p.bool("security.passwordRequireLowercase", security.getPasswordRequireLowercase()),
+                p.bool("security.passwordRequireDigit", security.getPasswordRequireDigit()),
+                p.bool("security.passwordRequireSpecialChar", security.getPasswordRequireSpecialChar()),
+                p.nonNegativeInt("security.passwordHistoryCount", security.getPasswordHistoryCount()),
+                p.positiveInt("security.sessionTimeoutMinutes", security.getSessionTimeoutMinutes()),
+                p.positiveInt("security.emailVerificationTokenExpiryHours", security.getEmailVerificationTokenExpiryHours()),
+                p.positiveInt("security.passwordResetTokenExpiryHours", security.getPasswordResetTokenExpiryHours()),
+                p.bool("security.requireEmailVerificationForLogin", requireVerification != null && requireVerification),
+                p.positiveInt("rateLimit.login.requests", rateLimit.getLogin().getRequests()),
+                p.positiveInt("rateLimit.login.duration", rateLimit.getLogin().getDuration()),
+                p.positiveInt("rateLimit.registration.requests", rateLimit.getRegistration().getRequests()),
+                p.positiveInt("rateLimit.registration.duration", rateLimit.getRegistration().getDuration()),
+                p.positiveInt("rateLimit.passwordChange.requests", rateLimit.getPasswordChange().getRequests()),
+                p.positiveInt("rateLimit.passwordChange.duration", rateLimit.getPasswordChange().getDuration()),
+                p.positiveInt("rateLimit.general.requests", rateLimit.getGeneral().getRequests()),
+                p.positiveInt("rateLimit.general.duration", rateLimit.getGeneral().getDuration()),
+                p.string("email.from", email.getFrom()),
+                p.string("email.fromName", email.getFromName()),
+                p.string("email.verificationBaseUrl", email.getVerificationBaseUrl()),
+                p.string("email.passwordResetBaseUrl", email.getPasswordResetBaseUrl()),
+                p.bool("email.enabled", email.getEnabled()));
+    }
+
+    @Slf4j
+    private static final class Parser {
+        private final Function<String, String> settings;
+
+        private Parser(Function<String, String> settings) {
+            this.settings = settings;
+        }
+
+        Integer positiveInt(String key, Integer fallback) {
+            return integer(key, fallback, 1);
+        }
+
+        Integer nonNegativeInt(String key, Integer fallback) {
+            return integer(key, fallback, 0);
+        }
+
+        Boolean bool(String key, Boolean fallback) {
+            String raw = settings.apply(key);
+            if (raw == null || raw.isBlank()) {
+                return fallback;
+            }
+            String value = raw.trim();
+            if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+                return Boolean.valueOf(value);
+            }
+            log.warn("Setting {}='{}' is not a boolean, using {}", key, raw, fallback);
+            return fallback;
+        }
+
+        String string(String key, String fallback) {
+            String value = settings.apply(key);
+            return value != null ? value : fallback;
+        }
+
+        private Integer integer(String key, Integer fallback, int min) {
+            String raw = settings.apply(key);
+            if (raw == null || raw.isBlank()) {
+                return fallback;
+            }
+            try {
+                int value = Integer.parseInt(raw.trim());
+                if (value >= min) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the warning below
+            }
+            log.warn("Setting {}='{}' is not a valid number (>= {}), using {}", key, raw, min, fallback);
+            return fallback;
+        }
+    }
+}
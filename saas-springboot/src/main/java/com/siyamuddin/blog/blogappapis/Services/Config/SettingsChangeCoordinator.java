@@ -0,0 +1,172 @@
+package com.siyamuddin.blog.blogappapis.Services.Config;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.SettingsSyncProperties;
+import com.siyamuddin.blog.blogappapis.Entity.AppSetting;
+import com.siyamuddin.blog.blogappapis.Repository.AppSettingRepo;
+import com.siyamuddin.blog.blogappapis.Services.AppSettingsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps every node's settings in step with {@code app_settings}.
+ * The node that saves a change announces it on a Redis channel after commit; that node, receivers
+ * and a periodic version poll all go through the same path: they compare the table's {@link SettingsVersion} with the one last applied
+ * and, when it moved, reload the settings cache and publish a {@link SettingsChangedEvent} for
+ * just the categories whose rows changed. Only the affected components re-initialize.
+ */
+@Slf4j
+@Component
+public class SettingsChangeCoordinator {
+
+    private final AppSettingRepo appSettingRepo;
+    private final AppSettingsService appSettingsService;
+    private final SettingsSyncProperties properties;
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Counter notificationReloads;
+    private final Counter pollReloads;
+
+    private volatile SettingsVersion applied;
+    // Held across database reads and listener callbacks, so a Lock rather than a monitor (no virtual-thread pinning)
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    public SettingsChangeCoordinator(AppSettingRepo appSettingRepo,
+                                     AppSettingsService appSettingsService,
+                                     SettingsSyncProperties properties,
+                                     ObjectProvider<StringRedisTemplate> redisTemplate,
+                                     MeterRegistry meterRegistry) {
+        this.appSettingRepo = appSettingRepo;
+        this.appSettingsService = appSettingsService;
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.notificationReloads = Counter.builder("app.settings.sync.reloads")
+                .description("Settings reloads triggered by changes made on other nodes")
+                .tag("trigger", "notification")
+                .register(meterRegistry);
+        this.pollReloads = Counter.builder("app.settings.sync.reloads")
+                .description("Settings reloads triggered by changes made on other nodes")
+                .tag("trigger", "poll")
+                .register(meterRegistry);
+        Gauge.builder("app.settings.sync.version", this, c -> c.applied == null ? 0 : c.applied.maxVersion())
+                .description("Highest settings version applied on this node")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        applied = appSettingRepo.findSettingsVersion();
+    }
+
+    /**
+     * Announce a change saved on this node once it is committed, then settle this node on the
+     * committed state (which also folds in anything another node saved concurrently). A rolled-back
+     * save never gets here, so nothing is reloaded from uncommitted rows.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLocalChange(SettingsSavedEvent event) {
+        announce();
+        try {
+            synchronize(null);
+        } catch (Exception e) {
+            log.warn("Failed to re-read settings after a local change, next poll will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Called for each message on the settings channel; the payload is the sending node's id.
+     */
+    public void onNotification(String senderNodeId) {
+        if (nodeId.equals(senderNodeId)) {
+            return;
+        }
+        try {
+            synchronize(notificationReloads);
+        } catch (Exception e) {
+            log.warn("Failed to apply settings change announced by node {}: {}", senderNodeId, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.settings.sync.poll-interval-millis:1000}",
+            initialDelayString = "${app.settings.sync.poll-interval-millis:1000}")
+    public void poll() {
+        try {
+            synchronize(pollReloads);
+        } catch (Exception e) {
+            log.debug("Settings version poll failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reload if the table moved since the last applied version.
+     *
+     * @return true if settings were reloaded
+     */
+    boolean synchronize(Counter trigger) {
+        syncLock.lock();
+        try {
+            return synchronizeLocked(trigger);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private boolean synchronizeLocked(Counter trigger) {
+        SettingsVersion seen = applied;
+        if (seen == null) {
+            // Not started yet; settings are loaded fresh at startup anyway
+            return false;
+        }
+        SettingsVersion current = appSettingRepo.findSettingsVersion();
+        if (current.equals(seen)) {
+            return false;
+        }
+        Set<AppSetting.SettingCategory> categories = changedCategories(seen, current);
+        applied = current;
+        appSettingsService.applyCommittedChange(categories);
+        if (trigger != null) {
+            trigger.increment();
+        }
+        return true;
+    }
+
+    private Set<AppSetting.SettingCategory> changedCategories(SettingsVersion seen, SettingsVersion current) {
+        if (!current.rowCount().equals(seen.rowCount())) {
+            // Rows were deleted or re-seeded; which categories is not recoverable from versions
+            return EnumSet.allOf(AppSetting.SettingCategory.class);
+        }
+        // >= rather than >: a concurrent save on another node may have drawn the same version
+        Set<AppSetting.SettingCategory> categories = EnumSet.noneOf(AppSetting.SettingCategory.class);
+        categories.addAll(appSettingRepo.findCategoriesWithVersionAtLeast(seen.maxVersion()));
+        return categories.isEmpty() ? EnumSet.allOf(AppSetting.SettingCategory.class) : categories;
+    }
+
+    private void announce() {
+        if (properties.getNotifier() != SettingsSyncProperties.Notifier.REDIS) {
+            return;
+        }
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.convertAndSend(properties.getChannel(), nodeId);
+        } catch (Exception e) {
+            log.warn("Failed to announce settings change, other nodes will pick it up by polling: {}", e.getMessage());
+        }
+    }
+}
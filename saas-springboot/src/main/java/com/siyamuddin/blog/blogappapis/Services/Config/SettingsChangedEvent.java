@@ -0,0 +1,28 @@
+package com.siyamuddin.blog.blogappapis.Services.Config;
+
+import com.siyamuddin.blog.blogappapis.Entity.AppSetting;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Published after the settings cache was reloaded from committed data, whichever node saved the
+ * change, so derived configuration can be rebuilt. Listeners re-initialize only when a category
+ * they depend on is affected.
+ *
+ * @param categories setting categories whose values may have changed
+ */
+public record SettingsChangedEvent(Set<AppSetting.SettingCategory> categories) {
+
+    public SettingsChangedEvent {
+        categories = Set.copyOf(categories);
+    }
+
+    public static SettingsChangedEvent all() {
+        return new SettingsChangedEvent(EnumSet.allOf(AppSetting.SettingCategory.class));
+    }
+
+    public boolean affects(AppSetting.SettingCategory category) {
+        return categories.contains(category);
+    }
+}
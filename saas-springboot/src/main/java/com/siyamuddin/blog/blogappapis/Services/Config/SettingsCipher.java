@@ -0,0 +1,135 @@
+package com.siyamuddin.blog.blogappapis.Services.Config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jasypt.util.text.BasicTextEncryptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+/**
+ * Encrypts sensitive settings with AES-256-GCM under a key derived once from the master password.
+ * Values are stored as {@code v1:base64(nonce || ciphertext || tag)} with a fresh 96-bit nonce per
+ * value. Values without the prefix were written by the old per-value Jasypt encryptor; they still
+ * decrypt and are rewritten in the current format on the next settings save.
+ */
+@Slf4j
+@Component
+public class SettingsCipher {
+
+    static final String PREFIX = "v1:";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int NONCE_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final int KEY_BITS = 256;
+    private static final int KDF_ITERATIONS = 210_000;
+    // Fixed so every node derives the same key from the same password; bump with the prefix
+    private static final byte[] KDF_SALT = "app-settings-cipher-v1".getBytes(StandardCharsets.UTF_8);
+
+    private final SecretKey key;
+    private final BasicTextEncryptor legacyEncryptor;
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<Cipher> ciphers;
+
+    @Autowired
+    public SettingsCipher(@Value("${jasypt.encryptor.password:default-encryption-key}") String masterPassword) {
+        this(masterPassword, SettingsCipher::newCipher);
+    }
+
+    SettingsCipher(String masterPassword, Supplier<Cipher> cipherFactory) {
+        this.key = deriveKey(masterPassword);
+        this.legacyEncryptor = new BasicTextEncryptor();
+        this.legacyEncryptor.setPassword(masterPassword);
+        this.ciphers = ThreadLocal.withInitial(cipherFactory);
+    }
+
+    public String encrypt(String value) {
+        if (value == null || value.isEmpty()) {
+            return value;
+        }
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        try {
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+            byte[] sealed = cipher.doFinal(value.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer out = ByteBuffer.allocate(NONCE_BYTES + sealed.length);
+            out.put(nonce).put(sealed);
+            return PREFIX + Base64.getEncoder().encodeToString(out.array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encrypt setting", e);
+        }
+    }
+
+    /**
+     * Decrypt a stored value in either format.
+     *
+     * @throws IllegalArgumentException if the value cannot be decrypted with the current password
+     */
+    public String decrypt(String storedValue) {
+        if (storedValue == null || storedValue.isEmpty()) {
+            return storedValue;
+        }
+        if (isLegacy(storedValue)) {
+            try {
+                return legacyEncryptor.decrypt(storedValue);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Legacy setting value could not be decrypted", e);
+            }
+        }
+        try {
+            byte[] sealed = Base64.getDecoder().decode(storedValue.substring(PREFIX.length()));
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, sealed, 0, NONCE_BYTES));
+            byte[] plain = cipher.doFinal(sealed, NONCE_BYTES, sealed.length - NONCE_BYTES);
+            return new String(plain, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Setting value could not be decrypted", e);
+        }
+    }
+
+    /**
+     * True for non-empty values written by the previous Jasypt-based encryption.
+     */
+    public boolean isLegacy(String storedValue) {
+        return storedValue != null && !storedValue.isEmpty() && !storedValue.startsWith(PREFIX);
+    }
+
+    private static SecretKey deriveKey(String masterPassword) {
+        long start = System.nanoTime();
+        try {
+            SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+            PBEKeySpec spec = new PBEKeySpec(masterPassword.toCharArray(), KDF_SALT, KDF_ITERATIONS, KEY_BITS);
+            try {
+                byte[] keyBytes = factory.generateSecret(spec).getEncoded();
+                return new SecretKeySpec(keyBytes, "AES");
+            } finally {
+                spec.clearPassword();
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to derive settings encryption key", e);
+        } finally {
+            log.debug("Settings encryption key derived in {} ms", (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(TRANSFORMATION + " is not available", e);
+        }
+    }
+}
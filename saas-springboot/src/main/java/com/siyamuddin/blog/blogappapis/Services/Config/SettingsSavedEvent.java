@@ -0,0 +1,19 @@
+package com.siyamuddin.blog.blogappapis.Services.Config;
+
+import com.siyamuddin.blog.blogappapis.Entity.AppSetting;
+
+import java.util.Set;
+
+/**
+ * Published inside the transaction that saves admin-managed settings. Nothing acts on it before
+ * commit: {@link SettingsChangeCoordinator} then announces the change to other nodes and reloads
+ * this one, which publishes the {@link SettingsChangedEvent} components re-initialize on.
+ *
+ * @param categories setting categories that were written
+ */
+public record SettingsSavedEvent(Set<AppSetting.SettingCategory> categories) {
+
+    public SettingsSavedEvent {
+        categories = Set.copyOf(categories);
+    }
+}
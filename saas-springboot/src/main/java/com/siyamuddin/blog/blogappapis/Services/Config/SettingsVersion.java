@@ -0,0 +1,9 @@
+package com.siyamuddin.blog.blogappapis.Services.Config;
+
+/**
+ * Cheap fingerprint of the {@code app_settings} table. Any save raises {@code maxVersion} and
+ * {@code versionSum}; deleting rows changes {@code rowCount}, so comparing two fingerprints is
+ * enough to tell whether a node's cached settings are stale.
+ */
+public record SettingsVersion(Long maxVersion, Long rowCount, Long versionSum) {
+}
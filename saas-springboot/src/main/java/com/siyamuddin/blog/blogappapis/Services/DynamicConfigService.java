@@ -1,5 +1,7 @@
 package com.siyamuddin.blog.blogappapis.Services;
 
+import com.siyamuddin.blog.blogappapis.Services.Config.DynamicConfigSnapshot;
+
 /**
  * Service to provide dynamic configuration values from database (via AppSettingsService)
  * with fallback to static properties files.
@@ -7,6 +9,12 @@ package com.siyamuddin.blog.blogappapis.Services;
  */
 public interface DynamicConfigService {
     
+    /**
+     * Current settings as one consistent, already-parsed snapshot. Prefer this when reading
+     * several values together.
+     */
+    DynamicConfigSnapshot snapshot();
+    
     // Security Settings
     Integer getMaxFailedLoginAttempts();
     Integer getAccountLockoutDurationMinutes();
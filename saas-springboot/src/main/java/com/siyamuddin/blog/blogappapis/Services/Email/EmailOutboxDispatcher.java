@@ -0,0 +1,300 @@
+package com.siyamuddin.blog.blogappapis.Services.Email;
+
+import com.siyamuddin.blog.blogappapis.Config.AsyncExecutorConfig;
+import com.siyamuddin.blog.blogappapis.Config.Properties.EmailProperties;
+import com.siyamuddin.blog.blogappapis.Services.DynamicConfigService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers queued emails from {@code email_outbox}.
+ * Each batch is claimed with a conditional UPDATE (so several nodes can dispatch without
+ * sending a row twice) and sent through one SMTP connection. Failed messages are retried with
+ * exponential backoff and jitter, and given up as FAILED after max-attempts. Delivery is
+ * at-least-once: a node that dies mid-batch leaves its claim to expire and the batch is re-sent.
+ * Runs happen on the single-threaded email executor, so a hung SMTP server holds up neither the
+ * shared scheduler thread nor the request that queued the email.
+ */
+@Slf4j
+@Component
+public class EmailOutboxDispatcher {
+
+    private static final int ERROR_MAX_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JavaMailSender mailSender;
+    private final DynamicConfigService dynamicConfig;
+    private final EmailProperties.Outbox config;
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong oldestPendingAgeSeconds = new AtomicLong();
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+
+    private volatile long nextPurgeMillis;
+
+    public EmailOutboxDispatcher(JdbcTemplate jdbcTemplate,
+                                 JavaMailSender mailSender,
+                                 DynamicConfigService dynamicConfig,
+                                 EmailProperties emailProperties,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mailSender = mailSender;
+        this.dynamicConfig = dynamicConfig;
+        this.config = emailProperties.getOutbox();
+
+        Gauge.builder("app.email.outbox.depth", queueDepth, AtomicLong::get)
+                .description("Emails waiting in the outbox")
+                .register(meterRegistry);
+        Gauge.builder("app.email.outbox.lag", oldestPendingAgeSeconds, AtomicLong::get)
+                .description("Age of the oldest email waiting in the outbox")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("app.email.outbox.sent")
+                .description("Emails delivered to the SMTP server")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("app.email.outbox.retried")
+                .description("Email delivery attempts that failed and were rescheduled")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("app.email.outbox.failed")
+                .description("Emails given up after max-attempts")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("app.email.outbox.batch.duration")
+                .description("Time to send one outbox batch over a single SMTP connection")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start delivering right after the enqueuing transaction commits. Triggers arriving while a
+     * run is already queued are dropped by the executor; that run will pick their messages up.
+     */
+    @Async(AsyncExecutorConfig.EMAIL)
+    @TransactionalEventListener
+    public void onEmailQueued(EmailQueuedEvent event) {
+        dispatch();
+    }
+
+    @Async(AsyncExecutorConfig.EMAIL)
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-interval-millis:1000}")
+    public void dispatch() {
+        try {
+            releaseExpiredClaims();
+            while (dispatchBatch() == config.getBatchSize()) {
+                // A full batch means more may be due; keep draining
+            }
+            purgeSent();
+        } catch (DataAccessException e) {
+            log.warn("Email outbox dispatch failed: {}", e.getMessage());
+        } finally {
+            refreshGauges();
+        }
+    }
+
+    /**
+     * Claim up to batch-size due messages, send them, and record the outcome of each.
+     *
+     * @return number of messages claimed
+     */
+    int dispatchBatch() {
+        List<OutboxRow> batch = claim(LocalDateTime.now());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<SimpleMailMessage> messages = new ArrayList<>(batch.size());
+        String from = dynamicConfig.getEmailFrom();
+        for (OutboxRow row : batch) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(from);
+            message.setTo(row.recipient());
+            message.setSubject(row.subject());
+            message.setText(row.body());
+            messages.add(message);
+        }
+
+        Map<Object, Exception> failures = batchTimer.record(() -> send(messages));
+
+        List<Long> sent = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < batch.size(); i++) {
+            Exception failure = failures.get(messages.get(i));
+            if (failure == null) {
+                sent.add(batch.get(i).id());
+            } else {
+                recordFailure(batch.get(i), failure, now);
+            }
+        }
+        markSent(sent, now);
+        sentCounter.increment(sent.size());
+        log.debug("Email outbox batch: {} sent, {} failed", sent.size(), batch.size() - sent.size());
+        return batch.size();
+    }
+
+    /**
+     * Send all messages over one connection.
+     *
+     * @return the messages that failed, keyed by identity (messages with equal content are distinct)
+     */
+    private Map<Object, Exception> send(List<SimpleMailMessage> messages) {
+        try {
+            mailSender.send(messages.toArray(new SimpleMailMessage[0]));
+            return Collections.emptyMap();
+        } catch (MailSendException e) {
+            if (!e.getFailedMessages().isEmpty()) {
+                Map<Object, Exception> failures = new IdentityHashMap<>();
+                failures.putAll(e.getFailedMessages());
+                return failures;
+            }
+            return allFailed(messages, e);
+        } catch (MailException e) {
+            // Connection or authentication failure: nothing was sent
+            return allFailed(messages, e);
+        }
+    }
+
+    private static Map<Object, Exception> allFailed(List<SimpleMailMessage> messages, Exception e) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        messages.forEach(message -> failures.put(message, e));
+        return failures;
+    }
+
+    private List<OutboxRow> claim(LocalDateTime now) {
+        List<Long> candidates = jdbcTemplate.queryForList(
+                "SELECT id FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= ? " +
+                        "ORDER BY next_attempt_at, id LIMIT ?",
+                Long.class, Timestamp.valueOf(now), config.getBatchSize());
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        String claimToken = UUID.randomUUID().toString();
+        List<Object> args = new ArrayList<>();
+        args.add(claimToken);
+        args.add(Timestamp.valueOf(now));
+        args.addAll(candidates);
+        // Rows another node claimed in the meantime are no longer PENDING and are skipped
+        jdbcTemplate.update("UPDATE email_outbox SET status = 'SENDING', claim_token = ?, claimed_at = ? " +
+                "WHERE status = 'PENDING' AND id IN (" + placeholders(candidates.size()) + ")", args.toArray());
+        return jdbcTemplate.query(
+                "SELECT id, recipient, subject, body, attempts FROM email_outbox WHERE claim_token = ? ORDER BY id",
+                (rs, i) -> new OutboxRow(rs.getLong("id"), rs.getString("recipient"), rs.getString("subject"),
+                        rs.getString("body"), rs.getInt("attempts")),
+                claimToken);
+    }
+
+    private void markSent(List<Long> ids, LocalDateTime now) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>();
+        args.add(Timestamp.valueOf(now));
+        args.addAll(ids);
+        jdbcTemplate.update("UPDATE email_outbox SET status = 'SENT', sent_at = ?, claim_token = NULL, last_error = NULL " +
+                "WHERE id IN (" + placeholders(ids.size()) + ")", args.toArray());
+    }
+
+    private void recordFailure(OutboxRow row, Exception failure, LocalDateTime now) {
+        int attempts = row.attempts() + 1;
+        String error = truncate(failure.getMessage());
+        if (attempts >= config.getMaxAttempts()) {
+            jdbcTemplate.update("UPDATE email_outbox SET status = 'FAILED', attempts = ?, claim_token = NULL, last_error = ? " +
+                    "WHERE id = ?", attempts, error, row.id());
+            failedCounter.increment();
+            log.error("Giving up on email {} to {} after {} attempts: {}", row.id(), row.recipient(), attempts, error);
+            return;
+        }
+        LocalDateTime nextAttempt = now.plus(backoff(attempts));
+        jdbcTemplate.update("UPDATE email_outbox SET status = 'PENDING', attempts = ?, next_attempt_at = ?, " +
+                "claim_token = NULL, last_error = ? WHERE id = ?", attempts, Timestamp.valueOf(nextAttempt), error, row.id());
+        retriedCounter.increment();
+        log.warn("Email {} to {} failed (attempt {}), retrying at {}: {}", row.id(), row.recipient(), attempts, nextAttempt, error);
+    }
+
+    /**
+     * Exponential backoff with "equal jitter": half the delay is fixed, half random.
+     */
+    Duration backoff(int attempts) {
+        long delay = config.getInitialBackoffMillis();
+        for (int i = 1; i < attempts && delay < config.getMaxBackoffMillis(); i++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, config.getMaxBackoffMillis());
+        long half = delay / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    private void releaseExpiredClaims() {
+        LocalDateTime expiry = LocalDateTime.now().minus(Duration.ofMillis(config.getClaimTimeoutMillis()));
+        int released = jdbcTemplate.update("UPDATE email_outbox SET status = 'PENDING', claim_token = NULL " +
+                "WHERE status = 'SENDING' AND claimed_at < ?", Timestamp.valueOf(expiry));
+        if (released > 0) {
+            log.warn("Released {} outbox emails whose claim expired; they will be sent again", released);
+        }
+    }
+
+    private void purgeSent() {
+        long nowMillis = System.currentTimeMillis();
+        if (nowMillis < nextPurgeMillis) {
+            return;
+        }
+        nextPurgeMillis = nowMillis + Duration.ofHours(1).toMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(config.getSentRetentionDays());
+        int purged = jdbcTemplate.update("DELETE FROM email_outbox WHERE status = 'SENT' AND sent_at < ?",
+                Timestamp.valueOf(cutoff));
+        if (purged > 0) {
+            log.info("Purged {} sent emails from the outbox", purged);
+        }
+    }
+
+    private void refreshGauges() {
+        try {
+            jdbcTemplate.query("SELECT COUNT(*), MIN(created_at) FROM email_outbox WHERE status IN ('PENDING', 'SENDING')",
+                    rs -> {
+                        queueDepth.set(rs.getLong(1));
+                        Timestamp oldest = rs.getTimestamp(2);
+                        oldestPendingAgeSeconds.set(oldest == null ? 0
+                                : Math.max(0, Duration.between(oldest.toLocalDateTime(), LocalDateTime.now()).toSeconds()));
+                    });
+        } catch (DataAccessException e) {
+            log.debug("Failed to refresh email outbox gauges: {}", e.getMessage());
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= ERROR_MAX_LENGTH ? message : message.substring(0, ERROR_MAX_LENGTH);
+    }
+
+    private record OutboxRow(long id, String recipient, String subject, String body, int attempts) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.siyamuddin.blog.blogappapis.Services.Email;
+
+/**
+ * Published when a message is added to the outbox, so delivery can start as soon as the
+ * enqueuing transaction commits instead of at the next poll.
+ */
+public record EmailQueuedEvent(Long messageId) {
+}
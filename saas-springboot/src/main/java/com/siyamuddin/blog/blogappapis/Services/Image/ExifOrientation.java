@@ -0,0 +1,112 @@
+package com.siyamuddin.blog.blogappapis.Services.Image;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * The EXIF orientation of a JPEG. Cameras store pixels as the sensor saw them plus this tag;
+ * variants are re-encoded without metadata, so the rotation has to be applied to the pixels.
+ */
+final class ExifOrientation {
+
+    static final int NORMAL = 1;
+
+    private static final int TAG_ORIENTATION = 0x0112;
+
+    private ExifOrientation() {
+    }
+
+    /**
+     * @return the orientation (1-8) from the JPEG's EXIF block, or {@link #NORMAL} if there is none
+     */
+    static int read(byte[] jpeg) {
+        if (jpeg.length < 4 || (jpeg[0] & 0xFF) != 0xFF || (jpeg[1] & 0xFF) != 0xD8) {
+            return NORMAL;
+        }
+        int position = 2;
+        while (position + 4 <= jpeg.length && (jpeg[position] & 0xFF) == 0xFF) {
+            int marker = jpeg[position + 1] & 0xFF;
+            int length = u16(jpeg, position + 2, true);
+            if (marker == 0xDA || length < 2) {
+                // Start of scan: no more metadata segments
+                break;
+            }
+            int segment = position + 4;
+            if (marker == 0xE1 && segment + 6 <= jpeg.length && isExifHeader(jpeg, segment)) {
+                return fromTiff(jpeg, segment + 6, Math.min(jpeg.length, position + 2 + length));
+            }
+            position += 2 + length;
+        }
+        return NORMAL;
+    }
+
+    private static boolean isExifHeader(byte[] data, int offset) {
+        return data[offset] == 'E' && data[offset + 1] == 'x' && data[offset + 2] == 'i' && data[offset + 3] == 'f'
+                && data[offset + 4] == 0 && data[offset + 5] == 0;
+    }
+
+    private static int fromTiff(byte[] data, int tiff, int end) {
+        if (tiff + 8 > end) {
+            return NORMAL;
+        }
+        boolean bigEndian = data[tiff] == 'M' && data[tiff + 1] == 'M';
+        int ifd = tiff + (int) u32(data, tiff + 4, bigEndian);
+        if (ifd < tiff || ifd + 2 > end) {
+            return NORMAL;
+        }
+        int entries = u16(data, ifd, bigEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                break;
+            }
+            if (u16(data, entry, bigEndian) == TAG_ORIENTATION) {
+                int value = u16(data, entry + 8, bigEndian);
+                return value >= 1 && value <= 8 ? value : NORMAL;
+            }
+        }
+        return NORMAL;
+    }
+
+    /**
+     * Turn a square image stored with the given orientation upright.
+     */
+    static BufferedImage apply(BufferedImage square, int orientation) {
+        int s = square.getWidth();
+        // new AffineTransform(m00, m10, m01, m11, m02, m12): x' = m00*x + m01*y + m02, y' = m10*x + m11*y + m12
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, s, 0);   // mirror horizontally
+            case 3 -> new AffineTransform(-1, 0, 0, -1, s, s);  // rotate 180
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, s);   // mirror vertically
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);    // transpose
+            case 6 -> new AffineTransform(0, 1, -1, 0, s, 0);   // rotate 90 clockwise
+            case 7 -> new AffineTransform(0, -1, -1, 0, s, s);  // transverse
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, s);   // rotate 90 counter-clockwise
+            default -> null;
+        };
+        if (transform == null) {
+            return square;
+        }
+        BufferedImage upright = new BufferedImage(s, s, square.getType());
+        Graphics2D graphics = upright.createGraphics();
+        try {
+            graphics.drawImage(square, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return upright;
+    }
+
+    private static int u16(byte[] data, int offset, boolean bigEndian) {
+        int a = data[offset] & 0xFF;
+        int b = data[offset + 1] & 0xFF;
+        return bigEndian ? (a << 8) | b : (b << 8) | a;
+    }
+
+    private static long u32(byte[] data, int offset, boolean bigEndian) {
+        long high = u16(data, bigEndian ? offset : offset + 2, bigEndian);
+        long low = u16(data, bigEndian ? offset + 2 : offset, bigEndian);
+        return (high << 16) | low;
+    }
+}
@@ -0,0 +1,189 @@
+package com.siyamuddin.blog.blogappapis.Services.Image;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Renders square, center-cropped copies of an image at fixed sizes.
+ * Only the pixels are re-encoded, so EXIF (location, camera serial), ICC and comment blocks of
+ * the original never reach a variant; the EXIF orientation is applied to the pixels first.
+ * The decoder reads just the center square and subsamples it to about twice the largest
+ * variant, so a 40-megapixel upload never becomes a 160MB raster.
+ */
+@Slf4j
+public class ImageVariantRenderer {
+
+    private final float jpegQuality;
+    private final long maxSourcePixels;
+
+    public ImageVariantRenderer(float jpegQuality, long maxSourcePixels) {
+        this.jpegQuality = jpegQuality;
+        this.maxSourcePixels = maxSourcePixels;
+    }
+
+    public record Rendered(int size, String contentType, String extension, byte[] bytes) {
+    }
+
+    /**
+     * @param sizes edge lengths of the variants; sizes larger than the source's shorter edge
+     *              are rendered at that edge instead of being scaled up
+     * @return one variant per size, or an empty list when the source is not a decodable image
+     *         (PDF, WebP, AVIF, corrupt data) or is larger than {@code maxSourcePixels}
+     */
+    public List<Rendered> render(byte[] source, List<Integer> sizes) throws IOException {
+        int largest = sizes.stream().mapToInt(Integer::intValue).max().orElse(0);
+        BufferedImage square = decodeCenterSquare(source, largest);
+        if (square == null) {
+            return List.of();
+        }
+        square = ExifOrientation.apply(toRgb(square), ExifOrientation.read(source));
+        boolean alpha = hasTransparency(square);
+
+        List<Rendered> variants = new ArrayList<>(sizes.size());
+        for (Integer size : sizes) {
+            BufferedImage scaled = scale(square, Math.min(size, square.getWidth()));
+            byte[] bytes = alpha ? encodePng(scaled) : encodeJpeg(scaled);
+            variants.add(alpha
+                    ? new Rendered(size, "image/png", "png", bytes)
+                    : new Rendered(size, "image/jpeg", "jpg", bytes));
+        }
+        return variants;
+    }
+
+    private BufferedImage decodeCenterSquare(byte[] source, int largest) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(source))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                // ignoreMetadata: the reader skips EXIF/ICC/comment blocks instead of parsing them
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    log.warn("Skipping variants for a {}x{} image (over {} pixels)", width, height, maxSourcePixels);
+                    return null;
+                }
+                int side = Math.min(width, height);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle((width - side) / 2, (height - side) / 2, side, side));
+                int subsampling = Math.max(1, side / Math.max(1, largest * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+                // Subsampling can leave the region one pixel off square
+                int edge = Math.min(decoded.getWidth(), decoded.getHeight());
+                return decoded.getWidth() == edge && decoded.getHeight() == edge
+                        ? decoded : decoded.getSubimage(0, 0, edge, edge);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            // ImageIO reports malformed input as either
+            log.debug("Could not decode image for variants: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Normalise to a packed RGB/ARGB raster: palette and grey images scale poorly, and the JPEG
+     * writer misreads images with an alpha channel.
+     */
+    private static BufferedImage toRgb(BufferedImage image) {
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        if (image.getType() == type) {
+            return image;
+        }
+        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), type);
+        Graphics2D graphics = converted.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return converted;
+    }
+
+    private static boolean hasTransparency(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return false;
+        }
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) >>> 24) != 0xFF) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Halve with bilinear filtering until within 2x of the target, then one last step; a single
+     * bilinear step from far above the target would drop most source pixels and alias.
+     */
+    private static BufferedImage scale(BufferedImage image, int size) {
+        BufferedImage current = image;
+        int edge = current.getWidth();
+        while (edge != size) {
+            edge = edge / 2 >= size ? edge / 2 : size;
+            BufferedImage next = new BufferedImage(edge, edge, image.getType());
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, edge, edge, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            if (param instanceof JPEGImageWriteParam jpeg) {
+                jpeg.setOptimizeHuffmanTables(true);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "png", bytes)) {
+            throw new IOException("No PNG writer available");
+        }
+        return bytes.toByteArray();
+    }
+}
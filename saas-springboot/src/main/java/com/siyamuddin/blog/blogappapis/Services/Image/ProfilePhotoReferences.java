@@ -0,0 +1,40 @@
+package com.siyamuddin.blog.blogappapis.Services.Image;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.ImageVariantProperties;
+import com.siyamuddin.blog.blogappapis.Repository.UserRepo;
+import com.siyamuddin.blog.blogappapis.Services.Storage.StoredFileReferences;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Users' profile photos and their variants, read a page of users at a time in id order.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProfilePhotoReferences implements StoredFileReferences {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final UserRepo userRepo;
+    private final ImageVariantProperties imageVariantProperties;
+
+    @Override
+    public void forEachReferencedKey(Consumer<String> consumer) {
+        int afterId = 0;
+        List<Object[]> rows;
+        do {
+            rows = userRepo.findProfileImageKeysAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+            for (Object[] row : rows) {
+                afterId = (Integer) row[0];
+                String storageKey = (String) row[1];
+                consumer.accept(storageKey);
+                ProfilePhotoVariants.dependentKeys(storageKey, (String) row[2], imageVariantProperties.getSizes())
+                        .forEach(consumer);
+            }
+        } while (rows.size() == PAGE_SIZE);
+    }
+}
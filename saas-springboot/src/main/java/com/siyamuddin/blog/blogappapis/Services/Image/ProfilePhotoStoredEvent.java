@@ -0,0 +1,10 @@
+package com.siyamuddin.blog.blogappapis.Services.Image;
+
+/**
+ * Published when a user's profile photo is replaced, so its variants are rendered once the
+ * transaction that recorded the new photo commits.
+ *
+ * @param subDirectory the directory the photo was stored under, where its variants go too
+ */
+public record ProfilePhotoStoredEvent(Integer userId, String storageKey, String subDirectory) {
+}
@@ -0,0 +1,156 @@
+package com.siyamuddin.blog.blogappapis.Services.Image;
+
+import com.siyamuddin.blog.blogappapis.Config.AsyncExecutorConfig;
+import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
+import com.siyamuddin.blog.blogappapis.Config.Properties.ImageVariantProperties;
+import com.siyamuddin.blog.blogappapis.Repository.UserRepo;
+import com.siyamuddin.blog.blogappapis.Services.Storage.FileStorageService;
+import com.siyamuddin.blog.blogappapis.Services.Storage.FileUploadRequest;
+import com.siyamuddin.blog.blogappapis.Services.Storage.StorageCleaner;
+import com.siyamuddin.blog.blogappapis.Services.Storage.StoredFile;
+import com.siyamuddin.blog.blogappapis.Services.Storage.StreamingUpload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders the configured variants of a new profile photo on the image executor once the upload
+ * has committed, stores them next to the original and records them on the user.
+ * The original is read back from storage rather than handed over by the upload, so direct
+ * (presigned) uploads get variants too. If the photo was replaced while rendering, the variants
+ * are deleted instead of recorded. Variant keys follow from the original's, so users sharing
+ * one content-addressed original share its variants too; they are tombstoned with the original
+ * as owner, and the collector keeps them while anything still refers to it.
+ */
+@Slf4j
+@Component
+public class ProfilePhotoVariantGenerator {
+
+    private final FileStorageService fileStorageService;
+    private final StorageCleaner storageCleaner;
+    private final UserRepo userRepo;
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final ImageVariantProperties properties;
+    private final FileStorageProperties fileStorageProperties;
+    private final ImageVariantRenderer renderer;
+    private final Timer renderTimer;
+    private final MeterRegistry meterRegistry;
+
+    public ProfilePhotoVariantGenerator(FileStorageService fileStorageService,
+                                        StorageCleaner storageCleaner,
+                                        UserRepo userRepo,
+                                        ObjectProvider<CacheManager> cacheManager,
+                                        ImageVariantProperties properties,
+                                        FileStorageProperties fileStorageProperties,
+                                        MeterRegistry meterRegistry) {
+        this.fileStorageService = fileStorageService;
+        this.storageCleaner = storageCleaner;
+        this.userRepo = userRepo;
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+        this.fileStorageProperties = fileStorageProperties;
+        this.renderer = new ImageVariantRenderer(properties.getJpegQuality(), properties.getMaxSourcePixels());
+        this.meterRegistry = meterRegistry;
+        this.renderTimer = Timer.builder("app.image.variants.duration")
+                .description("Time to read a profile photo, render its variants and store them")
+                .register(meterRegistry);
+    }
+
+    @Async(AsyncExecutorConfig.IMAGE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfilePhotoStored(ProfilePhotoStoredEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        String outcome;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            outcome = generate(event);
+        } catch (RuntimeException | IOException e) {
+            log.warn("Failed to generate variants for {}", event.storageKey(), e);
+            outcome = "failed";
+        } finally {
+            sample.stop(renderTimer);
+        }
+        Counter.builder("app.image.variants.generated")
+                .description("Profile photos processed for variants, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private String generate(ProfilePhotoStoredEvent event) throws IOException {
+        byte[] original = read(event.storageKey());
+        if (original == null) {
+            return "skipped";
+        }
+        List<ImageVariantRenderer.Rendered> variants = renderer.render(original, properties.getSizes());
+        if (variants.isEmpty()) {
+            // Not an image ImageIO can decode (PDF, WebP, AVIF) or too large; the original is served as is
+            return "skipped";
+        }
+
+        List<String> storedKeys = new ArrayList<>(variants.size());
+        try {
+            for (ImageVariantRenderer.Rendered variant : variants) {
+                storedKeys.add(store(event, variant).getKey());
+            }
+        } catch (RuntimeException | IOException e) {
+            storageCleaner.deleteLater(storedKeys, event.storageKey());
+            throw e;
+        }
+
+        if (userRepo.updateProfileImageVariantSpec(event.userId(), event.storageKey(), ProfilePhotoVariants.spec(variants)) == 0) {
+            // Replaced (or deleted) while rendering; the newer photo gets its own variants
+            storageCleaner.deleteLater(storedKeys, event.storageKey());
+            return "stale";
+        }
+        evictUser(event.userId());
+        log.debug("Stored {} variants of {}", variants.size(), event.storageKey());
+        return "rendered";
+    }
+
+    /**
+     * @return the original's bytes, or null if it is larger than uploads may be
+     */
+    private byte[] read(String key) throws IOException {
+        long maxBytes = fileStorageProperties.getUpload().getMaxFileSize().toBytes();
+        try (InputStream in = fileStorageService.openStream(key)) {
+            byte[] bytes = in.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxBytes + 1));
+            return bytes.length > maxBytes ? null : bytes;
+        }
+    }
+
+    private StoredFile store(ProfilePhotoStoredEvent event, ImageVariantRenderer.Rendered variant) throws IOException {
+        String fileName = ProfilePhotoVariants.fileName(event.storageKey(), variant.size(), variant.extension());
+        StreamingUpload content = StreamingUpload.open(new ByteArrayInputStream(variant.bytes()), fileName,
+                variant.bytes().length, variant.bytes().length);
+        return fileStorageService.store(FileUploadRequest.builder()
+                .content(content)
+                .subDirectory(event.subDirectory())
+                .preferredFileName(fileName)
+                .overwrite(true)
+                .build());
+    }
+
+    private void evictUser(Integer userId) {
+        CacheManager manager = cacheManager.getIfAvailable();
+        Cache users = manager == null ? null : manager.getCache("users");
+        if (users != null) {
+            users.evict(userId);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.siyamuddin.blog.blogappapis.Services.Image;
+
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Where the variants of a profile photo live. A variant sits next to its original with the size
+ * appended to the name ({@code profile-7-<uuid>.jpg} gives {@code profile-7-<uuid>-256.jpg}), so
+ * its key and URL follow from the original's and only the list of rendered sizes and formats is
+ * stored on the user, as a spec like {@code 64:jpg,256:jpg,1024:jpg}.
+ */
+public final class ProfilePhotoVariants {
+
+    private ProfilePhotoVariants() {
+    }
+
+    /**
+     * @return the variant's file name, to be stored in the original's directory
+     */
+    public static String fileName(String originalKey, int size, String extension) {
+        String name = originalKey.substring(originalKey.lastIndexOf('/') + 1);
+        return baseName(name) + "-" + size + "." + extension;
+    }
+
+    /**
+     * @return the variant's key; the same transformation as {@link #fileName} applied to the full key
+     */
+    public static String key(String originalKey, int size, String extension) {
+        int slash = originalKey.lastIndexOf('/');
+        return originalKey.substring(0, slash + 1) + fileName(originalKey, size, extension);
+    }
+
+    /**
+     * @return every key a variant of the original could have with these sizes, for deleting
+     *         variants that may have been stored but not recorded yet
+     */
+    public static List<String> possibleKeys(String originalKey, List<Integer> sizes) {
+        List<String> keys = new ArrayList<>(sizes.size() * 2);
+        for (int size : sizes) {
+            keys.add(key(originalKey, size, "jpg"));
+            keys.add(key(originalKey, size, "png"));
+        }
+        return keys;
+    }
+
+    /**
+     * @return the recorded variants of a photo plus every key one could have with these sizes,
+     *         the files to delete along with the photo
+     */
+    public static Set<String> dependentKeys(String originalKey, String spec, List<Integer> sizes) {
+        Set<String> keys = new LinkedHashSet<>(resolve(originalKey, spec).values());
+        keys.addAll(possibleKeys(originalKey, sizes));
+        return keys;
+    }
+
+    public static String spec(List<ImageVariantRenderer.Rendered> variants) {
+        StringBuilder spec = new StringBuilder();
+        for (ImageVariantRenderer.Rendered variant : variants) {
+            if (!spec.isEmpty()) {
+                spec.append(',');
+            }
+            spec.append(variant.size()).append(':').append(variant.extension());
+        }
+        return spec.toString();
+    }
+
+    /**
+     * @return size to key for every variant in the spec
+     */
+    public static Map<Integer, String> keys(String originalKey, String spec) {
+        return resolve(originalKey, spec);
+    }
+
+    /**
+     * @return size to URL for every variant in the spec, or an empty map while there are none
+     *         (not generated yet, or the original is not an image)
+     */
+    public static Map<Integer, String> urls(String originalUrl, String spec) {
+        if (!StringUtils.hasText(originalUrl)) {
+            return new LinkedHashMap<>();
+        }
+        int query = originalUrl.indexOf('?');
+        if (query < 0) {
+            return resolve(originalUrl, spec);
+        }
+        String suffix = originalUrl.substring(query);
+        Map<Integer, String> urls = resolve(originalUrl.substring(0, query), spec);
+        urls.replaceAll((size, url) -> url + suffix);
+        return urls;
+    }
+
+    private static Map<Integer, String> resolve(String original, String spec) {
+        Map<Integer, String> resolved = new LinkedHashMap<>();
+        if (!StringUtils.hasText(original) || !StringUtils.hasText(spec)) {
+            return resolved;
+        }
+        for (String entry : spec.split(",")) {
+            int colon = entry.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            try {
+                int size = Integer.parseInt(entry.substring(0, colon).trim());
+                resolved.put(size, key(original, size, entry.substring(colon + 1).trim()));
+            } catch (NumberFormatException e) {
+                // Skip a malformed entry rather than failing the whole user
+            }
+        }
+        return resolved;
+    }
+
+    private static String baseName(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
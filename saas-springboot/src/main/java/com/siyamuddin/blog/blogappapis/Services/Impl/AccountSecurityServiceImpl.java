@@ -1,5 +1,6 @@
 package com.siyamuddin.blog.blogappapis.Services.Impl;
 
+import com.siyamuddin.blog.blogappapis.Config.Properties.SecurityProperties;
 import com.siyamuddin.blog.blogappapis.Entity.User;
 import com.siyamuddin.blog.blogappapis.Exceptions.ResourceNotFoundException;
 import com.siyamuddin.blog.blogappapis.Repository.UserRepo;
@@ -7,18 +8,28 @@ import com.siyamuddin.blog.blogappapis.Services.AccountSecurityService;
 import com.siyamuddin.blog.blogappapis.Services.AuditService;
 import com.siyamuddin.blog.blogappapis.Services.DynamicConfigService;
 import com.siyamuddin.blog.blogappapis.Services.EmailService;
+import com.siyamuddin.blog.blogappapis.Services.Security.FailedLoginTracker;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Calendar;
 import java.util.Date;
+import java.util.Locale;
 
+/**
+ * Account lockout handling.
+ * Failed attempts are counted in {@link FailedLoginTracker} (memory or Redis), per account and per IP,
+ * so a credential-stuffing burst does not turn into a write storm on the user row. The database is
+ * only written when an account actually gets locked, with a single conditional UPDATE.
+ */
 @Slf4j
 @Service
 public class AccountSecurityServiceImpl implements AccountSecurityService {
     
+    private static final String ACCOUNT_KEY_PREFIX = "account:";
+    private static final String IP_KEY_PREFIX = "ip:";
+    
     @Autowired
     private UserRepo userRepo;
     
@@ -31,20 +42,16 @@ public class AccountSecurityServiceImpl implements AccountSecurityService {
     @Autowired
     private AuditService auditService;
     
+    @Autowired
+    private FailedLoginTracker failedLoginTracker;
+    
+    @Autowired
+    private SecurityProperties securityProperties;
+    
     @Override
-    @Transactional
     public void lockAccount(String email, int durationMinutes) {
-        User user = userRepo.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
-        
-        Calendar cal = Calendar.getInstance();
-        cal.add(Calendar.MINUTE, durationMinutes);
-        user.setAccountLockedUntil(cal.getTime());
-        userRepo.save(user);
-        
-        emailService.sendAccountLockedEmail(user.getEmail(), user.getName(), durationMinutes);
-        auditService.logSecurityEvent(user, "ACCOUNT_LOCKED", true);
-        log.info("Account locked for user: {} for {} minutes", email, durationMinutes);
+        int attempts = (int) failedLoginTracker.currentCount(accountKey(email));
+        applyLock(email, durationMinutes, attempts);
     }
     
     @Override
@@ -56,42 +63,42 @@ public class AccountSecurityServiceImpl implements AccountSecurityService {
         user.setAccountLockedUntil(null);
         user.setFailedLoginAttempts(0);
         userRepo.save(user);
+        failedLoginTracker.reset(accountKey(email));
         
         auditService.logSecurityEvent(user, "ACCOUNT_UNLOCKED", true);
         log.info("Account unlocked for user: {}", email);
     }
     
     @Override
-    @Transactional
-    public void incrementFailedLoginAttempts(String email) {
-        User user = userRepo.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
-        
-        int attempts = (user.getFailedLoginAttempts() == null ? 0 : user.getFailedLoginAttempts()) + 1;
-        user.setFailedLoginAttempts(attempts);
+    public void incrementFailedLoginAttempts(String email, String ipAddress) {
+        long attempts = failedLoginTracker.recordFailure(accountKey(email));
+        if (ipAddress != null) {
+            failedLoginTracker.recordFailure(IP_KEY_PREFIX + ipAddress);
+        }
         
-        // Lock account if max attempts reached (use database setting)
+        // Lock account if max attempts reached within the window (use database setting)
         int maxAttempts = dynamicConfig.getMaxFailedLoginAttempts();
         if (attempts >= maxAttempts) {
             int lockoutDuration = dynamicConfig.getAccountLockoutDurationMinutes();
-            lockAccount(email, lockoutDuration);
-        } else {
-            userRepo.save(user);
+            applyLock(email, lockoutDuration, (int) attempts);
         }
         
         log.warn("Failed login attempt {} for user: {}", attempts, email);
     }
     
     @Override
-    @Transactional
     public void resetFailedLoginAttempts(String email) {
-        User user = userRepo.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
-        
-        user.setFailedLoginAttempts(0);
-        userRepo.save(user);
-        
-        log.info("Failed login attempts reset for user: {}", email);
+        failedLoginTracker.reset(accountKey(email));
+        log.debug("Failed login attempts reset for user: {}", email);
+    }
+    
+    @Override
+    public boolean isLoginBlockedForIp(String ipAddress) {
+        if (ipAddress == null) {
+            return false;
+        }
+        return failedLoginTracker.currentCount(IP_KEY_PREFIX + ipAddress)
+                >= securityProperties.getFailedLogin().getMaxFailuresPerIp();
     }
     
     @Override
@@ -101,5 +108,27 @@ public class AccountSecurityServiceImpl implements AccountSecurityService {
         }
         return user.getAccountLockedUntil().after(new Date());
     }
+    
+    private void applyLock(String email, int durationMinutes, int attempts) {
+        Date now = new Date();
+        Date lockedUntil = new Date(now.getTime() + durationMinutes * 60_000L);
+        if (userRepo.lockIfNotLocked(email, attempts, lockedUntil, now) == 0) {
+            // Already locked by a concurrent attempt, or no such account
+            log.debug("Lock skipped for {}: already locked or unknown", email);
+            return;
+        }
+        
+        // Start from a clean window once the lock expires
+        failedLoginTracker.reset(accountKey(email));
+        
+        userRepo.findByEmail(email).ifPresent(user -> {
+            emailService.sendAccountLockedEmail(user.getEmail(), user.getName(), durationMinutes);
+            auditService.logSecurityEvent(user, "ACCOUNT_LOCKED", true);
+        });
+        log.info("Account locked for user: {} for {} minutes", email, durationMinutes);
+    }
+    
+    private String accountKey(String email) {
+        return ACCOUNT_KEY_PREFIX + (email == null ? "" : email.trim().toLowerCase(Locale.ROOT));
+    }
 }
-
@@ -6,17 +6,19 @@ import com.siyamuddin.blog.blogappapis.Payloads.Settings.*;
 import com.siyamuddin.blog.blogappapis.Repository.AppSettingRepo;
 import com.siyamuddin.blog.blogappapis.Services.AppSettingsService;
 import com.siyamuddin.blog.blogappapis.Services.AuditService;
+import com.siyamuddin.blog.blogappapis.Services.Config.SettingsChangedEvent;
+import com.siyamuddin.blog.blogappapis.Services.Config.SettingsCipher;
+import com.siyamuddin.blog.blogappapis.Services.Config.SettingsSavedEvent;
 import lombok.extern.slf4j.Slf4j;
-import org.jasypt.util.text.BasicTextEncryptor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -29,27 +31,36 @@ public class AppSettingsServiceImpl implements AppSettingsService {
     @Autowired
     private AuditService auditService;
 
-    @Autowired(required = false)
-    private ContextRefresher contextRefresher;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SettingsCipher settingsCipher;
 
-    @Value("${jasypt.encryptor.password:default-encryption-key}")
-    private String encryptionKey;
+    // Immutable snapshot of all settings, replaced wholesale on reload; null until first load
+    private volatile Map<String, String> settingsCache;
 
-    // In-memory cache for performance
-    private final Map<String, String> settingsCache = new ConcurrentHashMap<>();
+    // Single-flight reload: a caller skips its reload if one that started after its request finished.
+    // A Lock rather than a monitor: the reload queries the database, which would pin a virtual thread
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private final AtomicLong reloadsRequested = new AtomicLong();
+    private long reloadsCompleted;
+
+    // Set when the last load found sensitive values in the legacy format; cleared once rewritten
+    private volatile boolean legacyValuesSeen;
 
     private static final String MASKED_VALUE = "********";
 
     @Override
     public AllSettingsResponse getAllSettings() {
-        refreshCacheIfEmpty();
+        Map<String, String> settings = refreshCacheIfEmpty();
         
         AllSettingsResponse response = new AllSettingsResponse();
-        response.setEmail(mapToEmailSettings());
-        response.setSecurity(mapToSecuritySettings());
-        response.setRateLimits(mapToRateLimitSettings());
-        response.setFileStorage(mapToFileStorageSettings());
-        response.setOauth(mapToOAuthSettings());
+        response.setEmail(mapToEmailSettings(settings));
+        response.setSecurity(mapToSecuritySettings(settings));
+        response.setRateLimits(mapToRateLimitSettings(settings));
+        response.setFileStorage(mapToFileStorageSettings(settings));
+        response.setOauth(mapToOAuthSettings(settings));
         
         return response;
     }
@@ -64,10 +75,11 @@ public class AppSettingsServiceImpl implements AppSettingsService {
 
     @Override
     public String getSettingValue(String key, String defaultValue) {
-        if (settingsCache.isEmpty()) {
-            refreshCacheIfEmpty();
+        Map<String, String> settings = settingsCache;
+        if (settings == null || settings.isEmpty()) {
+            settings = refreshCacheIfEmpty();
         }
-        return settingsCache.getOrDefault(key, defaultValue);
+        return settings.getOrDefault(key, defaultValue);
     }
 
     @Override
@@ -92,10 +104,10 @@ public class AppSettingsServiceImpl implements AppSettingsService {
         updateSetting("email.smtpAuth", String.valueOf(settings.getSmtpAuth()), AppSetting.SettingCategory.EMAIL, adminUserId, false);
         updateSetting("email.smtpTls", String.valueOf(settings.getSmtpTls()), AppSetting.SettingCategory.EMAIL, adminUserId, false);
         
-        refreshConfiguration();
+        settingsChanged(AppSetting.SettingCategory.EMAIL);
         auditAdminAction(adminUserId, "UPDATE_EMAIL_SETTINGS");
         
-        return mapToEmailSettings();
+        return mapToEmailSettings(getSettingsAsMap(AppSetting.SettingCategory.EMAIL));
     }
 
     @Override
@@ -116,10 +128,10 @@ public class AppSettingsServiceImpl implements AppSettingsService {
         updateSetting("security.emailVerificationTokenExpiry", String.valueOf(settings.getEmailVerificationTokenExpiry()), AppSetting.SettingCategory.SECURITY, adminUserId, false);
         updateSetting("security.passwordResetTokenExpiry", String.valueOf(settings.getPasswordResetTokenExpiry()), AppSetting.SettingCategory.SECURITY, adminUserId, false);
         
-        refreshConfiguration();
+        settingsChanged(AppSetting.SettingCategory.SECURITY);
         auditAdminAction(adminUserId, "UPDATE_SECURITY_SETTINGS");
         
-        return mapToSecuritySettings();
+        return mapToSecuritySettings(getSettingsAsMap(AppSetting.SettingCategory.SECURITY));
     }
 
     @Override
@@ -136,10 +148,10 @@ public class AppSettingsServiceImpl implements AppSettingsService {
         updateSetting("rateLimit.general.requests", String.valueOf(settings.getGeneralRequests()), AppSetting.SettingCategory.RATE_LIMIT, adminUserId, false);
         updateSetting("rateLimit.general.duration", String.valueOf(settings.getGeneralDuration()), AppSetting.SettingCategory.RATE_LIMIT, adminUserId, false);
         
-        refreshConfiguration();
+        settingsChanged(AppSetting.SettingCategory.RATE_LIMIT);
         auditAdminAction(adminUserId, "UPDATE_RATE_LIMIT_SETTINGS");
         
-        return mapToRateLimitSettings();
+        return mapToRateLimitSettings(getSettingsAsMap(AppSetting.SettingCategory.RATE_LIMIT));
     }
 
     @Override
@@ -166,10 +178,10 @@ public class AppSettingsServiceImpl implements AppSettingsService {
         updateSetting("fileStorage.s3PublicBaseUrl", settings.getS3PublicBaseUrl(), AppSetting.SettingCategory.FILE_STORAGE, adminUserId, false);
         updateSetting("fileStorage.cleanupEnabled", String.valueOf(settings.getCleanupEnabled()), AppSetting.SettingCategory.FILE_STORAGE, adminUserId, false);
         
-        refreshConfiguration();
+        settingsChanged(AppSetting.SettingCategory.FILE_STORAGE);
         auditAdminAction(adminUserId, "UPDATE_FILE_STORAGE_SETTINGS");
         
-        return mapToFileStorageSettings();
+        return mapToFileStorageSettings(getSettingsAsMap(AppSetting.SettingCategory.FILE_STORAGE));
     }
 
     @Override
@@ -192,10 +204,10 @@ public class AppSettingsServiceImpl implements AppSettingsService {
         updateSetting("oauth.google.authorizedDomains", settings.getAuthorizedDomains() != null ? settings.getAuthorizedDomains() : "", AppSetting.SettingCategory.OAUTH, adminUserId, false);
         updateSetting("oauth.google.scopes", settings.getScopes(), AppSetting.SettingCategory.OAUTH, adminUserId, false);
         
-        refreshConfiguration();
+        settingsChanged(AppSetting.SettingCategory.OAUTH);
         auditAdminAction(adminUserId, "UPDATE_OAUTH_SETTINGS");
         
-        return mapToOAuthSettings();
+        return mapToOAuthSettings(getSettingsAsMap(AppSetting.SettingCategory.OAUTH));
     }
 
     @Override
@@ -260,23 +272,22 @@ public class AppSettingsServiceImpl implements AppSettingsService {
         List<AppSetting> settings = appSettingRepo.findBySettingCategoryOrderBySettingKey(category);
         appSettingRepo.deleteAll(settings);
         
-        refreshCache();
-        refreshConfiguration();
+        settingsChanged(category);
         
         auditAdminAction(adminUserId, "RESET_SETTINGS_" + category.name());
     }
 
     @Override
     public void refreshConfiguration() {
-        if (contextRefresher != null) {
-            try {
-                contextRefresher.refresh();
-                log.info("Configuration refreshed successfully");
-            } catch (Exception e) {
-                log.error("Failed to refresh configuration: {}", e.getMessage());
-            }
-        }
         refreshCache();
+        eventPublisher.publishEvent(SettingsChangedEvent.all());
+    }
+
+    @Override
+    public void applyCommittedChange(Set<AppSetting.SettingCategory> categories) {
+        refreshCache();
+        eventPublisher.publishEvent(new SettingsChangedEvent(categories));
+        log.info("Applied committed settings change: {}", categories);
     }
 
     @Override
@@ -303,39 +314,94 @@ public class AppSettingsServiceImpl implements AppSettingsService {
         setting.setSettingCategory(category);
         setting.setUpdatedBy(adminUserId);
         setting.setIsSensitive(isSensitive);
+        setting.setVersion(nextVersion());
         
         appSettingRepo.save(setting);
-        
-        // Update cache
-        settingsCache.put(key, value);
+        // The cache is reloaded after commit (see settingsChanged)
+    }
+
+    /**
+     * Record that {@code category} was written. The cache is reloaded and dependent components
+     * re-initialize only once the transaction commits (see SettingsChangeCoordinator), on this
+     * node and the others alike.
+     */
+    private void settingsChanged(AppSetting.SettingCategory category) {
+        if (legacyValuesSeen) {
+            upgradeLegacyEncryption();
+            legacyValuesSeen = false;
+        }
+        eventPublisher.publishEvent(new SettingsSavedEvent(EnumSet.of(category)));
     }
 
-    private void refreshCacheIfEmpty() {
-        if (settingsCache.isEmpty()) {
-            refreshCache();
+    /**
+     * Versions only ever grow. Wall-clock time keeps two nodes saving at once from picking the
+     * same stamp in the common case; MAX + 1 covers a clock that is behind.
+     */
+    private long nextVersion() {
+        return Math.max(appSettingRepo.findMaxVersion() + 1, System.currentTimeMillis());
+    }
+
+    // Also retried while the table is empty, so settings seeded after the first read are picked up
+    private Map<String, String> refreshCacheIfEmpty() {
+        Map<String, String> settings = settingsCache;
+        if (settings != null && !settings.isEmpty()) {
+            return settings;
+        }
+        reloadLock.lock();
+        try {
+            if (settingsCache == null || settingsCache.isEmpty()) {
+                settingsCache = loadSettings();
+            }
+            return settingsCache;
+        } finally {
+            reloadLock.unlock();
         }
     }
 
+    /**
+     * Rebuild the settings map off to the side and publish it with one reference swap, so
+     * readers see either the old or the new settings, never an empty or partial map.
+     * Concurrent callers share one reload as long as it started after they asked.
+     */
     private void refreshCache() {
-        settingsCache.clear();
+        long requested = reloadsRequested.incrementAndGet();
+        reloadLock.lock();
+        try {
+            if (reloadsCompleted >= requested) {
+                return;
+            }
+            long covered = reloadsRequested.get();
+            settingsCache = loadSettings();
+            reloadsCompleted = covered;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private Map<String, String> loadSettings() {
         List<AppSetting> allSettings = appSettingRepo.findAll();
+        Map<String, String> settings = new HashMap<>(allSettings.size() * 2);
         
+        boolean legacy = false;
         for (AppSetting setting : allSettings) {
-            String value = setting.getIsSensitive() ? decrypt(setting.getSettingValue()) : setting.getSettingValue();
-            settingsCache.put(setting.getSettingKey(), value);
+            String value = setting.getSettingValue();
+            if (setting.getIsSensitive()) {
+                legacy |= settingsCipher.isLegacy(value);
+                value = decrypt(value);
+            }
+            if (value != null) {
+                settings.put(setting.getSettingKey(), value);
+            }
         }
         
-        log.info("Settings cache refreshed with {} entries", settingsCache.size());
+        legacyValuesSeen = legacy;
+        log.info("Settings cache refreshed with {} entries", settings.size());
+        return Collections.unmodifiableMap(settings);
     }
 
     private String encrypt(String value) {
-        if (value == null || value.isEmpty()) {
-            return value;
-        }
         try {
-            BasicTextEncryptor encryptor = new BasicTextEncryptor();
-            encryptor.setPassword(encryptionKey);
-            return encryptor.encrypt(value);
+            return settingsCipher.encrypt(value);
         } catch (Exception e) {
             log.error("Encryption failed: {}", e.getMessage());
             return value;
@@ -343,19 +409,33 @@ public class AppSettingsServiceImpl implements AppSettingsService {
     }
 
     private String decrypt(String encryptedValue) {
-        if (encryptedValue == null || encryptedValue.isEmpty()) {
-            return encryptedValue;
-        }
         try {
-            BasicTextEncryptor encryptor = new BasicTextEncryptor();
-            encryptor.setPassword(encryptionKey);
-            return encryptor.decrypt(encryptedValue);
+            return settingsCipher.decrypt(encryptedValue);
         } catch (Exception e) {
             log.error("Decryption failed: {}", e.getMessage());
             return encryptedValue;
         }
     }
 
+    /**
+     * Rewrite sensitive values still in the legacy Jasypt format. Runs inside the saving
+     * transaction; the version is left alone because the plaintext does not change.
+     */
+    private void upgradeLegacyEncryption() {
+        for (AppSetting setting : appSettingRepo.findAll()) {
+            if (!Boolean.TRUE.equals(setting.getIsSensitive()) || !settingsCipher.isLegacy(setting.getSettingValue())) {
+                continue;
+            }
+            try {
+                setting.setSettingValue(settingsCipher.encrypt(settingsCipher.decrypt(setting.getSettingValue())));
+                appSettingRepo.save(setting);
+                log.info("Re-encrypted setting {} in the current format", setting.getSettingKey());
+            } catch (Exception e) {
+                log.warn("Could not re-encrypt setting {}: {}", setting.getSettingKey(), e.getMessage());
+            }
+        }
+    }
+
     private AppSettingDto maskSensitiveValue(AppSetting setting) {
         AppSettingDto dto = new AppSettingDto();
         dto.setId(setting.getId());
@@ -370,79 +450,85 @@ public class AppSettingsServiceImpl implements AppSettingsService {
         return dto;
     }
 
-    private EmailSettingsDto mapToEmailSettings() {
+    private EmailSettingsDto mapToEmailSettings(Map<String, String> settings) {
         EmailSettingsDto dto = new EmailSettingsDto();
-        dto.setHost(getSettingValue("email.host", "smtp.gmail.com"));
-        dto.setPort(Integer.parseInt(getSettingValue("email.port", "587")));
-        dto.setUsername(getSettingValue("email.username", ""));
+        dto.setHost(value(settings, "email.host", "smtp.gmail.com"));
+        dto.setPort(Integer.parseInt(value(settings, "email.port", "587")));
+        dto.setUsername(value(settings, "email.username", ""));
         dto.setPassword(MASKED_VALUE); // Always masked
-        dto.setFrom(getSettingValue("email.from", "noreply@example.com"));
-        dto.setFromName(getSettingValue("email.fromName", "SAAS Starter"));
-        dto.setEnabled(Boolean.parseBoolean(getSettingValue("email.enabled", "true")));
-        dto.setVerificationBaseUrl(getSettingValue("email.verificationBaseUrl", "http://localhost:3000/verify-email"));
-        dto.setPasswordResetBaseUrl(getSettingValue("email.passwordResetBaseUrl", "http://localhost:3000/reset-password"));
-        dto.setSmtpAuth(Boolean.parseBoolean(getSettingValue("email.smtpAuth", "true")));
-        dto.setSmtpTls(Boolean.parseBoolean(getSettingValue("email.smtpTls", "true")));
+        dto.setFrom(value(settings, "email.from", "noreply@example.com"));
+        dto.setFromName(value(settings, "email.fromName", "SAAS Starter"));
+        dto.setEnabled(Boolean.parseBoolean(value(settings, "email.enabled", "true")));
+        dto.setVerificationBaseUrl(value(settings, "email.verificationBaseUrl", "http://localhost:3000/verify-email"));
+        dto.setPasswordResetBaseUrl(value(settings, "email.passwordResetBaseUrl", "http://localhost:3000/reset-password"));
+        dto.setSmtpAuth(Boolean.parseBoolean(value(settings, "email.smtpAuth", "true")));
+        dto.setSmtpTls(Boolean.parseBoolean(value(settings, "email.smtpTls", "true")));
         return dto;
     }
 
-    private SecuritySettingsDto mapToSecuritySettings() {
+    private SecuritySettingsDto mapToSecuritySettings(Map<String, String> settings) {
         SecuritySettingsDto dto = new SecuritySettingsDto();
-        dto.setMaxFailedLoginAttempts(Integer.parseInt(getSettingValue("security.maxFailedLoginAttempts", "5")));
-        dto.setAccountLockoutDuration(Integer.parseInt(getSettingValue("security.accountLockoutDuration", "30")));
-        dto.setPasswordMinLength(Integer.parseInt(getSettingValue("security.passwordMinLength", "8")));
-        dto.setPasswordMaxLength(Integer.parseInt(getSettingValue("security.passwordMaxLength", "128")));
-        dto.setPasswordRequireUppercase(Boolean.parseBoolean(getSettingValue("security.passwordRequireUppercase", "true")));
-        dto.setPasswordRequireLowercase(Boolean.parseBoolean(getSettingValue("security.passwordRequireLowercase", "true")));
-        dto.setPasswordRequireDigit(Boolean.parseBoolean(getSettingValue("security.passwordRequireDigit", "true")));
-        dto.setPasswordRequireSpecialChar(Boolean.parseBoolean(getSettingValue("security.passwordRequireSpecialChar", "true")));
-        dto.setSessionTimeout(Integer.parseInt(getSettingValue("security.sessionTimeout", "30")));
-        dto.setRequireEmailVerification(Boolean.parseBoolean(getSettingValue("security.requireEmailVerification", "false")));
-        dto.setEmailVerificationTokenExpiry(Integer.parseInt(getSettingValue("security.emailVerificationTokenExpiry", "24")));
-        dto.setPasswordResetTokenExpiry(Integer.parseInt(getSettingValue("security.passwordResetTokenExpiry", "1")));
+        dto.setMaxFailedLoginAttempts(Integer.parseInt(value(settings, "security.maxFailedLoginAttempts", "5")));
+        dto.setAccountLockoutDuration(Integer.parseInt(value(settings, "security.accountLockoutDuration", "30")));
+        dto.setPasswordMinLength(Integer.parseInt(value(settings, "security.passwordMinLength", "8")));
+        dto.setPasswordMaxLength(Integer.parseInt(value(settings, "security.passwordMaxLength", "128")));
+        dto.setPasswordRequireUppercase(Boolean.parseBoolean(value(settings, "security.passwordRequireUppercase", "true")));
+        dto.setPasswordRequireLowercase(Boolean.parseBoolean(value(settings, "security.passwordRequireLowercase", "true")));
+        dto.setPasswordRequireDigit(Boolean.parseBoolean(value(settings, "security.passwordRequireDigit", "true")));
+        dto.setPasswordRequireSpecialChar(Boolean.parseBoolean(value(settings, "security.passwordRequireSpecialChar", "true")));
+        dto.setSessionTimeout(Integer.parseInt(value(settings, "security.sessionTimeout", "30")));
+        dto.setRequireEmailVerification(Boolean.parseBoolean(value(settings, "security.requireEmailVerification", "false")));
+        dto.setEmailVerificationTokenExpiry(Integer.parseInt(value(settings, "security.emailVerificationTokenExpiry", "24")));
+        dto.setPasswordResetTokenExpiry(Integer.parseInt(value(settings, "security.passwordResetTokenExpiry", "1")));
         return dto;
     }
 
-    private RateLimitSettingsDto mapToRateLimitSettings() {
+    private RateLimitSettingsDto mapToRateLimitSettings(Map<String, String> settings) {
         RateLimitSettingsDto dto = new RateLimitSettingsDto();
-        dto.setLoginRequests(Integer.parseInt(getSettingValue("rateLimit.login.requests", "10")));
-        dto.setLoginDuration(Integer.parseInt(getSettingValue("rateLimit.login.duration", "1")));
-        dto.setRegistrationRequests(Integer.parseInt(getSettingValue("rateLimit.registration.requests", "10")));
-        dto.setRegistrationDuration(Integer.parseInt(getSettingValue("rateLimit.registration.duration", "1")));
-        dto.setPasswordChangeRequests(Integer.parseInt(getSettingValue("rateLimit.passwordChange.requests", "5")));
-        dto.setPasswordChangeDuration(Integer.parseInt(getSettingValue("rateLimit.passwordChange.duration", "1")));
-        dto.setGeneralRequests(Integer.parseInt(getSettingValue("rateLimit.general.requests", "50000")));
-        dto.setGeneralDuration(Integer.parseInt(getSettingValue("rateLimit.general.duration", "1")));
+        dto.setLoginRequests(Integer.parseInt(value(settings, "rateLimit.login.requests", "10")));
+        dto.setLoginDuration(Integer.parseInt(value(settings, "rateLimit.login.duration", "1")));
+        dto.setRegistrationRequests(Integer.parseInt(value(settings, "rateLimit.registration.requests", "10")));
+        dto.setRegistrationDuration(Integer.parseInt(value(settings, "rateLimit.registration.duration", "1")));
+        dto.setPasswordChangeRequests(Integer.parseInt(value(settings, "rateLimit.passwordChange.requests", "5")));
+        dto.setPasswordChangeDuration(Integer.parseInt(value(settings, "rateLimit.passwordChange.duration", "1")));
+        dto.setGeneralRequests(Integer.parseInt(value(settings, "rateLimit.general.requests", "50000")));
+        dto.setGeneralDuration(Integer.parseInt(value(settings, "rateLimit.general.duration", "1")));
         return dto;
     }
 
-    private FileStorageSettingsDto mapToFileStorageSettings() {
+    private FileStorageSettingsDto mapToFileStorageSettings(Map<String, String> settings) {
         FileStorageSettingsDto dto = new FileStorageSettingsDto();
-        dto.setMode(getSettingValue("fileStorage.mode", "local"));
-        dto.setMaxFileSize(Long.parseLong(getSettingValue("fileStorage.maxFileSize", "5242880")));
-        dto.setAllowedImageTypes(getSettingValue("fileStorage.allowedImageTypes", "image/jpeg,image/jpg,image/png,image/gif,image/webp"));
-        dto.setLocalBasePath(getSettingValue("fileStorage.localBasePath", "uploads"));
-        dto.setLocalPublicPrefix(getSettingValue("fileStorage.localPublicPrefix", "/uploads"));
-        dto.setS3BucketName(getSettingValue("fileStorage.s3BucketName", ""));
-        dto.setS3Region(getSettingValue("fileStorage.s3Region", ""));
+        dto.setMode(value(settings, "fileStorage.mode", "local"));
+        dto.setMaxFileSize(Long.parseLong(value(settings, "fileStorage.maxFileSize", "5242880")));
+        dto.setAllowedImageTypes(value(settings, "fileStorage.allowedImageTypes", "image/jpeg,image/jpg,image/png,image/gif,image/webp"));
+        dto.setLocalBasePath(value(settings, "fileStorage.localBasePath", "uploads"));
+        dto.setLocalPublicPrefix(value(settings, "fileStorage.localPublicPrefix", "/uploads"));
+        dto.setS3BucketName(value(settings, "fileStorage.s3BucketName", ""));
+        dto.setS3Region(value(settings, "fileStorage.s3Region", ""));
         dto.setS3AccessKey(MASKED_VALUE); // Always masked
         dto.setS3SecretKey(MASKED_VALUE); // Always masked
-        dto.setS3PublicBaseUrl(getSettingValue("fileStorage.s3PublicBaseUrl", ""));
-        dto.setCleanupEnabled(Boolean.parseBoolean(getSettingValue("fileStorage.cleanupEnabled", "true")));
+        dto.setS3PublicBaseUrl(value(settings, "fileStorage.s3PublicBaseUrl", ""));
+        dto.setCleanupEnabled(Boolean.parseBoolean(value(settings, "fileStorage.cleanupEnabled", "true")));
         return dto;
     }
 
-    private OAuthSettingsDto mapToOAuthSettings() {
+    private OAuthSettingsDto mapToOAuthSettings(Map<String, String> settings) {
         OAuthSettingsDto dto = new OAuthSettingsDto();
-        dto.setEnabled(Boolean.parseBoolean(getSettingValue("oauth.google.enabled", "false")));
-        dto.setClientId(getSettingValue("oauth.google.clientId", ""));
+        dto.setEnabled(Boolean.parseBoolean(value(settings, "oauth.google.enabled", "false")));
+        dto.setClientId(value(settings, "oauth.google.clientId", ""));
         dto.setClientSecret(MASKED_VALUE); // Always masked
-        dto.setRedirectUri(getSettingValue("oauth.google.redirectUri", "http://localhost:3000/oauth/callback"));
-        dto.setAuthorizedDomains(getSettingValue("oauth.google.authorizedDomains", ""));
-        dto.setScopes(getSettingValue("oauth.google.scopes", "openid,profile,email"));
+        dto.setRedirectUri(value(settings, "oauth.google.redirectUri", "http://localhost:3000/oauth/callback"));
+        dto.setAuthorizedDomains(value(settings, "oauth.google.authorizedDomains", ""));
+        dto.setScopes(value(settings, "oauth.google.scopes", "openid,profile,email"));
         return dto;
     }
 
+    // The cache leaves out null values; a map read straight from the table may contain them
+    private static String value(Map<String, String> settings, String key, String defaultValue) {
+        String value = settings.get(key);
+        return value != null ? value : defaultValue;
+    }
+
     private void auditAdminAction(Integer adminUserId, String action) {
         try {
             User adminUser = new User();
@@ -1,19 +1,19 @@
 package com.siyamuddin.blog.blogappapis.Services.Impl;
 
 import com.siyamuddin.blog.blogappapis.Entity.AuditLog;
+import com.siyamuddin.blog.blogappapis.Entity.AuditLogRollup;
 import com.siyamuddin.blog.blogappapis.Entity.User;
 import com.siyamuddin.blog.blogappapis.Repository.AuditLogRepo;
+import com.siyamuddin.blog.blogappapis.Repository.AuditLogRollupRepo;
 import com.siyamuddin.blog.blogappapis.Services.AuditService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.siyamuddin.blog.blogappapis.Services.Audit.AuditEventFactory;
+import com.siyamuddin.blog.blogappapis.Services.Audit.AuditLogWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -25,47 +25,30 @@ public class AuditServiceImpl implements AuditService {
     @Autowired
     private AuditLogRepo auditLogRepo;
     
+    @Autowired
+    private AuditLogRollupRepo auditLogRollupRepo;
+    
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+    
+    @Autowired
+    private AuditEventFactory auditEventFactory;
+    
     @Override
-    @Async
     public void logUserAction(User user, String action, String resourceType, Object resourceId) {
-        HttpServletRequest request = getCurrentRequest();
-        String ipAddress = request != null ? getClientIP(request) : "unknown";
-        String userAgent = request != null ? request.getHeader("User-Agent") : "unknown";
-        
-        logUserAction(ipAddress, userAgent, user.getId(), action, resourceType, resourceId, true, null);
+        auditLogWriter.publish(auditEventFactory.capture(user.getId(), action, resourceType, resourceId, true, null));
     }
     
     @Override
-    @Async
     public void logSecurityEvent(User user, String event, boolean success) {
-        HttpServletRequest request = getCurrentRequest();
-        String ipAddress = request != null ? getClientIP(request) : "unknown";
-        String userAgent = request != null ? request.getHeader("User-Agent") : "unknown";
-        
-        logUserAction(ipAddress, userAgent, user.getId(), event, "SECURITY", null, success, null);
+        auditLogWriter.publish(auditEventFactory.capture(user.getId(), event, "SECURITY", null, success, null));
     }
     
     @Override
-    @Async
-    @Transactional
     public void logUserAction(String ipAddress, String userAgent, Integer userId, String action, 
                              String resourceType, Object resourceId, boolean success, String errorMessage) {
-        try {
-            AuditLog auditLog = new AuditLog();
-            auditLog.setUserId(userId);
-            auditLog.setAction(action);
-            auditLog.setResourceType(resourceType);
-            auditLog.setResourceId(resourceId != null ? resourceId.toString() : null);
-            auditLog.setIpAddress(ipAddress);
-            auditLog.setUserAgent(userAgent);
-            auditLog.setSuccess(success);
-            auditLog.setErrorMessage(errorMessage);
-            auditLog.setTimestamp(LocalDateTime.now());
-            
-            auditLogRepo.save(auditLog);
-        } catch (Exception e) {
-            log.error("Failed to save audit log", e);
-        }
+        auditLogWriter.publish(auditEventFactory.capture(
+                ipAddress, userAgent, userId, action, resourceType, resourceId, success, errorMessage));
     }
     
     @Override
@@ -87,22 +70,9 @@ public class AuditServiceImpl implements AuditService {
         return auditLogRepo.findUserActionsSince(userId, since);
     }
     
-    private HttpServletRequest getCurrentRequest() {
-        try {
-            ServletRequestAttributes attributes = 
-                (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
-            return attributes.getRequest();
-        } catch (Exception e) {
-            return null;
-        }
-    }
-    
-    private String getClientIP(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        return request.getRemoteAddr();
+    @Override
+    @Transactional(readOnly = true)
+    public List<AuditLogRollup> getActionCounts(AuditLogRollup.Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        return auditLogRollupRepo.findByGranularityAndBucketStartBetweenOrderByBucketStartAsc(granularity, from, to);
     }
 }
-
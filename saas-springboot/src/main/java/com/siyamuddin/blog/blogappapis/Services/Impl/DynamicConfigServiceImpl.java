@@ -3,20 +3,28 @@ package com.siyamuddin.blog.blogappapis.Services.Impl;
 import com.siyamuddin.blog.blogappapis.Config.Properties.EmailProperties;
 import com.siyamuddin.blog.blogappapis.Config.Properties.RateLimitProperties;
 import com.siyamuddin.blog.blogappapis.Config.Properties.SecurityProperties;
+import com.siyamuddin.blog.blogappapis.Entity.AppSetting;
 import com.siyamuddin.blog.blogappapis.Services.AppSettingsService;
+import com.siyamuddin.blog.blogappapis.Services.Config.DynamicConfigSnapshot;
+import com.siyamuddin.blog.blogappapis.Services.Config.SettingsChangedEvent;
 import com.siyamuddin.blog.blogappapis.Services.DynamicConfigService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * Implementation that reads configuration from database first, falls back to properties files.
- * Uses @RefreshScope to reload when admin updates settings.
+ * Settings are compiled into an immutable {@link DynamicConfigSnapshot} when they change and
+ * published through a volatile field, so every getter is a plain field read.
  */
 @Slf4j
 @Service
-@RefreshScope
 public class DynamicConfigServiceImpl implements DynamicConfigService {
     
     @Autowired(required = false)
@@ -31,320 +39,195 @@ public class DynamicConfigServiceImpl implements DynamicConfigService {
     @Autowired
     private EmailProperties emailProperties;
     
-    // Security Settings
+    private volatile DynamicConfigSnapshot snapshot;
+    
+    // Compiling can load settings from the database; a Lock doesn't pin a virtual thread while it waits
+    private final ReentrantLock compileLock = new ReentrantLock();
     
     @Override
-    public Integer getMaxFailedLoginAttempts() {
-        if (appSettingsService != null) {
-            try {
-                return Integer.parseInt(appSettingsService.getSettingValue("security.maxFailedLoginAttempts", 
-                    String.valueOf(securityProperties.getMaxFailedLoginAttempts())));
-            } catch (Exception e) {
-                log.warn("Failed to get maxFailedLoginAttempts from database, using properties", e);
+    public DynamicConfigSnapshot snapshot() {
+        DynamicConfigSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        compileLock.lock();
+        try {
+            if (snapshot == null) {
+                snapshot = compile();
             }
+            return snapshot;
+        } finally {
+            compileLock.unlock();
         }
-        return securityProperties.getMaxFailedLoginAttempts();
     }
     
-    @Override
-    public Integer getAccountLockoutDurationMinutes() {
+    /**
+     * Rebuild the snapshot once settings are seeded at startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        compileLock.lock();
+        try {
+            snapshot = compile();
+        } finally {
+            compileLock.unlock();
+        }
+        log.debug("Dynamic configuration snapshot rebuilt");
+    }
+
+    /**
+     * Rebuild when a category the snapshot covers changes. Runs ahead of other listeners so
+     * components re-initialized for the same event read the new snapshot.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onSettingsChanged(SettingsChangedEvent event) {
+        if (event.affects(AppSetting.SettingCategory.SECURITY)
+                || event.affects(AppSetting.SettingCategory.RATE_LIMIT)
+                || event.affects(AppSetting.SettingCategory.EMAIL)) {
+            reload();
+        }
+    }
+    
+    private DynamicConfigSnapshot compile() {
         if (appSettingsService != null) {
             try {
-                return Integer.parseInt(appSettingsService.getSettingValue("security.lockoutDurationMinutes",
-                    String.valueOf(securityProperties.getAccountLockoutDurationMinutes())));
+                return DynamicConfigSnapshot.compile(key -> appSettingsService.getSettingValue(key, null),
+                        securityProperties, rateLimitProperties, emailProperties);
             } catch (Exception e) {
-                log.warn("Failed to get lockoutDuration from database, using properties", e);
+                if (snapshot != null) {
+                    log.warn("Failed to load settings from database, keeping current configuration", e);
+                    return snapshot;
+                }
+                log.warn("Failed to load settings from database, using properties", e);
             }
         }
-        return securityProperties.getAccountLockoutDurationMinutes();
+        return DynamicConfigSnapshot.compile(key -> null, securityProperties, rateLimitProperties, emailProperties);
+    }
+
+    // Security Settings
+    
+    @Override
+    public Integer getMaxFailedLoginAttempts() {
+        return snapshot().maxFailedLoginAttempts();
+    }
+    
+    @Override
+    public Integer getAccountLockoutDurationMinutes() {
+        return snapshot().accountLockoutDurationMinutes();
     }
     
     @Override
     public Integer getPasswordMinLength() {
-        if (appSettingsService != null) {
-            try {
-                return Integer.parseInt(appSettingsService.getSettingValue("security.passwordMinLength",
-                    String.valueOf(securityProperties.getPasswordMinLength())));
-            } catch (Exception e) {
-                log.warn("Failed to get passwordMinLength from database, using properties", e);
-            }
-        }
-        return securityProperties.getPasswordMinLength();
+        return snapshot().passwordMinLength();
     }
     
     @Override
     public Integer getPasswordMaxLength() {
-        if (appSettingsService != null) {
-            try {
-                return Integer.parseInt(appSettingsService.getSettingValue("security.passwordMaxLength",
-                    String.valueOf(securityProperties.getPasswordMaxLength())));
-            } catch (Exception e) {
-                log.warn("Failed to get passwordMaxLength from database, using properties", e);
-            }
-        }
-        return securityProperties.getPasswordMaxLength();
+        return snapshot().passwordMaxLength();
     }
     
     @Override
     public Boolean getPasswordRequireUppercase() {
-        if (appSettingsService != null) {
-            try {
-                return Boolean.parseBoolean(appSettingsService.getSettingValue("security.passwordRequireUppercase",
-                    String.valueOf(securityProperties.getPasswordRequireUppercase())));
-            } catch (Exception e) {
-                log.warn("Failed to get passwordRequireUppercase from database, using properties", e);
-            }
-        }
-        return securityProperties.getPasswordRequireUppercase();
+        return snapshot().passwordRequireUppercase();
     }
     
     @Override
     public Boolean getPasswordRequireLowercase() {
-        if (appSettingsService != null) {
-            try {
-                return Boolean.parseBoolean(appSettingsService.getSettingValue("security.passwordRequireLowercase",
-                    String.valueOf(securityProperties.getPasswordRequireLowercase())));
-            } catch (Exception e) {
-                log.warn("Failed to get passwordRequireLowercase from database, using properties", e);
-            }
-        }
-        return securityProperties.getPasswordRequireLowercase();
+        return snapshot().passwordRequireLowercase();
     }
     
     @Override
     public Boolean getPasswordRequireDigit() {
-        if (appSettingsService != null) {
-            try {
-                return Boolean.parseBoolean(appSettingsService.getSettingValue("security.passwordRequireDigit",
-                    String.valueOf(securityProperties.getPasswordRequireDigit())));
-            } catch (Exception e) {
-                log.warn("Failed to get passwordRequireDigit from database, using properties", e);
-            }
-        }
-        return securityProperties.getPasswordRequireDigit();
+        return snapshot().passwordRequireDigit();
     }
     
     @Override
     public Boolean getPasswordRequireSpecialChar() {
-        if (appSettingsService != null) {
-            try {
-                return Boolean.parseBoolean(appSettingsService.getSettingValue("security.passwordRequireSpecialChar",
-                    String.valueOf(securityProperties.getPasswordRequireSpecialChar())));
-            } catch (Exception e) {
-                log.warn("Failed to get passwordRequireSpecialChar from database, using properties", e);
-            }
-        }
-        return securityProperties.getPasswordRequireSpecialChar();
+        return snapshot().passwordRequireSpecialChar();
     }
     
     @Override
     public Integer getPasswordHistoryCount() {
-        if (appSettingsService != null) {
-            try {
-                return Integer.parseInt(appSettingsService.getSettingValue("security.passwordHistoryCount",
-                    String.valueOf(securityProperties.getPasswordHistoryCount())));
-            } catch (Exception e) {
-                log.warn("Failed to get passwordHistoryCount from database, using properties", e);
-            }
-        }
-        return securityProperties.getPasswordHistoryCount();
+        return snapshot().passwordHistoryCount();
     }
     
     @Override
     public Integer getSessionTimeoutMinutes() {
-        if (appSettingsService != null) {
-            try {
-                return Integer.parseInt(appSettingsService.getSettingValue("security.sessionTimeoutMinutes",
-                    String.valueOf(securityProperties.getSessionTimeoutMinutes())));
-            } catch (Exception e) {
-                log.warn("Failed to get sessionTimeoutMinutes from database, using properties", e);
-            }
-        }
-        return securityProperties.getSessionTimeoutMinutes();
+        return snapshot().sessionTimeoutMinutes();
     }
     
     @Override
     public Integer getEmailVerificationTokenExpiryHours() {
-        if (appSettingsService != null) {
-            try {
-                return Integer.parseInt(appSettingsService.getSettingValue("security.emailVerificationTokenExpiryHours",
-                    String.valueOf(securityProperties.getEmailVerificationTokenExpiryHours())));
-            } catch (Exception e) {
-                log.warn("Failed to get emailVerificationTokenExpiryHours from database, using properties", e);
-            }
-        }
-        return securityProperties.getEmailVerificationTokenExpiryHours();
+        return snapshot().emailVerificationTokenExpiryHours();
     }
     
     @Override
     public Integer getPasswordResetTokenExpiryHours() {
-        if (appSettingsService != null) {
-            try {
-                return Integer.parseInt(appSettingsService.getSettingValue("security.passwordResetTokenExpiryHours",
-                    String.valueOf(securityProperties.getPasswordResetTokenExpiryHours())));
-            } catch (Exception e) {
-                log.warn("Failed to get passwordResetTokenExpiryHours from database, using properties", e);
-            }
-        }
-        return securityProperties.getPasswordResetTokenExpiryHours();
+        return snapshot().passwordResetTokenExpiryHours();
     }
     
     @Override
     public Boolean getRequireEmailVerificationForLogin() {
-        if (appSettingsService != null) {
-            try {
-                Boolean dbValue = securityProperties.getRequireEmailVerificationForLogin();
-                return Boolean.parseBoolean(appSettingsService.getSettingValue("security.requireEmailVerificationForLogin",
-                    String.valueOf(dbValue != null ? dbValue : false)));
-            } catch (Exception e) {
-                log.warn("Failed to get requireEmailVerificationForLogin from database, using properties", e);
-            }
-        }
-        Boolean propValue = securityProperties.getRequireEmailVerificationForLogin();
-        return propValue != null ? propValue : false;
+        return snapshot().requireEmailVerificationForLogin();
     }
     
     // Rate Limit Settings
     
     @Override
     public Integer getLoginRateLimitRequests() {
-        if (appSettingsService != null) {
-            try {
-                return Integer.parseInt(appSettingsService.getSettingValue("rateLimit.login.requests",
-                    String.valueOf(rateLimitProperties.getLogin().getRequests())));
-            } catch (Exception e) {
-                log.warn("Failed to get login rate limit from database, using properties", e);
-            }
-        }
-        return rateLimitProperties.getLogin().getRequests();
+        return snapshot().loginRateLimitRequests();
     }
     
     @Override
     public Integer getLoginRateLimitDuration() {
-        if (appSettingsService != null) {
-            try {
-                return Integer.parseInt(appSettingsService.getSettingValue("rateLimit.login.duration",
-                    String.valueOf(rateLimitProperties.getLogin().getDuration())));
-            } catch (Exception e) {
-                log.warn("Failed to get login rate limit duration from database, using properties", e);
-            }
-        }
-        return rateLimitProperties.getLogin().getDuration();
+        return snapshot().loginRateLimitDuration();
     }
     
     @Override
     public Integer getRegistrationRateLimitRequests() {
-        if (appSettingsService != null) {
-            try {
-                return Integer.parseInt(appSettingsService.getSettingValue("rateLimit.registration.requests",
-                    String.valueOf(rateLimitProperties.getRegistration().getRequests())));
-            } catch (Exception e) {
-                log.warn("Failed to get registration rate limit from database, using properties", e);
-            }
-        }
-        return rateLimitProperties.getRegistration().getRequests();
+        return snapshot().registrationRateLimitRequests();
     }
     
     @Override
     public Integer getRegistrationRateLimitDuration() {
-        if (appSettingsService != null) {
-            try {
-                return Integer.parseInt(appSettingsService.getSettingValue("rateLimit.registration.duration",
-                    String.valueOf(rateLimitProperties.getRegistration().getDuration())));
-            } catch (Exception e) {
-                log.warn("Failed to get registration rate limit duration from database, using properties", e);
-            }
-        }
-        return rateLimitProperties.getRegistration().getDuration();
+        return snapshot().registrationRateLimitDuration();
     }
     
     @Override
     public Integer getPasswordChangeRateLimitRequests() {
-        if (appSettingsService != null) {
-            try {
-                return Integer.parseInt(appSettingsService.getSettingValue("rateLimit.passwordChange.requests",
-                    String.valueOf(rateLimitProperties.getPasswordChange().getRequests())));
-            } catch (Exception e) {
-                log.warn("Failed to get password change rate limit from database, using properties", e);
-            }
-        }
-        return rateLimitProperties.getPasswordChange().getRequests();
+        return snapshot().passwordChangeRateLimitRequests();
     }
     
     @Override
     public Integer getPasswordChangeRateLimitDuration() {
-        if (appSettingsService != null) {
-            try {
-                return Integer.parseInt(appSettingsService.getSettingValue("rateLimit.passwordChange.duration",
-                    String.valueOf(rateLimitProperties.getPasswordChange().getDuration())));
-            } catch (Exception e) {
-                log.warn("Failed to get password change rate limit duration from database, using properties", e);
-            }
-        }
-        return rateLimitProperties.getPasswordChange().getDuration();
+        return snapshot().passwordChangeRateLimitDuration();
     }
     
     // Email Settings
     
     @Override
     public String getEmailFrom() {
-        if (appSettingsService != null) {
-            try {
-                return appSettingsService.getSettingValue("email.from", emailProperties.getFrom());
-            } catch (Exception e) {
-                log.warn("Failed to get email.from from database, using properties", e);
-            }
-        }
-        return emailProperties.getFrom();
+        return snapshot().emailFrom();
     }
     
     @Override
     public String getEmailFromName() {
-        if (appSettingsService != null) {
-            try {
-                return appSettingsService.getSettingValue("email.fromName", emailProperties.getFromName());
-            } catch (Exception e) {
-                log.warn("Failed to get email.fromName from database, using properties", e);
-            }
-        }
-        return emailProperties.getFromName();
+        return snapshot().emailFromName();
     }
     
     @Override
     public String getEmailVerificationBaseUrl() {
-        if (appSettingsService != null) {
-            try {
-                return appSettingsService.getSettingValue("email.verificationBaseUrl", emailProperties.getVerificationBaseUrl());
-            } catch (Exception e) {
-                log.warn("Failed to get email.verificationBaseUrl from database, using properties", e);
-            }
-        }
-        return emailProperties.getVerificationBaseUrl();
+        return snapshot().emailVerificationBaseUrl();
     }
     
     @Override
     public String getEmailPasswordResetBaseUrl() {
-        if (appSettingsService != null) {
-            try {
-                return appSettingsService.getSettingValue("email.passwordResetBaseUrl", emailProperties.getPasswordResetBaseUrl());
-            } catch (Exception e) {
-                log.warn("Failed to get email.passwordResetBaseUrl from database, using properties", e);
-            }
-        }
-        return emailProperties.getPasswordResetBaseUrl();
+        return snapshot().emailPasswordResetBaseUrl();
     }
     
     @Override
     public Boolean getEmailEnabled() {
-        if (appSettingsService != null) {
-            try {
-                return Boolean.parseBoolean(appSettingsService.getSettingValue("email.enabled", 
-                    String.valueOf(emailProperties.getEnabled())));
-            } catch (Exception e) {
-                log.warn("Failed to get email.enabled from database, using properties", e);
-            }
-        }
-        return emailProperties.getEnabled();
+        return snapshot().emailEnabled();
     }
 }
-
@@ -1,48 +1,48 @@
 package com.siyamuddin.blog.blogappapis.Services.Impl;
 
+import com.siyamuddin.blog.blogappapis.Entity.EmailOutboxMessage;
+import com.siyamuddin.blog.blogappapis.Repository.EmailOutboxRepo;
 import com.siyamuddin.blog.blogappapis.Services.DynamicConfigService;
+import com.siyamuddin.blog.blogappapis.Services.Email.EmailQueuedEvent;
 import com.siyamuddin.blog.blogappapis.Services.EmailService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Queues emails in the {@code email_outbox} table, joining the caller's transaction so an email
+ * is only sent if the change that triggered it commits. Delivery is done by EmailOutboxDispatcher.
+ */
 @Slf4j
 @Service
 public class EmailServiceImpl implements EmailService {
     
-    @Autowired(required = false)
-    private JavaMailSender mailSender; // Dynamic bean from DynamicEmailConfig with @RefreshScope
+    @Autowired
+    private EmailOutboxRepo emailOutboxRepo;
     
     @Autowired
     private DynamicConfigService dynamicConfig;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @Override
-    @Async
+    @Transactional
     public void sendEmail(String to, String subject, String body) {
-        if (!dynamicConfig.getEmailEnabled() || mailSender == null) {
-            log.warn("Email sending is disabled or mail sender not configured. Would send to: {}, subject: {}", to, subject);
+        if (!dynamicConfig.getEmailEnabled()) {
+            log.warn("Email sending is disabled. Would send to: {}, subject: {}", to, subject);
             return;
         }
         
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(dynamicConfig.getEmailFrom());
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(body);
-            mailSender.send(message);
-            log.info("Email sent successfully to: {}", to);
-        } catch (Exception e) {
-            log.error("Failed to send email to: {}", to, e);
-            throw new RuntimeException("Failed to send email", e);
-        }
+        EmailOutboxMessage message = emailOutboxRepo.save(EmailOutboxMessage.pending(to, subject, body));
+        eventPublisher.publishEvent(new EmailQueuedEvent(message.getId()));
+        log.info("Email queued for: {}", to);
     }
     
     @Override
-    @Async
+    @Transactional
     public void sendWelcomeEmail(String to, String name) {
         String subject = "Welcome to SAAS Starter!";
         String body = String.format(
@@ -57,7 +57,7 @@ public class EmailServiceImpl implements EmailService {
     }
     
     @Override
-    @Async
+    @Transactional
     public void sendVerificationEmail(String to, String name, String verificationToken) {
         String subject = "Verify Your Email Address";
         String verificationUrl = dynamicConfig.getEmailVerificationBaseUrl() + "?token=" + verificationToken;
@@ -75,7 +75,7 @@ public class EmailServiceImpl implements EmailService {
     }
     
     @Override
-    @Async
+    @Transactional
     public void sendPasswordResetEmail(String to, String name, String resetToken) {
         String subject = "Reset Your Password";
         String resetUrl = dynamicConfig.getEmailPasswordResetBaseUrl() + "?token=" + resetToken;
@@ -93,7 +93,7 @@ public class EmailServiceImpl implements EmailService {
     }
     
     @Override
-    @Async
+    @Transactional
     public void sendAccountLockedEmail(String to, String name, int lockoutDurationMinutes) {
         String subject = "Account Temporarily Locked";
         String body = String.format(
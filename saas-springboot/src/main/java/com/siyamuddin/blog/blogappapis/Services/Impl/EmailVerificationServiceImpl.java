@@ -42,7 +42,7 @@ public class EmailVerificationServiceImpl implements EmailVerificationService {
         userRepo.save(user);
         
         emailService.sendVerificationEmail(user.getEmail(), user.getName(), token);
-        log.info("Verification email sent to user: {}", user.getEmail());
+        log.info("Verification email queued for user: {}", user.getEmail());
     }
     
     @Override
@@ -1,21 +1,26 @@
 package com.siyamuddin.blog.blogappapis.Services.Impl;
 
+import com.siyamuddin.blog.blogappapis.Config.Properties.OAuthProperties;
 import com.siyamuddin.blog.blogappapis.Entity.OAuthAccount;
 import com.siyamuddin.blog.blogappapis.Entity.User;
 import com.siyamuddin.blog.blogappapis.Repository.OAuthAccountRepo;
 import com.siyamuddin.blog.blogappapis.Repository.UserRepo;
 import com.siyamuddin.blog.blogappapis.Services.OAuthService;
 import com.siyamuddin.blog.blogappapis.Services.AppSettingsService;
+import com.siyamuddin.blog.blogappapis.Services.OAuth.GoogleIdTokenVerifier;
+import com.siyamuddin.blog.blogappapis.Services.OAuth.OAuthProviderClient;
+import com.siyamuddin.blog.blogappapis.Exceptions.OAuthProviderUnavailableException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Optional;
 
 @Slf4j
@@ -32,7 +37,13 @@ public class OAuthServiceImpl implements OAuthService {
     private AppSettingsService appSettingsService;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private OAuthProviderClient oauthProviderClient;
+    
+    @Autowired
+    private OAuthProperties oauthProperties;
+    
+    @Autowired
+    private GoogleIdTokenVerifier googleIdTokenVerifier;
     
     @Override
     @Transactional
@@ -134,12 +145,16 @@ public class OAuthServiceImpl implements OAuthService {
         String clientId = appSettingsService.getSettingValue("oauth.google.clientId", "");
         String redirectUri = appSettingsService.getSettingValue("oauth.google.redirectUri", "");
         String scopes = appSettingsService.getSettingValue("oauth.google.scopes", "openid profile email");
+        // The callback needs an id_token, which Google only returns for the openid scope
+        if (!Arrays.asList(scopes.split("[,\\s]+")).contains("openid")) {
+            scopes = "openid " + scopes;
+        }
         
-        String scopesEncoded = scopes.replace(",", "%20");
+        String scopesEncoded = scopes.trim().replaceAll("[,\\s]+", "%20");
         
         return String.format(
-            "https://accounts.google.com/o/oauth2/v2/auth?client_id=%s&redirect_uri=%s&response_type=code&scope=%s&state=%s&access_type=offline&prompt=consent",
-            clientId, redirectUri, scopesEncoded, state
+            "%s?client_id=%s&redirect_uri=%s&response_type=code&scope=%s&state=%s&access_type=offline&prompt=consent",
+            oauthProperties.getGoogle().getAuthorizationUri(), clientId, redirectUri, scopesEncoded, state
         );
     }
     
@@ -151,40 +166,18 @@ public class OAuthServiceImpl implements OAuthService {
         }
         
         try {
-            // Step 1: Exchange code for access token
-            String accessToken = exchangeCodeForToken(code);
-            
-            // Step 2: Fetch user info from Google
-            JsonNode userInfo = fetchGoogleUserInfo(accessToken);
-            
-            // Log the response for debugging
-            log.info("Google user info response: {}", userInfo.toString());
+            // Step 1: Exchange code for tokens
+            String clientId = appSettingsService.getSettingValue("oauth.google.clientId", "");
+            String idToken = exchangeCodeForIdToken(code, clientId);
             
-            // Step 3: Extract user data with proper null checks
-            if (userInfo.get("email") == null) {
-                log.error("Email field missing from Google userinfo response");
-                throw new RuntimeException("Email not provided by Google");
-            }
-            String email = userInfo.get("email").asText();
-            
-            // Google's v2/userinfo returns "id" instead of "sub"
-            String googleId = null;
-            if (userInfo.get("id") != null) {
-                googleId = userInfo.get("id").asText();
-            } else if (userInfo.get("sub") != null) {
-                googleId = userInfo.get("sub").asText();
-            } else {
-                log.error("Neither 'id' nor 'sub' field found in Google userinfo response");
-                throw new RuntimeException("Google ID not provided");
-            }
-            
-            String name = userInfo.has("name") && userInfo.get("name") != null 
-                ? userInfo.get("name").asText() 
-                : email;
+            // Step 2: Verify the id_token locally against Google's cached signing keys
+            Claims claims = googleIdTokenVerifier.verify(idToken, clientId);
             
-            String picture = userInfo.has("picture") && userInfo.get("picture") != null 
-                ? userInfo.get("picture").asText() 
-                : null;
+            // Step 3: Extract user data
+            String email = claims.get("email", String.class);
+            String googleId = claims.getSubject();
+            String name = claims.get("name") != null ? claims.get("name", String.class) : email;
+            String picture = claims.get("picture") != null ? claims.get("picture", String.class) : null;
             
             // Step 4: Create or find user
             User user = findOrCreateUserFromOAuth("google", googleId, email, name);
@@ -202,58 +195,28 @@ public class OAuthServiceImpl implements OAuthService {
             log.info("Google OAuth login successful for user: {}", email);
             return user;
             
+        } catch (OAuthProviderUnavailableException e) {
+            // Google is down or slow, not the user's fault; surfaced as 503
+            throw e;
         } catch (Exception e) {
             log.error("Failed to handle Google OAuth callback: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to authenticate with Google: " + e.getMessage());
         }
     }
     
-    private String exchangeCodeForToken(String code) {
-        String clientId = appSettingsService.getSettingValue("oauth.google.clientId", "");
-        String clientSecret = appSettingsService.getSettingValue("oauth.google.clientSecret", "");
-        String redirectUri = appSettingsService.getSettingValue("oauth.google.redirectUri", "");
-        
-        String tokenUrl = "https://oauth2.googleapis.com/token";
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-        
-        String body = String.format(
-            "code=%s&client_id=%s&client_secret=%s&redirect_uri=%s&grant_type=authorization_code",
-            code, clientId, clientSecret, redirectUri
-        );
-        
-        HttpEntity<String> request = new HttpEntity<>(body, headers);
-        
-        try {
-            ResponseEntity<String> response = restTemplate.postForEntity(tokenUrl, request, String.class);
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode jsonNode = mapper.readTree(response.getBody());
-            return jsonNode.get("access_token").asText();
-        } catch (Exception e) {
-            log.error("Failed to exchange code for token: {}", e.getMessage());
-            throw new RuntimeException("Token exchange failed", e);
-        }
-    }
-    
-    private JsonNode fetchGoogleUserInfo(String accessToken) {
-        String userInfoUrl = "https://www.googleapis.com/oauth2/v2/userinfo";
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(accessToken);
+    private String exchangeCodeForIdToken(String code, String clientId) {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("code", code);
+        form.add("client_id", clientId);
+        form.add("client_secret", appSettingsService.getSettingValue("oauth.google.clientSecret", ""));
+        form.add("redirect_uri", appSettingsService.getSettingValue("oauth.google.redirectUri", ""));
+        form.add("grant_type", "authorization_code");
         
-        HttpEntity<String> request = new HttpEntity<>(headers);
-        
-        try {
-            ResponseEntity<String> response = restTemplate.exchange(
-                userInfoUrl, HttpMethod.GET, request, String.class
-            );
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readTree(response.getBody());
-        } catch (Exception e) {
-            log.error("Failed to fetch Google user info: {}", e.getMessage());
-            throw new RuntimeException("Failed to fetch user info", e);
+        JsonNode token = oauthProviderClient.postForm("google", "token", oauthProperties.getGoogle().getTokenUri(), form);
+        if (token.get("id_token") == null) {
+            throw new RuntimeException("Token exchange failed: no id_token in response (is the openid scope requested?)");
         }
+        return token.get("id_token").asText();
     }
     
     /**
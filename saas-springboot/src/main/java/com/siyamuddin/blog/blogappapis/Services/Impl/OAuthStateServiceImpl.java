@@ -1,74 +1,235 @@
 package com.siyamuddin.blog.blogappapis.Services.Impl;
 
+import com.siyamuddin.blog.blogappapis.Config.Properties.JwtProperties;
+import com.siyamuddin.blog.blogappapis.Config.Properties.OAuthProperties;
 import com.siyamuddin.blog.blogappapis.Services.OAuthStateService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
-import java.time.Duration;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * State tokens are {@code base64url(payload || HMAC-SHA256(payload))}, where the payload holds a
+ * version, flags, the expiry and a random nonce. Authenticity and expiry are checked locally;
+ * only single use needs a store.
+ * <p>
+ * With the MEMORY store nothing leaves the instance: consumed nonces are remembered until their
+ * token expires. With the REDIS store the nonce is recorded at authorize and consumed at the
+ * callback with one atomic GETDEL, so a token is accepted once across replicas. If Redis is down
+ * at authorize the token is flagged to be checked in memory instead, and a failed GETDEL falls
+ * back to memory too, so OAuth login never depends on Redis.
+ */
 @Slf4j
 @Service
 public class OAuthStateServiceImpl implements OAuthStateService {
-    
+
     private static final String OAUTH_STATE_PREFIX = "oauth:state:";
-    private static final Duration STATE_TTL = Duration.ofMinutes(5); // State valid for 5 minutes
-    private static final int STATE_LENGTH = 32; // 32 bytes = 256 bits
-    
-    @Autowired
-    private RedisTemplate<String, String> redisTemplate;
-    
+    private static final byte VERSION = 1;
+    private static final byte FLAG_IN_REDIS = 1;
+    private static final int NONCE_LENGTH = 16; // 128 bits
+    private static final int PAYLOAD_LENGTH = 2 + Long.BYTES + NONCE_LENGTH;
+    private static final int MAC_LENGTH = 32;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final OAuthProperties.State config;
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
     private final SecureRandom secureRandom = new SecureRandom();
-    
+    // nonce -> expiry (epoch millis) of tokens already used on this instance
+    private final ConcurrentMap<String, Long> consumed = new ConcurrentHashMap<>();
+
+    public OAuthStateServiceImpl(OAuthProperties oauthProperties, JwtProperties jwtProperties,
+                                 ObjectProvider<StringRedisTemplate> redisTemplate, MeterRegistry meterRegistry) {
+        this.config = oauthProperties.getState();
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.key = new SecretKeySpec(deriveKey(config.getSecret(), jwtProperties.getSecret()), MAC_ALGORITHM);
+    }
+
     @Override
     public String generateState() {
-        // Generate cryptographically secure random state
-        byte[] randomBytes = new byte[STATE_LENGTH];
-        secureRandom.nextBytes(randomBytes);
-        String state = Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
-        
-        // Store in Redis with TTL
-        String key = OAUTH_STATE_PREFIX + state;
-        redisTemplate.opsForValue().set(key, "valid", STATE_TTL);
-        
-        log.debug("Generated OAuth state token: {}", state.substring(0, 8) + "...");
-        return state;
+        byte[] nonce = new byte[NONCE_LENGTH];
+        secureRandom.nextBytes(nonce);
+        long expiresAt = System.currentTimeMillis() + config.getTtl().toMillis();
+
+        byte flags = 0;
+        if (config.getStore() == OAuthProperties.StateStore.REDIS) {
+            try {
+                redisTemplate.getObject().opsForValue().set(redisKey(nonce), "1", config.getTtl());
+                flags = FLAG_IN_REDIS;
+            } catch (DataAccessException e) {
+                log.warn("Redis unavailable for OAuth state, replays of this state are only stopped on this instance: {}",
+                        e.getMessage());
+            }
+        }
+
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_LENGTH)
+                .put(VERSION).put(flags).putLong(expiresAt).put(nonce)
+                .array();
+        byte[] token = ByteBuffer.allocate(PAYLOAD_LENGTH + MAC_LENGTH).put(payload).put(mac(payload)).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
     }
-    
+
     @Override
     public boolean validateAndConsumeState(String state) {
-        if (state == null || state.trim().isEmpty()) {
-            log.warn("OAuth state validation failed: state is null or empty");
+        ByteBuffer payload = verify(state);
+        if (payload == null) {
             return false;
         }
-        
-        String key = OAUTH_STATE_PREFIX + state;
-        
-        // Check if state exists in Redis
-        String value = redisTemplate.opsForValue().get(key);
-        
-        if (value == null) {
-            log.warn("OAuth state validation failed: state not found or expired");
+        byte flags = payload.get(1);
+        long expiresAt = payload.getLong(2);
+        byte[] nonce = Arrays.copyOfRange(payload.array(), 2 + Long.BYTES, PAYLOAD_LENGTH);
+
+        if ((flags & FLAG_IN_REDIS) != 0) {
+            try {
+                if (redisTemplate.getObject().opsForValue().getAndDelete(redisKey(nonce)) == null) {
+                    recordRejection("replayed");
+                    return false;
+                }
+                log.debug("OAuth state validated and consumed");
+                return true;
+            } catch (DataAccessException e) {
+                log.warn("Redis unavailable for OAuth state, checking replay on this instance only: {}", e.getMessage());
+            }
+        }
+        if (!markConsumed(encode(nonce), expiresAt)) {
+            recordRejection("replayed");
             return false;
         }
-        
-        // Delete the state to prevent reuse (one-time use)
-        redisTemplate.delete(key);
-        
-        log.info("OAuth state validated and consumed successfully");
+        log.debug("OAuth state validated and consumed");
         return true;
     }
-    
+
     @Override
     public void invalidateState(String state) {
-        if (state != null && !state.trim().isEmpty()) {
-            String key = OAUTH_STATE_PREFIX + state;
-            redisTemplate.delete(key);
-            log.debug("OAuth state token invalidated: {}", state.substring(0, 8) + "...");
+        ByteBuffer payload = verify(state);
+        if (payload == null) {
+            return;
+        }
+        byte[] nonce = Arrays.copyOfRange(payload.array(), 2 + Long.BYTES, PAYLOAD_LENGTH);
+        markConsumed(encode(nonce), payload.getLong(2));
+        if ((payload.get(1) & FLAG_IN_REDIS) != 0) {
+            try {
+                redisTemplate.getObject().delete(redisKey(nonce));
+            } catch (DataAccessException e) {
+                log.warn("Redis unavailable, OAuth state invalidated on this instance only: {}", e.getMessage());
+            }
         }
+        log.debug("OAuth state token invalidated");
+    }
+
+    /**
+     * @return the payload of a well-formed, authentic, unexpired token; otherwise null
+     */
+    private ByteBuffer verify(String state) {
+        if (state == null || state.isBlank()) {
+            recordRejection("missing");
+            return null;
+        }
+        byte[] token;
+        try {
+            token = Base64.getUrlDecoder().decode(state);
+        } catch (IllegalArgumentException e) {
+            recordRejection("malformed");
+            return null;
+        }
+        if (token.length != PAYLOAD_LENGTH + MAC_LENGTH || token[0] != VERSION) {
+            recordRejection("malformed");
+            return null;
+        }
+        byte[] payload = Arrays.copyOf(token, PAYLOAD_LENGTH);
+        if (!MessageDigest.isEqual(mac(payload), Arrays.copyOfRange(token, PAYLOAD_LENGTH, token.length))) {
+            recordRejection("signature");
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        if (buffer.getLong(2) <= System.currentTimeMillis()) {
+            recordRejection("expired");
+            return null;
+        }
+        return buffer;
+    }
+
+    /**
+     * @return false if the nonce was already consumed here, or too many are tracked to be sure
+     */
+    private boolean markConsumed(String nonce, long expiresAt) {
+        if (consumed.size() >= config.getMaxTrackedStates()) {
+            long now = System.currentTimeMillis();
+            consumed.values().removeIf(expiry -> expiry <= now);
+            if (consumed.size() >= config.getMaxTrackedStates()) {
+                log.warn("Tracking {} consumed OAuth states, refusing new callbacks until some expire", consumed.size());
+                return false;
+            }
+        }
+        return consumed.putIfAbsent(nonce, expiresAt) == null;
+    }
+
+    private void recordRejection(String reason) {
+        log.warn("OAuth state validation failed: {}", reason);
+        Counter.builder("app.oauth.state.rejected")
+                .description("OAuth callbacks refused because of their state parameter, by reason")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private byte[] mac(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private static String redisKey(byte[] nonce) {
+        return OAUTH_STATE_PREFIX + encode(nonce);
     }
-}
 
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * The configured state secret, or one derived from the JWT secret under a separate label so a
+     * state token can never double as anything signed with the JWT key.
+     */
+    private static byte[] deriveKey(String stateSecret, String jwtSecret) {
+        if (stateSecret != null && !stateSecret.isEmpty()) {
+            return stateSecret.getBytes(StandardCharsets.UTF_8);
+        }
+        if (jwtSecret == null || jwtSecret.isEmpty()) {
+            throw new IllegalStateException("app.oauth.state.secret or app.jwt.secret must be set to sign OAuth state");
+        }
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM));
+            return mac.doFinal("oauth-state-v1".getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to derive OAuth state key", e);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to initialise OAuth state MAC", e);
+        }
+    }
+}
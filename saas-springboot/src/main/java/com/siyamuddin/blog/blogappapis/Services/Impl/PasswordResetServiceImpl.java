@@ -57,7 +57,7 @@ public class PasswordResetServiceImpl implements PasswordResetService {
             userRepo.save(user);
             
             emailService.sendPasswordResetEmail(user.getEmail(), user.getName(), token);
-            log.info("Password reset email sent to user: {}", user.getEmail());
+            log.info("Password reset email queued for user: {}", user.getEmail());
         } else {
             // Log but don't reveal that user doesn't exist
             log.debug("Password reset requested for non-existent email: {}", email);
@@ -1,15 +1,23 @@
 package com.siyamuddin.blog.blogappapis.Services.Impl;
 
+import com.siyamuddin.blog.blogappapis.Services.Config.DynamicConfigSnapshot;
 import com.siyamuddin.blog.blogappapis.Services.DynamicConfigService;
 import com.siyamuddin.blog.blogappapis.Services.PasswordValidationService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.regex.Pattern;
+
 @Slf4j
 @Service
 public class PasswordValidationServiceImpl implements PasswordValidationService {
     
+    private static final Pattern UPPERCASE = Pattern.compile("[A-Z]");
+    private static final Pattern LOWERCASE = Pattern.compile("[a-z]");
+    private static final Pattern DIGIT = Pattern.compile("[0-9]");
+    private static final Pattern SPECIAL_CHAR = Pattern.compile("[@#$%^&+=!?*~`_\\-\\[\\]{}|\\\\:;\"'<>,./]");
+    
     @Autowired
     private DynamicConfigService dynamicConfig;
     
@@ -19,8 +27,9 @@ public class PasswordValidationServiceImpl implements PasswordValidationService
             throw new IllegalArgumentException("Password cannot be null");
         }
         
-        int minLength = dynamicConfig.getPasswordMinLength();
-        int maxLength = dynamicConfig.getPasswordMaxLength();
+        DynamicConfigSnapshot config = dynamicConfig.snapshot();
+        int minLength = config.passwordMinLength();
+        int maxLength = config.passwordMaxLength();
         
         if (password.length() < minLength) {
             throw new IllegalArgumentException(
@@ -37,20 +46,19 @@ public class PasswordValidationServiceImpl implements PasswordValidationService
         // Build a list of missing requirements for better error messages
         StringBuilder missingRequirements = new StringBuilder();
         
-        if (dynamicConfig.getPasswordRequireUppercase() && !password.matches(".*[A-Z].*")) {
+        if (config.passwordRequireUppercase() && !UPPERCASE.matcher(password).find()) {
             missingRequirements.append("uppercase letter, ");
         }
         
-        if (dynamicConfig.getPasswordRequireLowercase() && !password.matches(".*[a-z].*")) {
+        if (config.passwordRequireLowercase() && !LOWERCASE.matcher(password).find()) {
             missingRequirements.append("lowercase letter, ");
         }
         
-        if (dynamicConfig.getPasswordRequireDigit() && !password.matches(".*[0-9].*")) {
+        if (config.passwordRequireDigit() && !DIGIT.matcher(password).find()) {
             missingRequirements.append("digit, ");
         }
         
-        if (dynamicConfig.getPasswordRequireSpecialChar() &&
-            !password.matches(".*[@#$%^&+=!?*~`_\\-\\[\\]{}|\\\\:;\"'<>,./].*")) {
+        if (config.passwordRequireSpecialChar() && !SPECIAL_CHAR.matcher(password).find()) {
             missingRequirements.append("special character, ");
         }
         
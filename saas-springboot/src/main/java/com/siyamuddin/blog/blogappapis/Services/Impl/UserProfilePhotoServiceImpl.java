@@ -1,27 +1,41 @@
 package com.siyamuddin.blog.blogappapis.Services.Impl;
 
 import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
+import com.siyamuddin.blog.blogappapis.Config.Properties.ImageVariantProperties;
 import com.siyamuddin.blog.blogappapis.Entity.User;
 import com.siyamuddin.blog.blogappapis.Exceptions.FileStorageException;
+import com.siyamuddin.blog.blogappapis.Exceptions.FileTooLargeException;
 import com.siyamuddin.blog.blogappapis.Exceptions.InvalidFileException;
 import com.siyamuddin.blog.blogappapis.Exceptions.ResourceNotFoundException;
+import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.ProfilePhotoUploadTicket;
 import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.UserDto;
 import com.siyamuddin.blog.blogappapis.Repository.UserRepo;
+import com.siyamuddin.blog.blogappapis.Services.Image.ProfilePhotoStoredEvent;
+import com.siyamuddin.blog.blogappapis.Services.Image.ProfilePhotoVariants;
+import com.siyamuddin.blog.blogappapis.Services.Storage.ContentAddressedStorage;
+import com.siyamuddin.blog.blogappapis.Services.Storage.ContentTypeSniffer;
+import com.siyamuddin.blog.blogappapis.Services.Storage.DirectUpload;
 import com.siyamuddin.blog.blogappapis.Services.Storage.FileStorageService;
 import com.siyamuddin.blog.blogappapis.Services.Storage.FileUploadRequest;
+import com.siyamuddin.blog.blogappapis.Services.Storage.StorageCleaner;
 import com.siyamuddin.blog.blogappapis.Services.Storage.StoredFile;
+import com.siyamuddin.blog.blogappapis.Services.Storage.StreamingUpload;
 import com.siyamuddin.blog.blogappapis.Services.UserProfilePhotoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
@@ -37,45 +51,200 @@ public class UserProfilePhotoServiceImpl implements UserProfilePhotoService {
             "image/avif",
             "application/pdf"
     );
+    private static final String UNSUPPORTED_TYPE_MESSAGE = "Unsupported file type. Allowed: JPEG, PNG, WEBP, GIF, AVIF, PDF";
 
     private final UserRepo userRepo;
     private final FileStorageService fileStorageService;
     private final ModelMapper modelMapper;
     private final FileStorageProperties fileStorageProperties;
+    private final StorageCleaner storageCleaner;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ContentAddressedStorage contentAddressedStorage;
+    private final ImageVariantProperties imageVariantProperties;
 
+    /**
+     * Not transactional while the file is stored: storing takes its reference in transactions of
+     * its own, and holding a connection here as well would need two per upload. The user row is
+     * updated in its own short transaction once the backend has the file, on the upload executor
+     * rather than the calling thread. The cache entry is evicted when the returned future completes.
+     */
     @Override
-    @Transactional
     @CacheEvict(value = "users", key = "#userId")
-    public UserDto uploadProfilePhoto(Integer userId, MultipartFile file) {
+    public CompletableFuture<UserDto> uploadProfilePhoto(Integer userId, MultipartFile file) {
         validateFile(file);
-        User user = userRepo.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "ID", userId));
-
-        String previousStorageKey = user.getProfileImageStorageKey();
+        if (!userRepo.existsById(userId)) {
+            throw new ResourceNotFoundException("User", "ID", userId);
+        }
 
         FileUploadRequest request = FileUploadRequest.builder()
                 .file(file)
-                .subDirectory("public/profiles/user-" + userId)
-                .preferredFileName(buildPreferredFileName(userId, file))
+                .subDirectory(subDirectory(userId))
+                .preferredFileName(buildPreferredFileName(userId, extensionOf(file.getOriginalFilename())))
                 .build();
 
-        StoredFile storedFile = fileStorageService.store(request);
+        return contentAddressedStorage.storeAsync(request)
+                .thenApply(storedFile -> transactionTemplate.execute(status -> replacePhoto(findUser(userId), storedFile)));
+    }
 
+    /**
+     * Not transactional while the body streams in, so a slow client never holds a database
+     * connection. The body is read on the calling thread; the user row is only updated, in its own
+     * short transaction, once the file is stored.
+     */
+    @Override
+    @CacheEvict(value = "users", key = "#userId")
+    public CompletableFuture<UserDto> uploadProfilePhoto(Integer userId, InputStream body, String originalFileName, long contentLength) {
+        if (!userRepo.existsById(userId)) {
+            throw new ResourceNotFoundException("User", "ID", userId);
+        }
+        StreamingUpload content;
+        try {
+            content = StreamingUpload.open(body, originalFileName, contentLength,
+                    fileStorageProperties.getUpload().getMaxFileSize().toBytes());
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to read upload", e);
+        }
+        if (!ALLOWED_CONTENT_TYPES.contains(content.getContentType())) {
+            throw new InvalidFileException(UNSUPPORTED_TYPE_MESSAGE);
+        }
+
+        FileUploadRequest request = FileUploadRequest.builder()
+                .content(content)
+                .subDirectory(subDirectory(userId))
+                .preferredFileName(buildPreferredFileName(userId, ContentTypeSniffer.extension(content.getContentType())))
+                .build();
+        return contentAddressedStorage.storeAsync(request)
+                .thenApply(storedFile -> transactionTemplate.execute(status -> replacePhoto(findUser(userId), storedFile)));
+    }
+
+    @Override
+    public ProfilePhotoUploadTicket createDirectUpload(Integer userId, String contentType, long contentLength) {
+        requireDirectUpload();
+        String type = normalizeContentType(contentType);
+        if (!ALLOWED_CONTENT_TYPES.contains(type)) {
+            throw new InvalidFileException(UNSUPPORTED_TYPE_MESSAGE);
+        }
+        long maxBytes = fileStorageProperties.getUpload().getMaxFileSize().toBytes();
+        if (contentLength <= 0) {
+            throw new InvalidFileException("File is empty");
+        }
+        if (contentLength > maxBytes) {
+            throw new FileTooLargeException(maxBytes);
+        }
+        if (!userRepo.existsById(userId)) {
+            throw new ResourceNotFoundException("User", "ID", userId);
+        }
+
+        FileUploadRequest request = FileUploadRequest.builder()
+                .subDirectory(subDirectory(userId))
+                .preferredFileName(buildPreferredFileName(userId, ContentTypeSniffer.extension(type)))
+                .build();
+        DirectUpload upload = fileStorageService.presignUpload(request, type, contentLength);
+        return new ProfilePhotoUploadTicket(upload.getUrl(), upload.getMethod(), upload.getHeaders(),
+                upload.getKey(), upload.getExpiresAt());
+    }
+
+    /**
+     * The object is checked with a HEAD and a ranged read of its first bytes before any
+     * transaction starts; only the user row update runs in one.
+     */
+    @Override
+    @CacheEvict(value = "users", key = "#userId")
+    public UserDto confirmDirectUpload(Integer userId, String storageKey) {
+        requireDirectUpload();
+        if (!isIssuedTo(userId, storageKey)) {
+            throw new InvalidFileException("Upload does not belong to this user");
+        }
+        User current = findUser(userId);
+        if (storageKey.equals(current.getProfileImageStorageKey())) {
+            // Confirmed twice (e.g. a client retry)
+            return modelMapper.map(current, UserDto.class);
+        }
+        StoredFile storedFile = fileStorageService.stat(storageKey)
+                .orElseThrow(() -> new InvalidFileException("No upload found; upload the file before confirming"));
+        verifyDirectUpload(storedFile);
+
+        return transactionTemplate.execute(status -> replacePhoto(findUser(userId), storedFile));
+    }
+
+    private void verifyDirectUpload(StoredFile storedFile) {
+        long maxBytes = fileStorageProperties.getUpload().getMaxFileSize().toBytes();
+        RuntimeException violation = null;
+        if (storedFile.getSize() > maxBytes) {
+            violation = new FileTooLargeException(maxBytes);
+        } else if (storedFile.getSize() <= 0) {
+            violation = new InvalidFileException("File is empty");
+        } else {
+            byte[] header = fileStorageService.readPrefix(storedFile.getKey(), ContentTypeSniffer.HEADER_BYTES);
+            String sniffed = ContentTypeSniffer.sniff(header, header.length);
+            if (sniffed == null || !sniffed.equals(normalizeContentType(storedFile.getContentType()))) {
+                violation = new InvalidFileException("File content does not match its declared type");
+            }
+        }
+        if (violation != null) {
+            storageCleaner.deleteLater(storedFile.getKey());
+            throw violation;
+        }
+    }
+
+    private void requireDirectUpload() {
+        if (!fileStorageService.supportsDirectUpload()) {
+            throw new InvalidFileException("Direct uploads are not available with the configured storage; " +
+                    "upload the file to the profile-photo endpoint instead");
+        }
+    }
+
+    /**
+     * Keys are only ever presigned under the user's own directory with the user's id in the file
+     * name, so this is enough to stop one user confirming another user's upload.
+     */
+    private static boolean isIssuedTo(Integer userId, String storageKey) {
+        if (!StringUtils.hasText(storageKey) || storageKey.contains("..")) {
+            return false;
+        }
+        int slash = storageKey.lastIndexOf('/');
+        String directory = slash < 0 ? "" : storageKey.substring(0, slash);
+        String fileName = storageKey.substring(slash + 1);
+        String expectedDirectory = subDirectory(userId);
+        return (directory.equals(expectedDirectory) || directory.endsWith("/" + expectedDirectory))
+                && fileName.startsWith("profile-" + userId + "-");
+    }
+
+    private static String normalizeContentType(String contentType) {
+        if (contentType == null) {
+            return "";
+        }
+        String type = contentType.toLowerCase();
+        int parameters = type.indexOf(';');
+        if (parameters >= 0) {
+            type = type.substring(0, parameters);
+        }
+        type = type.trim();
+        return "image/jpg".equals(type) ? "image/jpeg" : type;
+    }
+
+    private UserDto replacePhoto(User user, StoredFile storedFile) {
+        String previousStorageKey = user.getProfileImageStorageKey();
+        String previousVariantSpec = user.getProfileImageVariantSpec();
         try {
             user.setProfileImageUrl(storedFile.getPublicUrl());
             user.setProfileImageStorageKey(storedFile.getKey());
+            user.setProfileImageVariantSpec(null);
             userRepo.save(user);
         } catch (RuntimeException ex) {
-            // Rollback stored file on persistence failure
+            // Rollback stored file on persistence failure; other users may hold the same content
             try {
-                fileStorageService.delete(storedFile.getKey());
+                contentAddressedStorage.abandon(storedFile.getKey());
             } catch (RuntimeException deleteEx) {
                 log.error("Failed to cleanup uploaded file {} after persistence error", storedFile.getKey(), deleteEx);
             }
             throw ex;
         }
 
-        maybeDeletePrevious(previousStorageKey, storedFile.getKey());
+        maybeDeletePrevious(previousStorageKey, previousVariantSpec, storedFile.getKey());
+        eventPublisher.publishEvent(new ProfilePhotoStoredEvent(user.getId(), storedFile.getKey(),
+                contentAddressedStorage.subDirectoryOf(storedFile.getKey(), subDirectory(user.getId()))));
         return modelMapper.map(user, UserDto.class);
     }
 
@@ -88,35 +257,41 @@ public class UserProfilePhotoServiceImpl implements UserProfilePhotoService {
         }
         String contentType = file.getContentType();
         if (!StringUtils.hasText(contentType) || !ALLOWED_CONTENT_TYPES.contains(contentType.toLowerCase())) {
-            throw new InvalidFileException("Unsupported file type. Allowed: JPEG, PNG, WEBP, GIF, AVIF, PDF");
+            throw new InvalidFileException(UNSUPPORTED_TYPE_MESSAGE);
         }
     }
 
-    private String buildPreferredFileName(Integer userId, MultipartFile file) {
-        String extension = "";
-        String originalName = file.getOriginalFilename();
+    private User findUser(Integer userId) {
+        return userRepo.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "ID", userId));
+    }
+
+    private static String subDirectory(Integer userId) {
+        return "public/profiles/user-" + userId;
+    }
+
+    private static String extensionOf(String originalName) {
         if (StringUtils.hasText(originalName) && originalName.contains(".")) {
-            extension = originalName.substring(originalName.lastIndexOf('.'));
+            return originalName.substring(originalName.lastIndexOf('.'));
         }
+        return "";
+    }
+
+    private String buildPreferredFileName(Integer userId, String extension) {
         return "profile-" + userId + "-" + UUID.randomUUID() + extension;
     }
 
-    private void maybeDeletePrevious(String previousStorageKey, String newKey) {
-        if (!fileStorageProperties.getCleanup().isEnabled()) {
-            return;
-        }
+    private void maybeDeletePrevious(String previousStorageKey, String previousVariantSpec, String newKey) {
         if (!StringUtils.hasText(previousStorageKey)) {
             return;
         }
-        if (previousStorageKey.equals(newKey)) {
-            return;
-        }
 
-        try {
-            fileStorageService.delete(previousStorageKey);
-        } catch (FileStorageException ex) {
-            log.warn("Failed to delete old profile photo {}", previousStorageKey, ex);
-        }
+        // Released rather than deleted: stored by content, the previous photo and its variants may
+        // be shared with other users, or be this very upload again (which took a second reference).
+        // Only tombstones are written here, in the upload's transaction; the collector deletes the files,
+        // and only while cleanup is enabled. The reference is released regardless so counts stay true.
+        contentAddressedStorage.release(previousStorageKey,
+                ProfilePhotoVariants.dependentKeys(previousStorageKey, previousVariantSpec, imageVariantProperties.getSizes()));
     }
 }
 
@@ -1,6 +1,7 @@
 package com.siyamuddin.blog.blogappapis.Services.Impl;
 
 import com.siyamuddin.blog.blogappapis.Config.AppConstants;
+import com.siyamuddin.blog.blogappapis.Config.Properties.ImageVariantProperties;
 import com.siyamuddin.blog.blogappapis.Config.Properties.RoleProperties;
 import com.siyamuddin.blog.blogappapis.Entity.Role;
 import com.siyamuddin.blog.blogappapis.Entity.User;
@@ -11,7 +12,9 @@ import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.UserDto;
 import com.siyamuddin.blog.blogappapis.Repository.RefreshTokenRepo;
 import com.siyamuddin.blog.blogappapis.Repository.RoleRepo;
 import com.siyamuddin.blog.blogappapis.Repository.UserRepo;
+import com.siyamuddin.blog.blogappapis.Services.Image.ProfilePhotoVariants;
 import com.siyamuddin.blog.blogappapis.Services.SessionService;
+import com.siyamuddin.blog.blogappapis.Services.Storage.ContentAddressedStorage;
 import com.siyamuddin.blog.blogappapis.Services.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
@@ -26,6 +29,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.util.List;
 import java.util.Optional;
@@ -41,6 +45,8 @@ public class UserServiceImpl implements UserService {
     private final UserRepo userRepo;
     private final RoleRepo roleRepo;
     private final RoleProperties roleProperties;
+    private final ContentAddressedStorage contentAddressedStorage;
+    private final ImageVariantProperties imageVariantProperties;
     
     @Autowired(required = false)
     private RefreshTokenRepo refreshTokenRepo;
@@ -56,12 +62,16 @@ public class UserServiceImpl implements UserService {
             PasswordEncoder passwordEncoder,
             UserRepo userRepo,
             RoleRepo roleRepo,
-            RoleProperties roleProperties) {
+            RoleProperties roleProperties,
+            ContentAddressedStorage contentAddressedStorage,
+            ImageVariantProperties imageVariantProperties) {
         this.modelMapper = modelMapper;
         this.passwordEncoder = passwordEncoder;
         this.userRepo = userRepo;
         this.roleRepo = roleRepo;
         this.roleProperties = roleProperties;
+        this.contentAddressedStorage = contentAddressedStorage;
+        this.imageVariantProperties = imageVariantProperties;
     }
 
     @Override
@@ -216,11 +226,20 @@ public class UserServiceImpl implements UserService {
             }
         }
         
-        // 4. Clear roles (breaks the many-to-many relationship)
+        // 4. Release the profile photo; it is tombstoned in this transaction and deleted by the
+        //    storage garbage collector (when cleanup is enabled) unless another user has the same photo
+        String photoKey = user.getProfileImageStorageKey();
+        if (StringUtils.hasText(photoKey)) {
+            contentAddressedStorage.release(photoKey, ProfilePhotoVariants.dependentKeys(
+                    photoKey, user.getProfileImageVariantSpec(), imageVariantProperties.getSizes()));
+            log.debug("Released profile photo of user {}", userId);
+        }
+        
+        // 5. Clear roles (breaks the many-to-many relationship)
         user.getRoles().clear();
         userRepo.save(user); // Save to persist the cleared roles
         
-        // 5. Delete the user
+        // 6. Delete the user
         userRepo.deleteById(userId);
         
         log.info("User {} deleted successfully", userId);
@@ -265,4 +284,26 @@ public class UserServiceImpl implements UserService {
         userRepo.save(user);
     }
 
+    /**
+     * Not transactional: the new hash is computed (deliberately slow) without holding a database
+     * connection, then written with one conditional UPDATE that loses to a concurrent password change.
+     */
+    @Override
+    @CacheEvict(value = "users", key = "#user.id")
+    public boolean upgradePasswordHashIfNeeded(User user, String rawPassword) {
+        String storedHash = user.getPassword();
+        // OAuth-only accounts have no password hash to upgrade
+        if (storedHash == null || storedHash.isEmpty() || !passwordEncoder.upgradeEncoding(storedHash)) {
+            return false;
+        }
+        String upgradedHash = passwordEncoder.encode(rawPassword);
+        if (userRepo.replacePasswordHash(user.getId(), storedHash, upgradedHash) == 0) {
+            log.debug("Password of user {} changed during the hash upgrade; keeping the new password", user.getId());
+            return false;
+        }
+        user.setPassword(upgradedHash);
+        log.info("Upgraded password hash for user {}", user.getId());
+        return true;
+    }
+
 }
@@ -0,0 +1,42 @@
+package com.siyamuddin.blog.blogappapis.Services.Metrics;
+
+import com.siyamuddin.blog.blogappapis.Config.AsyncExecutorConfig;
+import com.siyamuddin.blog.blogappapis.Config.MetricsConfig;
+import com.siyamuddin.blog.blogappapis.Repository.UserRepo;
+import com.siyamuddin.blog.blogappapis.Repository.UserSessionRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * Re-counts the {@code app.sessions.active} and {@code app.accounts.locked} gauges from the
+ * database, correcting drift from sessions that expired or accounts that unlocked on their own.
+ * The queries run on the metrics executor, so a slow database never delays other scheduled jobs.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StateGaugeRefresher {
+
+    private final UserSessionRepo userSessionRepo;
+    private final UserRepo userRepo;
+    private final MetricsConfig.BusinessMetrics businessMetrics;
+
+    @Async(AsyncExecutorConfig.METRICS)
+    @Scheduled(fixedDelayString = "${app.metrics.state-gauge-interval-millis:60000}")
+    public void refresh() {
+        try {
+            businessMetrics.setActiveSessions(Math.toIntExact(
+                    userSessionRepo.countByIsActiveTrueAndExpiresAtAfter(LocalDateTime.now())));
+            businessMetrics.setLockedAccounts(Math.toIntExact(userRepo.countByAccountLockedUntilAfter(new Date())));
+        } catch (DataAccessException e) {
+            log.debug("Failed to refresh state gauges: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.siyamuddin.blog.blogappapis.Services.OAuth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siyamuddin.blog.blogappapis.Config.AsyncExecutorConfig;
+import com.siyamuddin.blog.blogappapis.Config.Properties.OAuthProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.time.Clock;
+import java.util.Date;
+
+/**
+ * Verifies the id_token Google returns from the code exchange, locally: RS256 signature against
+ * Google's published keys (see {@link OidcSigningKeys}), issuer, audience (our client id),
+ * expiry, and a verified email. The token carries everything the login needs, so the callback
+ * makes no userinfo call.
+ */
+@Slf4j
+@Component
+public class GoogleIdTokenVerifier {
+
+    private static final String PROVIDER = "google";
+
+    private final OAuthProperties.Google config;
+    private final OidcSigningKeys signingKeys;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    @Autowired
+    public GoogleIdTokenVerifier(OAuthProviderClient client, ObjectMapper objectMapper, OAuthProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this(client, objectMapper, properties, meterRegistry, Clock.systemUTC());
+    }
+
+    GoogleIdTokenVerifier(OAuthProviderClient client, ObjectMapper objectMapper, OAuthProperties properties,
+                          MeterRegistry meterRegistry, Clock clock) {
+        this.config = properties.getGoogle();
+        this.signingKeys = new OidcSigningKeys(PROVIDER, config.getDiscoveryUri(), client, objectMapper,
+                properties.getKeys(), clock);
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the token's claims
+     * @throws JwtException if the token is not a valid, current Google id_token for this client
+     *                      with a verified email
+     */
+    public Claims verify(String idToken, String clientId) {
+        try {
+            Claims claims = Jwts.parserBuilder()
+                    .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                        @Override
+                        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                            // The header is attacker-controlled; only accept what Google signs with
+                            if (!SignatureAlgorithm.RS256.getValue().equals(header.getAlgorithm())) {
+                                throw new JwtException("Unexpected id_token algorithm " + header.getAlgorithm());
+                            }
+                            PublicKey key = header.getKeyId() == null ? null : signingKeys.key(header.getKeyId());
+                            if (key == null) {
+                                throw new JwtException("id_token signed with unknown key " + header.getKeyId());
+                            }
+                            return key;
+                        }
+                    })
+                    .requireAudience(clientId)
+                    .setClock(() -> Date.from(clock.instant()))
+                    .setAllowedClockSkewSeconds(config.getClockSkew().toSeconds())
+                    .build()
+                    .parseClaimsJws(idToken)
+                    .getBody();
+            if (!config.getIssuers().contains(claims.getIssuer())) {
+                throw new JwtException("Unexpected id_token issuer " + claims.getIssuer());
+            }
+            if (claims.getSubject() == null || claims.get("email", String.class) == null) {
+                throw new JwtException("id_token has no subject or email");
+            }
+            // Accounts are matched by email, so an unverified one could take over someone else's
+            Object emailVerified = claims.get("email_verified");
+            if (!Boolean.TRUE.equals(emailVerified) && !"true".equals(emailVerified)) {
+                throw new JwtException("Google has not verified the email in the id_token");
+            }
+            record("valid");
+            return claims;
+        } catch (JwtException e) {
+            record("invalid");
+            log.warn("Rejected Google id_token: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Replace the cached keys shortly before they expire, so logins find them fresh.
+     */
+    @Async(AsyncExecutorConfig.OAUTH)
+    @Scheduled(fixedDelayString = "${app.oauth.keys.refresh-check-millis:60000}")
+    public void refreshKeys() {
+        try {
+            signingKeys.refreshIfDue();
+        } catch (RuntimeException e) {
+            log.warn("Background refresh of Google signing keys failed: {}", e.getMessage());
+        }
+    }
+
+    private void record(String outcome) {
+        Counter.builder("app.oauth.idtoken.verified")
+                .description("id_tokens checked locally, by outcome")
+                .tag("provider", PROVIDER)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,155 @@
+package com.siyamuddin.blog.blogappapis.Services.OAuth;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siyamuddin.blog.blogappapis.Config.Properties.OAuthProperties;
+import com.siyamuddin.blog.blogappapis.Exceptions.OAuthProviderUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every call to an OAuth provider goes through here: on the pooled, time-bounded
+ * {@code oauthRestTemplate}, behind a circuit breaker per provider, parsed with the application's
+ * {@link ObjectMapper}, and timed per provider, endpoint and outcome in
+ * {@code app.oauth.provider.requests}.
+ * <p>
+ * A provider that is down, slow or refused by its breaker surfaces as
+ * {@link OAuthProviderUnavailableException}; a 4xx (typically a bad or reused authorization
+ * code) is rethrown as the {@link HttpClientErrorException} it is.
+ */
+@Slf4j
+@Component
+public class OAuthProviderClient {
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final OAuthProperties.CircuitBreaker breakerConfig;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ProviderCircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public OAuthProviderClient(@Qualifier("oauthRestTemplate") RestTemplate restTemplate,
+                               ObjectMapper objectMapper,
+                               OAuthProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.breakerConfig = properties.getCircuitBreaker();
+        this.meterRegistry = meterRegistry;
+    }
+
+    public JsonNode postForm(String provider, String endpoint, String url, MultiValueMap<String, String> form) {
+        return exchangeForJson(provider, endpoint, RequestEntity.post(URI.create(url))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(form));
+    }
+
+    private JsonNode exchangeForJson(String provider, String endpoint, RequestEntity<?> request) {
+        ProviderCircuitBreaker breaker = breaker(provider);
+        ResponseEntity<String> response = exchange(provider, endpoint, request);
+        try {
+            return objectMapper.readTree(response.getBody() == null ? "" : response.getBody());
+        } catch (JsonProcessingException e) {
+            // Answered, but not with what an OAuth endpoint answers; an error page from a proxy
+            breaker.onFailure();
+            throw new OAuthProviderUnavailableException("Unreadable response from " + provider + " " + endpoint,
+                    breaker.retryAfterSeconds(), e);
+        }
+    }
+
+    /**
+     * Make one call to a provider endpoint.
+     *
+     * @param endpoint short name of the endpoint for metrics and logs, e.g. {@code token}
+     */
+    public ResponseEntity<String> exchange(String provider, String endpoint, RequestEntity<?> request) {
+        ProviderCircuitBreaker breaker = breaker(provider);
+        if (!breaker.tryAcquire()) {
+            record(provider, endpoint, "rejected", 0L);
+            throw new OAuthProviderUnavailableException(provider + " is unavailable; calls are paused",
+                    breaker.retryAfterSeconds());
+        }
+        long start = System.nanoTime();
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(request, String.class);
+            breaker.onSuccess();
+            record(provider, endpoint, "success", System.nanoTime() - start);
+            return response;
+        } catch (HttpClientErrorException e) {
+            breaker.onSuccess();
+            record(provider, endpoint, "client_error", System.nanoTime() - start);
+            throw e;
+        } catch (HttpServerErrorException e) {
+            breaker.onFailure();
+            record(provider, endpoint, "server_error", System.nanoTime() - start);
+            log.warn("{} {} answered {}", provider, endpoint, e.getStatusCode());
+            throw new OAuthProviderUnavailableException(provider + " " + endpoint + " failed with " + e.getStatusCode(),
+                    breaker.retryAfterSeconds(), e);
+        } catch (ResourceAccessException e) {
+            breaker.onFailure();
+            String outcome = e.getCause() instanceof InterruptedIOException ? "timeout" : "io_error";
+            record(provider, endpoint, outcome, System.nanoTime() - start);
+            log.warn("{} {} call failed ({}): {}", provider, endpoint, outcome, e.getMessage());
+            throw new OAuthProviderUnavailableException(provider + " " + endpoint + " did not answer",
+                    breaker.retryAfterSeconds(), e);
+        } catch (RestClientException e) {
+            breaker.onFailure();
+            record(provider, endpoint, "error", System.nanoTime() - start);
+            throw new OAuthProviderUnavailableException(provider + " " + endpoint + " call failed",
+                    breaker.retryAfterSeconds(), e);
+        } catch (RuntimeException e) {
+            // E.g. from a request interceptor; must still end a half-open trial call
+            breaker.onFailure();
+            record(provider, endpoint, "error", System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    ProviderCircuitBreaker.State circuitState(String provider) {
+        return breaker(provider).state();
+    }
+
+    private ProviderCircuitBreaker breaker(String provider) {
+        return breakers.computeIfAbsent(provider, name -> {
+            ProviderCircuitBreaker breaker = new ProviderCircuitBreaker(breakerConfig.getFailureThreshold(),
+                    breakerConfig.getOpenDuration());
+            Gauge.builder("app.oauth.provider.circuit.open", breaker,
+                            b -> b.state() == ProviderCircuitBreaker.State.CLOSED ? 0 : 1)
+                    .description("Whether calls to the OAuth provider are paused by its circuit breaker")
+                    .tag("provider", name)
+                    .strongReference(true)
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    private void record(String provider, String endpoint, String outcome, long nanos) {
+        Timer.builder("app.oauth.provider.requests")
+                .description("Calls to OAuth provider endpoints, by outcome")
+                .tag("provider", provider)
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
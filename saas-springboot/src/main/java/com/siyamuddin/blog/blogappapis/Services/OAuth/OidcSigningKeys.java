@@ -0,0 +1,226 @@
+package com.siyamuddin.blog.blogappapis.Services.OAuth;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siyamuddin.blog.blogappapis.Config.Properties.OAuthProperties;
+import com.siyamuddin.blog.blogappapis.Exceptions.OAuthProviderUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The RSA keys an OpenID Connect provider signs id_tokens with, read from the {@code jwks_uri} of
+ * its discovery document and cached for as long as the provider's cache headers allow.
+ * <p>
+ * Lookups never wait on the network while the cached keys are fresh; {@link #refreshIfDue()},
+ * called in the background, replaces them shortly before they expire. A token signed with an
+ * unknown key (the provider rotated) forces a refresh, at most once per
+ * unknown-key-refresh-interval so forged key ids can't be used to hammer the provider. When a
+ * refresh fails the previous keys stay in use; when there are none yet, the failure surfaces as
+ * {@link OAuthProviderUnavailableException}, whatever went wrong with the provider's documents.
+ */
+@Slf4j
+final class OidcSigningKeys {
+
+    private static final Pattern MAX_AGE = Pattern.compile("(?:^|,)\\s*(?:s-)?max-age\\s*=\\s*\"?(\\d+)");
+
+    private record Snapshot(Map<String, PublicKey> keys, Instant expiresAt) {
+    }
+
+    private record Discovery(String jwksUri, Instant expiresAt) {
+    }
+
+    private final String provider;
+    private final String discoveryUri;
+    private final OAuthProviderClient client;
+    private final ObjectMapper objectMapper;
+    private final OAuthProperties.Keys config;
+    private final Clock clock;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+    private volatile Discovery discovery;
+    private volatile Instant lastForcedRefresh = Instant.MIN;
+
+    OidcSigningKeys(String provider, String discoveryUri, OAuthProviderClient client, ObjectMapper objectMapper,
+                    OAuthProperties.Keys config, Clock clock) {
+        this.provider = provider;
+        this.discoveryUri = discoveryUri;
+        this.client = client;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the key with this id, or null if the provider doesn't list it
+     */
+    PublicKey key(String keyId) {
+        Snapshot current = snapshot;
+        if (current == null || !clock.instant().isBefore(current.expiresAt())) {
+            current = refresh(current);
+        }
+        PublicKey key = current.keys().get(keyId);
+        if (key != null) {
+            return key;
+        }
+        Instant now = clock.instant();
+        if (lastForcedRefresh.plus(config.getUnknownKeyRefreshInterval()).isAfter(now)) {
+            return null;
+        }
+        lastForcedRefresh = now;
+        log.info("{} id_token signed with unknown key {}; refreshing keys", provider, keyId);
+        return refresh(current).keys().get(keyId);
+    }
+
+    /**
+     * Refresh the keys if they expire within refresh-ahead. Does nothing before the first
+     * lookup, so a provider that's never used is never called.
+     */
+    void refreshIfDue() {
+        Snapshot current = snapshot;
+        if (current != null && !clock.instant().plus(config.getRefreshAhead()).isBefore(current.expiresAt())) {
+            refresh(current);
+        }
+    }
+
+    /**
+     * Fetch the keys unless another thread replaced {@code seen} meanwhile.
+     *
+     * @return the keys now in use; the old ones if the fetch failed and there are any
+     * @throws OAuthProviderUnavailableException if the fetch failed and there are none
+     */
+    private Snapshot refresh(Snapshot seen) {
+        refreshLock.lock();
+        try {
+            if (snapshot != seen) {
+                return snapshot;
+            }
+            try {
+                snapshot = fetch();
+            } catch (RuntimeException e) {
+                if (seen == null) {
+                    throw unavailable(e);
+                }
+                log.warn("Refreshing {} signing keys failed, keeping the {} cached ones: {}", provider,
+                        seen.keys().size(), e.getMessage());
+                return seen;
+            }
+            return snapshot;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private OAuthProviderUnavailableException unavailable(RuntimeException e) {
+        if (e instanceof OAuthProviderUnavailableException unavailable) {
+            return unavailable;
+        }
+        // Answered, but without usable keys; logins can't be verified until it publishes some
+        log.warn("Fetching {} signing keys failed: {}", provider, e.getMessage());
+        return new OAuthProviderUnavailableException("No usable " + provider + " signing keys",
+                config.getUnknownKeyRefreshInterval().toSeconds(), e);
+    }
+
+    private Snapshot fetch() {
+        Instant now = clock.instant();
+        Discovery currentDiscovery = discovery;
+        if (currentDiscovery == null || !now.isBefore(currentDiscovery.expiresAt())) {
+            ResponseEntity<String> response = client.exchange(provider, "discovery", get(discoveryUri));
+            JsonNode document = parse(response.getBody());
+            if (!document.hasNonNull("jwks_uri")) {
+                throw new IllegalStateException(provider + " discovery document has no jwks_uri");
+            }
+            currentDiscovery = new Discovery(document.get("jwks_uri").asText(),
+                    now.plus(cacheLifetime(response.getHeaders(), config, now)));
+            discovery = currentDiscovery;
+        }
+
+        ResponseEntity<String> response = client.exchange(provider, "jwks", get(currentDiscovery.jwksUri()));
+        Map<String, PublicKey> keys = new HashMap<>();
+        for (JsonNode jwk : parse(response.getBody()).path("keys")) {
+            // Only RSA signing keys; a provider may list encryption keys or other types too
+            if (!"RSA".equals(jwk.path("kty").asText()) || !"sig".equals(jwk.path("use").asText("sig"))
+                    || !jwk.hasNonNull("kid")) {
+                continue;
+            }
+            try {
+                keys.put(jwk.get("kid").asText(), rsaKey(jwk.path("n").asText(), jwk.path("e").asText()));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                log.warn("Skipping unreadable {} signing key {}: {}", provider, jwk.get("kid").asText(), e.getMessage());
+            }
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalStateException(provider + " lists no usable signing keys");
+        }
+        Duration lifetime = cacheLifetime(response.getHeaders(), config, now);
+        log.debug("Fetched {} {} signing keys, cached for {}", keys.size(), provider, lifetime);
+        return new Snapshot(Map.copyOf(keys), now.plus(lifetime));
+    }
+
+    /**
+     * How long a response may be cached: Cache-Control max-age less Age, else Expires less Date,
+     * else the default; no-store and no-cache give the minimum. Always within the configured
+     * bounds, so a provider can neither make us fetch on every login nor keep a key forever.
+     */
+    static Duration cacheLifetime(HttpHeaders headers, OAuthProperties.Keys config, Instant now) {
+        Duration lifetime = config.getDefaultCacheTime();
+        String cacheControl = headers.getCacheControl() == null ? "" : headers.getCacheControl().toLowerCase();
+        Matcher maxAge = MAX_AGE.matcher(cacheControl);
+        if (cacheControl.contains("no-store") || cacheControl.contains("no-cache")) {
+            lifetime = Duration.ZERO;
+        } else if (maxAge.find()) {
+            long age = 0;
+            try {
+                age = Long.parseLong(String.valueOf(headers.getFirst(HttpHeaders.AGE)).trim());
+            } catch (NumberFormatException e) {
+                // Absent or garbled: treat the response as fresh
+            }
+            lifetime = Duration.ofSeconds(Math.max(0, Long.parseLong(maxAge.group(1)) - age));
+        } else if (headers.getExpires() > 0) {
+            long date = headers.getDate() > 0 ? headers.getDate() : now.toEpochMilli();
+            lifetime = Duration.ofMillis(Math.max(0, headers.getExpires() - date));
+        }
+        if (lifetime.compareTo(config.getMinCacheTime()) < 0) {
+            return config.getMinCacheTime();
+        }
+        return lifetime.compareTo(config.getMaxCacheTime()) > 0 ? config.getMaxCacheTime() : lifetime;
+    }
+
+    private static RequestEntity<Void> get(String uri) {
+        return RequestEntity.get(URI.create(uri)).accept(MediaType.APPLICATION_JSON).build();
+    }
+
+    private JsonNode parse(String body) {
+        try {
+            return objectMapper.readTree(body == null ? "" : body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable " + provider + " key document", e);
+        }
+    }
+
+    private static PublicKey rsaKey(String modulus, String exponent) throws GeneralSecurityException {
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+                new BigInteger(1, decoder.decode(modulus)), new BigInteger(1, decoder.decode(exponent))));
+    }
+}
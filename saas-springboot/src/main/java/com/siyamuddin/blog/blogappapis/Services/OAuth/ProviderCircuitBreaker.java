@@ -0,0 +1,93 @@
+package com.siyamuddin.blog.blogappapis.Services.OAuth;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Consecutive-failure circuit breaker for one OAuth provider.
+ * <p>
+ * CLOSED lets every call through and opens after {@code failureThreshold} failures in a row.
+ * OPEN refuses calls until {@code openDuration} has passed, then lets a single trial call through
+ * (HALF_OPEN); its success closes the breaker and its failure opens it again. Only timeouts,
+ * connection errors and 5xx are failures; a 4xx for a user's bad authorization code shows the
+ * provider is up.
+ */
+final class ProviderCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    ProviderCircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    ProviderCircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @return whether a call may be made now; every permitted call must be followed by
+     * {@link #onSuccess()} or {@link #onFailure()}
+     */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nanoClock.getAsLong() - openedAt < openNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    synchronized void onFailure() {
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = nanoClock.getAsLong();
+            consecutiveFailures = 0;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    /**
+     * @return seconds until a refused caller may try again, at least 1
+     */
+    synchronized long retryAfterSeconds() {
+        if (state != State.OPEN) {
+            return 1;
+        }
+        long remaining = openNanos - (nanoClock.getAsLong() - openedAt);
+        return Math.max(1, (remaining + 999_999_999L) / 1_000_000_000L);
+    }
+}
@@ -1,21 +1,28 @@
 package com.siyamuddin.blog.blogappapis.Services;
 
 import com.siyamuddin.blog.blogappapis.Config.Properties.RateLimitProperties;
+import com.siyamuddin.blog.blogappapis.Entity.AppSetting;
+import com.siyamuddin.blog.blogappapis.Services.Config.DynamicConfigSnapshot;
+import com.siyamuddin.blog.blogappapis.Services.Config.SettingsChangedEvent;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.ConsumptionProbe;
 import io.github.bucket4j.Refill;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Service for rate limiting with per-user and per-IP support.
  * Buckets are stored in-memory per application instance, keyed by user/email or IP.
+ * Login, registration, password-change and general limits are admin-configurable; when they
+ * change only the buckets of the limits that actually changed are discarded.
  */
 @Slf4j
 @Service
@@ -23,6 +30,12 @@ import java.util.concurrent.ConcurrentMap;
 public class RateLimitService {
 
     private final RateLimitProperties rateLimitProperties;
+    private final DynamicConfigService dynamicConfigService;
+
+    // Admin-configurable limits, rebuilt from the settings snapshot when RATE_LIMIT settings change
+    private volatile Limits limits;
+    // Building limits reads the settings snapshot, which may hit the database on first use
+    private final ReentrantLock limitsLock = new ReentrantLock();
 
     // Cache for bucket configurations (immutable Bandwidth per (requests,duration))
     private final ConcurrentMap<String, Bandwidth> bandwidthCache = new ConcurrentHashMap<>();
@@ -36,7 +49,7 @@ public class RateLimitService {
      * @return true if request is allowed, false if rate limited
      */
     public boolean tryConsumeLogin(String identifier) {
-        return getBucket("rate-limit:login:" + identifier, rateLimitProperties.getLogin())
+        return getBucket("rate-limit:login:" + identifier, limits().login())
                 .tryConsume(1);
     }
 
@@ -46,7 +59,7 @@ public class RateLimitService {
      * @return true if request is allowed, false if rate limited
      */
     public boolean tryConsumeRegistration(String identifier) {
-        return getBucket("rate-limit:registration:" + identifier, rateLimitProperties.getRegistration())
+        return getBucket("rate-limit:registration:" + identifier, limits().registration())
                 .tryConsume(1);
     }
 
@@ -76,7 +89,7 @@ public class RateLimitService {
      * @return true if request is allowed, false if rate limited
      */
     public boolean tryConsumePasswordChange(String identifier) {
-        return getBucket("rate-limit:password-change:" + identifier, rateLimitProperties.getPasswordChange())
+        return getBucket("rate-limit:password-change:" + identifier, limits().passwordChange())
                 .tryConsume(1);
     }
 
@@ -86,7 +99,7 @@ public class RateLimitService {
      * @return true if request is allowed, false if rate limited
      */
     public boolean tryConsumeGeneralApi(String identifier) {
-        return getBucket("rate-limit:general:" + identifier, rateLimitProperties.getGeneral())
+        return getBucket("rate-limit:general:" + identifier, limits().general())
                 .tryConsume(1);
     }
 
@@ -98,7 +111,7 @@ public class RateLimitService {
      */
     public boolean tryConsumeOAuth(String identifier) {
         // Use login rate limit config for OAuth (same security sensitivity)
-        return getBucket("rate-limit:oauth:" + identifier, rateLimitProperties.getLogin())
+        return getBucket("rate-limit:oauth:" + identifier, limits().login())
                 .tryConsume(1);
     }
 
@@ -108,7 +121,7 @@ public class RateLimitService {
      * @return ConsumptionProbe with remaining tokens info
      */
     public ConsumptionProbe tryConsumeAndReturnRemainingLogin(String identifier) {
-        return getBucket("rate-limit:login:" + identifier, rateLimitProperties.getLogin())
+        return getBucket("rate-limit:login:" + identifier, limits().login())
                 .tryConsumeAndReturnRemaining(1);
     }
 
@@ -118,7 +131,7 @@ public class RateLimitService {
      * @return ConsumptionProbe with remaining tokens info
      */
     public ConsumptionProbe tryConsumeAndReturnRemainingRegistration(String identifier) {
-        return getBucket("rate-limit:registration:" + identifier, rateLimitProperties.getRegistration())
+        return getBucket("rate-limit:registration:" + identifier, limits().registration())
                 .tryConsumeAndReturnRemaining(1);
     }
 
@@ -148,7 +161,7 @@ public class RateLimitService {
      * @return ConsumptionProbe with remaining tokens info
      */
     public ConsumptionProbe tryConsumeAndReturnRemainingPasswordChange(String identifier) {
-        return getBucket("rate-limit:password-change:" + identifier, rateLimitProperties.getPasswordChange())
+        return getBucket("rate-limit:password-change:" + identifier, limits().passwordChange())
                 .tryConsumeAndReturnRemaining(1);
     }
 
@@ -158,7 +171,7 @@ public class RateLimitService {
      * @return ConsumptionProbe with remaining tokens info
      */
     public ConsumptionProbe tryConsumeAndReturnRemainingGeneralApi(String identifier) {
-        return getBucket("rate-limit:general:" + identifier, rateLimitProperties.getGeneral())
+        return getBucket("rate-limit:general:" + identifier, limits().general())
                 .tryConsumeAndReturnRemaining(1);
     }
 
@@ -169,10 +182,88 @@ public class RateLimitService {
      */
     public ConsumptionProbe tryConsumeAndReturnRemainingOAuth(String identifier) {
         // Use login rate limit config for OAuth (same security sensitivity)
-        return getBucket("rate-limit:oauth:" + identifier, rateLimitProperties.getLogin())
+        return getBucket("rate-limit:oauth:" + identifier, limits().login())
                 .tryConsumeAndReturnRemaining(1);
     }
 
+    /**
+     * Re-read the admin-configurable limits and drop the buckets of each limit that changed,
+     * so new requests are counted against the new limit while other buckets keep their state.
+     */
+    @EventListener
+    public void onSettingsChanged(SettingsChangedEvent event) {
+        if (!event.affects(AppSetting.SettingCategory.RATE_LIMIT)) {
+            return;
+        }
+        limitsLock.lock();
+        try {
+            applyLimits();
+        } finally {
+            limitsLock.unlock();
+        }
+    }
+
+    private void applyLimits() {
+        Limits previous = limits;
+        Limits current = Limits.from(dynamicConfigService.snapshot());
+        limits = current;
+        if (previous == null) {
+            return;
+        }
+        evictIfChanged("rate-limit:login:", previous.login(), current.login());
+        // OAuth shares the login limit
+        evictIfChanged("rate-limit:oauth:", previous.login(), current.login());
+        evictIfChanged("rate-limit:registration:", previous.registration(), current.registration());
+        evictIfChanged("rate-limit:password-change:", previous.passwordChange(), current.passwordChange());
+        evictIfChanged("rate-limit:general:", previous.general(), current.general());
+    }
+
+    private Limits limits() {
+        Limits current = limits;
+        if (current != null) {
+            return current;
+        }
+        limitsLock.lock();
+        try {
+            if (limits == null) {
+                limits = Limits.from(dynamicConfigService.snapshot());
+            }
+            return limits;
+        } finally {
+            limitsLock.unlock();
+        }
+    }
+
+    private void evictIfChanged(String prefix, RateLimitProperties.RateLimitConfig previous,
+                                RateLimitProperties.RateLimitConfig current) {
+        if (previous.getRequests().equals(current.getRequests()) && previous.getDuration().equals(current.getDuration())) {
+            return;
+        }
+        bucketCache.keySet().removeIf(key -> key.startsWith(prefix));
+        log.info("Rate limit {}* changed to {} requests per {}h", prefix, current.getRequests(), current.getDuration());
+    }
+
+    private record Limits(RateLimitProperties.RateLimitConfig login,
+                          RateLimitProperties.RateLimitConfig registration,
+                          RateLimitProperties.RateLimitConfig passwordChange,
+                          RateLimitProperties.RateLimitConfig general) {
+
+        static Limits from(DynamicConfigSnapshot snapshot) {
+            return new Limits(
+                    config(snapshot.loginRateLimitRequests(), snapshot.loginRateLimitDuration()),
+                    config(snapshot.registrationRateLimitRequests(), snapshot.registrationRateLimitDuration()),
+                    config(snapshot.passwordChangeRateLimitRequests(), snapshot.passwordChangeRateLimitDuration()),
+                    config(snapshot.generalRateLimitRequests(), snapshot.generalRateLimitDuration()));
+        }
+
+        private static RateLimitProperties.RateLimitConfig config(Integer requests, Integer duration) {
+            RateLimitProperties.RateLimitConfig config = new RateLimitProperties.RateLimitConfig();
+            config.setRequests(requests);
+            config.setDuration(duration);
+            return config;
+        }
+    }
+
     /**
      * Gets or creates a bucket for the given key (per user/IP) in memory.
      *
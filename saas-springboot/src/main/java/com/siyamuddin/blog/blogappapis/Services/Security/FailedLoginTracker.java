@@ -0,0 +1,27 @@
+package com.siyamuddin.blog.blogappapis.Services.Security;
+
+/**
+ * Counts failed logins per key (account or IP) in a sliding window, outside the database.
+ * The window is approximated with two fixed buckets: the current bucket plus the previous
+ * bucket weighted by how much of it still overlaps the window.
+ */
+public interface FailedLoginTracker {
+
+    /**
+     * Record one failure for the key.
+     *
+     * @param key tracker key, e.g. {@code account:alice@example.com} or {@code ip:10.0.0.1}
+     * @return estimated failures for the key within the sliding window, including this one
+     */
+    long recordFailure(String key);
+
+    /**
+     * @return estimated failures for the key within the sliding window
+     */
+    long currentCount(String key);
+
+    /**
+     * Forget all failures for the key (e.g. after a successful login or an unlock).
+     */
+    void reset(String key);
+}
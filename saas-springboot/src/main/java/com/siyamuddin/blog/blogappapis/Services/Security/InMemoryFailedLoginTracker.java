@@ -0,0 +1,112 @@
+package com.siyamuddin.blog.blogappapis.Services.Security;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-instance sliding-window failure counter.
+ * Suitable for single-node deployments and as the fallback when Redis is unavailable.
+ * At most {@code maxTrackedKeys} keys are tracked: once that many have failures in the current or
+ * previous window, failures for further keys are not counted until windows expire, so a flood of
+ * distinct keys can neither exhaust memory nor push out the keys already being counted.
+ */
+@Slf4j
+public class InMemoryFailedLoginTracker implements FailedLoginTracker {
+
+    private static final int MAX_TRACKED_KEYS = 100_000;
+
+    private final long windowMillis;
+    private final int maxTrackedKeys;
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    public InMemoryFailedLoginTracker(Duration window) {
+        this(window, MAX_TRACKED_KEYS);
+    }
+
+    InMemoryFailedLoginTracker(Duration window, int maxTrackedKeys) {
+        this.windowMillis = window.toMillis();
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    @Override
+    public long recordFailure(String key) {
+        long now = System.currentTimeMillis();
+        long bucket = now / windowMillis;
+        if (windows.size() >= maxTrackedKeys) {
+            evictExpired(bucket);
+        }
+        Window window = windows.compute(key, (k, existing) -> {
+            if (existing == null && windows.size() >= maxTrackedKeys) {
+                return null;
+            }
+            Window w = existing != null ? existing : new Window(bucket);
+            w.increment(bucket);
+            return w;
+        });
+        if (window == null) {
+            log.debug("Tracking {} failed-login keys already; not counting failures for a new one", maxTrackedKeys);
+            return 1;
+        }
+        return estimate(window, now);
+    }
+
+    @Override
+    public long currentCount(String key) {
+        Window window = windows.get(key);
+        if (window == null) {
+            return 0;
+        }
+        return estimate(window, System.currentTimeMillis());
+    }
+
+    @Override
+    public void reset(String key) {
+        windows.remove(key);
+    }
+
+    private long estimate(Window window, long now) {
+        long bucket = now / windowMillis;
+        long current;
+        long previous;
+        synchronized (window) {
+            if (window.bucket == bucket) {
+                current = window.current;
+                previous = window.previous;
+            } else if (window.bucket == bucket - 1) {
+                current = 0;
+                previous = window.current;
+            } else {
+                return 0;
+            }
+        }
+        return SlidingWindow.estimate(current, previous, now, windowMillis);
+    }
+
+    private void evictExpired(long bucket) {
+        int before = windows.size();
+        windows.entrySet().removeIf(entry -> entry.getValue().bucket < bucket - 1);
+        log.debug("Evicted {} expired failed-login windows", before - windows.size());
+    }
+
+    private static final class Window {
+        private long bucket;
+        private long current;
+        private long previous;
+
+        private Window(long bucket) {
+            this.bucket = bucket;
+        }
+
+        private synchronized void increment(long now) {
+            if (now != bucket) {
+                previous = now == bucket + 1 ? current : 0;
+                current = 0;
+                bucket = now;
+            }
+            current++;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.siyamuddin.blog.blogappapis.Services.Security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cluster-wide sliding-window failure counter backed by Redis.
+ * Each failure is one script call: INCR on the current bucket (with a TTL of two windows on first
+ * increment) and a GET of the previous bucket, executed atomically on the server.
+ * Falls back to an in-memory tracker when Redis is unreachable so logins never fail on it.
+ */
+@Slf4j
+public class RedisFailedLoginTracker implements FailedLoginTracker {
+
+    private static final String KEY_PREFIX = "login-fail:";
+
+    private static final RedisScript<List> RECORD_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('INCR', KEYS[1]) " +
+            "if current == 1 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end " +
+            "local previous = redis.call('GET', KEYS[2]) " +
+            "return {current, tonumber(previous) or 0}",
+            List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final long windowMillis;
+    private final FailedLoginTracker fallback;
+
+    public RedisFailedLoginTracker(StringRedisTemplate redisTemplate, Duration window) {
+        this.redisTemplate = redisTemplate;
+        this.windowMillis = window.toMillis();
+        this.fallback = new InMemoryFailedLoginTracker(window);
+    }
+
+    @Override
+    public long recordFailure(String key) {
+        long now = System.currentTimeMillis();
+        long bucket = now / windowMillis;
+        try {
+            List<?> result = redisTemplate.execute(
+                    RECORD_SCRIPT,
+                    Arrays.asList(bucketKey(key, bucket), bucketKey(key, bucket - 1)),
+                    String.valueOf(windowMillis * 2));
+            if (result == null || result.size() < 2) {
+                return fallback.recordFailure(key);
+            }
+            long current = ((Number) result.get(0)).longValue();
+            long previous = ((Number) result.get(1)).longValue();
+            return SlidingWindow.estimate(current, previous, now, windowMillis);
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable for failed-login tracking, using local counter: {}", e.getMessage());
+            return fallback.recordFailure(key);
+        }
+    }
+
+    @Override
+    public long currentCount(String key) {
+        long now = System.currentTimeMillis();
+        long bucket = now / windowMillis;
+        try {
+            List<String> values = redisTemplate.opsForValue()
+                    .multiGet(Arrays.asList(bucketKey(key, bucket), bucketKey(key, bucket - 1)));
+            if (values == null) {
+                return fallback.currentCount(key);
+            }
+            return SlidingWindow.estimate(parse(values.get(0)), parse(values.get(1)), now, windowMillis);
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable for failed-login tracking, using local counter: {}", e.getMessage());
+            return fallback.currentCount(key);
+        }
+    }
+
+    @Override
+    public void reset(String key) {
+        long bucket = System.currentTimeMillis() / windowMillis;
+        fallback.reset(key);
+        try {
+            redisTemplate.delete(Arrays.asList(bucketKey(key, bucket), bucketKey(key, bucket - 1)));
+        } catch (DataAccessException e) {
+            log.warn("Failed to reset failed-login window in Redis: {}", e.getMessage());
+        }
+    }
+
+    private String bucketKey(String key, long bucket) {
+        return KEY_PREFIX + key + ":" + bucket;
+    }
+
+    private long parse(String value) {
+        return value == null ? 0 : Long.parseLong(value);
+    }
+}
@@ -0,0 +1,19 @@
+package com.siyamuddin.blog.blogappapis.Services.Security;
+
+/**
+ * Sliding-window-counter math shared by the tracker implementations.
+ */
+final class SlidingWindow {
+
+    private SlidingWindow() {
+    }
+
+    /**
+     * Weight the previous bucket by the part of it that still overlaps the window ending now.
+     */
+    static long estimate(long current, long previous, long nowMillis, long windowMillis) {
+        double elapsedFraction = (double) (nowMillis % windowMillis) / windowMillis;
+        // Round up: over-counting by at most one is safer than letting a failure slip out of the window
+        return current + (long) Math.ceil(previous * (1.0 - elapsedFraction));
+    }
+}
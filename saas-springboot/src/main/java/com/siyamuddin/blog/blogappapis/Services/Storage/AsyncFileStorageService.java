@@ -0,0 +1,26 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link FileStorageService} whose backend calls don't hold the calling thread while the
+ * backend responds.
+ */
+public interface AsyncFileStorageService extends FileStorageService {
+
+    /**
+     * Store a file. The request's content is read before this method returns, so the caller may
+     * close it afterwards; the future completes once the backend has acknowledged the whole file.
+     *
+     * @param request upload metadata
+     * @return descriptor of the stored file, or a future failed with a
+     * {@link com.siyamuddin.blog.blogappapis.Exceptions.FileStorageException} or
+     * {@link com.siyamuddin.blog.blogappapis.Exceptions.InvalidFileException}
+     */
+    CompletableFuture<StoredFile> storeAsync(FileUploadRequest request);
+
+    /**
+     * Delete the file represented by the given key. Deletion should be idempotent.
+     */
+    CompletableFuture<Void> deleteAsync(String key);
+}
@@ -0,0 +1,467 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import com.siyamuddin.blog.blogappapis.Config.AsyncExecutorConfig;
+import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
+import com.siyamuddin.blog.blogappapis.Exceptions.FileStorageException;
+import com.siyamuddin.blog.blogappapis.Exceptions.ServiceOverloadedException;
+import com.siyamuddin.blog.blogappapis.Utils.RequestContextExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Stores uploads under the SHA-256 of their content on top of {@link FileStorageService}, so an
+ * identical file is kept once however often it is uploaded, and keeps a reference count per
+ * object in {@code stored_object}.
+ * <p>
+ * A streamed upload is hashed while it is written to a temporary key and then moved to a key
+ * named after its digest, or dropped if that content is already stored. A multipart file is
+ * already on local disk, so it is hashed first and a duplicate is never uploaded at all. A store
+ * takes its reference in its own short transaction, after the file is in place; a caller that
+ * then fails calls {@link #abandon}. {@link #storeAsync} does the same without holding the
+ * calling thread while the backend stores the file.
+ * <p>
+ * Releasing the last reference leaves the row at zero and tombstones the file, in the caller's
+ * transaction. {@link StorageGarbageCollector} deletes it later through {@link #deleteReleased},
+ * which locks the row: an upload of the same content in the meantime either takes the row back
+ * first (and the file is kept) or finds the row gone and stores the file afresh.
+ * <p>
+ * Keys that were not stored through this class (earlier uploads, presigned direct uploads) have
+ * no row; releasing one tombstones it directly.
+ */
+@Slf4j
+@Component
+public class ContentAddressedStorage {
+
+    private static final String INCOMING_PREFIX = ".incoming-";
+
+    private static final int CLAIM_ATTEMPTS = 3;
+
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final FileStorageService fileStorageService;
+    private final JdbcTemplate jdbcTemplate;
+    private final StorageCleaner storageCleaner;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+    private final FileStorageProperties properties;
+    private final Executor uploadExecutor;
+
+    public ContentAddressedStorage(FileStorageService fileStorageService,
+                                   JdbcTemplate jdbcTemplate,
+                                   StorageCleaner storageCleaner,
+                                   PlatformTransactionManager transactionManager,
+                                   FileStorageProperties properties,
+                                   @Qualifier(AsyncExecutorConfig.UPLOAD) Executor uploadExecutor) {
+        this.fileStorageService = fileStorageService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.storageCleaner = storageCleaner;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+        this.uploadExecutor = uploadExecutor;
+    }
+
+    /**
+     * Store the upload under its digest, or add a reference to the copy already stored. The
+     * request's sub-directory and preferred file name are ignored: the key depends on the content only.
+     */
+    public StoredFile store(FileUploadRequest request) {
+        try {
+            return store(request, Runnable::run).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * {@link #store} without waiting for the backend's acknowledgement when it is an
+     * {@link AsyncFileStorageService}. The upload is read (and hashed) before this returns; the
+     * claim then runs on the upload executor with the calling request's context, and so do stages
+     * the caller adds before the future completes. A duplicate of content already stored is
+     * returned completed.
+     *
+     * @return the stored file, or a future failed with a {@link FileStorageException}, an
+     *         {@link com.siyamuddin.blog.blogappapis.Exceptions.InvalidFileException}, or a
+     *         {@link ServiceOverloadedException} when the upload executor is saturated (the
+     *         uploaded file is then left for the reconciliation scan)
+     */
+    public CompletableFuture<StoredFile> storeAsync(FileUploadRequest request) {
+        return store(request, RequestContextExecutor.capture(uploadExecutor));
+    }
+
+    private CompletableFuture<StoredFile> store(FileUploadRequest request, Executor executor) {
+        try {
+            if (!properties.getContentAddressing().isEnabled()) {
+                return continueOn(backendStore(request), executor, Function.identity());
+            }
+            if (request != null && request.getContent() != null) {
+                return storeContent(request.getContent(), executor);
+            }
+            if (request == null || request.getFile() == null) {
+                throw new FileStorageException("Upload request must include a file");
+            }
+            return storeFile(request.getFile(), executor);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private CompletableFuture<StoredFile> storeContent(StreamingUpload content, Executor executor) {
+        MessageDigest digest = sha256();
+        content.digestWith(digest);
+        CompletableFuture<StoredFile> incoming = backendStore(FileUploadRequest.builder()
+                .content(content)
+                .subDirectory(properties.getContentAddressing().getDirectory())
+                .preferredFileName(INCOMING_PREFIX + UUID.randomUUID())
+                .build());
+        // The body has been read by now, so the digest is complete
+        String objectId = HexFormat.of().formatHex(digest.digest()) + ContentTypeSniffer.extension(content.getContentType());
+        return continueOn(incoming, executor,
+                stored -> claim(objectId, stored, content.getContentType(), content.getOriginalFileName()));
+    }
+
+    private CompletableFuture<StoredFile> storeFile(MultipartFile file, Executor executor) {
+        String objectId;
+        String sniffedType;
+        try (InputStream in = file.getInputStream()) {
+            MessageDigest digest = sha256();
+            byte[] header = new byte[ContentTypeSniffer.HEADER_BYTES];
+            int headerLength = 0;
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+                if (headerLength < header.length) {
+                    int copied = Math.min(n, header.length - headerLength);
+                    System.arraycopy(buffer, 0, header, headerLength, copied);
+                    headerLength += copied;
+                }
+            }
+            // Named like a streamed upload of the same bytes, whatever the client called the file
+            sniffedType = ContentTypeSniffer.sniff(header, headerLength);
+            objectId = HexFormat.of().formatHex(digest.digest()) + ContentTypeSniffer.extension(sniffedType);
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to read upload", e);
+        }
+        String contentType = sniffedType != null ? sniffedType : file.getContentType();
+
+        StoredFile existing = addReference(objectId, file.getOriginalFilename());
+        if (existing != null) {
+            return CompletableFuture.completedFuture(existing);
+        }
+        CompletableFuture<StoredFile> incoming = backendStore(FileUploadRequest.builder()
+                .file(file)
+                .subDirectory(properties.getContentAddressing().getDirectory())
+                .preferredFileName(INCOMING_PREFIX + UUID.randomUUID())
+                .build());
+        return continueOn(incoming, executor,
+                stored -> claim(objectId, stored, contentType, file.getOriginalFilename()));
+    }
+
+    private CompletableFuture<StoredFile> backendStore(FileUploadRequest request) {
+        if (fileStorageService instanceof AsyncFileStorageService async) {
+            return async.storeAsync(request);
+        }
+        return CompletableFuture.completedFuture(fileStorageService.store(request));
+    }
+
+    /**
+     * Finish on {@code executor} rather than on the thread that completed {@code stored} (an S3
+     * client thread, which must not block on the database).
+     */
+    private static CompletableFuture<StoredFile> continueOn(CompletableFuture<StoredFile> stored, Executor executor,
+                                                           Function<StoredFile, StoredFile> next) {
+        return stored.thenApplyAsync(next, executor)
+                .exceptionallyCompose(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof RejectedExecutionException) {
+                        return CompletableFuture.failedFuture(
+                                new ServiceOverloadedException("Upload executor is saturated", RETRY_AFTER_SECONDS));
+                    }
+                    return CompletableFuture.failedFuture(cause);
+                });
+    }
+
+    /**
+     * Cheap path for content already stored: one conditional UPDATE. A row that was released but
+     * not yet collected still has its file (the collector deletes file and row together, under
+     * the row lock), so it is taken back rather than stored again.
+     *
+     * @return the stored copy, or null if there is none
+     */
+    private StoredFile addReference(String objectId, String originalFileName) {
+        return newTransactionTemplate.execute(status -> {
+            int updated = jdbcTemplate.update(
+                    "UPDATE stored_object SET ref_count = ref_count + 1, updated_at = ? WHERE object_id = ? AND storage_key IS NOT NULL",
+                    now(), objectId);
+            if (updated == 0) {
+                return null;
+            }
+            Map<String, Object> row = jdbcTemplate.queryForMap(
+                    "SELECT storage_key, public_url, content_type, size_bytes FROM stored_object WHERE object_id = ?", objectId);
+            return describe(row, originalFileName);
+        });
+    }
+
+    /**
+     * Take a reference to {@code objectId} for an upload stored at a temporary key. The file is
+     * moved into place before any row is locked, so a slow move (a copy and a delete on S3) never
+     * makes concurrent uploads of the same content or the collector wait; if another upload placed
+     * the content first, this copy is released.
+     * <p>
+     * Each placement gets a key of its own (the digest plus a random suffix), so a file being
+     * placed can never be the one a stale tombstone or the collector is about to delete.
+     */
+    private StoredFile claim(String objectId, StoredFile incoming, String contentType, String originalFileName) {
+        StoredFile placed = null;
+        try {
+            StoredFile existing = addReference(objectId, originalFileName);
+            if (existing != null) {
+                storageCleaner.deleteLater(incoming.getKey());
+                log.debug("Stored content {} is a duplicate; added a reference", objectId);
+                return existing;
+            }
+            String digest = objectId.substring(0, 64);
+            placed = fileStorageService.move(incoming.getKey(),
+                    properties.getContentAddressing().getDirectory() + "/" + digest.substring(0, 2),
+                    digest + "-" + UUID.randomUUID().toString().substring(0, 8) + objectId.substring(64));
+            for (int attempt = 1; ; attempt++) {
+                StoredFile claimed = tryClaim(objectId, placed, contentType, originalFileName, incoming.getSize());
+                if (claimed != null) {
+                    return claimed;
+                }
+                if (attempt == CLAIM_ATTEMPTS) {
+                    throw new FileStorageException("Could not store content " + objectId + "; it kept being deleted");
+                }
+            }
+        } catch (RuntimeException e) {
+            storageCleaner.deleteLater(placed != null ? placed.getKey() : incoming.getKey());
+            throw e;
+        }
+    }
+
+    /**
+     * One short transaction: record {@code placed} as the stored copy if there is none, otherwise
+     * add a reference to the existing copy and release {@code placed}.
+     *
+     * @return the claimed file, or null if the row was deleted (by the collector) before it could be locked
+     */
+    private StoredFile tryClaim(String objectId, StoredFile placed, String contentType, String originalFileName, long size) {
+        try {
+            newTransactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                    "INSERT INTO stored_object (object_id, size_bytes, ref_count, created_at, updated_at) VALUES (?, 0, 0, ?, ?)",
+                    objectId, now(), now()));
+        } catch (DuplicateKeyException e) {
+            // Stored before, or being claimed concurrently; the row lock below sorts out which
+        }
+
+        return newTransactionTemplate.execute(status -> {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT ref_count, storage_key, public_url, content_type, size_bytes FROM stored_object " +
+                            "WHERE object_id = ? FOR UPDATE", objectId);
+            if (rows.isEmpty()) {
+                return null;
+            }
+            if (rows.get(0).get("storage_key") != null) {
+                jdbcTemplate.update("UPDATE stored_object SET ref_count = ref_count + 1, updated_at = ? WHERE object_id = ?",
+                        now(), objectId);
+                storageCleaner.deleteLater(placed.getKey());
+                log.debug("Content {} was placed concurrently; added a reference and released this copy", objectId);
+                return describe(rows.get(0), originalFileName);
+            }
+            jdbcTemplate.update("UPDATE stored_object SET ref_count = 1, storage_key = ?, public_url = ?, " +
+                            "content_type = ?, size_bytes = ?, updated_at = ? WHERE object_id = ?",
+                    placed.getKey(), placed.getPublicUrl(), contentType, size, now(), objectId);
+            return StoredFile.builder()
+                    .key(placed.getKey())
+                    .publicUrl(placed.getPublicUrl())
+                    .contentType(contentType)
+                    .originalFileName(originalFileName)
+                    .size(size)
+                    .build();
+        });
+    }
+
+    /**
+     * Drop one reference to a stored file, in the caller's transaction. With the last reference
+     * the file is tombstoned, along with {@code dependentKeys} (files derived from it, such as
+     * resized variants).
+     *
+     * @return whether the file is now unreferenced
+     */
+    public boolean release(String storageKey, Collection<String> dependentKeys) {
+        if (!StringUtils.hasText(storageKey)) {
+            return false;
+        }
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> releaseReference(storageKey, dependentKeys)));
+    }
+
+    /**
+     * Give back the reference taken by {@link #store} for a file the caller failed to record,
+     * in a transaction of its own so it survives the caller's rollback.
+     */
+    public void abandon(String storageKey) {
+        if (StringUtils.hasText(storageKey)) {
+            newTransactionTemplate.executeWithoutResult(status -> releaseReference(storageKey, List.of()));
+        }
+    }
+
+    private boolean releaseReference(String storageKey, Collection<String> dependentKeys) {
+        List<String> keys = new ArrayList<>(dependentKeys.size() + 1);
+        keys.add(storageKey);
+        keys.addAll(dependentKeys);
+        List<Map<String, Object>> rows = !properties.getContentAddressing().isEnabled() ? List.of() : jdbcTemplate.queryForList(
+                "SELECT object_id, ref_count FROM stored_object WHERE storage_key = ? FOR UPDATE", storageKey);
+        if (rows.isEmpty()) {
+            // Not content-addressed: the caller held the only reference
+            storageCleaner.deleteLater(keys, null);
+            return true;
+        }
+        int references = ((Number) rows.get(0).get("ref_count")).intValue();
+        if (references <= 0) {
+            return true;
+        }
+        jdbcTemplate.update("UPDATE stored_object SET ref_count = ref_count - 1, updated_at = ? WHERE object_id = ?",
+                now(), rows.get(0).get("object_id"));
+        if (references > 1) {
+            return false;
+        }
+        storageCleaner.deleteLater(keys, storageKey);
+        return true;
+    }
+
+    /**
+     * Delete tombstoned files for the collector. A file released with an owner (the
+     * content-addressed file it was released with) is kept if the owner has been referenced
+     * again. The owners' rows stay locked while the files are deleted, and the rows of owners
+     * deleted here are removed.
+     *
+     * @param ownerByKey tombstoned key to its owner key, or to null for none
+     */
+    public Deletion deleteReleased(Map<String, String> ownerByKey) {
+        return transactionTemplate.execute(status -> {
+            List<String> owners = ownerByKey.values().stream().filter(Objects::nonNull).distinct().sorted().toList();
+            Set<String> referenced = new HashSet<>();
+            if (!owners.isEmpty()) {
+                // In key order, so two collectors can't deadlock
+                jdbcTemplate.query("SELECT storage_key, ref_count FROM stored_object WHERE storage_key IN (" +
+                                placeholders(owners.size()) + ") ORDER BY storage_key FOR UPDATE",
+                        rs -> {
+                            if (rs.getInt("ref_count") > 0) {
+                                referenced.add(rs.getString("storage_key"));
+                            }
+                        }, owners.toArray());
+            }
+
+            Set<String> kept = new HashSet<>();
+            List<String> doomed = new ArrayList<>();
+            ownerByKey.forEach((key, owner) -> {
+                if (owner != null && referenced.contains(owner)) {
+                    kept.add(key);
+                } else {
+                    doomed.add(key);
+                }
+            });
+            Map<String, String> failed = doomed.isEmpty() ? Map.of() : fileStorageService.deleteAll(doomed);
+
+            List<String> deletedOwners = doomed.stream()
+                    .filter(key -> key.equals(ownerByKey.get(key)) && !failed.containsKey(key))
+                    .toList();
+            if (!deletedOwners.isEmpty()) {
+                jdbcTemplate.update("DELETE FROM stored_object WHERE ref_count = 0 AND storage_key IN (" +
+                        placeholders(deletedOwners.size()) + ")", deletedOwners.toArray());
+            }
+            return new Deletion(kept, failed);
+        });
+    }
+
+    /**
+     * Outcome of {@link #deleteReleased}: every key not listed was deleted.
+     *
+     * @param kept   keys whose owner is referenced again
+     * @param failed keys that could not be deleted, with the reason
+     */
+    public record Deletion(Set<String> kept, Map<String, String> failed) {
+    }
+
+    /**
+     * @return the sub-directory {@link #store} put a file in, for storing derived files next to
+     *         it; {@code requested} when content addressing is off
+     */
+    public String subDirectoryOf(String storageKey, String requested) {
+        if (!properties.getContentAddressing().isEnabled()) {
+            return requested;
+        }
+        String name = storageKey.substring(storageKey.lastIndexOf('/') + 1);
+        return properties.getContentAddressing().getDirectory() + "/" + name.substring(0, 2);
+    }
+
+    /**
+     * @return references held to a stored file; 0 for a file stored without content addressing
+     */
+    public int referenceCount(String storageKey) {
+        List<Integer> counts = jdbcTemplate.queryForList(
+                "SELECT ref_count FROM stored_object WHERE storage_key = ?", Integer.class, storageKey);
+        return counts.isEmpty() ? 0 : counts.get(0);
+    }
+
+    private static StoredFile describe(Map<String, Object> row, String originalFileName) {
+        return StoredFile.builder()
+                .key((String) row.get("storage_key"))
+                .publicUrl((String) row.get("public_url"))
+                .contentType((String) row.get("content_type"))
+                .originalFileName(originalFileName)
+                .size(((Number) row.get("size_bytes")).longValue())
+                .build();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now());
+    }
+}
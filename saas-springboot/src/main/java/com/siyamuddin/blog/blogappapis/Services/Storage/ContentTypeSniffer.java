@@ -0,0 +1,87 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Identifies the upload formats the application accepts from their leading magic bytes,
+ * so the stored content type does not depend on what the client claimed.
+ */
+public final class ContentTypeSniffer {
+
+    /** Bytes needed to recognise every supported format. */
+    public static final int HEADER_BYTES = 12;
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF87 = ascii("GIF87a");
+    private static final byte[] GIF89 = ascii("GIF89a");
+    private static final byte[] RIFF = ascii("RIFF");
+    private static final byte[] WEBP = ascii("WEBP");
+    private static final byte[] FTYP = ascii("ftyp");
+    private static final byte[] AVIF = ascii("avif");
+    private static final byte[] AVIS = ascii("avis");
+    private static final byte[] PDF = ascii("%PDF-");
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", ".jpg",
+            "image/png", ".png",
+            "image/gif", ".gif",
+            "image/webp", ".webp",
+            "image/avif", ".avif",
+            "application/pdf", ".pdf");
+
+    private ContentTypeSniffer() {
+    }
+
+    /**
+     * @param header the first bytes of the content
+     * @param length how many of them are valid
+     * @return the detected MIME type, or null if the content is not a supported format
+     */
+    public static String sniff(byte[] header, int length) {
+        if (startsWith(header, length, 0, JPEG)) {
+            return "image/jpeg";
+        }
+        if (startsWith(header, length, 0, PNG)) {
+            return "image/png";
+        }
+        if (startsWith(header, length, 0, GIF87) || startsWith(header, length, 0, GIF89)) {
+            return "image/gif";
+        }
+        if (startsWith(header, length, 0, RIFF) && startsWith(header, length, 8, WEBP)) {
+            return "image/webp";
+        }
+        if (startsWith(header, length, 4, FTYP)
+                && (startsWith(header, length, 8, AVIF) || startsWith(header, length, 8, AVIS))) {
+            return "image/avif";
+        }
+        if (startsWith(header, length, 0, PDF)) {
+            return "application/pdf";
+        }
+        return null;
+    }
+
+    /**
+     * File extension (with dot) for a type returned by {@link #sniff}, or empty if unknown.
+     */
+    public static String extension(String contentType) {
+        return contentType == null ? "" : EXTENSIONS.getOrDefault(contentType, "");
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, byte[] magic) {
+        if (length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[offset + i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
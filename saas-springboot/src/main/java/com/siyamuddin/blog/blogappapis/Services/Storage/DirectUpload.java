@@ -0,0 +1,26 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A presigned request that lets a client upload one object straight to the storage backend.
+ */
+@Getter
+@Builder
+public class DirectUpload {
+    /**
+     * Storage key the object will be written to; passed back when the upload is confirmed.
+     */
+    private String key;
+    private String url;
+    private String method;
+    /**
+     * Headers the client must send exactly as given; they are part of the signature.
+     */
+    private Map<String, String> headers;
+    private Instant expiresAt;
+}
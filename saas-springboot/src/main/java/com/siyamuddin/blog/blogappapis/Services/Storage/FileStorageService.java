@@ -1,5 +1,12 @@
 package com.siyamuddin.blog.blogappapis.Services.Storage;
 
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
 public interface FileStorageService {
 
     /**
@@ -17,5 +24,73 @@ public interface FileStorageService {
      * @param key relative path (local) or object key (S3)
      */
     void delete(String key);
-}
 
+    /**
+     * Delete several files, as few requests as the backend allows. A missing file counts as deleted.
+     *
+     * @return the keys that could not be deleted, with the reason
+     */
+    default Map<String, String> deleteAll(Collection<String> keys) {
+        Map<String, String> failures = new LinkedHashMap<>();
+        for (String key : keys) {
+            try {
+                delete(key);
+            } catch (RuntimeException e) {
+                failures.put(key, String.valueOf(e.getMessage()));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Visit every file below {@code subDirectory} (resolved as for {@link #store}), with its key,
+     * size and last-modified time.
+     */
+    void list(String subDirectory, Consumer<StoredFile> visitor);
+
+    /**
+     * Whether clients can upload straight to the backend with {@link #presignUpload}. Only such
+     * backends need {@link #presignUpload}, {@link #stat} and {@link #readPrefix}, which confirm
+     * those uploads.
+     */
+    default boolean supportsDirectUpload() {
+        return false;
+    }
+
+    /**
+     * Sign a one-off upload of exactly {@code contentLength} bytes of {@code contentType}.
+     * Only the subdirectory and preferred file name of the request are used.
+     */
+    default DirectUpload presignUpload(FileUploadRequest request, String contentType, long contentLength) {
+        throw new UnsupportedOperationException("Direct uploads are not supported by this storage backend");
+    }
+
+    /**
+     * Look up a stored object without reading it.
+     *
+     * @return the object's size and content type, or empty if there is no such object
+     */
+    default Optional<StoredFile> stat(String key) {
+        throw new UnsupportedOperationException("Object lookup is not supported by this storage backend");
+    }
+
+    /**
+     * Rename a stored object to {@code fileName} in {@code subDirectory} (resolved as for
+     * {@link #store}), replacing any object already there.
+     *
+     * @return the object's new key and URL
+     */
+    StoredFile move(String key, String subDirectory, String fileName);
+
+    /**
+     * Open a stored object for reading. The caller closes the stream.
+     */
+    InputStream openStream(String key);
+
+    /**
+     * Read up to {@code length} leading bytes of a stored object, e.g. to check its real format.
+     */
+    default byte[] readPrefix(String key, int length) {
+        throw new UnsupportedOperationException("Partial reads are not supported by this storage backend");
+    }
+}
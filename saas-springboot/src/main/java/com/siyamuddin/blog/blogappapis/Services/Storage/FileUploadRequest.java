@@ -7,7 +7,14 @@ import org.springframework.web.multipart.MultipartFile;
 @Getter
 @Builder
 public class FileUploadRequest {
+    /**
+     * A parsed multipart file. Exactly one of {@code file} and {@code content} is set.
+     */
     private MultipartFile file;
+    /**
+     * The request body itself, streamed to storage without being buffered first.
+     */
+    private StreamingUpload content;
     /**
      * Optional sub-directory relative to the configured base path/root folder.
      */
@@ -0,0 +1,273 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Serves files stored by {@link LocalFileStorageService} under the public URI prefix.
+ * <ul>
+ *   <li>Names carrying a UUID or SHA-256 digest are never reused for other content, so they are
+ *   sent with a long-lived {@code immutable} Cache-Control and repeat loads stay in the browser
+ *   or CDN. Other files get {@code no-cache} and are revalidated.</li>
+ *   <li>The ETag is the SHA-256 of the content (strong), computed once per file version and
+ *   remembered; {@code If-None-Match}/{@code If-Modified-Since} are answered with 304.</li>
+ *   <li>A single byte range is answered with 206 (honouring {@code If-Range}); several ranges
+ *   get the whole file, which HTTP allows.</li>
+ *   <li>Bodies above the sendfile threshold are handed to Tomcat's sendfile, so the kernel copies
+ *   the file to the socket; otherwise the file channel is transferred to the response.</li>
+ * </ul>
+ */
+@Slf4j
+public class LocalFileRequestHandler implements HttpRequestHandler {
+
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final Pattern IMMUTABLE_NAME = Pattern.compile(
+            ".*(\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}|\\p{XDigit}{64}).*");
+    private static final int HASH_BUFFER = 64 * 1024;
+
+    private final Path basePath;
+    private final FileStorageProperties.Serving serving;
+    private final Map<Path, Digest> etags;
+
+    public LocalFileRequestHandler(FileStorageProperties properties) {
+        this.basePath = Path.of(properties.getLocal().getBasePath()).toAbsolutePath().normalize();
+        this.serving = properties.getLocal().getServing();
+        int capacity = serving.getEtagCacheSize();
+        this.etags = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Digest> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean head = "HEAD".equals(request.getMethod());
+        if (!head && !"GET".equals(request.getMethod())) {
+            response.setHeader(HttpHeaders.ALLOW, "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        String relativePath = relativePath(request);
+        Path file = resolve(relativePath);
+        BasicFileAttributes attributes = file == null ? null : readAttributes(file);
+        if (attributes == null || !attributes.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag;
+        try {
+            etag = etag(file, attributes);
+        } catch (NoSuchFileException e) {
+            // Deleted since the attributes were read
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl(relativePath).getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            // 304 (or 412 for a failed If-Match), with ETag and Last-Modified already set
+            return;
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = requestedRange(request, etag, lastModified);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (head || count == 0) {
+            return;
+        }
+
+        if (count >= serving.getSendfileThreshold().toBytes() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // The container writes the body after the handler returns; nothing goes through the JVM heap
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    /**
+     * @return the single range to serve, or null for the whole file (no Range header, a stale
+     *         If-Range, several ranges, or a malformed header, which HTTP says to ignore)
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE), etag, lastModified)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range needs a strong comparison
+            return ifRange.equals(etag);
+        }
+        try {
+            // HTTP dates have second precision
+            long date = parseHttpDate(ifRange);
+            return date >= 0 && date == lastModified / 1000 * 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static long parseHttpDate(String value) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.DATE, value);
+        return headers.getFirstDate(HttpHeaders.DATE);
+    }
+
+    private CacheControl cacheControl(String relativePath) {
+        String fileName = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+        CacheControl cacheControl = IMMUTABLE_NAME.matcher(fileName).matches()
+                ? CacheControl.maxAge(serving.getImmutableMaxAge().toSeconds(), TimeUnit.SECONDS).immutable()
+                : CacheControl.noCache();
+        // Files outside public/ are only served to authenticated users; shared caches must not keep them
+        return relativePath.startsWith("public/") ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+    }
+
+    private static String relativePath(HttpServletRequest request) {
+        Object path = request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        return path == null ? "" : UriUtils.decode(path.toString(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the file for a path below the base directory, or null for anything that could
+     *         escape it or name a hidden file (including in-progress {@code .upload-*.part} files)
+     */
+    private Path resolve(String relativePath) {
+        if (relativePath.isEmpty() || relativePath.indexOf('\0') >= 0 || relativePath.indexOf('\\') >= 0) {
+            return null;
+        }
+        for (String segment : relativePath.split("/")) {
+            if (segment.isEmpty() || segment.startsWith(".")) {
+                return null;
+            }
+        }
+        Path file = basePath.resolve(relativePath).normalize();
+        return file.startsWith(basePath) ? file : null;
+    }
+
+    private static BasicFileAttributes readAttributes(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Quoted SHA-256 of the file. Cached against size and modification time, which change
+     * whenever the file is replaced (stores always write a new file and rename it into place).
+     */
+    private String etag(Path file, BasicFileAttributes attributes) throws IOException {
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        Digest cached = etags.get(file);
+        if (cached != null && cached.size() == size && cached.modified() == modified) {
+            return cached.etag();
+        }
+        String etag = "\"" + sha256(file) + "\"";
+        etags.put(file, new Digest(size, modified, etag));
+        return etag;
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private record Digest(long size, long modified, String etag) {
+    }
+}
@@ -8,15 +8,32 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.CopyOption;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+/**
+ * Stores files under {@code filestorage.local.base-path}.
+ * Content is written to a temporary file in the destination directory with
+ * {@link FileChannel#transferFrom} and renamed into place, so readers never see a partial file
+ * and a failed or rejected upload leaves nothing behind.
+ */
 @Slf4j
 public class LocalFileStorageService implements FileStorageService {
 
+    /** Upper bound per transferFrom call; the JDK copies through its own small buffer. */
+    private static final long TRANSFER_CHUNK = 1L << 20;
+
     private final FileStorageProperties properties;
 
     public LocalFileStorageService(FileStorageProperties properties) {
@@ -25,22 +42,19 @@ public class LocalFileStorageService implements FileStorageService {
 
     @Override
     public StoredFile store(FileUploadRequest request) {
+        if (request != null && request.getContent() != null) {
+            return storeContent(request, request.getContent());
+        }
         MultipartFile file = requireFile(request);
         Path basePath = Path.of(properties.getLocal().getBasePath()).toAbsolutePath();
         Path targetDirectory = resolveTargetDirectory(basePath, request.getSubDirectory());
         createDirectories(targetDirectory);
 
-        String fileName = resolveFileName(file, request.getPreferredFileName());
+        String fileName = resolveFileName(file.getOriginalFilename(), request.getPreferredFileName(), null);
         Path destination = targetDirectory.resolve(fileName).normalize();
 
-        try (InputStream inputStream = file.getInputStream()) {
-            Files.copy(
-                    inputStream,
-                    destination,
-                    request.isOverwrite() ? new CopyOption[]{StandardCopyOption.REPLACE_EXISTING} : new CopyOption[]{});
-            if (log.isDebugEnabled()) {
-                log.debug("Stored file locally at {}", destination);
-            }
+        try (ReadableByteChannel source = Channels.newChannel(file.getInputStream())) {
+            writeAtomically(source, targetDirectory, destination, request.isOverwrite());
         } catch (IOException e) {
             throw new FileStorageException("Failed to store file locally", e);
         }
@@ -55,6 +69,102 @@ public class LocalFileStorageService implements FileStorageService {
                 .build();
     }
 
+    private StoredFile storeContent(FileUploadRequest request, StreamingUpload content) {
+        Path basePath = Path.of(properties.getLocal().getBasePath()).toAbsolutePath();
+        Path targetDirectory = resolveTargetDirectory(basePath, request.getSubDirectory());
+        createDirectories(targetDirectory);
+
+        String fileName = resolveFileName(content.getOriginalFileName(), request.getPreferredFileName(),
+                ContentTypeSniffer.extension(content.getContentType()));
+        Path destination = targetDirectory.resolve(fileName).normalize();
+
+        long size;
+        try {
+            size = writeAtomically(content, targetDirectory, destination, request.isOverwrite());
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to store file locally", e);
+        }
+
+        String key = basePath.relativize(destination).toString().replace("\\", "/");
+        return StoredFile.builder()
+                .key(key)
+                .publicUrl(buildPublicUrl(key))
+                .contentType(content.getContentType())
+                .originalFileName(content.getOriginalFileName())
+                .size(size)
+                .build();
+    }
+
+    /**
+     * Copy the source into a temp file next to the destination, flush it to disk, and rename it over
+     * the destination. The temp file is removed if anything fails, including a size-limit rejection.
+     *
+     * @return bytes written
+     */
+    private long writeAtomically(ReadableByteChannel source, Path directory, Path destination, boolean overwrite)
+            throws IOException {
+        if (!overwrite && Files.exists(destination)) {
+            throw new FileAlreadyExistsException(destination.toString());
+        }
+        Path temp = Files.createTempFile(directory, ".upload-", ".part");
+        try {
+            long position = 0;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long transferred;
+                while ((transferred = out.transferFrom(source, position, TRANSFER_CHUNK)) > 0) {
+                    position += transferred;
+                }
+                out.force(true);
+            }
+            Files.move(temp, destination, StandardCopyOption.ATOMIC_MOVE);
+            if (log.isDebugEnabled()) {
+                log.debug("Stored file locally at {} ({} bytes)", destination, position);
+            }
+            return position;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * An atomic rename within the base directory.
+     */
+    @Override
+    public StoredFile move(String key, String subDirectory, String fileName) {
+        Path basePath = Path.of(properties.getLocal().getBasePath()).toAbsolutePath();
+        Path source = basePath.resolve(key).normalize();
+        Path targetDirectory = resolveTargetDirectory(basePath, subDirectory);
+        Path destination = targetDirectory.resolve(fileName).normalize();
+        if (!source.startsWith(basePath) || !destination.startsWith(targetDirectory)) {
+            throw new FileStorageException("Invalid file key " + key);
+        }
+        createDirectories(targetDirectory);
+        try {
+            Files.move(source, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to move local file " + key, e);
+        }
+        String movedKey = basePath.relativize(destination).toString().replace("\\", "/");
+        return StoredFile.builder()
+                .key(movedKey)
+                .publicUrl(buildPublicUrl(movedKey))
+                .build();
+    }
+
+    @Override
+    public InputStream openStream(String key) {
+        Path basePath = Path.of(properties.getLocal().getBasePath()).toAbsolutePath();
+        Path filePath = basePath.resolve(key).normalize();
+        if (!filePath.startsWith(basePath)) {
+            throw new FileStorageException("Invalid file key " + key);
+        }
+        try {
+            return Files.newInputStream(filePath);
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to read local file " + key, e);
+        }
+    }
+
     @Override
     public void delete(String key) {
         if (!StringUtils.hasText(key)) {
@@ -72,6 +182,37 @@ public class LocalFileStorageService implements FileStorageService {
         }
     }
 
+    @Override
+    public void list(String subDirectory, Consumer<StoredFile> visitor) {
+        Path basePath = Path.of(properties.getLocal().getBasePath()).toAbsolutePath();
+        Path directory = resolveTargetDirectory(basePath, subDirectory);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.forEach(file -> {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    // Deleted while walking
+                    return;
+                }
+                if (attributes.isRegularFile()) {
+                    String key = basePath.relativize(file).toString().replace("\\", "/");
+                    visitor.accept(StoredFile.builder()
+                            .key(key)
+                            .publicUrl(buildPublicUrl(key))
+                            .size(attributes.size())
+                            .lastModified(attributes.lastModifiedTime().toInstant())
+                            .build());
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            throw new FileStorageException("Failed to list local files under " + directory, e);
+        }
+    }
+
     private MultipartFile requireFile(FileUploadRequest request) {
         if (request == null || request.getFile() == null) {
             throw new FileStorageException("Upload request must include a file");
@@ -98,13 +239,17 @@ public class LocalFileStorageService implements FileStorageService {
         }
     }
 
-    private String resolveFileName(MultipartFile file, String preferredFileName) {
+    /**
+     * @param knownExtension extension implied by sniffed content, preferred over the client's file name
+     */
+    private String resolveFileName(String originalName, String preferredFileName, String knownExtension) {
         if (StringUtils.hasText(preferredFileName)) {
             return preferredFileName;
         }
-        String originalName = file.getOriginalFilename();
         String extension = "";
-        if (StringUtils.hasText(originalName) && originalName.contains(".")) {
+        if (StringUtils.hasText(knownExtension)) {
+            extension = knownExtension;
+        } else if (StringUtils.hasText(originalName) && originalName.contains(".")) {
             extension = originalName.substring(originalName.lastIndexOf('.'));
         }
         return UUID.randomUUID() + extension;
@@ -124,4 +269,3 @@ public class LocalFileStorageService implements FileStorageService {
         return prefix + key;
     }
 }
-
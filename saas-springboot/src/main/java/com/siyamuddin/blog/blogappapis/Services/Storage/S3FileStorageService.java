@@ -7,54 +7,260 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.core.exception.SdkClientException;
-import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
+/**
+ * Uploads go through {@link S3AsyncClient} (see {@link S3MultipartUploader}), so large objects are
+ * sent as parallel parts within a shared buffer budget. {@link #storeAsync} returns once the
+ * content has been read, so no thread waits for S3's acknowledgement; {@link #store} waits for it.
+ * Lookups, ranged reads and presigning are small requests and use the blocking client.
+ */
 @Slf4j
-public class S3FileStorageService implements FileStorageService {
+public class S3FileStorageService implements AsyncFileStorageService, AutoCloseable {
+
+    private static final int MAX_KEYS_PER_DELETE = 1000;
 
     private final S3Client s3Client;
+    private final S3AsyncClient s3AsyncClient;
+    private final S3Presigner s3Presigner;
     private final FileStorageProperties properties;
+    private final S3MultipartUploader uploader;
 
-    public S3FileStorageService(S3Client s3Client, FileStorageProperties properties) {
+    public S3FileStorageService(S3Client s3Client, S3AsyncClient s3AsyncClient, S3Presigner s3Presigner,
+                                FileStorageProperties properties) {
         this.s3Client = s3Client;
+        this.s3AsyncClient = s3AsyncClient;
+        this.s3Presigner = s3Presigner;
         this.properties = properties;
+        this.uploader = new S3MultipartUploader(s3AsyncClient, properties.getS3().getBucketName(),
+                properties.getS3().getMultipart());
     }
 
     @Override
     public StoredFile store(FileUploadRequest request) {
-        MultipartFile file = requireFile(request);
-        String key = buildObjectKey(request, file);
-
-        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                .bucket(properties.getS3().getBucketName())
-                .key(key)
-                .contentType(file.getContentType())
-                .build();
+        try {
+            return storeAsync(request).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 
-        try (InputStream inputStream = file.getInputStream()) {
-            s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(inputStream, file.getSize()));
-        } catch (IOException | AwsServiceException | SdkClientException e) {
-            throw new FileStorageException("Failed to upload file to S3", e);
+    @Override
+    public CompletableFuture<StoredFile> storeAsync(FileUploadRequest request) {
+        try {
+            if (request != null && request.getContent() != null) {
+                return storeContent(request, request.getContent());
+            }
+            return storeFile(request, requireFile(request));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new FileStorageException("Failed to upload file to S3", e));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
         }
+    }
+
+    private CompletableFuture<StoredFile> storeFile(FileUploadRequest request, MultipartFile file) throws IOException {
+        String key = buildObjectKey(request, resolveFileName(file.getOriginalFilename(), request.getPreferredFileName(), null));
 
-        if (log.isDebugEnabled()) {
-            log.debug("Uploaded file to S3 bucket {} with key {}", properties.getS3().getBucketName(), key);
+        CompletableFuture<Void> upload;
+        try (InputStream inputStream = file.getInputStream()) {
+            upload = uploader.upload(key, file.getContentType(), Channels.newChannel(inputStream), file.getSize());
         }
 
-        return StoredFile.builder()
+        StoredFile storedFile = StoredFile.builder()
                 .key(key)
                 .publicUrl(buildPublicUrl(key))
                 .originalFileName(file.getOriginalFilename())
                 .contentType(file.getContentType())
                 .size(file.getSize())
                 .build();
+        return whenUploaded(upload, storedFile);
+    }
+
+    /**
+     * Stream the request body to S3 as it arrives. Without a Content-Length the body is sent as a
+     * multipart upload unless it turns out to fit in one part.
+     */
+    private CompletableFuture<StoredFile> storeContent(FileUploadRequest request, StreamingUpload content)
+            throws IOException {
+        String key = buildObjectKey(request, resolveFileName(content.getOriginalFileName(),
+                request.getPreferredFileName(), ContentTypeSniffer.extension(content.getContentType())));
+
+        CompletableFuture<Void> upload = uploader.upload(key, content.getContentType(), content, content.getDeclaredLength());
+
+        StoredFile storedFile = StoredFile.builder()
+                .key(key)
+                .publicUrl(buildPublicUrl(key))
+                .originalFileName(content.getOriginalFileName())
+                .contentType(content.getContentType())
+                .size(content.getBytesRead())
+                .build();
+        return whenUploaded(upload, storedFile);
+    }
+
+    private CompletableFuture<StoredFile> whenUploaded(CompletableFuture<Void> upload, StoredFile storedFile) {
+        return upload.handle((ignored, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                throw new FileStorageException("Failed to upload file to S3", cause);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Uploaded file to S3 bucket {} with key {}", properties.getS3().getBucketName(), storedFile.getKey());
+            }
+            return storedFile;
+        });
+    }
+
+    @Override
+    public boolean supportsDirectUpload() {
+        return true;
+    }
+
+    /**
+     * Content type and length are signed, so S3 refuses an upload that differs from what was asked for.
+     */
+    @Override
+    public DirectUpload presignUpload(FileUploadRequest request, String contentType, long contentLength) {
+        String key = buildObjectKey(request, resolveFileName(null, request.getPreferredFileName(),
+                ContentTypeSniffer.extension(contentType)));
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(properties.getS3().getBucketName())
+                .key(key)
+                .contentType(contentType)
+                .contentLength(contentLength)
+                .build();
+        PresignedPutObjectRequest presigned;
+        try {
+            presigned = s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+                    .signatureDuration(Duration.ofSeconds(properties.getS3().getPresignExpirySeconds()))
+                    .putObjectRequest(putObjectRequest)
+                    .build());
+        } catch (SdkClientException e) {
+            throw new FileStorageException("Failed to presign S3 upload", e);
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        presigned.signedHeaders().forEach((name, values) -> {
+            // The HTTP client sets Host from the URL
+            if (!"host".equalsIgnoreCase(name)) {
+                headers.put(name, String.join(",", values));
+            }
+        });
+        return DirectUpload.builder()
+                .key(key)
+                .url(presigned.url().toString())
+                .method(presigned.httpRequest().method().name())
+                .headers(headers)
+                .expiresAt(presigned.expiration())
+                .build();
+    }
+
+    @Override
+    public Optional<StoredFile> stat(String key) {
+        try {
+            HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(properties.getS3().getBucketName())
+                    .key(key)
+                    .build());
+            return Optional.of(StoredFile.builder()
+                    .key(key)
+                    .publicUrl(buildPublicUrl(key))
+                    .contentType(head.contentType())
+                    .size(head.contentLength())
+                    .build());
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (AwsServiceException e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new FileStorageException("Failed to look up S3 object " + key, e);
+        } catch (SdkClientException e) {
+            throw new FileStorageException("Failed to look up S3 object " + key, e);
+        }
+    }
+
+    /**
+     * A server-side copy followed by a delete of the source; the bytes never leave S3.
+     */
+    @Override
+    public StoredFile move(String key, String subDirectory, String fileName) {
+        String destination = buildObjectKey(FileUploadRequest.builder().subDirectory(subDirectory).build(), trimSlashes(fileName));
+        try {
+            s3Client.copyObject(CopyObjectRequest.builder()
+                    .sourceBucket(properties.getS3().getBucketName())
+                    .sourceKey(key)
+                    .destinationBucket(properties.getS3().getBucketName())
+                    .destinationKey(destination)
+                    .build());
+        } catch (AwsServiceException | SdkClientException e) {
+            throw new FileStorageException("Failed to move S3 object " + key, e);
+        }
+        delete(key);
+        return StoredFile.builder()
+                .key(destination)
+                .publicUrl(buildPublicUrl(destination))
+                .build();
+    }
+
+    @Override
+    public InputStream openStream(String key) {
+        try {
+            return s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(properties.getS3().getBucketName())
+                    .key(key)
+                    .build());
+        } catch (AwsServiceException | SdkClientException e) {
+            throw new FileStorageException("Failed to read S3 object " + key, e);
+        }
+    }
+
+    @Override
+    public byte[] readPrefix(String key, int length) {
+        try {
+            return s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                    .bucket(properties.getS3().getBucketName())
+                    .key(key)
+                    .range("bytes=0-" + (length - 1))
+                    .build()).asByteArray();
+        } catch (AwsServiceException | SdkClientException e) {
+            throw new FileStorageException("Failed to read S3 object " + key, e);
+        }
     }
 
     @Override
@@ -75,6 +281,90 @@ public class S3FileStorageService implements FileStorageService {
         }
     }
 
+    /**
+     * One DeleteObjects request per 1000 keys, in quiet mode so only failures are reported back.
+     */
+    @Override
+    public Map<String, String> deleteAll(Collection<String> keys) {
+        Map<String, String> failures = new LinkedHashMap<>();
+        List<String> batch = new ArrayList<>(MAX_KEYS_PER_DELETE);
+        for (String key : keys) {
+            if (StringUtils.hasText(key)) {
+                batch.add(key);
+            }
+            if (batch.size() == MAX_KEYS_PER_DELETE) {
+                deleteBatch(batch, failures);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            deleteBatch(batch, failures);
+        }
+        return failures;
+    }
+
+    private void deleteBatch(List<String> keys, Map<String, String> failures) {
+        List<ObjectIdentifier> objects = keys.stream()
+                .map(key -> ObjectIdentifier.builder().key(key).build())
+                .toList();
+        try {
+            DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(properties.getS3().getBucketName())
+                    .delete(Delete.builder().objects(objects).quiet(true).build())
+                    .build());
+            for (S3Error error : response.errors()) {
+                failures.put(error.key(), error.code() + ": " + error.message());
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Deleted {} S3 objects, {} failed", keys.size() - response.errors().size(), response.errors().size());
+            }
+        } catch (AwsServiceException | SdkClientException e) {
+            keys.forEach(key -> failures.put(key, String.valueOf(e.getMessage())));
+        }
+    }
+
+    @Override
+    public void list(String subDirectory, Consumer<StoredFile> visitor) {
+        String prefix = buildObjectKey(FileUploadRequest.builder().subDirectory(subDirectory).build(), "");
+        try {
+            s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                            .bucket(properties.getS3().getBucketName())
+                            .prefix(prefix)
+                            .build())
+                    .contents()
+                    .forEach(object -> visitor.accept(StoredFile.builder()
+                            .key(object.key())
+                            .publicUrl(buildPublicUrl(object.key()))
+                            .size(object.size())
+                            .lastModified(object.lastModified())
+                            .build()));
+        } catch (AwsServiceException | SdkClientException e) {
+            throw new FileStorageException("Failed to list S3 objects under " + prefix, e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(String key) {
+        if (!StringUtils.hasText(key)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return s3AsyncClient.deleteObject(b -> b.bucket(properties.getS3().getBucketName()).key(key))
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw new FileStorageException("Failed to delete S3 object " + key,
+                                error instanceof CompletionException ? error.getCause() : error);
+                    }
+                    return null;
+                });
+    }
+
+    @Override
+    public void close() {
+        s3AsyncClient.close();
+        s3Client.close();
+        s3Presigner.close();
+    }
+
     private MultipartFile requireFile(FileUploadRequest request) {
         if (request == null || request.getFile() == null) {
             throw new FileStorageException("Upload request must include a file");
@@ -82,8 +372,7 @@ public class S3FileStorageService implements FileStorageService {
         return request.getFile();
     }
 
-    private String buildObjectKey(FileUploadRequest request, MultipartFile file) {
-        String fileName = resolveFileName(file, request.getPreferredFileName());
+    private String buildObjectKey(FileUploadRequest request, String fileName) {
         StringBuilder keyBuilder = new StringBuilder();
         String rootFolder = properties.getS3().getRootFolder();
         if (StringUtils.hasText(rootFolder)) {
@@ -102,13 +391,14 @@ public class S3FileStorageService implements FileStorageService {
         return keyBuilder.toString();
     }
 
-    private String resolveFileName(MultipartFile file, String preferredFileName) {
+    private String resolveFileName(String originalName, String preferredFileName, String knownExtension) {
         if (StringUtils.hasText(preferredFileName)) {
             return trimSlashes(preferredFileName);
         }
-        String originalName = file.getOriginalFilename();
         String extension = "";
-        if (StringUtils.hasText(originalName) && originalName.contains(".")) {
+        if (StringUtils.hasText(knownExtension)) {
+            extension = knownExtension;
+        } else if (StringUtils.hasText(originalName) && originalName.contains(".")) {
             extension = originalName.substring(originalName.lastIndexOf('.'));
         }
         return UUID.randomUUID() + extension;
@@ -0,0 +1,167 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
+import com.siyamuddin.blog.blogappapis.Exceptions.FileStorageException;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sends one object through {@link S3AsyncClient}: a single PUT when it is known to fit under the
+ * threshold, otherwise a multipart upload whose parts are uploaded in parallel.
+ * <p>
+ * The source is read on the calling thread one part at a time. Every buffered part takes its size
+ * from a byte budget shared by all uploads and returns it when S3 has answered for that part, so
+ * when S3 is slower than the sources, callers block instead of buffering more than
+ * {@code max-in-flight} bytes.
+ */
+@Slf4j
+class S3MultipartUploader {
+
+    static final int MAX_PARTS = 10_000;
+
+    private final S3AsyncClient client;
+    private final String bucket;
+    private final long threshold;
+    private final int partSize;
+    private final Semaphore inFlightBytes;
+
+    S3MultipartUploader(S3AsyncClient client, String bucket, FileStorageProperties.Multipart multipart) {
+        this.client = client;
+        this.bucket = bucket;
+        this.threshold = multipart.getThreshold().toBytes();
+        this.partSize = Math.toIntExact(multipart.getPartSize().toBytes());
+        this.inFlightBytes = new Semaphore(Math.toIntExact(multipart.getMaxInFlight().toBytes()));
+    }
+
+    /**
+     * Read {@code source} to its end and upload it as {@code key}.
+     *
+     * @param length the source's size, or -1 if unknown
+     * @return completes once S3 has acknowledged the whole object
+     * @throws IOException if reading the source fails; any started multipart upload is aborted
+     */
+    CompletableFuture<Void> upload(String key, String contentType, ReadableByteChannel source, long length)
+            throws IOException {
+        if (length >= 0 && length <= threshold) {
+            return putObject(key, contentType, read(source, Math.toIntExact(length)));
+        }
+        ByteBuffer first = read(source, partSize);
+        if (first.remaining() < partSize) {
+            // Unknown length, but it all fit in one part
+            return putObject(key, contentType, first);
+        }
+        return multipartUpload(key, contentType, source, first);
+    }
+
+    private CompletableFuture<Void> putObject(String key, String contentType, ByteBuffer body) {
+        int size = body.remaining();
+        return client.putObject(b -> b.bucket(bucket).key(key).contentType(contentType).contentLength((long) size),
+                        AsyncRequestBody.fromByteBufferUnsafe(body))
+                .whenComplete((response, error) -> inFlightBytes.release(size))
+                .thenApply(response -> null);
+    }
+
+    private CompletableFuture<Void> multipartUpload(String key, String contentType, ReadableByteChannel source,
+                                                    ByteBuffer first) throws IOException {
+        CompletableFuture<String> uploadId = client.createMultipartUpload(
+                        b -> b.bucket(bucket).key(key).contentType(contentType))
+                .thenApply(CreateMultipartUploadResponse::uploadId);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        try {
+            ByteBuffer part = first;
+            while (part.hasRemaining()) {
+                if (parts.size() == MAX_PARTS) {
+                    inFlightBytes.release(part.remaining());
+                    throw new FileStorageException("Object exceeds " + MAX_PARTS + " parts of " + partSize + " bytes");
+                }
+                boolean last = part.remaining() < partSize;
+                parts.add(uploadPart(uploadId, key, parts.size() + 1, part)
+                        .whenComplete((completed, error) -> {
+                            if (error != null) {
+                                failure.compareAndSet(null, error);
+                            }
+                        }));
+                if (last || failure.get() != null) {
+                    // No point reading the rest once a part has failed
+                    break;
+                }
+                part = read(source, partSize);
+            }
+        } catch (IOException | RuntimeException e) {
+            abort(uploadId, key);
+            throw e;
+        }
+
+        return CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                .thenCompose(ignored -> uploadId)
+                .thenCompose(id -> client.completeMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(id)
+                        .multipartUpload(m -> m.parts(parts.stream().map(CompletableFuture::join).toList()))))
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        abort(uploadId, key);
+                    }
+                })
+                .thenApply(response -> null);
+    }
+
+    private CompletableFuture<CompletedPart> uploadPart(CompletableFuture<String> uploadId, String key,
+                                                        int partNumber, ByteBuffer body) {
+        int size = body.remaining();
+        return uploadId
+                .thenCompose(id -> client.uploadPart(b -> b.bucket(bucket).key(key).uploadId(id)
+                                .partNumber(partNumber).contentLength((long) size),
+                        AsyncRequestBody.fromByteBufferUnsafe(body)))
+                .whenComplete((response, error) -> inFlightBytes.release(size))
+                .thenApply(response -> CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build());
+    }
+
+    /**
+     * Drop the parts already stored, so a failed upload leaves nothing billed behind.
+     */
+    private void abort(CompletableFuture<String> uploadId, String key) {
+        uploadId.thenCompose(id -> client.abortMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(id)))
+                .whenComplete((response, error) -> {
+                    if (error != null && !uploadId.isCompletedExceptionally()) {
+                        log.warn("Failed to abort multipart upload of {}: {}", key, error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Read up to {@code size} bytes, blocking first until that much of the in-flight budget is free.
+     * Whatever the read leaves unused goes back to the budget immediately.
+     */
+    private ByteBuffer read(ReadableByteChannel source, int size) throws IOException {
+        try {
+            inFlightBytes.acquire(size);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileStorageException("Interrupted while waiting for upload buffer space", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        try {
+            while (buffer.hasRemaining() && source.read(buffer) >= 0) {
+                // keep filling
+            }
+        } catch (IOException | RuntimeException e) {
+            inFlightBytes.release(size);
+            throw e;
+        }
+        buffer.flip();
+        inFlightBytes.release(size - buffer.remaining());
+        return buffer;
+    }
+}
@@ -0,0 +1,45 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Records files that are no longer referenced as tombstones in {@code storage_tombstone}, in the
+ * caller's transaction, so a delete is never lost with a failed request or a restart and the
+ * request never waits for the storage backend. {@link StorageGarbageCollector} deletes them.
+ */
+@Component
+@RequiredArgsConstructor
+public class StorageCleaner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void deleteLater(String key) {
+        deleteLater(List.of(key), null);
+    }
+
+    /**
+     * @param ownerKey the content-addressed file these were released with; they are kept if it
+     *                 is referenced again before the collector gets to them. Null for none.
+     */
+    public void deleteLater(Collection<String> keys, String ownerKey) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = keys.stream()
+                .filter(StringUtils::hasText)
+                .distinct()
+                .map(key -> new Object[]{key, ownerKey, now, now})
+                .toList();
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO storage_tombstone (storage_key, owner_key, status, attempts, next_attempt_at, " +
+                "created_at) VALUES (?, ?, 'PENDING', 0, ?, ?)", rows);
+    }
+}
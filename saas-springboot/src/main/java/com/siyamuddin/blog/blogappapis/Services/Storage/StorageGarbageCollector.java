@@ -0,0 +1,318 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import com.siyamuddin.blog.blogappapis.Config.AsyncExecutorConfig;
+import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
+import com.siyamuddin.blog.blogappapis.Exceptions.FileStorageException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes the files tombstoned in {@code storage_tombstone} and finds the ones that were never
+ * tombstoned.
+ * <p>
+ * Each batch is claimed with a conditional UPDATE (so several nodes can collect without
+ * deleting a file twice) and deleted with as few storage requests as the backend allows, one
+ * DeleteObjects call per 1000 keys on S3. Failed deletes are retried with exponential backoff and
+ * jitter, and given up as FAILED after max-attempts. A node that dies mid-batch leaves its claim
+ * to expire and the batch is deleted again, which is harmless.
+ * <p>
+ * The reconciliation scan lists the scanned directories and tombstones every file older than the
+ * grace period that no {@link StoredFileReferences} bean refers to: files orphaned before
+ * tombstones existed, presigned uploads never confirmed, temporary files of crashed uploads.
+ */
+@Slf4j
+@Component
+public class StorageGarbageCollector {
+
+    private static final int ERROR_MAX_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FileStorageService fileStorageService;
+    private final ContentAddressedStorage contentAddressedStorage;
+    private final StorageCleaner storageCleaner;
+    private final List<StoredFileReferences> references;
+    private final FileStorageProperties properties;
+    private final FileStorageProperties.Cleanup config;
+    private final AtomicLong pending = new AtomicLong();
+    private final Counter deletedCounter;
+    private final Counter keptCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Counter orphanCounter;
+
+    public StorageGarbageCollector(JdbcTemplate jdbcTemplate,
+                                   FileStorageService fileStorageService,
+                                   ContentAddressedStorage contentAddressedStorage,
+                                   StorageCleaner storageCleaner,
+                                   List<StoredFileReferences> references,
+                                   FileStorageProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fileStorageService = fileStorageService;
+        this.contentAddressedStorage = contentAddressedStorage;
+        this.storageCleaner = storageCleaner;
+        this.references = references;
+        this.properties = properties;
+        this.config = properties.getCleanup();
+
+        Gauge.builder("app.storage.gc.pending", pending, AtomicLong::get)
+                .description("Stored files tombstoned and waiting to be deleted")
+                .strongReference(true)
+                .register(meterRegistry);
+        this.deletedCounter = Counter.builder("app.storage.gc.deleted")
+                .description("Tombstoned files deleted from storage")
+                .register(meterRegistry);
+        this.keptCounter = Counter.builder("app.storage.gc.kept")
+                .description("Tombstoned files kept because their content was referenced again")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("app.storage.gc.retried")
+                .description("File deletes that failed and were rescheduled")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("app.storage.gc.failed")
+                .description("File deletes given up after max-attempts")
+                .register(meterRegistry);
+        this.orphanCounter = Counter.builder("app.storage.gc.orphans")
+                .description("Unreferenced files found by the reconciliation scan")
+                .register(meterRegistry);
+    }
+
+    @Async(AsyncExecutorConfig.STORAGE_CLEANUP)
+    @Scheduled(fixedDelayString = "${filestorage.cleanup.poll-interval-millis:30000}")
+    public void collect() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        try {
+            releaseExpiredClaims();
+            while (collectBatch() == config.getBatchSize()) {
+                // A full batch means more may be due; keep draining
+            }
+        } catch (DataAccessException e) {
+            log.warn("Storage garbage collection failed: {}", e.getMessage());
+        } finally {
+            refreshGauge();
+        }
+    }
+
+    /**
+     * Claim up to batch-size due tombstones, delete their files, and record the outcome of each.
+     *
+     * @return number of tombstones claimed
+     */
+    int collectBatch() {
+        List<Tombstone> batch = claim(LocalDateTime.now());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<String, String> ownerByKey = new LinkedHashMap<>();
+        for (Tombstone tombstone : batch) {
+            // The same key tombstoned twice: keep the owner if either has one, so it is checked
+            ownerByKey.merge(tombstone.storageKey(), tombstone.ownerKey() == null ? "" : tombstone.ownerKey(),
+                    (a, b) -> a.isEmpty() ? b : a);
+        }
+        ownerByKey.replaceAll((key, owner) -> owner.isEmpty() ? null : owner);
+
+        ContentAddressedStorage.Deletion deletion;
+        try {
+            deletion = contentAddressedStorage.deleteReleased(ownerByKey);
+        } catch (FileStorageException e) {
+            deletion = new ContentAddressedStorage.Deletion(Set.of(), allFailed(ownerByKey.keySet(), e));
+        }
+
+        List<Long> done = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Tombstone tombstone : batch) {
+            String failure = deletion.failed().get(tombstone.storageKey());
+            if (failure == null) {
+                done.add(tombstone.id());
+            } else {
+                recordFailure(tombstone, failure, now);
+            }
+        }
+        deleteTombstones(done);
+        keptCounter.increment(deletion.kept().size());
+        deletedCounter.increment(ownerByKey.size() - deletion.kept().size() - deletion.failed().size());
+        log.debug("Storage GC batch: {} files deleted, {} kept, {} failed",
+                ownerByKey.size() - deletion.kept().size() - deletion.failed().size(), deletion.kept().size(),
+                deletion.failed().size());
+        return batch.size();
+    }
+
+    private static Map<String, String> allFailed(Set<String> keys, Exception e) {
+        Map<String, String> failures = new LinkedHashMap<>();
+        keys.forEach(key -> failures.put(key, String.valueOf(e.getMessage())));
+        return failures;
+    }
+
+    /**
+     * Tombstone every file in the scanned directories that is older than the grace period and
+     * not referred to. Unreferenced files are tombstoned with themselves as owner, so one whose
+     * content is uploaded again before the collector runs is kept.
+     */
+    @Async(AsyncExecutorConfig.STORAGE_CLEANUP)
+    @Scheduled(fixedDelayString = "${filestorage.cleanup.reconcile.interval-millis:86400000}",
+            initialDelayString = "${filestorage.cleanup.reconcile.initial-delay-millis:600000}")
+    public void reconcile() {
+        if (!config.isEnabled() || !config.getReconcile().isEnabled()) {
+            return;
+        }
+        try {
+            int orphans = reconcileNow();
+            if (orphans > 0) {
+                log.info("Storage reconciliation tombstoned {} unreferenced files", orphans);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Storage reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return number of files tombstoned
+     */
+    int reconcileNow() {
+        // Read before listing: a file referenced only after this point is younger than the grace period
+        Set<String> referenced = new HashSet<>();
+        references.forEach(source -> source.forEachReferencedKey(referenced::add));
+        referenced.addAll(jdbcTemplate.queryForList(
+                "SELECT storage_key FROM storage_tombstone WHERE status IN ('PENDING', 'DELETING')", String.class));
+
+        Instant cutoff = Instant.now().minus(config.getReconcile().getGracePeriod());
+        List<String> orphans = new ArrayList<>();
+        for (String directory : scannedDirectories()) {
+            fileStorageService.list(directory, file -> {
+                if (!referenced.contains(file.getKey()) && file.getLastModified() != null
+                        && file.getLastModified().isBefore(cutoff)) {
+                    orphans.add(file.getKey());
+                }
+            });
+        }
+        for (String orphan : orphans) {
+            storageCleaner.deleteLater(List.of(orphan), orphan);
+        }
+        orphanCounter.increment(orphans.size());
+        return orphans.size();
+    }
+
+    private List<String> scannedDirectories() {
+        List<String> directories = new ArrayList<>(config.getReconcile().getDirectories());
+        if (properties.getContentAddressing().isEnabled()) {
+            directories.add(properties.getContentAddressing().getDirectory());
+        }
+        return directories;
+    }
+
+    private List<Tombstone> claim(LocalDateTime now) {
+        List<Long> candidates = jdbcTemplate.queryForList(
+                "SELECT id FROM storage_tombstone WHERE status = 'PENDING' AND next_attempt_at <= ? " +
+                        "ORDER BY next_attempt_at, id LIMIT ?",
+                Long.class, Timestamp.valueOf(now), config.getBatchSize());
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        String claimToken = UUID.randomUUID().toString();
+        List<Object> args = new ArrayList<>();
+        args.add(claimToken);
+        args.add(Timestamp.valueOf(now));
+        args.addAll(candidates);
+        // Rows another node claimed in the meantime are no longer PENDING and are skipped
+        jdbcTemplate.update("UPDATE storage_tombstone SET status = 'DELETING', claim_token = ?, claimed_at = ? " +
+                "WHERE status = 'PENDING' AND id IN (" + placeholders(candidates.size()) + ")", args.toArray());
+        return jdbcTemplate.query(
+                "SELECT id, storage_key, owner_key, attempts FROM storage_tombstone WHERE claim_token = ? ORDER BY id",
+                (rs, i) -> new Tombstone(rs.getLong("id"), rs.getString("storage_key"), rs.getString("owner_key"),
+                        rs.getInt("attempts")),
+                claimToken);
+    }
+
+    private void deleteTombstones(List<Long> ids) {
+        if (!ids.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM storage_tombstone WHERE id IN (" + placeholders(ids.size()) + ")", ids.toArray());
+        }
+    }
+
+    private void recordFailure(Tombstone tombstone, String error, LocalDateTime now) {
+        int attempts = tombstone.attempts() + 1;
+        error = truncate(error);
+        if (attempts >= config.getMaxAttempts()) {
+            jdbcTemplate.update("UPDATE storage_tombstone SET status = 'FAILED', attempts = ?, claim_token = NULL, " +
+                    "last_error = ? WHERE id = ?", attempts, error, tombstone.id());
+            failedCounter.increment();
+            log.error("Giving up on deleting stored file {} after {} attempts: {}", tombstone.storageKey(), attempts, error);
+            return;
+        }
+        LocalDateTime nextAttempt = now.plus(backoff(attempts));
+        jdbcTemplate.update("UPDATE storage_tombstone SET status = 'PENDING', attempts = ?, next_attempt_at = ?, " +
+                "claim_token = NULL, last_error = ? WHERE id = ?", attempts, Timestamp.valueOf(nextAttempt), error, tombstone.id());
+        retriedCounter.increment();
+        log.warn("Deleting stored file {} failed (attempt {}), retrying at {}: {}", tombstone.storageKey(), attempts,
+                nextAttempt, error);
+    }
+
+    /**
+     * Exponential backoff with "equal jitter": half the delay is fixed, half random.
+     */
+    Duration backoff(int attempts) {
+        long delay = config.getInitialBackoffMillis();
+        for (int i = 1; i < attempts && delay < config.getMaxBackoffMillis(); i++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, config.getMaxBackoffMillis());
+        long half = delay / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    private void releaseExpiredClaims() {
+        LocalDateTime expiry = LocalDateTime.now().minus(Duration.ofMillis(config.getClaimTimeoutMillis()));
+        int released = jdbcTemplate.update("UPDATE storage_tombstone SET status = 'PENDING', claim_token = NULL " +
+                "WHERE status = 'DELETING' AND claimed_at < ?", Timestamp.valueOf(expiry));
+        if (released > 0) {
+            log.warn("Released {} storage tombstones whose claim expired; they will be collected again", released);
+        }
+    }
+
+    private void refreshGauge() {
+        try {
+            Long count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM storage_tombstone WHERE status IN ('PENDING', 'DELETING')", Long.class);
+            pending.set(count == null ? 0 : count);
+        } catch (DataAccessException e) {
+            log.debug("Failed to refresh storage GC gauge: {}", e.getMessage());
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= ERROR_MAX_LENGTH ? message : message.substring(0, ERROR_MAX_LENGTH);
+    }
+
+    private record Tombstone(long id, String storageKey, String ownerKey, int attempts) {
+    }
+}
@@ -3,6 +3,8 @@ package com.siyamuddin.blog.blogappapis.Services.Storage;
 import lombok.Builder;
 import lombok.Getter;
 
+import java.time.Instant;
+
 @Getter
 @Builder
 public class StoredFile {
@@ -17,5 +19,9 @@ public class StoredFile {
     private String originalFileName;
     private String contentType;
     private long size;
+    /**
+     * Set when the file was looked up in storage (listing) rather than just stored.
+     */
+    private Instant lastModified;
 }
 
@@ -0,0 +1,15 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import java.util.function.Consumer;
+
+/**
+ * Something that refers to stored files. The storage reconciliation scan asks every bean of
+ * this type for its keys and collects the files no one refers to.
+ */
+public interface StoredFileReferences {
+
+    /**
+     * Pass every storage key currently referred to, including derived files such as variants.
+     */
+    void forEachReferencedKey(Consumer<String> consumer);
+}
@@ -0,0 +1,132 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import com.siyamuddin.blog.blogappapis.Exceptions.FileTooLargeException;
+import com.siyamuddin.blog.blogappapis.Exceptions.InvalidFileException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+
+/**
+ * An upload read straight from the request body rather than from a parsed multipart part.
+ * Opening it reads just enough bytes to sniff the content type; the rest is pulled through
+ * {@link #read} by the storage backend, which counts bytes and fails as soon as the limit is
+ * passed, so nothing larger than a transfer buffer is ever held in memory.
+ */
+public final class StreamingUpload implements ReadableByteChannel {
+
+    private final ReadableByteChannel source;
+    private final ByteBuffer header;
+    private final String contentType;
+    private final String originalFileName;
+    private final long declaredLength;
+    private final long maxBytes;
+    private long bytesRead;
+    private MessageDigest digest;
+
+    private StreamingUpload(ReadableByteChannel source, ByteBuffer header, String contentType,
+                            String originalFileName, long declaredLength, long maxBytes) {
+        this.source = source;
+        this.header = header;
+        this.contentType = contentType;
+        this.originalFileName = originalFileName;
+        this.declaredLength = declaredLength;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param body           request body, positioned at the first byte of the file
+     * @param declaredLength Content-Length, or -1 when the body is chunked
+     * @param maxBytes       largest accepted upload
+     * @throws FileTooLargeException if the declared length is already over the limit
+     * @throws InvalidFileException  if the body is empty or not a recognised format
+     */
+    public static StreamingUpload open(InputStream body, String originalFileName, long declaredLength, long maxBytes)
+            throws IOException {
+        if (declaredLength > maxBytes) {
+            throw new FileTooLargeException(maxBytes);
+        }
+        ReadableByteChannel source = Channels.newChannel(body);
+        ByteBuffer header = ByteBuffer.allocate(ContentTypeSniffer.HEADER_BYTES);
+        while (header.hasRemaining() && source.read(header) >= 0) {
+            // Fill the sniffing window; a short read is not the end of the body
+        }
+        header.flip();
+        if (!header.hasRemaining()) {
+            throw new InvalidFileException("File is empty");
+        }
+        String contentType = ContentTypeSniffer.sniff(header.array(), header.remaining());
+        if (contentType == null) {
+            throw new InvalidFileException("File content is not a supported format");
+        }
+        return new StreamingUpload(source, header, contentType, originalFileName, declaredLength, maxBytes);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int start = dst.position();
+        int n;
+        if (header.hasRemaining()) {
+            n = Math.min(header.remaining(), dst.remaining());
+            ByteBuffer slice = header.slice();
+            slice.limit(n);
+            dst.put(slice);
+            header.position(header.position() + n);
+        } else {
+            n = source.read(dst);
+            if (n < 0) {
+                return n;
+            }
+        }
+        bytesRead += n;
+        if (bytesRead > maxBytes) {
+            throw new FileTooLargeException(maxBytes);
+        }
+        if (digest != null) {
+            digest.update(dst.duplicate().position(start).limit(start + n));
+        }
+        return n;
+    }
+
+    /**
+     * Feed every byte the backend reads into {@code digest}, so the content is hashed on its way
+     * to storage instead of in a second pass. Must be called before reading starts.
+     */
+    void digestWith(MessageDigest digest) {
+        if (bytesRead > 0 || header.position() > 0) {
+            throw new IllegalStateException("Upload has already been read from");
+        }
+        this.digest = digest;
+    }
+
+    /** Content type detected from the leading bytes. */
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getOriginalFileName() {
+        return originalFileName;
+    }
+
+    /** Content-Length sent by the client, or -1 if unknown. */
+    public long getDeclaredLength() {
+        return declaredLength;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return source.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
@@ -1,13 +1,39 @@
 package com.siyamuddin.blog.blogappapis.Services;
 
+import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.ProfilePhotoUploadTicket;
 import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.UserDto;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
 public interface UserProfilePhotoService {
 
     /**
-     * Upload a profile photo for the specified user and return the updated DTO.
+     * Upload a profile photo for the specified user. The file is read before this returns; the
+     * future completes with the updated DTO once the photo is stored and recorded.
+     */
+    CompletableFuture<UserDto> uploadProfilePhoto(Integer userId, MultipartFile file);
+
+    /**
+     * Upload a profile photo streamed as the raw request body. The content type is detected from
+     * the content itself and the size limit is enforced while reading. The body is read before
+     * this returns.
+     *
+     * @param contentLength declared length of the body, or -1 if unknown
+     */
+    CompletableFuture<UserDto> uploadProfilePhoto(Integer userId, InputStream body, String originalFileName, long contentLength);
+
+    /**
+     * First phase of a direct upload: a presigned URL the client uploads the photo to itself,
+     * restricted to the given content type and length.
+     */
+    ProfilePhotoUploadTicket createDirectUpload(Integer userId, String contentType, long contentLength);
+
+    /**
+     * Second phase of a direct upload: check the uploaded object and make it the user's photo.
+     * An object that breaks the upload policy is deleted and rejected.
      */
-    UserDto uploadProfilePhoto(Integer userId, MultipartFile file);
+    UserDto confirmDirectUpload(Integer userId, String storageKey);
 }
 
@@ -18,4 +18,6 @@ public interface UserService {
     com.siyamuddin.blog.blogappapis.Entity.User getUserEntityByEmail(String email);
     void changeUserPassword(com.siyamuddin.blog.blogappapis.Entity.User user, String newPassword);
     void updateUserLastLogin(com.siyamuddin.blog.blogappapis.Entity.User user);
+    // Re-hash with current encoder parameters when the stored hash is outdated; returns true if upgraded
+    boolean upgradePasswordHashIfNeeded(com.siyamuddin.blog.blogappapis.Entity.User user, String rawPassword);
 }
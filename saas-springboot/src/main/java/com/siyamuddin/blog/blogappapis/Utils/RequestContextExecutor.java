@@ -0,0 +1,66 @@
+package com.siyamuddin.blog.blogappapis.Utils;
+
+import org.slf4j.MDC;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs tasks on another executor with the request context of the thread that created it: the
+ * logging MDC (request id), the request attributes (client IP and user agent for audit events)
+ * and the security context.
+ * <p>
+ * Create one on the request thread for the completion stages of a request handled
+ * asynchronously; stages triggered later from other threads (an HTTP client's, say) then still
+ * log and audit as part of that request.
+ */
+public final class RequestContextExecutor implements Executor {
+
+    private final Executor delegate;
+    private final Map<String, String> mdc;
+    private final RequestAttributes requestAttributes;
+    private final SecurityContext securityContext;
+
+    private RequestContextExecutor(Executor delegate) {
+        this.delegate = delegate;
+        this.mdc = MDC.getCopyOfContextMap();
+        this.requestAttributes = RequestContextHolder.getRequestAttributes();
+        this.securityContext = SecurityContextHolder.getContext();
+    }
+
+    /**
+     * @return an executor that runs tasks on {@code delegate} with the calling thread's request context
+     */
+    public static Executor capture(Executor delegate) {
+        return new RequestContextExecutor(delegate);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        delegate.execute(() -> {
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+            SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+            apply(mdc, requestAttributes, securityContext);
+            try {
+                task.run();
+            } finally {
+                apply(previousMdc, previousAttributes, previousSecurityContext);
+            }
+        });
+    }
+
+    private static void apply(Map<String, String> mdc, RequestAttributes attributes, SecurityContext securityContext) {
+        if (mdc != null) {
+            MDC.setContextMap(mdc);
+        } else {
+            MDC.clear();
+        }
+        RequestContextHolder.setRequestAttributes(attributes);
+        SecurityContextHolder.setContext(securityContext);
+    }
+}
@@ -0,0 +1,11 @@
+-- =============================================================================
+-- app_settings: change version for cluster-wide settings propagation (MySQL 8)
+-- =============================================================================
+-- Run once against production (ddl-auto=none). Every save stamps the row with a version
+-- above the current maximum; nodes poll MAX/COUNT/SUM of it to detect changes made elsewhere.
+-- =============================================================================
+
+ALTER TABLE app_settings
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX idx_app_settings_version ON app_settings (version);
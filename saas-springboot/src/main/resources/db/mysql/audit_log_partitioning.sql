@@ -0,0 +1,58 @@
+-- =============================================================================
+-- audit_log: monthly range partitioning, composite indexes and rollup tables (MySQL 8)
+-- =============================================================================
+-- Run once against production (ddl-auto=none). Converting an existing table rewrites it,
+-- so schedule it in a maintenance window. After this, AuditRetentionJob keeps partitions
+-- created ahead and drops expired ones; no further manual DDL is needed.
+--
+-- MySQL requires the partitioning column in every unique key, so the primary key becomes
+-- (id, timestamp). id stays AUTO_INCREMENT and unique in practice.
+-- =============================================================================
+
+ALTER TABLE audit_log
+    ADD COLUMN request_id VARCHAR(64) NULL,
+    ADD COLUMN event_id VARCHAR(36) NULL;
+
+ALTER TABLE audit_log
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, timestamp);
+
+CREATE INDEX idx_audit_log_user_time ON audit_log (user_id, timestamp);
+CREATE INDEX idx_audit_log_action_time ON audit_log (action, timestamp);
+CREATE INDEX idx_audit_log_time ON audit_log (timestamp);
+CREATE INDEX idx_audit_log_event_id ON audit_log (event_id);
+
+-- Everything before the current month goes into p_initial; the retention job drops it once
+-- its upper bound is past retention. From then on AuditRetentionJob, run at startup and on
+-- app.audit.retention.cron, splits monthly partitions out of pmax up to partitions-ahead months
+-- ahead. Partition bounds must be constants, so the bound is computed from the date the script
+-- runs and the DDL executed as a prepared statement.
+SET @audit_log_partitioning = CONCAT(
+    'ALTER TABLE audit_log PARTITION BY RANGE (TO_DAYS(timestamp)) (',
+    'PARTITION p_initial VALUES LESS THAN (', TO_DAYS(DATE_FORMAT(CURDATE(), '%Y-%m-01')), '), ',
+    'PARTITION pmax VALUES LESS THAN MAXVALUE)');
+PREPARE audit_log_partitioning FROM @audit_log_partitioning;
+EXECUTE audit_log_partitioning;
+DEALLOCATE PREPARE audit_log_partitioning;
+
+CREATE TABLE IF NOT EXISTS audit_log_rollup (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start DATETIME(6) NOT NULL,
+    action VARCHAR(100) NOT NULL,
+    success BIT(1) NOT NULL,
+    event_count BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_audit_rollup_bucket (granularity, bucket_start, action, success),
+    KEY idx_audit_rollup_bucket (granularity, bucket_start)
+);
+
+CREATE TABLE IF NOT EXISTS audit_rollup_watermark (
+    name VARCHAR(50) NOT NULL,
+    last_id BIGINT NOT NULL,
+    updated_at DATETIME(6) NULL,
+    PRIMARY KEY (name)
+);
+
+-- Starting at 0 rolls up existing history; the job catches up max-rows-per-run ids per run.
+INSERT IGNORE INTO audit_rollup_watermark (name, last_id, updated_at) VALUES ('audit_log', 0, NOW(6));
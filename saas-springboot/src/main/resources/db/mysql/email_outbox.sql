@@ -0,0 +1,24 @@
+-- =============================================================================
+-- email_outbox: transactional email queue (MySQL 8)
+-- =============================================================================
+-- Run once against production (ddl-auto=none). Emails are inserted in the same transaction
+-- as the change that triggers them and delivered by EmailOutboxDispatcher.
+-- =============================================================================
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    body LONGTEXT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL,
+    next_attempt_at DATETIME(6) NOT NULL,
+    claim_token VARCHAR(36) NULL,
+    claimed_at DATETIME(6) NULL,
+    created_at DATETIME(6) NOT NULL,
+    sent_at DATETIME(6) NULL,
+    last_error VARCHAR(1000) NULL,
+    PRIMARY KEY (id),
+    KEY idx_email_outbox_status_next (status, next_attempt_at),
+    KEY idx_email_outbox_claim (claim_token)
+);
@@ -0,0 +1,9 @@
+-- =============================================================================
+-- user: sizes and formats of the rendered profile photo variants (MySQL 8)
+-- =============================================================================
+-- Run once against production (ddl-auto=none). Holds e.g. '64:jpg,256:jpg,1024:jpg' once
+-- ProfilePhotoVariantGenerator has stored the variants next to the photo; NULL until then.
+-- =============================================================================
+
+ALTER TABLE `user`
+    ADD COLUMN profile_image_variant_spec VARCHAR(100) NULL;
@@ -0,0 +1,24 @@
+-- =============================================================================
+-- storage_tombstone: stored files waiting to be deleted (MySQL 8)
+-- =============================================================================
+-- Run once against production (ddl-auto=none). Rows are written in the same transaction as
+-- the change that orphans a file and deleted by StorageGarbageCollector once the file is gone;
+-- rows in status FAILED gave up after max-attempts and are worth a look.
+-- =============================================================================
+
+CREATE TABLE IF NOT EXISTS storage_tombstone (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    storage_key VARCHAR(512) NOT NULL,
+    owner_key VARCHAR(512) NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL,
+    next_attempt_at DATETIME(6) NOT NULL,
+    claim_token VARCHAR(36) NULL,
+    claimed_at DATETIME(6) NULL,
+    created_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(1000) NULL,
+    PRIMARY KEY (id),
+    KEY idx_storage_tombstone_status_next (status, next_attempt_at),
+    KEY idx_storage_tombstone_claim (claim_token),
+    KEY idx_storage_tombstone_key (storage_key)
+);
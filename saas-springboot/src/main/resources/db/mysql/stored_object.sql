@@ -0,0 +1,20 @@
+-- =============================================================================
+-- stored_object: reference counts of content-addressed files (MySQL 8)
+-- =============================================================================
+-- Run once against production (ddl-auto=none). One row per distinct file content, keyed by
+-- its SHA-256 and extension; ContentAddressedStorage deletes the file with its last reference.
+-- Files uploaded before this table existed have no row and are deleted directly.
+-- =============================================================================
+
+CREATE TABLE IF NOT EXISTS stored_object (
+    object_id VARCHAR(80) NOT NULL,
+    storage_key VARCHAR(512) NULL,
+    public_url VARCHAR(1024) NULL,
+    content_type VARCHAR(100) NULL,
+    size_bytes BIGINT NOT NULL,
+    ref_count INT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (object_id),
+    UNIQUE KEY uk_stored_object_storage_key (storage_key)
+);
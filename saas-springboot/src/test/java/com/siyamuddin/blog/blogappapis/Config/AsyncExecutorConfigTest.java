@@ -0,0 +1,105 @@
+package com.siyamuddin.blog.blogappapis.Config;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.AsyncProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncExecutorConfigTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AsyncProperties properties = new AsyncProperties();
+    private final AsyncExecutorConfig config = new AsyncExecutorConfig(properties, registry, new MockEnvironment());
+    private final List<ThreadPoolTaskExecutor> executors = new ArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executors.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    @Test
+    void saturatedStorageCleanupShouldNotDelayEmail() throws Exception {
+        ThreadPoolTaskExecutor storage = track(config.storageCleanupExecutor());
+        ThreadPoolTaskExecutor email = track(config.emailExecutor());
+        AsyncProperties.Pool pool = properties.getStorageCleanup();
+        // A storage backend that never answers: fill every thread and the whole queue, then some
+        for (int i = 0; i < pool.getMaxPoolSize() + pool.getQueueCapacity() + 10; i++) {
+            storage.execute(this::hang);
+        }
+
+        CountDownLatch sent = new CountDownLatch(1);
+        email.execute(sent::countDown);
+
+        assertThat(sent.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(registry.get("app.async.rejected").tag("name", AsyncExecutorConfig.STORAGE_CLEANUP)
+                .counter().count()).isEqualTo(10);
+        assertThat(registry.get("app.async.rejected").tag("name", AsyncExecutorConfig.EMAIL)
+                .counter().count()).isZero();
+        assertThat(registry.get("executor.queued").tag("name", AsyncExecutorConfig.STORAGE_CLEANUP)
+                .gauge().value()).isEqualTo(pool.getQueueCapacity().doubleValue());
+    }
+
+    @Test
+    void abortPolicyShouldSurfaceRejectionToCaller() {
+        AsyncProperties.Pool pool = new AsyncProperties.Pool();
+        pool.setCorePoolSize(1);
+        pool.setMaxPoolSize(1);
+        pool.setQueueCapacity(0);
+        pool.setRejectionPolicy(AsyncProperties.RejectionPolicy.ABORT);
+        ThreadPoolTaskExecutor executor = track(config.build("testExecutor", "test-", pool));
+        executor.execute(this::hang);
+
+        assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(TaskRejectedException.class);
+        assertThat(registry.get("app.async.rejected").tag("name", "testExecutor").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void everyWorkloadShouldPublishExecutorMetrics() {
+        track(config.auditExecutor());
+        track(config.emailExecutor());
+        track(config.storageCleanupExecutor());
+        track(config.metricsExecutor());
+
+        assertThat(registry.find("executor.pool.max").gauges())
+                .extracting(gauge -> gauge.getId().getTag("name"))
+                .containsExactlyInAnyOrder(AsyncExecutorConfig.AUDIT, AsyncExecutorConfig.EMAIL,
+                        AsyncExecutorConfig.STORAGE_CLEANUP, AsyncExecutorConfig.METRICS);
+    }
+
+    @Test
+    void misconfiguredOAuthPoolShouldFailValidation() {
+        properties.getOauth().setMaxPoolSize(0);
+
+        assertThatThrownBy(properties::validate)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("app.async.oauth");
+    }
+
+    private ThreadPoolTaskExecutor track(ThreadPoolTaskExecutor executor) {
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executors.add(executor);
+        return executor;
+    }
+
+    private void hang() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.siyamuddin.blog.blogappapis.Config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadsConfigTest {
+
+    @Test
+    void platformModeShouldStartOnAnyRuntime() {
+        MockEnvironment environment = new MockEnvironment();
+
+        assertThatCode(() -> new VirtualThreadsConfig(environment).validate()).doesNotThrowAnyException();
+    }
+
+    @Test
+    void virtualModeShouldRefuseToStartBelowJava21() {
+        assumeTrue(Runtime.version().feature() < VirtualThreadsConfig.MINIMUM_JAVA_VERSION);
+        MockEnvironment environment = new MockEnvironment().withProperty(VirtualThreadsConfig.PROPERTY, "true");
+
+        assertThatThrownBy(() -> new VirtualThreadsConfig(environment).validate())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("requires Java 21");
+    }
+}
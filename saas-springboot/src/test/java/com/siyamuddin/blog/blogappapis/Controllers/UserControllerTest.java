@@ -21,6 +21,8 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.concurrent.CompletableFuture;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -72,9 +74,9 @@ class UserControllerTest {
         );
 
         when(userService.getUserEntityByEmail(user.getEmail())).thenReturn(user);
-        when(userProfilePhotoService.uploadProfilePhoto(eq(42), eq(file))).thenReturn(dto);
+        when(userProfilePhotoService.uploadProfilePhoto(eq(42), eq(file))).thenReturn(CompletableFuture.completedFuture(dto));
 
-        ResponseEntity<UserDto> response = userController.uploadMyProfilePhoto(file);
+        ResponseEntity<UserDto> response = userController.uploadMyProfilePhoto(file).join();
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isSameAs(dto);
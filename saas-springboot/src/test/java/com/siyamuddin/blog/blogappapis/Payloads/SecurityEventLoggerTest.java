@@ -0,0 +1,108 @@
+package com.siyamuddin.blog.blogappapis.Payloads;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siyamuddin.blog.blogappapis.Config.Properties.SecurityProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SecurityEventLoggerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Logger logger = (Logger) LoggerFactory.getLogger("SECURITY_EVENTS");
+    private ListAppender<ILoggingEvent> appender;
+    private SecurityEventLogger securityEventLogger;
+
+    @BeforeEach
+    void setUp() {
+        appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        SecurityProperties securityProperties = new SecurityProperties();
+        securityProperties.getEventLog().setFailedLoginSampleSize(2);
+        securityEventLogger = new SecurityEventLogger(securityProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void eventsShouldBeJsonWithFixedSchema() throws Exception {
+        securityEventLogger.logLoginAttempt("a\"b@example.com\n", "10.0.0.1", true);
+
+        JsonNode event = objectMapper.readTree(appender.list.get(0).getFormattedMessage());
+        assertThat(event.get("type").asText()).isEqualTo("LOGIN_ATTEMPT");
+        assertThat(event.get("outcome").asText()).isEqualTo("success");
+        assertThat(event.get("user").asText()).isEqualTo("a\"b@example.com\n");
+        assertThat(event.get("ip").asText()).isEqualTo("10.0.0.1");
+        assertThat(event.has("requestId")).isTrue();
+        assertThat(event.get("count").asInt()).isEqualTo(1);
+    }
+
+    @Test
+    void repeatedFailuresFromOneIpShouldBeSummarised() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            securityEventLogger.logLoginAttempt("victim@example.com", "10.0.0.2", false);
+        }
+        securityEventLogger.logLoginAttempt("other@example.com", "10.0.0.3", false);
+        assertThat(appender.list).hasSize(3);
+
+        securityEventLogger.flushFailedLoginSummaries();
+
+        List<ILoggingEvent> events = appender.list;
+        assertThat(events).hasSize(4);
+        JsonNode summary = objectMapper.readTree(events.get(3).getFormattedMessage());
+        assertThat(summary.get("type").asText()).isEqualTo("LOGIN_FAILURE_SUMMARY");
+        assertThat(summary.get("ip").asText()).isEqualTo("10.0.0.2");
+        assertThat(summary.get("count").asInt()).isEqualTo(8);
+    }
+
+    @Test
+    void failuresRecordedWhileFlushingShouldAllBeCounted() throws Exception {
+        int threads = 4;
+        int failuresPerThread = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < failuresPerThread; i++) {
+                    securityEventLogger.logLoginAttempt("victim@example.com", "10.0.0.2", false);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        while (futures.stream().anyMatch(future -> !future.isDone())) {
+            securityEventLogger.flushFailedLoginSummaries();
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        securityEventLogger.flushFailedLoginSummaries();
+
+        int counted = 0;
+        for (ILoggingEvent event : appender.list) {
+            counted += objectMapper.readTree(event.getFormattedMessage()).get("count").asInt();
+        }
+        assertThat(counted).isEqualTo(threads * failuresPerThread);
+    }
+}
@@ -0,0 +1,39 @@
+package com.siyamuddin.blog.blogappapis.Security.Password;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordEncoderFactoryTest {
+
+    private static final String PASSWORD = "Str0ng!Password";
+
+    @Test
+    void legacyUnprefixedHashShouldMatchAndRequestUpgrade() {
+        PasswordEncoder encoder = PasswordEncoderFactory.delegating(5);
+        String legacyHash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+        assertThat(encoder.matches(PASSWORD, legacyHash)).isTrue();
+        assertThat(encoder.upgradeEncoding(legacyHash)).isTrue();
+    }
+
+    @Test
+    void lowerCostHashShouldRequestUpgrade() {
+        String weakHash = PasswordEncoderFactory.delegating(4).encode(PASSWORD);
+        PasswordEncoder encoder = PasswordEncoderFactory.delegating(5);
+
+        assertThat(encoder.matches(PASSWORD, weakHash)).isTrue();
+        assertThat(encoder.upgradeEncoding(weakHash)).isTrue();
+    }
+
+    @Test
+    void currentHashShouldNotRequestUpgrade() {
+        PasswordEncoder encoder = PasswordEncoderFactory.delegating(5);
+        String hash = encoder.encode(PASSWORD);
+
+        assertThat(hash).startsWith("{bcrypt}$2a$05$");
+        assertThat(encoder.upgradeEncoding(hash)).isFalse();
+    }
+}
@@ -0,0 +1,79 @@
+package com.siyamuddin.blog.blogappapis.Security.Password;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.SecurityProperties;
+import com.siyamuddin.blog.blogappapis.Exceptions.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingExecutor hashingExecutor;
+
+    @BeforeEach
+    void setUp() {
+        SecurityProperties securityProperties = new SecurityProperties();
+        securityProperties.getPasswordHashing().setThreads(1);
+        securityProperties.getPasswordHashing().setQueueCapacity(1);
+        securityProperties.getPasswordHashing().setTimeoutMillis(5000L);
+        meterRegistry = new SimpleMeterRegistry();
+        hashingExecutor = new PasswordHashingExecutor(securityProperties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.shutdown();
+    }
+
+    @Test
+    void encodeShouldRunOnHashingPool() {
+        String threadName = hashingExecutor.encode(() -> Thread.currentThread().getName());
+
+        assertThat(threadName).startsWith("password-hash-");
+        assertThat(meterRegistry.get("app.auth.password.hash.duration").tag("operation", "encode").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void saturatedPoolShouldRejectFast() throws Exception {
+        CountDownLatch workerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Occupy the single worker, then fill the single queue slot
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> hashingExecutor.matches(() -> {
+            workerBusy.countDown();
+            awaitQuietly(release);
+            return true;
+        }));
+        assertThat(workerBusy.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> hashingExecutor.matches(() -> true));
+        while (meterRegistry.get("app.auth.password.hash.queue.depth").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThatThrownBy(() -> hashingExecutor.matches(() -> true))
+                .isInstanceOf(ServiceOverloadedException.class);
+        assertThat(meterRegistry.get("app.auth.password.hash.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.siyamuddin.blog.blogappapis.Config.Properties.SecurityProperties;
 import com.siyamuddin.blog.blogappapis.Entity.User;
 import com.siyamuddin.blog.blogappapis.Repository.UserRepo;
 import com.siyamuddin.blog.blogappapis.Services.Impl.AccountSecurityServiceImpl;
+import com.siyamuddin.blog.blogappapis.Services.Security.InMemoryFailedLoginTracker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,10 +13,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.util.Date;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -25,6 +29,9 @@ class AccountSecurityServiceImplTest {
     @Mock
     private UserRepo userRepo;
 
+    @Mock
+    private DynamicConfigService dynamicConfig;
+
     @Mock
     private EmailService emailService;
 
@@ -34,16 +41,17 @@ class AccountSecurityServiceImplTest {
     @InjectMocks
     private AccountSecurityServiceImpl accountSecurityService;
 
-    private SecurityProperties securityProperties;
+    private InMemoryFailedLoginTracker failedLoginTracker;
 
     private User testUser;
 
     @BeforeEach
     void setup() {
-        securityProperties = new SecurityProperties();
-        securityProperties.setMaxFailedLoginAttempts(2);
-        securityProperties.setAccountLockoutDurationMinutes(30);
+        SecurityProperties securityProperties = new SecurityProperties();
+        securityProperties.getFailedLogin().setMaxFailuresPerIp(3);
+        failedLoginTracker = new InMemoryFailedLoginTracker(Duration.ofMinutes(15));
         ReflectionTestUtils.setField(accountSecurityService, "securityProperties", securityProperties);
+        ReflectionTestUtils.setField(accountSecurityService, "failedLoginTracker", failedLoginTracker);
 
         testUser = new User();
         testUser.setEmail("lock@test.com");
@@ -53,27 +61,56 @@ class AccountSecurityServiceImplTest {
 
     @Test
     void incrementFailedLoginAttemptsShouldLockAccountAfterThreshold() {
+        when(dynamicConfig.getMaxFailedLoginAttempts()).thenReturn(2);
+        when(dynamicConfig.getAccountLockoutDurationMinutes()).thenReturn(30);
+        when(userRepo.lockIfNotLocked(eq(testUser.getEmail()), eq(2), any(Date.class), any(Date.class))).thenReturn(1);
         when(userRepo.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
-        when(userRepo.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        accountSecurityService.incrementFailedLoginAttempts(testUser.getEmail());
-        accountSecurityService.incrementFailedLoginAttempts(testUser.getEmail());
+        accountSecurityService.incrementFailedLoginAttempts(testUser.getEmail(), "10.0.0.1");
+        accountSecurityService.incrementFailedLoginAttempts(testUser.getEmail(), "10.0.0.1");
 
-        verify(userRepo, atLeastOnce()).save(testUser);
-        assertThat(testUser.getAccountLockedUntil()).isNotNull();
+        // Failures below the threshold never touch the user row
+        verify(userRepo, never()).save(any(User.class));
+        verify(userRepo, times(1)).lockIfNotLocked(eq(testUser.getEmail()), eq(2), any(Date.class), any(Date.class));
         verify(emailService, times(1))
                 .sendAccountLockedEmail(eq(testUser.getEmail()), anyString(), eq(30));
+        verify(auditService).logSecurityEvent(testUser, "ACCOUNT_LOCKED", true);
+        assertThat(failedLoginTracker.currentCount("account:lock@test.com")).isZero();
     }
 
     @Test
-    void resetFailedLoginAttemptsShouldSetCounterToZero() {
-        testUser.setFailedLoginAttempts(5);
-        when(userRepo.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+    void alreadyLockedAccountShouldNotBeNotifiedAgain() {
+        when(dynamicConfig.getMaxFailedLoginAttempts()).thenReturn(1);
+        when(dynamicConfig.getAccountLockoutDurationMinutes()).thenReturn(30);
+        when(userRepo.lockIfNotLocked(anyString(), anyInt(), any(Date.class), any(Date.class))).thenReturn(0);
+
+        accountSecurityService.incrementFailedLoginAttempts(testUser.getEmail(), "10.0.0.1");
+
+        verify(userRepo, never()).findByEmail(anyString());
+        verifyNoInteractions(emailService, auditService);
+    }
+
+    @Test
+    void resetFailedLoginAttemptsShouldClearWindowWithoutDatabaseWrite() {
+        when(dynamicConfig.getMaxFailedLoginAttempts()).thenReturn(5);
+        accountSecurityService.incrementFailedLoginAttempts("Lock@Test.com", null);
 
         accountSecurityService.resetFailedLoginAttempts(testUser.getEmail());
 
-        assertThat(testUser.getFailedLoginAttempts()).isZero();
-        verify(userRepo).save(testUser);
+        assertThat(failedLoginTracker.currentCount("account:lock@test.com")).isZero();
+        verifyNoInteractions(userRepo);
     }
-}
 
+    @Test
+    void ipShouldBeBlockedAfterFailuresAcrossAccounts() {
+        when(dynamicConfig.getMaxFailedLoginAttempts()).thenReturn(5);
+
+        accountSecurityService.incrementFailedLoginAttempts("a@test.com", "10.0.0.9");
+        accountSecurityService.incrementFailedLoginAttempts("b@test.com", "10.0.0.9");
+        assertThat(accountSecurityService.isLoginBlockedForIp("10.0.0.9")).isFalse();
+
+        accountSecurityService.incrementFailedLoginAttempts("c@test.com", "10.0.0.9");
+        assertThat(accountSecurityService.isLoginBlockedForIp("10.0.0.9")).isTrue();
+        assertThat(accountSecurityService.isLoginBlockedForIp("10.0.0.10")).isFalse();
+    }
+}
@@ -0,0 +1,167 @@
+package com.siyamuddin.blog.blogappapis.Services;
+
+import com.siyamuddin.blog.blogappapis.Entity.AppSetting;
+import com.siyamuddin.blog.blogappapis.Repository.AppSettingRepo;
+import com.siyamuddin.blog.blogappapis.Services.Impl.AppSettingsServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AppSettingsServiceImplTest {
+
+    @Mock
+    private AppSettingRepo appSettingRepo;
+
+    @Mock
+    private AuditService auditService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private AppSettingsServiceImpl appSettingsService;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setup() {
+        lenient().when(appSettingRepo.findAll()).thenAnswer(invocation -> {
+            loads.incrementAndGet();
+            // Simulate a database round trip so reloads overlap with readers
+            Thread.sleep(5);
+            List<AppSetting> settings = new ArrayList<>();
+            settings.add(setting("email.enabled", "true"));
+            settings.add(setting("oauth.google.enabled", "true"));
+            for (int i = 0; i < 200; i++) {
+                settings.add(setting("filler." + i, String.valueOf(i)));
+            }
+            return settings;
+        });
+    }
+
+    @Test
+    void readersShouldNeverSeeDefaultsWhileSettingsReload() throws Exception {
+        appSettingsService.getSettingValue("email.enabled", "false");
+        ExecutorService pool = Executors.newFixedThreadPool(10);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        AtomicLong defaultsSeen = new AtomicLong();
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                readers.add(pool.submit(() -> {
+                    while (running.get()) {
+                        if (!"true".equals(appSettingsService.getSettingValue("email.enabled", "false"))
+                                || !"true".equals(appSettingsService.getSettingValue("oauth.google.enabled", "false"))) {
+                            defaultsSeen.incrementAndGet();
+                        }
+                        reads.incrementAndGet();
+                    }
+                }));
+            }
+            List<Future<?>> reloaders = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                reloaders.add(pool.submit(() -> {
+                    for (int r = 0; r < 50; r++) {
+                        appSettingsService.refreshConfiguration();
+                    }
+                }));
+            }
+            for (Future<?> reloader : reloaders) {
+                reloader.get(30, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            running.set(false);
+            pool.shutdownNow();
+        }
+
+        assertThat(reads.get()).isPositive();
+        assertThat(defaultsSeen.get()).isZero();
+    }
+
+    @Test
+    void concurrentFirstReadsShouldLoadOnce() throws Exception {
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return appSettingsService.getSettingValue("email.enabled", "false");
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("true");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(appSettingRepo, times(1)).findAll();
+    }
+
+    @Test
+    void overlappingReloadsShouldBeCoalesced() throws Exception {
+        appSettingsService.getSettingValue("email.enabled", "false");
+        loads.set(0);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    appSettingsService.refreshConfiguration();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Callers that asked while a reload was running share the next one instead of queueing their own
+        assertThat(loads.get()).isLessThan(threads);
+    }
+
+    private static AppSetting setting(String key, String value) {
+        AppSetting setting = new AppSetting();
+        setting.setSettingKey(key);
+        setting.setSettingValue(value);
+        setting.setSettingCategory(AppSetting.SettingCategory.EMAIL);
+        setting.setIsSensitive(false);
+        return setting;
+    }
+}
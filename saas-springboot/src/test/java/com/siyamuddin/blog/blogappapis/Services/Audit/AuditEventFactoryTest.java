@@ -0,0 +1,47 @@
+package com.siyamuddin.blog.blogappapis.Services.Audit;
+
+import com.siyamuddin.blog.blogappapis.Security.RequestIdFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditEventFactoryTest {
+
+    private final AuditEventFactory factory = new AuditEventFactory();
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        MDC.clear();
+    }
+
+    @Test
+    void captureShouldResolveRequestContextOnCallerThread() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("203.0.113.7");
+        request.addHeader("User-Agent", "x".repeat(800));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        MDC.put(RequestIdFilter.REQUEST_ID_MDC_KEY, "req-1");
+
+        AuditEvent event = factory.capture(42, "LOGIN", "USER", 42, true, null);
+
+        assertThat(event.ipAddress()).isEqualTo("203.0.113.7");
+        assertThat(event.userAgent()).hasSize(500);
+        assertThat(event.requestId()).isEqualTo("req-1");
+        assertThat(event.resourceId()).isEqualTo("42");
+        assertThat(event.timestamp()).isNotNull();
+    }
+
+    @Test
+    void captureShouldTolerateMissingRequest() {
+        AuditEvent event = factory.capture(null, "CLEANUP", "SYSTEM", null, true, null);
+
+        assertThat(event.ipAddress()).isEqualTo("unknown");
+        assertThat(event.requestId()).isNull();
+    }
+}
@@ -0,0 +1,77 @@
+package com.siyamuddin.blog.blogappapis.Services.Audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditRingBufferTest {
+
+    @Test
+    void offerShouldFailWhenFull() {
+        AuditRingBuffer buffer = new AuditRingBuffer(3);
+
+        assertThat(buffer.capacity()).isEqualTo(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(event(i))).isTrue();
+        }
+        assertThat(buffer.offer(event(4))).isFalse();
+
+        List<AuditEvent> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained, 2)).isEqualTo(2);
+        assertThat(buffer.offer(event(5))).isTrue();
+        assertThat(buffer.size()).isEqualTo(3);
+    }
+
+    @Test
+    void concurrentProducersShouldNeitherLoseNorDuplicateEvents() throws Exception {
+        int producers = 4;
+        int perProducer = 20_000;
+        AuditRingBuffer buffer = new AuditRingBuffer(256);
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    AuditEvent event = event(base + i);
+                    while (!buffer.offer(event)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        Set<Integer> seen = new HashSet<>();
+        List<AuditEvent> batch = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (seen.size() < producers * perProducer && System.nanoTime() < deadline) {
+            batch.clear();
+            buffer.drainTo(batch, 64);
+            for (AuditEvent event : batch) {
+                assertThat(seen.add(event.userId())).isTrue();
+            }
+        }
+        pool.shutdown();
+
+        assertThat(seen).hasSize(producers * perProducer);
+        assertThat(buffer.size()).isZero();
+    }
+
+    private static AuditEvent event(int id) {
+        return new AuditEvent(null, id, "TEST", null, null, null, null, null, true, null, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,81 @@
+package com.siyamuddin.blog.blogappapis.Services.Audit;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.AuditProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditRollupJobTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private AuditRollupJob rollupJob;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:audit-rollup;MODE=MySQL;NON_KEYWORDS=TIMESTAMP;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE audit_log (id BIGINT AUTO_INCREMENT PRIMARY KEY, action VARCHAR(100), " +
+                "success BOOLEAN, timestamp TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE audit_log_rollup (id BIGINT AUTO_INCREMENT PRIMARY KEY, granularity VARCHAR(10), " +
+                "bucket_start TIMESTAMP, action VARCHAR(100), success BOOLEAN, event_count BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE audit_rollup_watermark (name VARCHAR(50) PRIMARY KEY, last_id BIGINT, updated_at TIMESTAMP)");
+        rollupJob = new AuditRollupJob(jdbcTemplate, new AuditProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void rollupShouldCountEachRowOnceIntoHourAndDayBuckets() {
+        LocalDateTime base = LocalDateTime.of(2026, 3, 1, 10, 0);
+        insert("LOGIN", true, base.plusMinutes(5));
+        insert("LOGIN", true, base.plusMinutes(50));
+        insert("LOGIN", false, base.plusMinutes(55));
+        insert("LOGIN", true, base.plusHours(1).plusMinutes(1));
+
+        assertThat(rollupJob.rollupUpTo(maxId())).isEqualTo(4);
+        assertThat(rollupJob.rollupUpTo(maxId())).isZero();
+
+        assertThat(count("HOUR", base, "LOGIN", true)).isEqualTo(2);
+        assertThat(count("HOUR", base, "LOGIN", false)).isEqualTo(1);
+        assertThat(count("HOUR", base.plusHours(1), "LOGIN", true)).isEqualTo(1);
+        assertThat(count("DAY", base.toLocalDate().atStartOfDay(), "LOGIN", true)).isEqualTo(3);
+    }
+
+    @Test
+    void lateRowsShouldBeAddedToExistingBuckets() {
+        LocalDateTime base = LocalDateTime.of(2026, 3, 1, 10, 0);
+        insert("LOGIN", true, base.plusMinutes(5));
+        rollupJob.rollupUpTo(maxId());
+
+        // e.g. a batch re-inserted after a database outage
+        insert("LOGIN", true, base.plusMinutes(30));
+        rollupJob.rollupUpTo(maxId());
+
+        assertThat(count("HOUR", base, "LOGIN", true)).isEqualTo(2);
+    }
+
+    private void insert(String action, boolean success, LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO audit_log (action, success, timestamp) VALUES (?, ?, ?)",
+                action, success, Timestamp.valueOf(timestamp));
+    }
+
+    private long maxId() {
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM audit_log", Long.class);
+    }
+
+    private Long count(String granularity, LocalDateTime bucketStart, String action, boolean success) {
+        return jdbcTemplate.queryForObject(
+                "SELECT event_count FROM audit_log_rollup WHERE granularity = ? AND bucket_start = ? AND action = ? AND success = ?",
+                Long.class, granularity, Timestamp.valueOf(bucketStart), action, success);
+    }
+}
@@ -0,0 +1,168 @@
+package com.siyamuddin.blog.blogappapis.Services.Audit;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.AuditProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuditSpoolTest {
+
+    @TempDir
+    Path spoolDirectory;
+
+    @Test
+    void sealedSegmentShouldRoundTripEvents() throws Exception {
+        AuditSpool spool = newSpool();
+        spool.appendAll(List.of(event("LOGIN"), event("LOGOUT")));
+        spool.append(event("PASSWORD_CHANGED"));
+
+        List<Path> segments = spool.sealedSegments();
+        List<AuditEvent> read = new ArrayList<>();
+        spool.read(segments.get(0), read::add);
+
+        assertThat(segments).hasSize(1);
+        assertThat(read).extracting(AuditEvent::action).containsExactly("LOGIN", "LOGOUT", "PASSWORD_CHANGED");
+        assertThat(read.get(0).timestamp()).isNotNull();
+    }
+
+    @Test
+    void tornTailRecordShouldBeIgnored() throws Exception {
+        AuditSpool spool = newSpool();
+        spool.append(event("LOGIN"));
+        Path segment = spool.sealedSegments().get(0);
+        // Simulate a crash in the middle of writing the next record
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        List<AuditEvent> read = new ArrayList<>();
+        spool.read(segment, read::add);
+
+        assertThat(read).extracting(AuditEvent::action).containsExactly("LOGIN");
+    }
+
+    @Test
+    void segmentsLeftByPreviousRunShouldBePickedUp() throws Exception {
+        newSpool().append(event("LOGIN"));
+
+        AuditSpool restarted = newSpool();
+
+        assertThat(restarted.isEmpty()).isFalse();
+        assertThat(restarted.sealedSegments()).hasSize(1);
+    }
+
+    @Test
+    void replayShouldSkipEventsAlreadyStored() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:audit-spool;MODE=MySQL;NON_KEYWORDS=TIMESTAMP;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE audit_log (id BIGINT AUTO_INCREMENT PRIMARY KEY, event_id VARCHAR(36), " +
+                "user_id INT, action VARCHAR(100), resource_type VARCHAR(100), resource_id VARCHAR(255), " +
+                "ip_address VARCHAR(45), user_agent VARCHAR(500), request_id VARCHAR(64), timestamp TIMESTAMP, " +
+                "success BOOLEAN, error_message VARCHAR(1000))");
+        try {
+            AuditLogBatchInserter inserter = new AuditLogBatchInserter(jdbcTemplate);
+            AuditEvent alreadyStored = event("LOGIN");
+            inserter.insert(List.of(alreadyStored));
+
+            AuditSpool spool = newSpool();
+            spool.appendAll(List.of(alreadyStored, event("LOGOUT")));
+            AuditDatabaseHealth health = new AuditDatabaseHealth(new SimpleMeterRegistry());
+            health.markUnhealthy(new IllegalStateException("outage"));
+            AuditSpoolReplayer replayer = new AuditSpoolReplayer(
+                    spool, inserter, health, jdbcTemplate, new AuditProperties(), new SimpleMeterRegistry());
+
+            replayer.replay();
+
+            assertThat(health.isHealthy()).isTrue();
+            assertThat(spool.isEmpty()).isTrue();
+            assertThat(jdbcTemplate.queryForList("SELECT action FROM audit_log ORDER BY id", String.class))
+                    .containsExactly("LOGIN", "LOGOUT");
+        } finally {
+            jdbcTemplate.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    @Test
+    void transientRowFailureShouldKeepTheSegmentForTheNextPass() throws Exception {
+        AuditSpool spool = newSpool();
+        spool.appendAll(List.of(event("LOGIN"), event("LOGOUT")));
+        AuditDatabaseHealth health = new AuditDatabaseHealth(new SimpleMeterRegistry());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuditSpoolReplayer replayer = new AuditSpoolReplayer(spool,
+                failingInserter(new CannotAcquireLockException("Lock wait timeout exceeded")),
+                health, reachableDatabase(), new AuditProperties(), meterRegistry);
+
+        replayer.replay();
+
+        assertThat(health.isHealthy()).isFalse();
+        assertThat(spool.sealedSegments()).hasSize(1);
+        assertThat(meterRegistry.get("app.audit.spool.rejected").counter().count()).isZero();
+    }
+
+    @Test
+    void rowTheDatabaseRejectsForGoodShouldBeDiscarded() throws Exception {
+        AuditSpool spool = newSpool();
+        spool.appendAll(List.of(event("LOGIN"), event("LOGOUT")));
+        AuditDatabaseHealth health = new AuditDatabaseHealth(new SimpleMeterRegistry());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuditSpoolReplayer replayer = new AuditSpoolReplayer(spool,
+                failingInserter(new DataIntegrityViolationException("Data too long for column 'action'")),
+                health, reachableDatabase(), new AuditProperties(), meterRegistry);
+
+        replayer.replay();
+
+        assertThat(health.isHealthy()).isTrue();
+        assertThat(spool.isEmpty()).isTrue();
+        assertThat(meterRegistry.get("app.audit.spool.rejected").counter().count()).isEqualTo(1);
+    }
+
+    /**
+     * Fails every batch, then the single-row retry of LOGIN with {@code rowError}.
+     */
+    private static AuditLogBatchInserter failingInserter(DataAccessException rowError) {
+        return new AuditLogBatchInserter(mock(JdbcTemplate.class)) {
+            @Override
+            public int insertNew(List<AuditEvent> events) {
+                if (events.size() > 1) {
+                    throw new DataIntegrityViolationException("batch rejected");
+                }
+                if ("LOGIN".equals(events.get(0).action())) {
+                    throw rowError;
+                }
+                return 1;
+            }
+        };
+    }
+
+    private static JdbcTemplate reachableDatabase() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject("SELECT 1", Integer.class)).thenReturn(1);
+        return jdbcTemplate;
+    }
+
+    private AuditSpool newSpool() throws Exception {
+        AuditProperties properties = new AuditProperties();
+        properties.getSpool().setDirectory(spoolDirectory.toString());
+        return new AuditSpool(properties, new SimpleMeterRegistry());
+    }
+
+    private static AuditEvent event(String action) {
+        return new AuditEvent(UUID.randomUUID().toString(), 1, action, "USER", "1", "127.0.0.1", "junit",
+                "req-1", true, null, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,50 @@
+package com.siyamuddin.blog.blogappapis.Services.Config;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.EmailProperties;
+import com.siyamuddin.blog.blogappapis.Config.Properties.RateLimitProperties;
+import com.siyamuddin.blog.blogappapis.Config.Properties.SecurityProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DynamicConfigSnapshotTest {
+
+    private final SecurityProperties securityProperties = new SecurityProperties();
+    private final RateLimitProperties rateLimitProperties = new RateLimitProperties();
+    private final EmailProperties emailProperties = new EmailProperties();
+
+    @Test
+    void databaseValuesShouldOverrideProperties() {
+        DynamicConfigSnapshot snapshot = compile(Map.of(
+                "security.maxFailedLoginAttempts", "7",
+                "security.passwordRequireDigit", "false",
+                "email.from", "admin@example.com"));
+
+        assertThat(snapshot.maxFailedLoginAttempts()).isEqualTo(7);
+        assertThat(snapshot.passwordRequireDigit()).isFalse();
+        assertThat(snapshot.emailFrom()).isEqualTo("admin@example.com");
+        assertThat(snapshot.passwordMinLength()).isEqualTo(securityProperties.getPasswordMinLength());
+    }
+
+    @Test
+    void invalidValuesShouldFallBackToPropertiesAtBuildTime() {
+        DynamicConfigSnapshot snapshot = compile(Map.of(
+                "security.maxFailedLoginAttempts", "lots",
+                "security.sessionTimeoutMinutes", "-5",
+                "security.passwordRequireUppercase", "yes",
+                "security.passwordMinLength", "20",
+                "security.passwordMaxLength", "10"));
+
+        assertThat(snapshot.maxFailedLoginAttempts()).isEqualTo(securityProperties.getMaxFailedLoginAttempts());
+        assertThat(snapshot.sessionTimeoutMinutes()).isEqualTo(securityProperties.getSessionTimeoutMinutes());
+        assertThat(snapshot.passwordRequireUppercase()).isEqualTo(securityProperties.getPasswordRequireUppercase());
+        assertThat(snapshot.passwordMinLength()).isEqualTo(securityProperties.getPasswordMinLength());
+        assertThat(snapshot.passwordMaxLength()).isEqualTo(securityProperties.getPasswordMaxLength());
+    }
+
+    private DynamicConfigSnapshot compile(Map<String, String> settings) {
+        return DynamicConfigSnapshot.compile(settings::get, securityProperties, rateLimitProperties, emailProperties);
+    }
+}
@@ -0,0 +1,110 @@
+package com.siyamuddin.blog.blogappapis.Services.Config;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.SettingsSyncProperties;
+import com.siyamuddin.blog.blogappapis.Entity.AppSetting;
+import com.siyamuddin.blog.blogappapis.Repository.AppSettingRepo;
+import com.siyamuddin.blog.blogappapis.Services.AppSettingsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SettingsChangeCoordinatorTest {
+
+    private AppSettingRepo appSettingRepo;
+    private AppSettingsService appSettingsService;
+    private StringRedisTemplate redisTemplate;
+    private SettingsChangeCoordinator coordinator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        appSettingRepo = mock(AppSettingRepo.class);
+        appSettingsService = mock(AppSettingsService.class);
+        redisTemplate = mock(StringRedisTemplate.class);
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(redisTemplate);
+        coordinator = new SettingsChangeCoordinator(appSettingRepo, appSettingsService,
+                new SettingsSyncProperties(), provider, new SimpleMeterRegistry());
+        when(appSettingRepo.findSettingsVersion()).thenReturn(new SettingsVersion(100L, 40L, 4000L));
+        coordinator.start();
+    }
+
+    @Test
+    void pollShouldDoNothingWhenVersionIsUnchanged() {
+        coordinator.poll();
+
+        verify(appSettingsService, never()).applyCommittedChange(any());
+    }
+
+    @Test
+    void pollShouldReloadOnlyTheCategoriesThatChanged() {
+        when(appSettingRepo.findSettingsVersion()).thenReturn(new SettingsVersion(200L, 40L, 4100L));
+        when(appSettingRepo.findCategoriesWithVersionAtLeast(100L))
+                .thenReturn(List.of(AppSetting.SettingCategory.RATE_LIMIT));
+
+        coordinator.poll();
+        coordinator.poll();
+
+        verify(appSettingsService).applyCommittedChange(EnumSet.of(AppSetting.SettingCategory.RATE_LIMIT));
+    }
+
+    @Test
+    void deletedRowsShouldReloadEveryCategory() {
+        when(appSettingRepo.findSettingsVersion()).thenReturn(new SettingsVersion(100L, 30L, 3000L));
+
+        coordinator.poll();
+
+        verify(appSettingsService).applyCommittedChange(EnumSet.allOf(AppSetting.SettingCategory.class));
+    }
+
+    @Test
+    void notificationsShouldReloadUnlessThisNodeSentThem() {
+        coordinator.onLocalChange(new SettingsSavedEvent(Set.of(AppSetting.SettingCategory.EMAIL)));
+        ArgumentCaptor<String> ownNodeId = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq("app:settings:changed"), ownNodeId.capture());
+        when(appSettingRepo.findSettingsVersion()).thenReturn(new SettingsVersion(300L, 40L, 4200L));
+        when(appSettingRepo.findCategoriesWithVersionAtLeast(100L))
+                .thenReturn(List.of(AppSetting.SettingCategory.OAUTH));
+
+        coordinator.onNotification(ownNodeId.getValue());
+        verify(appSettingsService, never()).applyCommittedChange(any());
+
+        coordinator.onNotification("another-node");
+        verify(appSettingsService).applyCommittedChange(EnumSet.of(AppSetting.SettingCategory.OAUTH));
+    }
+
+    @Test
+    void localChangeShouldBeAnnouncedToOtherNodes() {
+        coordinator.onLocalChange(new SettingsSavedEvent(Set.of(AppSetting.SettingCategory.EMAIL)));
+
+        verify(redisTemplate).convertAndSend(eq("app:settings:changed"), anyString());
+    }
+
+    @Test
+    void committedLocalChangeShouldReloadThisNodeOnceForTheSavedCategories() {
+        when(appSettingRepo.findSettingsVersion()).thenReturn(new SettingsVersion(150L, 40L, 4050L));
+        when(appSettingRepo.findCategoriesWithVersionAtLeast(100L))
+                .thenReturn(List.of(AppSetting.SettingCategory.EMAIL));
+
+        coordinator.onLocalChange(new SettingsSavedEvent(Set.of(AppSetting.SettingCategory.EMAIL)));
+        coordinator.poll();
+
+        verify(appSettingsService).applyCommittedChange(EnumSet.of(AppSetting.SettingCategory.EMAIL));
+    }
+}
@@ -0,0 +1,63 @@
+package com.siyamuddin.blog.blogappapis.Services.Config;
+
+import org.jasypt.util.text.BasicTextEncryptor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decrypting every sensitive row on a settings reload, the old way (a new Jasypt encryptor and
+ * key derivation per value) against {@link SettingsCipher}'s cached key and per-thread cipher.
+ * Not part of the normal build; run with
+ * {@code mvn test -Dtest=SettingsCipherBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SettingsCipherBenchmark {
+
+    private static final String PASSWORD = "test-master-password";
+    private static final int VALUES = 300;
+
+    @Test
+    void perValueJasyptVersusCachedCipher() {
+        SettingsCipher cipher = new SettingsCipher(PASSWORD);
+        List<String> legacyValues = new ArrayList<>();
+        List<String> currentValues = new ArrayList<>();
+        for (int i = 0; i < VALUES; i++) {
+            legacyValues.add(legacyEncryptor().encrypt("secret-" + i));
+            currentValues.add(cipher.encrypt("secret-" + i));
+        }
+        // Warm up both paths
+        decryptPerValueEncryptor(legacyValues);
+        currentValues.forEach(cipher::decrypt);
+
+        long legacyNanos = best(() -> decryptPerValueEncryptor(legacyValues));
+        long cachedNanos = best(() -> currentValues.forEach(cipher::decrypt));
+
+        System.out.printf("%nSettings reload decrypt of %d values: per-value Jasypt %.2f ms, cached AES-GCM %.2f ms%n",
+                VALUES, legacyNanos / 1e6, cachedNanos / 1e6);
+    }
+
+    private static void decryptPerValueEncryptor(List<String> stored) {
+        for (String value : stored) {
+            legacyEncryptor().decrypt(value);
+        }
+    }
+
+    private static long best(Runnable run) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static BasicTextEncryptor legacyEncryptor() {
+        BasicTextEncryptor encryptor = new BasicTextEncryptor();
+        encryptor.setPassword(PASSWORD);
+        return encryptor;
+    }
+}
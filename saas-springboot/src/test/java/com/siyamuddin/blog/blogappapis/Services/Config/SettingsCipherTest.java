@@ -0,0 +1,83 @@
+package com.siyamuddin.blog.blogappapis.Services.Config;
+
+import org.jasypt.util.text.BasicTextEncryptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SettingsCipherTest {
+
+    private static final String PASSWORD = "test-master-password";
+
+    private final SettingsCipher cipher = new SettingsCipher(PASSWORD);
+
+    @Test
+    void valuesShouldRoundTripWithAFreshNonceEachTime() {
+        String first = cipher.encrypt("smtp-secret");
+        String second = cipher.encrypt("smtp-secret");
+
+        assertThat(first).startsWith(SettingsCipher.PREFIX).isNotEqualTo(second);
+        assertThat(cipher.decrypt(first)).isEqualTo("smtp-secret");
+        assertThat(cipher.decrypt(second)).isEqualTo("smtp-secret");
+        assertThat(cipher.isLegacy(first)).isFalse();
+    }
+
+    @Test
+    void tamperedValuesShouldBeRejected() {
+        String stored = cipher.encrypt("smtp-secret");
+        char[] chars = stored.toCharArray();
+        // A character in the middle of the ciphertext, away from base64 padding bits
+        int middle = SettingsCipher.PREFIX.length() + 24;
+        chars[middle] = chars[middle] == 'A' ? 'B' : 'A';
+
+        assertThatThrownBy(() -> cipher.decrypt(new String(chars))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void anotherNodeWithTheSamePasswordShouldDecrypt() {
+        String stored = cipher.encrypt("oauth-client-secret");
+
+        assertThat(new SettingsCipher(PASSWORD).decrypt(stored)).isEqualTo("oauth-client-secret");
+        assertThatThrownBy(() -> new SettingsCipher("other-password").decrypt(stored))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void legacyJasyptValuesShouldStillDecrypt() {
+        String legacy = legacyEncryptor().encrypt("s3-secret-key");
+
+        assertThat(cipher.isLegacy(legacy)).isTrue();
+        assertThat(cipher.decrypt(legacy)).isEqualTo("s3-secret-key");
+        assertThat(cipher.decrypt(cipher.encrypt(cipher.decrypt(legacy)))).isEqualTo("s3-secret-key");
+    }
+
+    @Test
+    void reloadDecryptionShouldReuseOneCipherPerThread() {
+        AtomicInteger built = new AtomicInteger();
+        SettingsCipher counting = new SettingsCipher(PASSWORD, () -> {
+            built.incrementAndGet();
+            return SettingsCipher.newCipher();
+        });
+        List<String> stored = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            stored.add(counting.encrypt("secret-" + i));
+        }
+
+        for (int i = 0; i < stored.size(); i++) {
+            assertThat(counting.decrypt(stored.get(i))).isEqualTo("secret-" + i);
+        }
+
+        assertThat(built).hasValue(1);
+    }
+
+    private static BasicTextEncryptor legacyEncryptor() {
+        BasicTextEncryptor encryptor = new BasicTextEncryptor();
+        encryptor.setPassword(PASSWORD);
+        return encryptor;
+    }
+}
@@ -0,0 +1,138 @@
+package com.siyamuddin.blog.blogappapis.Services.Email;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.EmailProperties;
+import com.siyamuddin.blog.blogappapis.Services.DynamicConfigService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmailOutboxDispatcherTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private EmailProperties emailProperties;
+    private DynamicConfigService dynamicConfig;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:email-outbox;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE email_outbox (id BIGINT AUTO_INCREMENT PRIMARY KEY, recipient VARCHAR(255), " +
+                "subject VARCHAR(255), body TEXT, status VARCHAR(20), attempts INT, next_attempt_at TIMESTAMP, " +
+                "claim_token VARCHAR(36), claimed_at TIMESTAMP, created_at TIMESTAMP, sent_at TIMESTAMP, last_error VARCHAR(1000))");
+        emailProperties = new EmailProperties();
+        dynamicConfig = mock(DynamicConfigService.class);
+        when(dynamicConfig.getEmailFrom()).thenReturn("noreply@example.com");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void batchShouldBeSentOverOneConnection() throws Exception {
+        try (SmtpStandIn smtp = new SmtpStandIn()) {
+            for (int i = 0; i < 5; i++) {
+                enqueue("user" + i + "@example.com");
+            }
+
+            dispatcher(smtp).dispatch();
+
+            assertThat(smtp.connections()).isEqualTo(1);
+            assertThat(smtp.delivered()).hasSize(5);
+            assertThat(count("SENT")).isEqualTo(5);
+            assertThat(meterRegistry.get("app.email.outbox.depth").gauge().value()).isZero();
+        }
+    }
+
+    @Test
+    void rejectedMessageShouldBeRetriedLaterWithoutHoldingUpTheBatch() throws Exception {
+        try (SmtpStandIn smtp = new SmtpStandIn("bounce@example.com")) {
+            enqueue("first@example.com");
+            enqueue("bounce@example.com");
+            enqueue("last@example.com");
+
+            dispatcher(smtp).dispatch();
+
+            assertThat(smtp.delivered()).containsExactly("first@example.com", "last@example.com");
+            Map<String, Object> bounced = jdbcTemplate.queryForMap(
+                    "SELECT status, attempts, next_attempt_at, last_error FROM email_outbox WHERE recipient = 'bounce@example.com'");
+            assertThat(bounced.get("status")).isEqualTo("PENDING");
+            assertThat(bounced.get("attempts")).isEqualTo(1);
+            assertThat(((Timestamp) bounced.get("next_attempt_at")).toLocalDateTime()).isAfter(LocalDateTime.now());
+            assertThat(bounced.get("last_error")).isNotNull();
+            assertThat(meterRegistry.get("app.email.outbox.retried").counter().count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void unreachableServerShouldRescheduleWholeBatch() throws Exception {
+        SmtpStandIn smtp = new SmtpStandIn();
+        smtp.close();
+        enqueue("a@example.com");
+        enqueue("b@example.com");
+
+        dispatcher(smtp).dispatch();
+
+        assertThat(count("PENDING")).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT MIN(attempts) FROM email_outbox", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void messageShouldBeMarkedFailedAfterMaxAttempts() throws Exception {
+        emailProperties.getOutbox().setMaxAttempts(2);
+        try (SmtpStandIn smtp = new SmtpStandIn("bounce@example.com")) {
+            enqueue("bounce@example.com");
+            jdbcTemplate.update("UPDATE email_outbox SET attempts = 1");
+
+            dispatcher(smtp).dispatch();
+
+            assertThat(count("FAILED")).isEqualTo(1);
+            assertThat(meterRegistry.get("app.email.outbox.failed").counter().count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void backoffShouldGrowExponentiallyUpToTheCap() {
+        EmailOutboxDispatcher dispatcher = new EmailOutboxDispatcher(jdbcTemplate, new JavaMailSenderImpl(),
+                dynamicConfig, emailProperties, meterRegistry);
+
+        assertThat(dispatcher.backoff(1)).isBetween(Duration.ofSeconds(5), Duration.ofSeconds(10));
+        assertThat(dispatcher.backoff(3)).isBetween(Duration.ofSeconds(20), Duration.ofSeconds(40));
+        assertThat(dispatcher.backoff(30)).isBetween(Duration.ofMinutes(30), Duration.ofHours(1));
+    }
+
+    private EmailOutboxDispatcher dispatcher(SmtpStandIn smtp) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.port());
+        mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+        mailSender.getJavaMailProperties().put("mail.smtp.timeout", "2000");
+        return new EmailOutboxDispatcher(jdbcTemplate, mailSender, dynamicConfig, emailProperties, meterRegistry);
+    }
+
+    private void enqueue(String recipient) {
+        LocalDateTime now = LocalDateTime.now().minusSeconds(1);
+        jdbcTemplate.update("INSERT INTO email_outbox (recipient, subject, body, status, attempts, next_attempt_at, created_at) " +
+                "VALUES (?, 'Subject', 'Body', 'PENDING', 0, ?, ?)", recipient, Timestamp.valueOf(now), Timestamp.valueOf(now));
+    }
+
+    private int count(String status) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM email_outbox WHERE status = ?", Integer.class, status);
+    }
+}
@@ -0,0 +1,112 @@
+package com.siyamuddin.blog.blogappapis.Services.Email;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process SMTP server for tests: accepts any sender, rejects configured recipients
+ * with 550, and records connections and delivered recipients.
+ */
+final class SmtpStandIn implements AutoCloseable {
+
+    private final ServerSocket server;
+    private final Set<String> rejectedRecipients;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+
+    SmtpStandIn(String... rejectedRecipients) throws IOException {
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.rejectedRecipients = Set.of(rejectedRecipients);
+        Thread acceptor = new Thread(this::acceptLoop, "smtp-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int port() {
+        return server.getLocalPort();
+    }
+
+    int connections() {
+        return connections.get();
+    }
+
+    List<String> delivered() {
+        synchronized (delivered) {
+            return List.copyOf(delivered);
+        }
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                connections.incrementAndGet();
+                serve(socket);
+            } catch (IOException e) {
+                // Closed, or the client hung up
+            }
+        }
+    }
+
+    private void serve(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+        reply(out, "220 stand-in ESMTP");
+        List<String> recipients = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            String command = line.toUpperCase();
+            if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                reply(out, "250 stand-in");
+            } else if (command.startsWith("MAIL FROM")) {
+                recipients.clear();
+                reply(out, "250 OK");
+            } else if (command.startsWith("RCPT TO")) {
+                String address = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                if (rejectedRecipients.contains(address)) {
+                    reply(out, "550 No such user");
+                } else {
+                    recipients.add(address);
+                    reply(out, "250 OK");
+                }
+            } else if (command.startsWith("DATA")) {
+                reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                while ((line = in.readLine()) != null && !line.equals(".")) {
+                    // Discard the message content
+                }
+                delivered.addAll(recipients);
+                recipients.clear();
+                reply(out, "250 OK");
+            } else if (command.startsWith("RSET") || command.startsWith("NOOP")) {
+                recipients.clear();
+                reply(out, "250 OK");
+            } else if (command.startsWith("QUIT")) {
+                reply(out, "221 Bye");
+                return;
+            } else {
+                reply(out, "502 Command not implemented");
+            }
+        }
+    }
+
+    private static void reply(Writer out, String line) throws IOException {
+        out.write(line + "\r\n");
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+}
@@ -0,0 +1,120 @@
+package com.siyamuddin.blog.blogappapis.Services.Image;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageVariantRendererTest {
+
+    private final ImageVariantRenderer renderer = new ImageVariantRenderer(0.85f, 10_000_000L);
+
+    @Test
+    void shouldRenderSquareVariantsWithoutScalingUp() throws Exception {
+        byte[] source = encode(halves(400, 300, BufferedImage.TYPE_INT_RGB), "jpg");
+
+        List<ImageVariantRenderer.Rendered> variants = renderer.render(source, List.of(64, 256, 1024));
+
+        assertThat(variants).extracting(ImageVariantRenderer.Rendered::size).containsExactly(64, 256, 1024);
+        assertThat(variants).allSatisfy(variant -> {
+            assertThat(variant.contentType()).isEqualTo("image/jpeg");
+            assertThat(variant.extension()).isEqualTo("jpg");
+        });
+        assertThat(decode(variants.get(0).bytes()).getWidth()).isEqualTo(64);
+        assertThat(decode(variants.get(1).bytes()).getHeight()).isEqualTo(256);
+        // The center square of the source is 300px; never enlarged
+        BufferedImage largest = decode(variants.get(2).bytes());
+        assertThat(largest.getWidth()).isEqualTo(300);
+        assertThat(largest.getHeight()).isEqualTo(300);
+    }
+
+    @Test
+    void shouldApplyExifOrientationAndDropTheMetadata() throws Exception {
+        // Left half red, right half blue, stored rotated: orientation 6 means "turn 90 degrees clockwise"
+        byte[] source = withOrientation(encode(halves(200, 200, BufferedImage.TYPE_INT_RGB), "jpg"), 6);
+
+        ImageVariantRenderer.Rendered variant = renderer.render(source, List.of(64)).get(0);
+
+        BufferedImage image = decode(variant.bytes());
+        assertThat(isRed(image.getRGB(32, 8))).isTrue();
+        assertThat(isRed(image.getRGB(32, 56))).isFalse();
+        assertThat(new String(variant.bytes(), StandardCharsets.ISO_8859_1)).doesNotContain("Exif");
+    }
+
+    @Test
+    void transparentImagesShouldStayPng() throws Exception {
+        BufferedImage source = new BufferedImage(128, 128, BufferedImage.TYPE_INT_ARGB);
+        source.setRGB(10, 10, 0xFF00FF00);
+
+        ImageVariantRenderer.Rendered variant = renderer.render(encode(source, "png"), List.of(64)).get(0);
+
+        assertThat(variant.contentType()).isEqualTo("image/png");
+        assertThat(decode(variant.bytes()).getColorModel().hasAlpha()).isTrue();
+    }
+
+    @Test
+    void shouldSkipWhatItCannotDecode() throws Exception {
+        byte[] pdf = "%PDF-1.7\n1 0 obj\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] huge = encode(halves(4000, 3000, BufferedImage.TYPE_INT_RGB), "png");
+
+        assertThat(renderer.render(pdf, List.of(64))).isEmpty();
+        assertThat(new ImageVariantRenderer(0.85f, 1_000_000L).render(huge, List.of(64))).isEmpty();
+    }
+
+    private static BufferedImage halves(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(width / 2, 0, width - width / 2, height);
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * Insert a big-endian EXIF APP1 segment holding only the orientation tag right after SOI.
+     */
+    private static byte[] withOrientation(byte[] jpeg, int orientation) {
+        byte[] tiff = {
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1,
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0
+        };
+        int length = 2 + 6 + tiff.length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(0xFF);
+        out.write(0xE1);
+        out.write(length >> 8);
+        out.write(length & 0xFF);
+        out.writeBytes(new byte[]{'E', 'x', 'i', 'f', 0, 0});
+        out.writeBytes(tiff);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    private static boolean isRed(int rgb) {
+        return ((rgb >> 16) & 0xFF) > 200 && (rgb & 0xFF) < 60;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    private static BufferedImage decode(byte[] bytes) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(bytes));
+    }
+}
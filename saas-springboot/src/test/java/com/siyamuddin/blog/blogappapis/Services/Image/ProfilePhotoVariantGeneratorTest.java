@@ -0,0 +1,120 @@
+package com.siyamuddin.blog.blogappapis.Services.Image;
+
+import com.siyamuddin.blog.blogappapis.BlogAppApisApplication;
+import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
+import com.siyamuddin.blog.blogappapis.Config.Properties.ImageVariantProperties;
+import com.siyamuddin.blog.blogappapis.Entity.User;
+import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.UserDto;
+import com.siyamuddin.blog.blogappapis.Repository.UserRepo;
+import com.siyamuddin.blog.blogappapis.Services.Storage.LocalFileStorageService;
+import com.siyamuddin.blog.blogappapis.Services.Storage.StorageCleaner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProfilePhotoVariantGeneratorTest {
+
+    private static final String DIRECTORY = "public/profiles/user-7";
+    private static final String ORIGINAL_KEY = DIRECTORY + "/profile-7-abc.png";
+
+    @TempDir
+    Path basePath;
+
+    private UserRepo userRepo;
+    private StorageCleaner storageCleaner;
+    private ConcurrentMapCacheManager cacheManager;
+    private SimpleMeterRegistry meterRegistry;
+    private ProfilePhotoVariantGenerator generator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        FileStorageProperties fileStorageProperties = new FileStorageProperties();
+        fileStorageProperties.getLocal().setBasePath(basePath.toString());
+        LocalFileStorageService storage = new LocalFileStorageService(fileStorageProperties);
+        ImageVariantProperties properties = new ImageVariantProperties();
+        properties.setSizes(List.of(64, 256));
+
+        userRepo = mock(UserRepo.class);
+        cacheManager = new ConcurrentMapCacheManager("users");
+        ObjectProvider<CacheManager> cacheManagerProvider = mock(ObjectProvider.class);
+        when(cacheManagerProvider.getIfAvailable()).thenReturn(cacheManager);
+        meterRegistry = new SimpleMeterRegistry();
+        storageCleaner = mock(StorageCleaner.class);
+        generator = new ProfilePhotoVariantGenerator(storage, storageCleaner, userRepo, cacheManagerProvider, properties, fileStorageProperties, meterRegistry);
+    }
+
+    @Test
+    void variantsShouldBeStoredNextToTheOriginalAndExposedOnTheDto() throws Exception {
+        writeOriginal();
+        when(userRepo.updateProfileImageVariantSpec(7, ORIGINAL_KEY, "64:jpg,256:jpg")).thenReturn(1);
+        cacheManager.getCache("users").put(7, new UserDto());
+
+        generator.onProfilePhotoStored(new ProfilePhotoStoredEvent(7, ORIGINAL_KEY, DIRECTORY));
+
+        assertThat(ImageIO.read(basePath.resolve(DIRECTORY + "/profile-7-abc-64.jpg").toFile()).getWidth()).isEqualTo(64);
+        assertThat(ImageIO.read(basePath.resolve(DIRECTORY + "/profile-7-abc-256.jpg").toFile()).getWidth()).isEqualTo(256);
+        assertThat(cacheManager.getCache("users").get(7)).isNull();
+        assertThat(meterRegistry.get("app.image.variants.generated").tag("outcome", "rendered").counter().count()).isEqualTo(1);
+
+        User user = new User();
+        user.setProfileImageUrl("/uploads/" + ORIGINAL_KEY);
+        user.setProfileImageStorageKey(ORIGINAL_KEY);
+        user.setProfileImageVariantSpec("64:jpg,256:jpg");
+        UserDto dto = new BlogAppApisApplication().modelMapper().map(user, UserDto.class);
+        assertThat(dto.getProfileImageUrl()).isEqualTo("/uploads/" + ORIGINAL_KEY);
+        assertThat(dto.getProfileImageVariants())
+                .containsEntry(64, "/uploads/" + DIRECTORY + "/profile-7-abc-64.jpg")
+                .containsEntry(256, "/uploads/" + DIRECTORY + "/profile-7-abc-256.jpg");
+    }
+
+    @Test
+    void variantsOfAPhotoReplacedWhileRenderingShouldBeTombstoned() throws Exception {
+        writeOriginal();
+        when(userRepo.updateProfileImageVariantSpec(eq(7), eq(ORIGINAL_KEY), anyString())).thenReturn(0);
+
+        generator.onProfilePhotoStored(new ProfilePhotoStoredEvent(7, ORIGINAL_KEY, DIRECTORY));
+
+        verify(storageCleaner).deleteLater(argThat(keys -> keys.size() == 2
+                && keys.contains(DIRECTORY + "/profile-7-abc-64.jpg")
+                && keys.contains(DIRECTORY + "/profile-7-abc-256.jpg")), eq(ORIGINAL_KEY));
+        assertThat(meterRegistry.get("app.image.variants.generated").tag("outcome", "stale").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void nonImageUploadsShouldBeSkipped() throws Exception {
+        Files.createDirectories(basePath.resolve(DIRECTORY));
+        Files.write(basePath.resolve(DIRECTORY + "/profile-7-abc.pdf"), "%PDF-1.7\n".getBytes());
+
+        generator.onProfilePhotoStored(new ProfilePhotoStoredEvent(7, DIRECTORY + "/profile-7-abc.pdf", DIRECTORY));
+
+        verify(userRepo, never()).updateProfileImageVariantSpec(any(), any(), any());
+        assertThat(meterRegistry.get("app.image.variants.generated").tag("outcome", "skipped").counter().count()).isEqualTo(1);
+    }
+
+    private void writeOriginal() throws Exception {
+        Files.createDirectories(basePath.resolve(DIRECTORY));
+        BufferedImage image = new BufferedImage(600, 400, BufferedImage.TYPE_INT_RGB);
+        ImageIO.write(image, "png", basePath.resolve(ORIGINAL_KEY).toFile());
+    }
+}
@@ -0,0 +1,250 @@
+package com.siyamuddin.blog.blogappapis.Services.OAuth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siyamuddin.blog.blogappapis.Config.OAuthConfig;
+import com.siyamuddin.blog.blogappapis.Config.Properties.OAuthProperties;
+import com.siyamuddin.blog.blogappapis.Exceptions.OAuthProviderUnavailableException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GoogleIdTokenVerifierTest {
+
+    private static final String CLIENT_ID = "client-123.apps.googleusercontent.com";
+    private static final String DISCOVERY = "/.well-known/openid-configuration";
+    private static final String CERTS = "/oauth2/v3/certs";
+
+    private final KeyPair firstKey = rsaKeyPair();
+    private final KeyPair secondKey = rsaKeyPair();
+    private final MutableClock clock = new MutableClock(Instant.now());
+
+    private OAuthProviderStandIn provider;
+    private CloseableHttpClient httpClient;
+    private OAuthProperties properties;
+    private GoogleIdTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        provider = new OAuthProviderStandIn();
+        provider.respond(DISCOVERY, 200, "{\"issuer\":\"https://accounts.google.com\",\"jwks_uri\":\"" + provider.url(CERTS) + "\"}");
+        serveKeys(Map.of("k1", firstKey));
+        properties = new OAuthProperties();
+        properties.getGoogle().setDiscoveryUri(provider.url(DISCOVERY));
+        OAuthConfig config = new OAuthConfig();
+        httpClient = config.oauthHttpClient(properties);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OAuthProviderClient client = new OAuthProviderClient(config.oauthRestTemplate(httpClient), new ObjectMapper(),
+                properties, meterRegistry);
+        verifier = new GoogleIdTokenVerifier(client, new ObjectMapper(), properties, meterRegistry, clock);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        httpClient.close();
+        provider.close();
+    }
+
+    @Test
+    void validTokenShouldBeVerifiedWithoutRefetchingCachedKeys() {
+        Claims claims = verifier.verify(token("k1", firstKey, CLIENT_ID, "https://accounts.google.com", true), CLIENT_ID);
+        verifier.verify(token("k1", firstKey, CLIENT_ID, "accounts.google.com", true), CLIENT_ID);
+
+        assertThat(claims.getSubject()).isEqualTo("1087");
+        assertThat(claims.get("email", String.class)).isEqualTo("ada@example.com");
+        assertThat(provider.requests(DISCOVERY)).isEqualTo(1);
+        assertThat(provider.requests(CERTS)).isEqualTo(1);
+    }
+
+    @Test
+    void tokenNotMeantForUsShouldBeRejected() {
+        assertThatThrownBy(() -> verifier.verify(token("k1", firstKey, "someone-else", "https://accounts.google.com", true), CLIENT_ID))
+                .isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> verifier.verify(token("k1", firstKey, CLIENT_ID, "https://evil.example.com", true), CLIENT_ID))
+                .isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> verifier.verify(token("k1", firstKey, CLIENT_ID, "https://accounts.google.com", false), CLIENT_ID))
+                .isInstanceOf(JwtException.class);
+        // Signed with a key Google doesn't list under that id
+        assertThatThrownBy(() -> verifier.verify(token("k1", secondKey, CLIENT_ID, "https://accounts.google.com", true), CLIENT_ID))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void expiredTokenShouldBeRejected() {
+        String token = token("k1", firstKey, CLIENT_ID, "https://accounts.google.com", true);
+        clock.advance(Duration.ofHours(2));
+
+        assertThatThrownBy(() -> verifier.verify(token, CLIENT_ID)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void rotatedKeyShouldBeFetchedOnDemandButForgedKeyIdsShouldNotForceFetches() {
+        verifier.verify(token("k1", firstKey, CLIENT_ID, "https://accounts.google.com", true), CLIENT_ID);
+        serveKeys(Map.of("k1", firstKey, "k2", secondKey));
+
+        verifier.verify(token("k2", secondKey, CLIENT_ID, "https://accounts.google.com", true), CLIENT_ID);
+        assertThatThrownBy(() -> verifier.verify(token("forged", secondKey, CLIENT_ID, "https://accounts.google.com", true), CLIENT_ID))
+                .isInstanceOf(JwtException.class);
+
+        assertThat(provider.requests(CERTS)).isEqualTo(2);
+        assertThat(provider.requests(DISCOVERY)).isEqualTo(1);
+    }
+
+    @Test
+    void keysShouldBeRefreshedInTheBackgroundBeforeTheyExpireAndKeptWhenRefreshFails() {
+        verifier.refreshKeys();
+        assertThat(provider.requests(CERTS)).isZero();
+
+        verifier.verify(token("k1", firstKey, CLIENT_ID, "https://accounts.google.com", true), CLIENT_ID);
+        verifier.refreshKeys();
+        assertThat(provider.requests(CERTS)).isEqualTo(1);
+
+        clock.advance(Duration.ofMinutes(55));
+        verifier.refreshKeys();
+        assertThat(provider.requests(CERTS)).isEqualTo(2);
+
+        clock.advance(Duration.ofMinutes(61));
+        provider.respond(CERTS, 503, "{}");
+        verifier.verify(token("k1", firstKey, CLIENT_ID, "https://accounts.google.com", true), CLIENT_ID);
+        assertThat(provider.requests(CERTS)).isEqualTo(3);
+    }
+
+    @Test
+    void unusableKeyDocumentsShouldMakeTheProviderUnavailableRatherThanFailTheToken() {
+        String token = token("k1", firstKey, CLIENT_ID, "https://accounts.google.com", true);
+        provider.respond(DISCOVERY, 200, "{\"issuer\":\"https://accounts.google.com\"}");
+
+        assertThatThrownBy(() -> verifier.verify(token, CLIENT_ID))
+                .isInstanceOf(OAuthProviderUnavailableException.class)
+                .satisfies(e -> assertThat(((OAuthProviderUnavailableException) e).getRetryAfterSeconds()).isEqualTo(30));
+
+        provider.respond(DISCOVERY, 200, "{\"issuer\":\"https://accounts.google.com\",\"jwks_uri\":\"" + provider.url(CERTS) + "\"}");
+        provider.respond(CERTS, 200, "{\"keys\":[]}");
+        assertThatThrownBy(() -> verifier.verify(token, CLIENT_ID)).isInstanceOf(OAuthProviderUnavailableException.class);
+
+        provider.respond(CERTS, 503, "{}");
+        assertThatThrownBy(() -> verifier.verify(token, CLIENT_ID)).isInstanceOf(OAuthProviderUnavailableException.class);
+    }
+
+    @Test
+    void cacheLifetimeShouldFollowCacheHeadersWithinBounds() {
+        OAuthProperties.Keys keys = properties.getKeys();
+        Instant now = Instant.now();
+
+        assertThat(OidcSigningKeys.cacheLifetime(headers("Cache-Control", "public, max-age=21600, must-revalidate", "Age", "600"),
+                keys, now)).isEqualTo(Duration.ofSeconds(21000));
+        assertThat(OidcSigningKeys.cacheLifetime(headers("Cache-Control", "no-store"), keys, now)).isEqualTo(Duration.ofMinutes(5));
+        assertThat(OidcSigningKeys.cacheLifetime(headers("Cache-Control", "max-age=31536000"), keys, now)).isEqualTo(Duration.ofHours(24));
+        assertThat(OidcSigningKeys.cacheLifetime(new HttpHeaders(), keys, now)).isEqualTo(Duration.ofHours(1));
+
+        HttpHeaders expires = new HttpHeaders();
+        expires.setDate(now.toEpochMilli());
+        expires.setExpires(now.plus(Duration.ofHours(3)).toEpochMilli());
+        assertThat(OidcSigningKeys.cacheLifetime(expires, keys, now)).isBetween(Duration.ofMinutes(179), Duration.ofHours(3));
+    }
+
+    private void serveKeys(Map<String, KeyPair> keys) {
+        StringBuilder body = new StringBuilder("{\"keys\":[");
+        keys.forEach((kid, pair) -> {
+            RSAPublicKey key = (RSAPublicKey) pair.getPublic();
+            Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+            if (body.length() > 9) {
+                body.append(',');
+            }
+            body.append("{\"kty\":\"RSA\",\"use\":\"sig\",\"alg\":\"RS256\",\"kid\":\"").append(kid)
+                    .append("\",\"n\":\"").append(encoder.encodeToString(unsigned(key.getModulus().toByteArray())))
+                    .append("\",\"e\":\"").append(encoder.encodeToString(key.getPublicExponent().toByteArray())).append("\"}");
+        });
+        body.append("]}");
+        provider.respond(CERTS, new OAuthProviderStandIn.Response(200, body.toString(),
+                Map.of("Cache-Control", "public, max-age=3600, must-revalidate"), Duration.ZERO));
+    }
+
+    private String token(String keyId, KeyPair signer, String audience, String issuer, boolean emailVerified) {
+        Instant issuedAt = clock.instant();
+        return Jwts.builder()
+                .setHeaderParam("kid", keyId)
+                .setIssuer(issuer)
+                .setAudience(audience)
+                .setSubject("1087")
+                .setIssuedAt(Date.from(issuedAt))
+                .setExpiration(Date.from(issuedAt.plus(Duration.ofHours(1))))
+                .claim("email", "ada@example.com")
+                .claim("email_verified", emailVerified)
+                .claim("name", "Ada")
+                .signWith(signer.getPrivate(), SignatureAlgorithm.RS256)
+                .compact();
+    }
+
+    private static HttpHeaders headers(String... namesAndValues) {
+        HttpHeaders headers = new HttpHeaders();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            headers.add(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return headers;
+    }
+
+    private static byte[] unsigned(byte[] bytes) {
+        return bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+
+    private static KeyPair rsaKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.siyamuddin.blog.blogappapis.Services.OAuth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siyamuddin.blog.blogappapis.Config.OAuthConfig;
+import com.siyamuddin.blog.blogappapis.Config.Properties.OAuthProperties;
+import com.siyamuddin.blog.blogappapis.Exceptions.OAuthProviderUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.RequestEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OAuthProviderClientTest {
+
+    private OAuthProviderStandIn provider;
+    private CloseableHttpClient httpClient;
+    private SimpleMeterRegistry meterRegistry;
+    private OAuthProperties properties;
+    private OAuthProviderClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        provider = new OAuthProviderStandIn();
+        properties = new OAuthProperties();
+        properties.getHttp().setResponseTimeout(Duration.ofMillis(300));
+        properties.getCircuitBreaker().setFailureThreshold(2);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofMillis(500));
+        OAuthConfig config = new OAuthConfig();
+        httpClient = config.oauthHttpClient(properties);
+        meterRegistry = new SimpleMeterRegistry();
+        client = new OAuthProviderClient(config.oauthRestTemplate(httpClient), new ObjectMapper(), properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        httpClient.close();
+        provider.close();
+    }
+
+    @Test
+    void tokenExchangeShouldPostAnEncodedFormAndParseTheResponse() {
+        provider.respond("/token", 200, "{\"access_token\":\"ya29.abc\",\"expires_in\":3599}");
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("code", "4/0A&b=c");
+        form.add("grant_type", "authorization_code");
+
+        JsonNode token = client.postForm("google", "token", provider.url("/token"), form);
+
+        assertThat(token.get("access_token").asText()).isEqualTo("ya29.abc");
+        assertThat(provider.lastBody("/token")).isEqualTo("code=4%2F0A%26b%3Dc&grant_type=authorization_code");
+        assertThat(meterRegistry.get("app.oauth.provider.requests")
+                .tags("provider", "google", "endpoint", "token", "outcome", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void hungProviderShouldTimeOutInsteadOfHoldingTheThread() {
+        provider.respond("/certs", new OAuthProviderStandIn.Response(200, "{}", Map.of(), Duration.ofSeconds(5)));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.exchange("google", "jwks", RequestEntity.get(URI.create(provider.url("/certs"))).build()))
+                .isInstanceOf(OAuthProviderUnavailableException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(meterRegistry.get("app.oauth.provider.requests")
+                .tags("endpoint", "jwks", "outcome", "timeout").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void repeatedServerErrorsShouldOpenTheCircuitUntilATrialCallSucceeds() throws Exception {
+        provider.respond("/token", 503, "{\"error\":\"backend\"}");
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> client.postForm("google", "token", provider.url("/token"), form))
+                    .isInstanceOf(OAuthProviderUnavailableException.class);
+        }
+        assertThat(client.circuitState("google")).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> client.postForm("google", "token", provider.url("/token"), form))
+                .isInstanceOf(OAuthProviderUnavailableException.class)
+                .satisfies(e -> assertThat(((OAuthProviderUnavailableException) e).getRetryAfterSeconds()).isEqualTo(1));
+        assertThat(provider.requests("/token")).isEqualTo(2);
+        assertThat(meterRegistry.get("app.oauth.provider.circuit.open").tag("provider", "google").gauge().value()).isEqualTo(1);
+
+        Thread.sleep(600);
+        provider.respond("/token", 200, "{\"access_token\":\"ok\"}");
+        assertThat(client.postForm("google", "token", provider.url("/token"), form).get("access_token").asText()).isEqualTo("ok");
+        assertThat(client.circuitState("google")).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+        assertThat(meterRegistry.get("app.oauth.provider.requests").tag("outcome", "rejected").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectedAuthorizationCodeShouldNotCountAgainstTheProvider() {
+        provider.respond("/token", 400, "{\"error\":\"invalid_grant\"}");
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> client.postForm("google", "token", provider.url("/token"), form))
+                    .isInstanceOf(HttpClientErrorException.class);
+        }
+
+        assertThat(client.circuitState("google")).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+        assertThat(provider.requests("/token")).isEqualTo(3);
+    }
+
+    @Test
+    void unexpectedExceptionShouldStillEndAHalfOpenTrialCall() throws Exception {
+        AtomicBoolean broken = new AtomicBoolean(true);
+        RestTemplate restTemplate = new OAuthConfig().oauthRestTemplate(httpClient);
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            if (broken.get()) {
+                throw new IllegalStateException("interceptor failed");
+            }
+            return execution.execute(request, body);
+        });
+        client = new OAuthProviderClient(restTemplate, new ObjectMapper(), properties, meterRegistry);
+        provider.respond("/token", 200, "{\"access_token\":\"ok\"}");
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> client.postForm("google", "token", provider.url("/token"), form))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(client.circuitState("google")).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+
+        Thread.sleep(600);
+        assertThatThrownBy(() -> client.postForm("google", "token", provider.url("/token"), form))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(client.circuitState("google")).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+
+        Thread.sleep(600);
+        broken.set(false);
+        assertThat(client.postForm("google", "token", provider.url("/token"), form).get("access_token").asText()).isEqualTo("ok");
+        assertThat(client.circuitState("google")).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+    }
+}
@@ -0,0 +1,130 @@
+package com.siyamuddin.blog.blogappapis.Services;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.JwtProperties;
+import com.siyamuddin.blog.blogappapis.Config.Properties.OAuthProperties;
+import com.siyamuddin.blog.blogappapis.Services.Impl.OAuthStateServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OAuthStateServiceImplTest {
+
+    private static final String JWT_SECRET = "0123456789abcdef0123456789abcdef-jwt";
+
+    private OAuthProperties properties;
+    private JwtProperties jwtProperties;
+    private ObjectProvider<StringRedisTemplate> redisProvider;
+    private ValueOperations<String, String> values;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        properties = new OAuthProperties();
+        jwtProperties = new JwtProperties();
+        jwtProperties.setSecret(JWT_SECRET);
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        redisProvider = mock(ObjectProvider.class);
+        when(redisProvider.getObject()).thenReturn(redisTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void stateShouldBeAcceptedOnceWithoutTouchingRedis() {
+        OAuthStateServiceImpl service = newService();
+
+        String state = service.generateState();
+
+        assertThat(service.validateAndConsumeState(state)).isTrue();
+        assertThat(service.validateAndConsumeState(state)).isFalse();
+        verifyNoInteractions(redisProvider);
+        assertThat(meterRegistry.get("app.oauth.state.rejected").tag("reason", "replayed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void forgedOrTamperedStateShouldBeRejected() {
+        OAuthStateServiceImpl service = newService();
+        String state = service.generateState();
+        char last = state.charAt(state.length() - 2);
+        String tampered = state.substring(0, state.length() - 2) + (last == 'A' ? 'B' : 'A') + state.charAt(state.length() - 1);
+
+        properties.getState().setSecret("another-secret-another-secret-another");
+        String foreign = newService().generateState();
+
+        assertThat(service.validateAndConsumeState(tampered)).isFalse();
+        assertThat(service.validateAndConsumeState(foreign)).isFalse();
+        assertThat(service.validateAndConsumeState("not-a-state")).isFalse();
+        assertThat(service.validateAndConsumeState(null)).isFalse();
+        assertThat(service.validateAndConsumeState(state)).isTrue();
+        assertThat(meterRegistry.get("app.oauth.state.rejected").tag("reason", "signature").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void stateIssuedByAnotherReplicaShouldBeAccepted() {
+        String state = newService().generateState();
+
+        assertThat(newService().validateAndConsumeState(state)).isTrue();
+    }
+
+    @Test
+    void expiredStateShouldBeRejected() throws Exception {
+        properties.getState().setTtl(Duration.ofMillis(50));
+        OAuthStateServiceImpl service = newService();
+        String state = service.generateState();
+
+        Thread.sleep(100);
+
+        assertThat(service.validateAndConsumeState(state)).isFalse();
+        assertThat(meterRegistry.get("app.oauth.state.rejected").tag("reason", "expired").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void redisStoreShouldUseOneOperationPerStep() {
+        properties.getState().setStore(OAuthProperties.StateStore.REDIS);
+        OAuthStateServiceImpl service = newService();
+        when(values.getAndDelete(anyString())).thenReturn("1", (String) null);
+
+        String state = service.generateState();
+        assertThat(service.validateAndConsumeState(state)).isTrue();
+        assertThat(service.validateAndConsumeState(state)).isFalse();
+
+        verify(values).set(startsWith("oauth:state:"), eq("1"), eq(Duration.ofMinutes(5)));
+        verify(values, times(2)).getAndDelete(startsWith("oauth:state:"));
+        verifyNoMoreInteractions(values);
+    }
+
+    @Test
+    void redisOutageShouldFallBackToTheLocalReplayGuard() {
+        properties.getState().setStore(OAuthProperties.StateStore.REDIS);
+        OAuthStateServiceImpl service = newService();
+        doThrow(new RedisConnectionFailureException("down")).when(values).set(anyString(), anyString(), any(Duration.class));
+
+        String issuedWhileDown = service.generateState();
+        assertThat(service.validateAndConsumeState(issuedWhileDown)).isTrue();
+        assertThat(service.validateAndConsumeState(issuedWhileDown)).isFalse();
+        verify(values, never()).getAndDelete(anyString());
+
+        doNothing().when(values).set(anyString(), anyString(), any(Duration.class));
+        when(values.getAndDelete(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        String issuedBeforeOutage = service.generateState();
+        assertThat(service.validateAndConsumeState(issuedBeforeOutage)).isTrue();
+        assertThat(service.validateAndConsumeState(issuedBeforeOutage)).isFalse();
+    }
+
+    private OAuthStateServiceImpl newService() {
+        return new OAuthStateServiceImpl(properties, jwtProperties, redisProvider, meterRegistry);
+    }
+}
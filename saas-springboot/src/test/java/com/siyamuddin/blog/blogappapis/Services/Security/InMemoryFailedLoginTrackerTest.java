@@ -0,0 +1,40 @@
+package com.siyamuddin.blog.blogappapis.Services.Security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryFailedLoginTrackerTest {
+
+    @Test
+    void keysBeyondTheCapShouldNotBeTrackedWhileTrackedKeysKeepCounting() {
+        InMemoryFailedLoginTracker tracker = new InMemoryFailedLoginTracker(Duration.ofMinutes(15), 3);
+        for (int i = 0; i < 3; i++) {
+            tracker.recordFailure("ip:10.0.0." + i);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(tracker.recordFailure("ip:10.0.1." + i)).isEqualTo(1);
+        }
+
+        assertThat(tracker.currentCount("ip:10.0.1.0")).isZero();
+        assertThat(tracker.recordFailure("ip:10.0.0.0")).isEqualTo(2);
+    }
+
+    @Test
+    void expiredWindowsShouldMakeRoomForNewKeys() throws Exception {
+        InMemoryFailedLoginTracker tracker = new InMemoryFailedLoginTracker(Duration.ofMillis(50), 2);
+        tracker.recordFailure("ip:10.0.0.1");
+        tracker.recordFailure("ip:10.0.0.2");
+
+        // Two windows later the old failures no longer count and are evicted
+        Thread.sleep(150);
+        tracker.recordFailure("ip:10.0.0.3");
+        tracker.recordFailure("ip:10.0.0.3");
+
+        assertThat(tracker.currentCount("ip:10.0.0.3")).isPositive();
+        assertThat(tracker.currentCount("ip:10.0.0.1")).isZero();
+    }
+}
@@ -0,0 +1,302 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
+import com.siyamuddin.blog.blogappapis.Exceptions.ServiceOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentAddressedStorageTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R'};
+
+    @TempDir
+    Path basePath;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ContentAddressedStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:stored-object;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE stored_object (object_id VARCHAR(80) PRIMARY KEY, storage_key VARCHAR(512) UNIQUE, " +
+                "public_url VARCHAR(1024), content_type VARCHAR(100), size_bytes BIGINT NOT NULL, ref_count INT NOT NULL, " +
+                "created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE storage_tombstone (id BIGINT AUTO_INCREMENT PRIMARY KEY, storage_key VARCHAR(512) NOT NULL, " +
+                "owner_key VARCHAR(512), status VARCHAR(20) NOT NULL, attempts INT NOT NULL, next_attempt_at TIMESTAMP NOT NULL, " +
+                "claim_token VARCHAR(36), claimed_at TIMESTAMP, created_at TIMESTAMP NOT NULL, last_error VARCHAR(1000))");
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.getLocal().setBasePath(basePath.toString());
+        storage = new ContentAddressedStorage(new LocalFileStorageService(properties), jdbcTemplate,
+                new StorageCleaner(jdbcTemplate), new DataSourceTransactionManager(dataSource), properties, Runnable::run);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void identicalUploadsShouldShareOneObjectUnderItsDigest() throws Exception {
+        StoredFile first = storage.store(multipart("a.png"));
+        StoredFile second = storage.store(multipart("b.PNG"));
+
+        assertThat(first.getKey()).matches("public/objects/" + sha256(PNG).substring(0, 2) + "/" + sha256(PNG) + "-[0-9a-f]{8}\\.png");
+        assertThat(second.getKey()).isEqualTo(first.getKey());
+        assertThat(second.getPublicUrl()).isEqualTo(first.getPublicUrl());
+        assertThat(second.getSize()).isEqualTo(PNG.length);
+        assertThat(storage.referenceCount(first.getKey())).isEqualTo(2);
+        assertThat(storedFiles()).containsExactly(first.getKey());
+    }
+
+    @Test
+    void streamedUploadShouldBeHashedWhileWrittenAndItsTemporaryFileTombstoned() throws Exception {
+        StoredFile multipart = storage.store(multipart("a.png"));
+
+        StoredFile streamed = storage.store(FileUploadRequest.builder()
+                .content(StreamingUpload.open(new ByteArrayInputStream(PNG), "photo.png", PNG.length, 1024))
+                .build());
+
+        assertThat(streamed.getKey()).isEqualTo(multipart.getKey());
+        assertThat(streamed.getContentType()).isEqualTo("image/png");
+        assertThat(storage.referenceCount(multipart.getKey())).isEqualTo(2);
+        assertThat(tombstones()).hasSize(1).allSatisfy((key, owner) -> assertThat(key).contains(".incoming-"));
+
+        storage.deleteReleased(tombstones());
+        assertThat(storedFiles()).containsExactly(multipart.getKey());
+    }
+
+    @Test
+    void sameBytesShouldShareOneObjectWhateverTheMultipartFileIsCalled() throws Exception {
+        StoredFile multipart = storage.store(FileUploadRequest.builder()
+                .file(new MockMultipartFile("file", "avatar.jpeg", "application/octet-stream", PNG))
+                .build());
+        StoredFile streamed = storage.store(FileUploadRequest.builder().content(open(PNG)).build());
+
+        assertThat(multipart.getKey()).endsWith(".png");
+        assertThat(streamed.getKey()).isEqualTo(multipart.getKey());
+        assertThat(jdbcTemplate.queryForMap("SELECT object_id, content_type, ref_count FROM stored_object"))
+                .containsEntry("OBJECT_ID", sha256(PNG) + ".png")
+                .containsEntry("CONTENT_TYPE", "image/png")
+                .containsEntry("REF_COUNT", 2);
+    }
+
+    @Test
+    void fileShouldOnlyBeTombstonedWithItsLastReference() throws Exception {
+        StoredFile stored = storage.store(multipart("a.png"));
+        storage.store(multipart("a.png"));
+        String variant = stored.getKey().replace(".png", "-64.jpg");
+        Files.write(basePath.resolve(variant), new byte[]{1});
+
+        assertThat(storage.release(stored.getKey(), List.of(variant))).isFalse();
+        assertThat(tombstones()).isEmpty();
+
+        assertThat(storage.release(stored.getKey(), List.of(variant))).isTrue();
+        assertThat(tombstones()).containsOnly(Map.entry(stored.getKey(), stored.getKey()), Map.entry(variant, stored.getKey()));
+        assertThat(storedFiles()).contains(stored.getKey(), variant);
+
+        ContentAddressedStorage.Deletion deletion = storage.deleteReleased(tombstones());
+        assertThat(deletion.kept()).isEmpty();
+        assertThat(deletion.failed()).isEmpty();
+        assertThat(storedFiles()).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stored_object", Integer.class)).isZero();
+
+        // Stored afresh, under a key of its own, after the last reference went
+        StoredFile again = storage.store(multipart("a.png"));
+        assertThat(again.getKey()).isNotEqualTo(stored.getKey());
+        assertThat(storage.referenceCount(again.getKey())).isEqualTo(1);
+        assertThat(storedFiles()).containsExactly(again.getKey());
+    }
+
+    @Test
+    void fileUploadedAgainBeforeCollectionShouldBeKept() throws Exception {
+        StoredFile stored = storage.store(multipart("a.png"));
+        String variant = stored.getKey().replace(".png", "-64.jpg");
+        Files.write(basePath.resolve(variant), new byte[]{1});
+        storage.release(stored.getKey(), List.of(variant));
+
+        StoredFile again = storage.store(multipart("b.png"));
+        ContentAddressedStorage.Deletion deletion = storage.deleteReleased(tombstones());
+
+        assertThat(again.getKey()).isEqualTo(stored.getKey());
+        assertThat(deletion.kept()).containsExactlyInAnyOrder(stored.getKey(), variant);
+        assertThat(storedFiles()).contains(stored.getKey(), variant);
+        assertThat(storage.referenceCount(stored.getKey())).isEqualTo(1);
+    }
+
+    @Test
+    void uploadPlacedWhileAnotherWasMovingShouldBeReleasedAsADuplicate() throws Exception {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.getLocal().setBasePath(basePath.toString());
+        AtomicBoolean racing = new AtomicBoolean(true);
+        ContentAddressedStorage[] racingStorage = new ContentAddressedStorage[1];
+        LocalFileStorageService files = new LocalFileStorageService(properties) {
+            @Override
+            public StoredFile move(String sourceKey, String subDirectory, String fileName) {
+                StoredFile moved = super.move(sourceKey, subDirectory, fileName);
+                // No row lock is held here, so a concurrent upload of the same content completes
+                if (racing.getAndSet(false)) {
+                    racingStorage[0].store(FileUploadRequest.builder()
+                            .content(open(PNG))
+                            .build());
+                }
+                return moved;
+            }
+        };
+        racingStorage[0] = new ContentAddressedStorage(files, jdbcTemplate, new StorageCleaner(jdbcTemplate),
+                new DataSourceTransactionManager(dataSource), properties, Runnable::run);
+
+        StoredFile stored = racingStorage[0].store(FileUploadRequest.builder().content(open(PNG)).build());
+
+        assertThat(racing).isFalse();
+        assertThat(racingStorage[0].referenceCount(stored.getKey())).isEqualTo(2);
+        racingStorage[0].deleteReleased(tombstones());
+        assertThat(storedFiles()).containsExactly(stored.getKey());
+    }
+
+    @Test
+    void storeAsyncShouldClaimOnTheUploadExecutorOnceTheBackendHasAcknowledged() throws Exception {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.getLocal().setBasePath(basePath.toString());
+        AcknowledgedLaterStorage files = new AcknowledgedLaterStorage(properties);
+        AtomicInteger executed = new AtomicInteger();
+        ContentAddressedStorage asyncStorage = new ContentAddressedStorage(files, jdbcTemplate, new StorageCleaner(jdbcTemplate),
+                new DataSourceTransactionManager(dataSource), properties, task -> {
+                    executed.incrementAndGet();
+                    task.run();
+                });
+
+        CompletableFuture<StoredFile> future = asyncStorage.storeAsync(multipart("a.png"));
+
+        assertThat(future).isNotDone();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stored_object", Integer.class)).isZero();
+
+        files.acknowledged.complete(null);
+        StoredFile stored = future.join();
+
+        assertThat(executed).hasValue(1);
+        assertThat(asyncStorage.referenceCount(stored.getKey())).isEqualTo(1);
+        assertThat(storedFiles()).containsExactly(stored.getKey());
+        // Already stored: completed without waiting for the backend
+        assertThat(asyncStorage.storeAsync(multipart("b.png"))).isCompletedWithValueMatching(
+                duplicate -> duplicate.getKey().equals(stored.getKey()));
+    }
+
+    @Test
+    void storeAsyncShouldFailAsOverloadedWhenTheUploadExecutorIsSaturated() {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.getLocal().setBasePath(basePath.toString());
+        ContentAddressedStorage saturated = new ContentAddressedStorage(new LocalFileStorageService(properties), jdbcTemplate,
+                new StorageCleaner(jdbcTemplate), new DataSourceTransactionManager(dataSource), properties, task -> {
+                    throw new RejectedExecutionException("full");
+                });
+
+        assertThat(saturated.storeAsync(multipart("a.png")))
+                .failsWithin(Duration.ofSeconds(5))
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(ServiceOverloadedException.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stored_object", Integer.class)).isZero();
+    }
+
+    @Test
+    void fileStoredBeforeContentAddressingShouldBeTombstonedWithoutOwner() throws Exception {
+        String legacy = "public/profiles/user-7/profile-7-abc.png";
+        Files.createDirectories(basePath.resolve(legacy).getParent());
+        Files.write(basePath.resolve(legacy), PNG);
+
+        assertThat(storage.release(legacy, List.of())).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT owner_key FROM storage_tombstone WHERE storage_key = ?",
+                String.class, legacy)).isNull();
+
+        storage.deleteReleased(tombstones());
+        assertThat(storedFiles()).isEmpty();
+    }
+
+    /**
+     * @return tombstoned key to owner key, as the collector passes them on
+     */
+    private Map<String, String> tombstones() {
+        Map<String, String> tombstones = new HashMap<>();
+        jdbcTemplate.query("SELECT storage_key, owner_key FROM storage_tombstone",
+                rs -> { tombstones.put(rs.getString("storage_key"), rs.getString("owner_key")); });
+        return tombstones;
+    }
+
+    /**
+     * Writes files at once but acknowledges them only when told to, like a slow remote backend.
+     */
+    private static class AcknowledgedLaterStorage extends LocalFileStorageService implements AsyncFileStorageService {
+
+        private final CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+
+        AcknowledgedLaterStorage(FileStorageProperties properties) {
+            super(properties);
+        }
+
+        @Override
+        public CompletableFuture<StoredFile> storeAsync(FileUploadRequest request) {
+            StoredFile stored = store(request);
+            return acknowledged.thenApply(ignored -> stored);
+        }
+
+        @Override
+        public CompletableFuture<Void> deleteAsync(String key) {
+            delete(key);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private static StreamingUpload open(byte[] content) {
+        try {
+            return StreamingUpload.open(new ByteArrayInputStream(content), "photo.png", content.length, 1024);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static FileUploadRequest multipart(String name) {
+        return FileUploadRequest.builder()
+                .file(new MockMultipartFile("file", name, "image/png", PNG))
+                .subDirectory("public/profiles/user-7")
+                .build();
+    }
+
+    private List<String> storedFiles() throws Exception {
+        try (Stream<Path> files = Files.walk(basePath)) {
+            return files.filter(Files::isRegularFile)
+                    .map(path -> basePath.relativize(path).toString().replace('\\', '/'))
+                    .toList();
+        }
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
@@ -0,0 +1,161 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalFileRequestHandlerTest {
+
+    private static final String AVATAR = "public/profiles/user-7/profile-7-0b9f4c1e-7d1a-4c9e-9a55-1f2e3d4c5b6a.png";
+
+    @TempDir
+    Path basePath;
+
+    private byte[] body;
+    private LocalFileRequestHandler handler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        body = new byte[100 * 1024];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) (i * 7);
+        }
+        write(AVATAR, body);
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.getLocal().setBasePath(basePath.toString());
+        handler = new LocalFileRequestHandler(properties);
+    }
+
+    @Test
+    void uuidNamedFileShouldBeImmutableWithAContentDigestEtag() throws Exception {
+        MockHttpServletResponse response = get(AVATAR);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(body);
+        assertThat(response.getContentType()).isEqualTo("image/png");
+        assertThat(response.getHeader("Cache-Control")).contains("max-age=31536000", "immutable", "public");
+        assertThat(response.getHeader("ETag")).isEqualTo("\"" + sha256(body) + "\"");
+        assertThat(response.getHeader("Accept-Ranges")).isEqualTo("bytes");
+    }
+
+    @Test
+    void matchingIfNoneMatchShouldGet304WithoutABody() throws Exception {
+        String etag = get(AVATAR).getHeader("ETag");
+
+        MockHttpServletRequest request = request(AVATAR);
+        request.addHeader("If-None-Match", etag);
+        MockHttpServletResponse response = handle(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(response.getHeader("ETag")).isEqualTo(etag);
+        assertThat(response.getHeader("Cache-Control")).contains("immutable");
+    }
+
+    @Test
+    void singleRangeShouldGet206AndOnlyThoseBytes() throws Exception {
+        MockHttpServletRequest request = request(AVATAR);
+        request.addHeader("Range", "bytes=1000-1999");
+        MockHttpServletResponse response = handle(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader("Content-Range")).isEqualTo("bytes 1000-1999/" + body.length);
+        assertThat(response.getContentLengthLong()).isEqualTo(1000);
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(body, 1000, 2000));
+    }
+
+    @Test
+    void staleIfRangeShouldGetTheWholeFile() throws Exception {
+        MockHttpServletRequest request = request(AVATAR);
+        request.addHeader("Range", "bytes=0-9");
+        request.addHeader("If-Range", "\"outdated\"");
+        MockHttpServletResponse response = handle(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).hasSize(body.length);
+    }
+
+    @Test
+    void rangePastTheEndShouldGet416() throws Exception {
+        MockHttpServletRequest request = request(AVATAR);
+        request.addHeader("Range", "bytes=" + body.length + "-");
+        MockHttpServletResponse response = handle(request);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader("Content-Range")).isEqualTo("bytes */" + body.length);
+    }
+
+    @Test
+    void largeBodyShouldBeHandedToTheContainersSendfile() throws Exception {
+        MockHttpServletRequest request = request(AVATAR);
+        request.setAttribute(LocalFileRequestHandler.SENDFILE_SUPPORT, true);
+        request.addHeader("Range", "bytes=100-");
+        MockHttpServletResponse response = handle(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(request.getAttribute(LocalFileRequestHandler.SENDFILE_FILENAME))
+                .isEqualTo(basePath.resolve(AVATAR).toString());
+        assertThat(request.getAttribute(LocalFileRequestHandler.SENDFILE_START)).isEqualTo(100L);
+        assertThat(request.getAttribute(LocalFileRequestHandler.SENDFILE_END)).isEqualTo((long) body.length);
+    }
+
+    @Test
+    void privateMutableNamesShouldBeRevalidatedAndNotSharedByCaches() throws Exception {
+        write("reports/latest.pdf", "%PDF-1.7".getBytes());
+
+        MockHttpServletResponse response = get("reports/latest.pdf");
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("Cache-Control")).contains("no-cache", "private").doesNotContain("immutable");
+    }
+
+    @Test
+    void traversalHiddenAndMissingFilesShouldGet404() throws Exception {
+        write("public/.upload-123.part", body);
+
+        assertThat(get("public/../../etc/passwd").getStatus()).isEqualTo(404);
+        assertThat(get("public/%2e%2e/%2e%2e/secret").getStatus()).isEqualTo(404);
+        assertThat(get("public/.upload-123.part").getStatus()).isEqualTo(404);
+        assertThat(get("public/missing.png").getStatus()).isEqualTo(404);
+        assertThat(get("public/profiles").getStatus()).isEqualTo(404);
+    }
+
+    private MockHttpServletResponse get(String path) throws Exception {
+        return handle(request(path));
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/" + path);
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, path);
+        return request;
+    }
+
+    private MockHttpServletResponse handle(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        handler.handleRequest(request, response);
+        return response;
+    }
+
+    private void write(String key, byte[] content) throws Exception {
+        Path file = basePath.resolve(key);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
@@ -0,0 +1,146 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
+import com.siyamuddin.blog.blogappapis.Exceptions.FileTooLargeException;
+import com.siyamuddin.blog.blogappapis.Exceptions.InvalidFileException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalFileStorageServiceTest {
+
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+
+    @TempDir
+    Path basePath;
+
+    private LocalFileStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.getLocal().setBasePath(basePath.toString());
+        storage = new LocalFileStorageService(properties);
+    }
+
+    @Test
+    void streamedUploadShouldBeStoredWithSniffedTypeAndExtension() throws Exception {
+        byte[] body = png(5000);
+        StreamingUpload content = StreamingUpload.open(new ByteArrayInputStream(body), "photo.jpg", body.length, 10_000);
+
+        StoredFile stored = storage.store(FileUploadRequest.builder().content(content).subDirectory("profiles").build());
+
+        assertThat(stored.getContentType()).isEqualTo("image/png");
+        assertThat(stored.getKey()).startsWith("profiles/").endsWith(".png");
+        assertThat(stored.getSize()).isEqualTo(body.length);
+        assertThat(Files.readAllBytes(basePath.resolve(stored.getKey()))).isEqualTo(body);
+        assertThat(partFiles()).isEmpty();
+    }
+
+    @Test
+    void oversizedBodyShouldBeRejectedWhileStreamingAndLeaveNothingBehind() throws Exception {
+        byte[] body = png(20_000);
+        // Chunked request: no Content-Length to reject up front
+        StreamingUpload content = StreamingUpload.open(new ByteArrayInputStream(body), null, -1, 10_000);
+
+        assertThatThrownBy(() -> storage.store(FileUploadRequest.builder().content(content).preferredFileName("big.png").build()))
+                .isInstanceOf(FileTooLargeException.class);
+        assertThat(basePath.resolve("big.png")).doesNotExist();
+        assertThat(partFiles()).isEmpty();
+    }
+
+    @Test
+    void declaredLengthOverLimitShouldBeRejectedBeforeReading() {
+        InputStream body = new InputStream() {
+            @Override
+            public int read() {
+                throw new AssertionError("body must not be read");
+            }
+        };
+
+        assertThatThrownBy(() -> StreamingUpload.open(body, null, 20_000, 10_000))
+                .isInstanceOf(FileTooLargeException.class);
+    }
+
+    @Test
+    void contentThatIsNotASupportedFormatShouldBeRejected() {
+        byte[] body = "<html><script>alert(1)</script></html>".getBytes();
+
+        assertThatThrownBy(() -> StreamingUpload.open(new ByteArrayInputStream(body), "photo.png", body.length, 10_000))
+                .isInstanceOf(InvalidFileException.class)
+                .hasMessageContaining("not a supported format");
+    }
+
+    @Test
+    void streamingShouldUseConstantHeapRegardlessOfSize() throws Exception {
+        long size = 64L << 20;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+
+        StreamingUpload content = StreamingUpload.open(new GeneratedPng(size), null, size, size);
+        StoredFile stored = storage.store(FileUploadRequest.builder().content(content).build());
+
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertThat(Files.size(basePath.resolve(stored.getKey()))).isEqualTo(size);
+        // Far below the upload size: only transfer buffers and bookkeeping are allocated
+        assertThat(allocated).isLessThan(4L << 20);
+    }
+
+    private List<Path> partFiles() throws Exception {
+        try (Stream<Path> files = Files.walk(basePath)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".part")).toList();
+        }
+    }
+
+    private static byte[] png(int size) {
+        byte[] body = new byte[size];
+        System.arraycopy(PNG_HEADER, 0, body, 0, PNG_HEADER.length);
+        for (int i = PNG_HEADER.length; i < size; i++) {
+            body[i] = (byte) i;
+        }
+        return body;
+    }
+
+    /** A PNG-looking stream of the given size that is generated on the fly, never held in memory. */
+    private static final class GeneratedPng extends InputStream {
+        private final long size;
+        private long position;
+
+        private GeneratedPng(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public int read() {
+            if (position >= size) {
+                return -1;
+            }
+            int value = position < PNG_HEADER.length ? PNG_HEADER[(int) position] & 0xFF : (int) (position & 0x7F);
+            position++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position >= size) {
+                return -1;
+            }
+            int n = (int) Math.min(length, size - position);
+            for (int i = 0; i < n; i++) {
+                buffer[offset + i] = (byte) read();
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
+import com.siyamuddin.blog.blogappapis.Config.Properties.ImageVariantProperties;
+import com.siyamuddin.blog.blogappapis.Entity.User;
+import com.siyamuddin.blog.blogappapis.Exceptions.InvalidFileException;
+import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.ProfilePhotoUploadTicket;
+import com.siyamuddin.blog.blogappapis.Payloads.UserPayload.UserDto;
+import com.siyamuddin.blog.blogappapis.Repository.UserRepo;
+import com.siyamuddin.blog.blogappapis.Services.Impl.UserProfilePhotoServiceImpl;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Presign, upload and confirm against {@link S3StandIn} with the real SDK client and presigner.
+ */
+class S3DirectUploadTest {
+
+    private static final String BUCKET = "photos";
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+    // Set by the HTTP client itself and rejected if passed explicitly
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("content-length", "host");
+
+    private static S3StandIn standIn;
+    private static S3Client s3Client;
+    private static S3AsyncClient s3AsyncClient;
+    private static S3Presigner presigner;
+
+    private UserRepo userRepo;
+    private StorageCleaner storageCleaner;
+    private User user;
+    private UserProfilePhotoServiceImpl service;
+
+    @BeforeAll
+    static void startStandIn() throws Exception {
+        standIn = new S3StandIn();
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test"));
+        s3Client = S3Client.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .endpointOverride(standIn.endpoint())
+                .forcePathStyle(true)
+                .build();
+        s3AsyncClient = S3AsyncClient.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .endpointOverride(standIn.endpoint())
+                .forcePathStyle(true)
+                .build();
+        presigner = S3Presigner.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .endpointOverride(standIn.endpoint())
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(true)
+                        .build())
+                .build();
+    }
+
+    @AfterAll
+    static void stopStandIn() {
+        s3AsyncClient.close();
+        s3Client.close();
+        presigner.close();
+        standIn.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        standIn.reset();
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setMode(FileStorageProperties.StorageMode.S3);
+        properties.getS3().setBucketName(BUCKET);
+        properties.getS3().setRegion("us-east-1");
+        properties.getS3().setPublicBaseUrl("https://cdn.example.com");
+        properties.getCleanup().setEnabled(false);
+        FileStorageService storage = new S3FileStorageService(s3Client, s3AsyncClient, presigner, properties);
+
+        userRepo = mock(UserRepo.class);
+        user = new User();
+        user.setId(7);
+        when(userRepo.existsById(7)).thenReturn(true);
+        when(userRepo.findById(7)).thenReturn(Optional.of(user));
+
+        storageCleaner = mock(StorageCleaner.class);
+        service = new UserProfilePhotoServiceImpl(userRepo, storage, new ModelMapper(), properties,
+                storageCleaner, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                mock(ApplicationEventPublisher.class), mock(ContentAddressedStorage.class), new ImageVariantProperties());
+    }
+
+    @Test
+    void presignedUploadShouldBeConfirmedAndBecomeTheProfilePhoto() throws Exception {
+        byte[] body = png(4096);
+
+        ProfilePhotoUploadTicket ticket = service.createDirectUpload(7, "image/png", body.length);
+        assertThat(ticket.getMethod()).isEqualTo("PUT");
+        assertThat(ticket.getStorageKey()).startsWith("uploads/public/profiles/user-7/profile-7-").endsWith(".png");
+        // Type and size are part of the signature, not just advice to the client
+        assertThat(ticket.getUploadUrl()).contains("X-Amz-SignedHeaders=content-length%3Bcontent-type%3Bhost");
+        assertThat(ticket.getHeaders()).containsEntry("content-type", "image/png")
+                .containsEntry("content-length", String.valueOf(body.length));
+
+        assertThat(upload(ticket, body)).isEqualTo(200);
+        assertThat(standIn.object(BUCKET, ticket.getStorageKey()).requestHeaders())
+                .containsEntry("content-type", "image/png")
+                .containsEntry("content-length", String.valueOf(body.length));
+        // Nothing changes until the client confirms
+        verify(userRepo, never()).save(any());
+
+        UserDto dto = service.confirmDirectUpload(7, ticket.getStorageKey());
+
+        assertThat(user.getProfileImageStorageKey()).isEqualTo(ticket.getStorageKey());
+        assertThat(dto.getProfileImageUrl()).isEqualTo("https://cdn.example.com/" + ticket.getStorageKey());
+        verify(userRepo).save(user);
+    }
+
+    @Test
+    void confirmingTwiceShouldBeHarmless() throws Exception {
+        byte[] body = png(100);
+        ProfilePhotoUploadTicket ticket = service.createDirectUpload(7, "image/png", body.length);
+        upload(ticket, body);
+
+        service.confirmDirectUpload(7, ticket.getStorageKey());
+        service.confirmDirectUpload(7, ticket.getStorageKey());
+
+        verify(userRepo).save(user);
+    }
+
+    @Test
+    void contentNotMatchingTheDeclaredTypeShouldBeRejectedAndTombstoned() {
+        String key = "uploads/public/profiles/user-7/profile-7-abc.png";
+        standIn.put(BUCKET, key, "<html><script>alert(1)</script></html>".getBytes(), "image/png");
+
+        assertThatThrownBy(() -> service.confirmDirectUpload(7, key))
+                .isInstanceOf(InvalidFileException.class)
+                .hasMessageContaining("does not match");
+        verify(storageCleaner).deleteLater(key);
+        assertThat(user.getProfileImageStorageKey()).isNull();
+    }
+
+    @Test
+    void anotherUsersUploadShouldNotBeConfirmable() {
+        String key = "uploads/public/profiles/user-8/profile-8-abc.png";
+        standIn.put(BUCKET, key, png(100), "image/png");
+
+        assertThatThrownBy(() -> service.confirmDirectUpload(7, key))
+                .isInstanceOf(InvalidFileException.class);
+        assertThatThrownBy(() -> service.confirmDirectUpload(7, "uploads/public/profiles/user-7/../user-8/profile-7-x.png"))
+                .isInstanceOf(InvalidFileException.class);
+        assertThat(standIn.object(BUCKET, key)).isNotNull();
+    }
+
+    @Test
+    void confirmWithoutUploadShouldBeRejected() {
+        assertThatThrownBy(() -> service.confirmDirectUpload(7, "uploads/public/profiles/user-7/profile-7-missing.png"))
+                .isInstanceOf(InvalidFileException.class)
+                .hasMessageContaining("No upload found");
+    }
+
+    @Test
+    void oversizedOrUnsupportedRequestsShouldNotBePresigned() {
+        assertThatThrownBy(() -> service.createDirectUpload(7, "image/png", 50L * 1024 * 1024))
+                .isInstanceOf(InvalidFileException.class);
+        assertThatThrownBy(() -> service.createDirectUpload(7, "text/html", 100))
+                .isInstanceOf(InvalidFileException.class);
+    }
+
+    private int upload(ProfilePhotoUploadTicket ticket, byte[] body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(ticket.getUploadUrl()))
+                .method(ticket.getMethod(), HttpRequest.BodyPublishers.ofByteArray(body));
+        ticket.getHeaders().forEach((name, value) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                request.header(name, value);
+            }
+        });
+        return HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build().send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static byte[] png(int size) {
+        byte[] body = Arrays.copyOf(PNG_HEADER, size);
+        Arrays.fill(body, PNG_HEADER.length, size, (byte) 7);
+        return body;
+    }
+}
@@ -0,0 +1,222 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
+import com.siyamuddin.blog.blogappapis.Exceptions.FileStorageException;
+import com.siyamuddin.blog.blogappapis.Exceptions.FileTooLargeException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class S3MultipartUploadTest {
+
+    private static final String BUCKET = "files";
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+    private static final int PART_SIZE = 64 * 1024;
+    private static final int MAX_IN_FLIGHT = 4 * PART_SIZE;
+
+    private static S3StandIn standIn;
+    private static S3Client s3Client;
+    private static S3AsyncClient s3AsyncClient;
+    private static S3Presigner presigner;
+
+    private S3FileStorageService storage;
+
+    @BeforeAll
+    static void startStandIn() throws Exception {
+        standIn = new S3StandIn();
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test"));
+        s3Client = S3Client.builder().region(Region.US_EAST_1).credentialsProvider(credentials)
+                .endpointOverride(standIn.endpoint()).forcePathStyle(true).build();
+        s3AsyncClient = S3AsyncClient.builder().region(Region.US_EAST_1).credentialsProvider(credentials)
+                .endpointOverride(standIn.endpoint()).forcePathStyle(true).build();
+        presigner = S3Presigner.builder().region(Region.US_EAST_1).credentialsProvider(credentials)
+                .endpointOverride(standIn.endpoint()).build();
+    }
+
+    @AfterAll
+    static void stopStandIn() {
+        s3AsyncClient.close();
+        s3Client.close();
+        presigner.close();
+        standIn.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        standIn.reset();
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setMode(FileStorageProperties.StorageMode.S3);
+        properties.getS3().setBucketName(BUCKET);
+        properties.getS3().setRegion("us-east-1");
+        // Below S3's 5MB minimum to keep the test small; the stand-in doesn't enforce it
+        properties.getS3().getMultipart().setPartSize(DataSize.ofBytes(PART_SIZE));
+        properties.getS3().getMultipart().setThreshold(DataSize.ofBytes(PART_SIZE));
+        properties.getS3().getMultipart().setMaxInFlight(DataSize.ofBytes(MAX_IN_FLIGHT));
+        storage = new S3FileStorageService(s3Client, s3AsyncClient, presigner, properties);
+    }
+
+    @Test
+    void smallFileShouldBeSentWithASinglePut() {
+        byte[] body = png(PART_SIZE / 2);
+
+        StoredFile stored = storage.store(FileUploadRequest.builder()
+                .file(new MockMultipartFile("file", "a.png", "image/png", body))
+                .build());
+
+        assertThat(standIn.object(BUCKET, stored.getKey()).body()).isEqualTo(body);
+        assertThat(standIn.maxConcurrentParts()).isZero();
+    }
+
+    @Test
+    void largeFileShouldBeSentAsParallelPartsWithinTheInFlightBudget() {
+        standIn.setLatency(Duration.ofMillis(50));
+        byte[] body = png(PART_SIZE * 10 + 123);
+
+        StoredFile stored = storage.store(FileUploadRequest.builder()
+                .file(new MockMultipartFile("file", "big.png", "image/png", body))
+                .subDirectory("reports")
+                .build());
+
+        S3StandIn.StoredObject object = standIn.object(BUCKET, stored.getKey());
+        assertThat(object.body()).isEqualTo(body);
+        assertThat(object.contentType()).isEqualTo("image/png");
+        assertThat(standIn.maxConcurrentParts()).isBetween(2, MAX_IN_FLIGHT / PART_SIZE);
+        assertThat(standIn.pendingUploads()).isZero();
+    }
+
+    @Test
+    void bodyWithoutContentLengthShouldBeStreamedAsParts() throws Exception {
+        byte[] body = png(PART_SIZE * 3 + 7);
+        StreamingUpload content = StreamingUpload.open(new ByteArrayInputStream(body), null, -1, 10 * 1024 * 1024);
+
+        StoredFile stored = storage.store(FileUploadRequest.builder().content(content).build());
+
+        assertThat(stored.getSize()).isEqualTo(body.length);
+        assertThat(stored.getKey()).endsWith(".png");
+        assertThat(standIn.object(BUCKET, stored.getKey()).body()).isEqualTo(body);
+        assertThat(standIn.maxConcurrentParts()).isPositive();
+    }
+
+    @Test
+    void bodyOverTheLimitShouldAbortTheUploadAndKeepItsError() throws Exception {
+        byte[] body = png(PART_SIZE * 3);
+        StreamingUpload content = StreamingUpload.open(new ByteArrayInputStream(body), null, -1, PART_SIZE * 2);
+
+        assertThatThrownBy(() -> storage.store(FileUploadRequest.builder().content(content).build()))
+                .isInstanceOf(FileTooLargeException.class);
+        awaitEquals(1, standIn::abortedUploads);
+        assertThat(standIn.objectCount()).isZero();
+    }
+
+    @Test
+    void failedPartShouldAbortTheUpload() throws Exception {
+        standIn.failPart(3);
+        byte[] body = png(PART_SIZE * 5);
+
+        assertThatThrownBy(() -> storage.store(FileUploadRequest.builder()
+                .file(new MockMultipartFile("file", "big.png", "image/png", body))
+                .build()))
+                .isInstanceOf(FileStorageException.class);
+        awaitEquals(1, standIn::abortedUploads);
+        assertThat(standIn.pendingUploads()).isZero();
+        assertThat(standIn.objectCount()).isZero();
+    }
+
+    @Test
+    void storeAsyncShouldReturnBeforeS3HasAnswered() {
+        standIn.setLatency(Duration.ofMillis(300));
+        byte[] body = png(PART_SIZE * 3);
+
+        CompletableFuture<StoredFile> future = storage.storeAsync(FileUploadRequest.builder()
+                .file(new MockMultipartFile("file", "big.png", "image/png", body))
+                .build());
+
+        assertThat(future).isNotDone();
+        StoredFile stored = future.join();
+        assertThat(standIn.object(BUCKET, stored.getKey()).body()).isEqualTo(body);
+    }
+
+    @Test
+    void moveShouldCopyWithinTheBucketAndRemoveTheSource() {
+        byte[] body = png(1000);
+        StoredFile stored = storage.store(FileUploadRequest.builder()
+                .file(new MockMultipartFile("file", "a.png", "image/png", body))
+                .subDirectory("incoming")
+                .build());
+
+        StoredFile moved = storage.move(stored.getKey(), "public/objects/ab", "abcdef.png");
+
+        assertThat(moved.getKey()).isEqualTo("uploads/public/objects/ab/abcdef.png");
+        assertThat(standIn.object(BUCKET, moved.getKey()).body()).isEqualTo(body);
+        assertThat(standIn.object(BUCKET, stored.getKey())).isNull();
+    }
+
+    @Test
+    void deleteAllShouldSendOneRequestPerThousandKeysAndReportFailures() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            keys.add("uploads/public/profiles/user-" + i + "/photo.png");
+            standIn.put(BUCKET, keys.get(i), new byte[]{1}, "image/png");
+        }
+        standIn.failDelete(BUCKET, keys.get(1234));
+
+        Map<String, String> failed = storage.deleteAll(keys);
+
+        assertThat(standIn.deleteObjectsRequests()).isEqualTo(3);
+        assertThat(failed).containsOnlyKeys(keys.get(1234));
+        assertThat(failed.get(keys.get(1234))).startsWith("AccessDenied");
+        assertThat(standIn.objectCount()).isEqualTo(1);
+    }
+
+    @Test
+    void listShouldVisitEveryObjectUnderTheSubDirectory() {
+        standIn.put(BUCKET, "uploads/public/profiles/user-1/a.png", new byte[]{1, 2}, "image/png");
+        standIn.put(BUCKET, "uploads/public/profiles/user-2/b.png", new byte[]{1}, "image/png");
+        standIn.put(BUCKET, "uploads/public/objects/ab/c.png", new byte[]{1}, "image/png");
+
+        List<StoredFile> listed = new ArrayList<>();
+        storage.list("public/profiles", listed::add);
+
+        assertThat(listed).extracting(StoredFile::getKey)
+                .containsExactly("uploads/public/profiles/user-1/a.png", "uploads/public/profiles/user-2/b.png");
+        assertThat(listed.get(0).getSize()).isEqualTo(2);
+        assertThat(listed.get(0).getLastModified()).isNotNull();
+    }
+
+    private static void awaitEquals(int expected, IntSupplier actual) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (actual.getAsInt() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(actual.getAsInt()).isEqualTo(expected);
+    }
+
+    private static byte[] png(int size) {
+        byte[] body = Arrays.copyOf(PNG_HEADER, size);
+        for (int i = PNG_HEADER.length; i < size; i++) {
+            body[i] = (byte) (i * 31);
+        }
+        return body;
+    }
+}
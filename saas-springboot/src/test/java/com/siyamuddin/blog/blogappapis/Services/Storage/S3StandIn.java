@@ -0,0 +1,422 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal in-process S3-compatible server for tests, addressed path-style ({@code /bucket/key}).
+ * Supports PUT, HEAD, GET (with a single {@code bytes=a-b} range) and DELETE of objects, multipart
+ * uploads, DeleteObjects and a single-page ListObjectsV2, and records the headers each PUT arrived
+ * with. Signatures are not checked.
+ * <p>
+ * A per-request latency and per-request bandwidth can be set to model a distant S3 endpoint, and
+ * {@link #failPart(int)} makes a part number fail with a 500. Clients are slow to shut down, so
+ * tests share one instance and {@link #reset()} it between tests.
+ */
+final class S3StandIn implements AutoCloseable {
+
+    private static final Pattern XML_KEY = Pattern.compile("<Key>([^<]*)</Key>");
+
+    record StoredObject(byte[] body, String contentType, Map<String, String> requestHeaders) {
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile Duration latency;
+    private final long bytesPerSecond;
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final Map<String, SortedMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final Map<String, String> uploadContentTypes = new ConcurrentHashMap<>();
+    private final Set<Integer> failingParts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger activeParts = new AtomicInteger();
+    private final AtomicInteger maxActiveParts = new AtomicInteger();
+    private final AtomicInteger aborted = new AtomicInteger();
+    private final AtomicInteger deleteRequests = new AtomicInteger();
+    private final Set<String> failingDeletes = ConcurrentHashMap.newKeySet();
+    private volatile boolean keepBodies = true;
+
+    S3StandIn() throws IOException {
+        this(Duration.ZERO, 0);
+    }
+
+    /**
+     * @param bytesPerSecond upload speed of each request, 0 for unlimited
+     */
+    S3StandIn(Duration latency, long bytesPerSecond) throws IOException {
+        this.latency = latency;
+        this.bytesPerSecond = bytesPerSecond;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "s3-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    URI endpoint() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    StoredObject object(String bucket, String key) {
+        return objects.get(bucket + "/" + key);
+    }
+
+    int objectCount() {
+        return objects.size();
+    }
+
+    void put(String bucket, String key, byte[] body, String contentType) {
+        objects.put(bucket + "/" + key, new StoredObject(body, contentType, Map.of()));
+    }
+
+    /**
+     * Store only sizes, not contents; for benchmarks that upload more than fits in memory twice.
+     */
+    void discardBodies() {
+        keepBodies = false;
+    }
+
+    void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Forget all objects, uploads, injected failures and counters.
+     */
+    void reset() {
+        objects.clear();
+        uploads.clear();
+        uploadContentTypes.clear();
+        failingParts.clear();
+        maxActiveParts.set(0);
+        aborted.set(0);
+        deleteRequests.set(0);
+        failingDeletes.clear();
+        latency = Duration.ZERO;
+        keepBodies = true;
+    }
+
+    void failPart(int partNumber) {
+        failingParts.add(partNumber);
+    }
+
+    /**
+     * Make DeleteObjects report the key as not deleted.
+     */
+    void failDelete(String bucket, String key) {
+        failingDeletes.add(bucket + "/" + key);
+    }
+
+    int deleteObjectsRequests() {
+        return deleteRequests.get();
+    }
+
+    int maxConcurrentParts() {
+        return maxActiveParts.get();
+    }
+
+    int pendingUploads() {
+        return uploads.size();
+    }
+
+    int abortedUploads() {
+        return aborted.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath().substring(1);
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    if (query.containsKey("uploadId")) {
+                        uploadPart(exchange, query.get("uploadId"), Integer.parseInt(query.get("partNumber")));
+                    } else if (exchange.getRequestHeaders().containsKey("x-amz-copy-source")) {
+                        copyObject(exchange, path);
+                    } else {
+                        putObject(exchange, path);
+                    }
+                }
+                case "POST" -> {
+                    if (query.containsKey("uploads")) {
+                        createMultipartUpload(exchange, path);
+                    } else if (query.containsKey("delete")) {
+                        deleteObjects(exchange, path);
+                    } else {
+                        completeMultipartUpload(exchange, path, query.get("uploadId"));
+                    }
+                }
+                case "HEAD" -> {
+                    StoredObject object = objects.get(path);
+                    if (object == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+                    exchange.getResponseHeaders().add("Content-Type", object.contentType());
+                    exchange.getResponseHeaders().add("Content-Length", String.valueOf(object.body().length));
+                    exchange.getResponseHeaders().add("ETag", etag(object.body()));
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "GET" -> {
+                    if (query.containsKey("list-type")) {
+                        listObjects(exchange, path, URLDecoder.decode(query.getOrDefault("prefix", ""), StandardCharsets.UTF_8));
+                    } else {
+                        get(exchange, path);
+                    }
+                }
+                case "DELETE" -> {
+                    if (query.containsKey("uploadId")) {
+                        uploads.remove(query.get("uploadId"));
+                        uploadContentTypes.remove(query.get("uploadId"));
+                        aborted.incrementAndGet();
+                    } else {
+                        objects.remove(path);
+                    }
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    private void putObject(HttpExchange exchange, String path) throws IOException {
+        byte[] body = receive(exchange);
+        Map<String, String> headers = new ConcurrentHashMap<>();
+        exchange.getRequestHeaders().forEach((name, values) -> headers.put(name.toLowerCase(), String.join(",", values)));
+        objects.put(path, new StoredObject(keepBodies ? body : new byte[0], headers.get("content-type"), headers));
+        exchange.getResponseHeaders().add("ETag", etag(body));
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void copyObject(HttpExchange exchange, String path) throws IOException {
+        String source = URLDecoder.decode(exchange.getRequestHeaders().getFirst("x-amz-copy-source"), StandardCharsets.UTF_8);
+        StoredObject object = objects.get(source.startsWith("/") ? source.substring(1) : source);
+        if (object == null) {
+            xml(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+            return;
+        }
+        objects.put(path, object);
+        xml(exchange, 200, "<CopyObjectResult><ETag>" + etag(object.body()) + "</ETag>"
+                + "<LastModified>2024-01-01T00:00:00.000Z</LastModified></CopyObjectResult>");
+    }
+
+    private void createMultipartUpload(HttpExchange exchange, String path) throws IOException {
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new TreeMap<>());
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null) {
+            uploadContentTypes.put(uploadId, contentType);
+        }
+        int slash = path.indexOf('/');
+        xml(exchange, 200, "<InitiateMultipartUploadResult><Bucket>" + path.substring(0, slash) + "</Bucket><Key>"
+                + path.substring(slash + 1) + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+    }
+
+    private void uploadPart(HttpExchange exchange, String uploadId, int partNumber) throws IOException {
+        int active = activeParts.incrementAndGet();
+        maxActiveParts.accumulateAndGet(active, Math::max);
+        try {
+            byte[] body = receive(exchange);
+            if (failingParts.contains(partNumber)) {
+                xml(exchange, 500, "<Error><Code>InternalError</Code><Message>Injected failure</Message></Error>");
+                return;
+            }
+            SortedMap<Integer, byte[]> parts = uploads.get(uploadId);
+            if (parts == null) {
+                xml(exchange, 404, "<Error><Code>NoSuchUpload</Code><Message>No such upload</Message></Error>");
+                return;
+            }
+            synchronized (parts) {
+                parts.put(partNumber, keepBodies ? body : new byte[0]);
+            }
+            exchange.getResponseHeaders().add("ETag", etag(body));
+            exchange.sendResponseHeaders(200, -1);
+        } finally {
+            activeParts.decrementAndGet();
+        }
+    }
+
+    private void completeMultipartUpload(HttpExchange exchange, String path, String uploadId) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        SortedMap<Integer, byte[]> parts = uploads.remove(uploadId);
+        if (parts == null) {
+            xml(exchange, 404, "<Error><Code>NoSuchUpload</Code><Message>No such upload</Message></Error>");
+            return;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        synchronized (parts) {
+            for (byte[] part : parts.values()) {
+                body.writeBytes(part);
+            }
+        }
+        objects.put(path, new StoredObject(body.toByteArray(), uploadContentTypes.remove(uploadId), Map.of()));
+        int slash = path.indexOf('/');
+        xml(exchange, 200, "<CompleteMultipartUploadResult><Bucket>" + path.substring(0, slash) + "</Bucket><Key>"
+                + path.substring(slash + 1) + "</Key><ETag>" + etag(body.toByteArray()) + "</ETag>"
+                + "</CompleteMultipartUploadResult>");
+    }
+
+    private void deleteObjects(HttpExchange exchange, String bucket) throws IOException {
+        deleteRequests.incrementAndGet();
+        String body = new String(receive(exchange), StandardCharsets.UTF_8);
+        StringBuilder errors = new StringBuilder();
+        Matcher keys = XML_KEY.matcher(body);
+        while (keys.find()) {
+            String key = keys.group(1);
+            if (failingDeletes.contains(bucket + "/" + key)) {
+                errors.append("<Error><Key>").append(key).append("</Key><Code>AccessDenied</Code>")
+                        .append("<Message>Access Denied</Message></Error>");
+            } else {
+                objects.remove(bucket + "/" + key);
+            }
+        }
+        // Quiet mode: only the failures are reported
+        xml(exchange, 200, "<DeleteResult>" + errors + "</DeleteResult>");
+    }
+
+    private void listObjects(HttpExchange exchange, String bucket, String prefix) throws IOException {
+        StringBuilder contents = new StringBuilder();
+        new TreeMap<>(objects).forEach((path, object) -> {
+            if (path.startsWith(bucket + "/" + prefix)) {
+                contents.append("<Contents><Key>").append(path.substring(bucket.length() + 1)).append("</Key>")
+                        .append("<LastModified>2024-01-01T00:00:00.000Z</LastModified>")
+                        .append("<Size>").append(object.body().length).append("</Size></Contents>");
+            }
+        });
+        xml(exchange, 200, "<ListBucketResult><Name>" + bucket + "</Name><Prefix>" + prefix + "</Prefix>"
+                + "<IsTruncated>false</IsTruncated>" + contents + "</ListBucketResult>");
+    }
+
+    private void get(HttpExchange exchange, String path) throws IOException {
+        StoredObject object = objects.get(path);
+        if (object == null) {
+            xml(exchange, 404, "<Error><Code>NoSuchKey</Code><Message>The specified key does not exist.</Message></Error>");
+            return;
+        }
+        byte[] body = object.body();
+        int status = 200;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null && range.startsWith("bytes=")) {
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(bounds[0]);
+            int end = Math.min(Integer.parseInt(bounds[1]), body.length - 1);
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + body.length);
+            body = Arrays.copyOfRange(body, start, end + 1);
+            status = 206;
+        }
+        exchange.getResponseHeaders().add("Content-Type", object.contentType());
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Read the request body, decoding the SDK's signed chunk framing if it was used, and hold the
+     * response back for the configured latency and bandwidth.
+     */
+    private byte[] receive(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        String payloadHash = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        if (payloadHash != null && payloadHash.startsWith("STREAMING-")) {
+            body = decodeChunks(body);
+        }
+        long delayMillis = latency.toMillis() + (bytesPerSecond > 0 ? body.length * 1000L / bytesPerSecond : 0);
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return body;
+    }
+
+    // <hex size>;chunk-signature=...\r\n<data>\r\n ... 0;chunk-signature=...\r\n[trailers]\r\n
+    private static byte[] decodeChunks(byte[] encoded) {
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        int position = 0;
+        while (position < encoded.length) {
+            int lineEnd = indexOfCrlf(encoded, position);
+            String header = new String(encoded, position, lineEnd - position, StandardCharsets.US_ASCII);
+            int size = Integer.parseInt(header.split(";")[0].trim(), 16);
+            if (size == 0) {
+                break;
+            }
+            decoded.write(encoded, lineEnd + 2, size);
+            position = lineEnd + 2 + size + 2;
+        }
+        return decoded.toByteArray();
+    }
+
+    private static int indexOfCrlf(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length - 1; i++) {
+            if (bytes[i] == '\r' && bytes[i + 1] == '\n') {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Malformed chunked body");
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            query.put(equals < 0 ? pair : pair.substring(0, equals), equals < 0 ? "" : pair.substring(equals + 1));
+        }
+        return query;
+    }
+
+    private static void xml(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(body)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,168 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the blocking single-PUT client with the async multipart uploader against
+ * {@link S3StandIn} limited to a fixed bandwidth per request, like a distant S3 endpoint.
+ * Reports wall time, throughput and the peak number of client-side threads above the idle count
+ * (stand-in threads excluded). Not part of the normal build; run with
+ * {@code mvn test -Dtest=S3UploadBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class S3UploadBenchmark {
+
+    private static final String BUCKET = "bench";
+    private static final int UPLOADS = 8;
+    private static final int OBJECT_SIZE = 16 * 1024 * 1024;
+    private static final long BYTES_PER_SECOND_PER_REQUEST = 8L * 1024 * 1024;
+    private static final Duration LATENCY = Duration.ofMillis(20);
+
+    @Test
+    void blockingPutVersusAsyncMultipart() throws Exception {
+        byte[][] objects = new byte[UPLOADS][OBJECT_SIZE];
+        Random random = new Random(42);
+        for (byte[] object : objects) {
+            random.nextBytes(object);
+        }
+
+        try (S3StandIn standIn = new S3StandIn(LATENCY, BYTES_PER_SECOND_PER_REQUEST)) {
+            standIn.discardBodies();
+            StaticCredentialsProvider credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create("bench", "bench"));
+            S3Client s3Client = S3Client.builder().region(Region.US_EAST_1).credentialsProvider(credentials)
+                    .endpointOverride(standIn.endpoint()).forcePathStyle(true).build();
+            S3AsyncClient s3AsyncClient = S3AsyncClient.builder().region(Region.US_EAST_1).credentialsProvider(credentials)
+                    .endpointOverride(standIn.endpoint()).forcePathStyle(true).build();
+            S3Presigner presigner = S3Presigner.builder().region(Region.US_EAST_1).credentialsProvider(credentials)
+                    .endpointOverride(standIn.endpoint()).build();
+            FileStorageProperties properties = new FileStorageProperties();
+            properties.getS3().setBucketName(BUCKET);
+            properties.getS3().setRegion("us-east-1");
+            properties.getS3().getMultipart().setThreshold(DataSize.ofMegabytes(8));
+            properties.getS3().getMultipart().setPartSize(DataSize.ofMegabytes(4));
+            properties.getS3().getMultipart().setMaxInFlight(DataSize.ofMegabytes(64));
+
+            try (S3FileStorageService storage = new S3FileStorageService(s3Client, s3AsyncClient, presigner, properties)) {
+                // Warm up both paths (connection setup, class loading)
+                blocking(s3Client, new byte[][]{objects[0]});
+                async(storage, new byte[][]{objects[0]});
+
+                Result blocking = measure(() -> blocking(s3Client, objects));
+                Result async = measure(() -> async(storage, objects));
+
+                System.out.printf("%n%d uploads of %d MB, %d MB/s per request, %d ms latency%n",
+                        UPLOADS, OBJECT_SIZE >> 20, BYTES_PER_SECOND_PER_REQUEST >> 20, LATENCY.toMillis());
+                System.out.printf("%-28s %10s %10s %14s%n", "client", "wall ms", "MB/s", "extra threads");
+                print("blocking S3Client putObject", blocking);
+                print("S3AsyncClient multipart", async);
+                assertThat(async.millis()).isLessThan(blocking.millis());
+            }
+        }
+    }
+
+    /**
+     * One platform thread per concurrent upload, as with the previous request-thread uploads.
+     */
+    private static void blocking(S3Client client, byte[][] objects) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(objects.length);
+        try {
+            List<Future<?>> uploads = new ArrayList<>();
+            AtomicInteger sequence = new AtomicInteger();
+            for (byte[] object : objects) {
+                uploads.add(callers.submit(() -> client.putObject(
+                        b -> b.bucket(BUCKET).key("blocking/" + sequence.incrementAndGet()).contentType("application/octet-stream"),
+                        RequestBody.fromBytes(object))));
+            }
+            for (Future<?> upload : uploads) {
+                upload.get();
+            }
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    /**
+     * All uploads started from the calling thread.
+     */
+    private static void async(S3FileStorageService storage, byte[][] objects) {
+        List<CompletableFuture<StoredFile>> uploads = new ArrayList<>();
+        for (byte[] object : objects) {
+            uploads.add(storage.storeAsync(FileUploadRequest.builder()
+                    .file(new MockMultipartFile("file", "object.bin", "application/octet-stream", object))
+                    .subDirectory("async")
+                    .build()));
+        }
+        CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private static Result measure(ThrowingRunnable run) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        int idleThreads = clientThreads();
+        AtomicInteger peakThreads = new AtomicInteger();
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                peakThreads.accumulateAndGet(clientThreads(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "thread-sampler");
+        sampler.start();
+        long start = System.nanoTime();
+        try {
+            run.run();
+        } finally {
+            running.set(false);
+            sampler.join();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        return new Result(millis, peakThreads.get() - idleThreads);
+    }
+
+    /**
+     * Live threads other than the stand-in's and the sampler itself.
+     */
+    private static int clientThreads() {
+        return (int) Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> !thread.getName().startsWith("s3-stand-in") && !thread.getName().equals("thread-sampler"))
+                .count();
+    }
+
+    private static void print(String name, Result result) {
+        double megabytesPerSecond = (double) UPLOADS * OBJECT_SIZE / (1 << 20) / (result.millis() / 1000.0);
+        System.out.printf("%-28s %10d %10.1f %14d%n", name, result.millis(), megabytesPerSecond, result.peakThreads());
+    }
+
+    private record Result(long millis, int peakThreads) {
+    }
+
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,207 @@
+package com.siyamuddin.blog.blogappapis.Services.Storage;
+
+import com.siyamuddin.blog.blogappapis.Config.Properties.FileStorageProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StorageGarbageCollectorTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R'};
+
+    @TempDir
+    Path basePath;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private FileStorageProperties properties;
+    private StorageCleaner storageCleaner;
+    private SimpleMeterRegistry meterRegistry;
+    private final Set<String> referenced = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:storage-gc;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE stored_object (object_id VARCHAR(80) PRIMARY KEY, storage_key VARCHAR(512) UNIQUE, " +
+                "public_url VARCHAR(1024), content_type VARCHAR(100), size_bytes BIGINT NOT NULL, ref_count INT NOT NULL, " +
+                "created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE storage_tombstone (id BIGINT AUTO_INCREMENT PRIMARY KEY, storage_key VARCHAR(512) NOT NULL, " +
+                "owner_key VARCHAR(512), status VARCHAR(20) NOT NULL, attempts INT NOT NULL, next_attempt_at TIMESTAMP NOT NULL, " +
+                "claim_token VARCHAR(36), claimed_at TIMESTAMP, created_at TIMESTAMP NOT NULL, last_error VARCHAR(1000))");
+        properties = new FileStorageProperties();
+        properties.getLocal().setBasePath(basePath.toString());
+        properties.getCleanup().setBatchSize(2);
+        properties.getCleanup().setMaxAttempts(2);
+        properties.getCleanup().setInitialBackoffMillis(60_000L);
+        storageCleaner = new StorageCleaner(jdbcTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void tombstonedFilesShouldBeDeletedInBatchesAndTheirTombstonesRemoved() throws Exception {
+        LocalFileStorageService storage = new LocalFileStorageService(properties);
+        List<String> keys = List.of("public/profiles/user-1/a.png", "public/profiles/user-2/b.png",
+                "public/profiles/user-3/c.png");
+        for (String key : keys) {
+            write(key, Instant.now());
+        }
+        storageCleaner.deleteLater(keys, null);
+
+        collector(storage).collect();
+
+        assertThat(keys).noneMatch(key -> Files.exists(basePath.resolve(key)));
+        assertThat(tombstoneCount()).isZero();
+        assertThat(meterRegistry.get("app.storage.gc.deleted").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("app.storage.gc.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void contentUploadedAgainBeforeCollectionShouldBeKept() {
+        LocalFileStorageService storage = new LocalFileStorageService(properties);
+        StorageGarbageCollector collector = collector(storage);
+        ContentAddressedStorage contentAddressedStorage = contentAddressedStorage(storage);
+        StoredFile stored = contentAddressedStorage.store(upload());
+        contentAddressedStorage.release(stored.getKey(), List.of());
+        contentAddressedStorage.store(upload());
+
+        collector.collect();
+
+        assertThat(Files.exists(basePath.resolve(stored.getKey()))).isTrue();
+        assertThat(tombstoneCount()).isZero();
+        assertThat(meterRegistry.get("app.storage.gc.kept").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void releaseShouldBeRecordedWhileCleanupIsDisabledAndCollectedOnceEnabled() {
+        properties.getCleanup().setEnabled(false);
+        LocalFileStorageService storage = new LocalFileStorageService(properties);
+        StorageGarbageCollector collector = collector(storage);
+        ContentAddressedStorage contentAddressedStorage = contentAddressedStorage(storage);
+        StoredFile stored = contentAddressedStorage.store(upload());
+        contentAddressedStorage.release(stored.getKey(), List.of());
+
+        collector.collect();
+
+        assertThat(Files.exists(basePath.resolve(stored.getKey()))).isTrue();
+        assertThat(tombstoneCount()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT ref_count FROM stored_object", Integer.class)).isZero();
+
+        properties.getCleanup().setEnabled(true);
+        collector.collect();
+
+        assertThat(Files.exists(basePath.resolve(stored.getKey()))).isFalse();
+        assertThat(tombstoneCount()).isZero();
+    }
+
+    @Test
+    void failedDeleteShouldBeRetriedWithBackoffAndGivenUpAfterMaxAttempts() {
+        FileStorageService storage = mock(FileStorageService.class);
+        when(storage.deleteAll(anyCollection())).thenReturn(Map.of("public/profiles/user-1/a.png", "AccessDenied: no"));
+        StorageGarbageCollector collector = collector(storage);
+        storageCleaner.deleteLater("public/profiles/user-1/a.png");
+
+        assertThat(collector.collectBatch()).isEqualTo(1);
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT * FROM storage_tombstone");
+        assertThat(row.get("STATUS")).isEqualTo("PENDING");
+        assertThat(row.get("ATTEMPTS")).isEqualTo(1);
+        assertThat(row.get("LAST_ERROR")).isEqualTo("AccessDenied: no");
+        assertThat(((Timestamp) row.get("NEXT_ATTEMPT_AT")).toLocalDateTime())
+                .isAfter(LocalDateTime.now().plusSeconds(29));
+        assertThat(collector.collectBatch()).isZero();
+
+        jdbcTemplate.update("UPDATE storage_tombstone SET next_attempt_at = ?", Timestamp.valueOf(LocalDateTime.now()));
+        collector.collectBatch();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM storage_tombstone", String.class)).isEqualTo("FAILED");
+        assertThat(meterRegistry.get("app.storage.gc.retried").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("app.storage.gc.failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reconciliationShouldTombstoneOnlyOldUnreferencedFiles() throws Exception {
+        Instant old = Instant.now().minus(Duration.ofDays(2));
+        write("public/profiles/user-1/current.png", old);
+        write("public/profiles/user-1/orphan.png", old);
+        write("public/profiles/user-2/just-uploaded.png", Instant.now());
+        write("public/reports/old.pdf", old);
+        referenced.add("public/profiles/user-1/current.png");
+        StorageGarbageCollector collector = collector(new LocalFileStorageService(properties));
+
+        assertThat(collector.reconcileNow()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForMap("SELECT storage_key, owner_key FROM storage_tombstone"))
+                .containsEntry("STORAGE_KEY", "public/profiles/user-1/orphan.png")
+                .containsEntry("OWNER_KEY", "public/profiles/user-1/orphan.png");
+
+        // Already tombstoned
+        assertThat(collector.reconcileNow()).isZero();
+    }
+
+    @Test
+    void backoffShouldDoubleWithJitterUpToTheMaximum() {
+        properties.getCleanup().setMaxBackoffMillis(200_000L);
+        StorageGarbageCollector collector = collector(mock(FileStorageService.class));
+
+        assertThat(collector.backoff(1).toMillis()).isBetween(30_000L, 60_000L);
+        assertThat(collector.backoff(2).toMillis()).isBetween(60_000L, 120_000L);
+        assertThat(collector.backoff(10).toMillis()).isBetween(100_000L, 200_000L);
+    }
+
+    private StorageGarbageCollector collector(FileStorageService storage) {
+        List<StoredFileReferences> references = List.of(visitor -> referenced.forEach(visitor));
+        return new StorageGarbageCollector(jdbcTemplate, storage, contentAddressedStorage(storage), storageCleaner,
+                references, properties, meterRegistry);
+    }
+
+    private ContentAddressedStorage contentAddressedStorage(FileStorageService storage) {
+        return new ContentAddressedStorage(storage, jdbcTemplate, storageCleaner,
+                new DataSourceTransactionManager(dataSource), properties, Runnable::run);
+    }
+
+    private static FileUploadRequest upload() {
+        return FileUploadRequest.builder()
+                .file(new MockMultipartFile("file", "a.png", "image/png", PNG))
+                .subDirectory("public/profiles/user-7")
+                .build();
+    }
+
+    private void write(String key, Instant lastModified) throws Exception {
+        Path file = basePath.resolve(key);
+        Files.createDirectories(file.getParent());
+        Files.write(file, PNG);
+        Files.setLastModifiedTime(file, FileTime.from(lastModified));
+    }
+
+    private int tombstoneCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM storage_tombstone", Integer.class);
+    }
+}
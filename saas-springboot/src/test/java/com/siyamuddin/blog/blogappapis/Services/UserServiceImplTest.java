@@ -0,0 +1,72 @@
+package com.siyamuddin.blog.blogappapis.Services;
+
+import com.siyamuddin.blog.blogappapis.Entity.User;
+import com.siyamuddin.blog.blogappapis.Repository.UserRepo;
+import com.siyamuddin.blog.blogappapis.Services.Impl.UserServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceImplTest {
+
+    @Mock
+    private UserRepo userRepo;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @InjectMocks
+    private UserServiceImpl userService;
+
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        user = new User();
+        user.setId(7);
+        user.setPassword("{bcrypt}old");
+    }
+
+    @Test
+    void outdatedHashShouldBeReplacedWithOneConditionalUpdate() {
+        when(passwordEncoder.upgradeEncoding("{bcrypt}old")).thenReturn(true);
+        when(passwordEncoder.encode("secret")).thenReturn("{bcrypt}new");
+        when(userRepo.replacePasswordHash(7, "{bcrypt}old", "{bcrypt}new")).thenReturn(1);
+
+        assertThat(userService.upgradePasswordHashIfNeeded(user, "secret")).isTrue();
+
+        assertThat(user.getPassword()).isEqualTo("{bcrypt}new");
+        verify(userRepo, never()).save(any());
+    }
+
+    @Test
+    void passwordChangedDuringTheUpgradeShouldBeKept() {
+        when(passwordEncoder.upgradeEncoding("{bcrypt}old")).thenReturn(true);
+        when(passwordEncoder.encode("secret")).thenReturn("{bcrypt}new");
+        when(userRepo.replacePasswordHash(7, "{bcrypt}old", "{bcrypt}new")).thenReturn(0);
+
+        assertThat(userService.upgradePasswordHashIfNeeded(user, "secret")).isFalse();
+
+        assertThat(user.getPassword()).isEqualTo("{bcrypt}old");
+    }
+
+    @Test
+    void currentHashShouldNotBeRecomputed() {
+        when(passwordEncoder.upgradeEncoding("{bcrypt}old")).thenReturn(false);
+
+        assertThat(userService.upgradePasswordHashIfNeeded(user, "secret")).isFalse();
+
+        verify(passwordEncoder, never()).encode(any());
+    }
+}